@@ -0,0 +1,155 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dasburo.spring.cache.dynamo;
+
+import com.dasburo.spring.cache.dynamo.rootattribute.RootAttribute;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Non-blocking counterpart of {@link DynamoCacheWriter}. All operations are issued on a {@link DynamoDbAsyncClient}
+ * and return a {@link CompletableFuture} instead of blocking the calling thread.
+ * <p>
+ * Items are stored in the same layout as by a {@link DefaultDynamoCacheWriter} storing values in single items, see
+ * {@link DefaultAsyncDynamoCacheWriter} for the configurations a table can be shared with. Use {@link AsyncDynamoCacheWriterAdapter} to back a {@link DynamoCache} with an {@link AsyncDynamoCacheWriter}.
+ */
+public interface AsyncDynamoCacheWriter {
+
+  /**
+   * Create new {@link AsyncDynamoCacheWriter} without locking behavior.
+   *
+   * @param dynamoTemplate must not be {@literal null}.
+   * @return new instance of {@link DefaultAsyncDynamoCacheWriter}.
+   */
+  static AsyncDynamoCacheWriter nonLockingAsyncDynamoCacheWriter(DynamoDbAsyncClient dynamoTemplate) {
+
+    Assert.notNull(dynamoTemplate, "DynamoDbAsyncClient must not be null!");
+
+    return new DefaultAsyncDynamoCacheWriter(dynamoTemplate);
+  }
+
+  /**
+   * Returns the native connection library for the cache.
+   *
+   * @return {@link DynamoDbAsyncClient}
+   */
+  DynamoDbAsyncClient getNativeCacheWriter();
+
+  /**
+   * Create a cache table for the given name.
+   *
+   * @param name               The cache name must not be {@literal null}.
+   * @param ttl                Optional expiration time. Must not be {@literal null}. Use {@code Duration.ZERO} to declare an eternal cache.
+   * @param readCapacityUnits  Amount of strongly consistent reads per second must not be {@literal null}.
+   * @param writeCapacityUnits Amount of strongly consistent writes per second must not be {@literal null}.
+   * @return completes with {@literal true} if table had to be created.
+   */
+  CompletableFuture<Boolean> createIfNotExists(String name, Duration ttl, Long readCapacityUnits, Long writeCapacityUnits);
+
+  /**
+   * Write the given key/value pair to Dynamo and set the expiration time if defined.
+   *
+   * @param name           The cache name must not be {@literal null}.
+   * @param key            The key for the cache entry. Must not be {@literal null}.
+   * @param value          The value stored for the key. Can be {@literal null}.
+   * @param ttl            Optional expiration time. Can be {@literal null}.
+   * @param rootAttributes Optional additional root attributes. Can be {@literal null}.
+   * @return completes when the value has been written.
+   */
+  CompletableFuture<Void> put(String name, String key, @Nullable byte[] value, @Nullable Duration ttl, @Nullable List<RootAttribute> rootAttributes);
+
+  /**
+   * Get the binary value representation from Dynamo stored for the given key.
+   *
+   * @param name must not be {@literal null}.
+   * @param key  must not be {@literal null}.
+   * @return completes with the stored value, {@literal null} if key does not exist.
+   */
+  CompletableFuture<byte[]> get(String name, String key);
+
+  /**
+   * Look up the entry stored for the given key, telling an absent entry from an entry holding {@literal null}.
+   *
+   * @param name must not be {@literal null}.
+   * @param key  must not be {@literal null}.
+   * @return completes with the lookup result.
+   */
+  CompletableFuture<DynamoCacheLookup> lookup(String name, String key);
+
+  /**
+   * Get the binary value representations from Dynamo stored for the given keys.
+   *
+   * @param name must not be {@literal null}.
+   * @param keys must not be {@literal null}.
+   * @return completes with the values of all keys that exist.
+   */
+  CompletableFuture<Map<String, byte[]>> getAll(String name, Collection<String> keys);
+
+  /**
+   * Look up the entries stored for the given keys, like {@link #getAll(String, Collection)} but with their
+   * expiration times.
+   * <br><b>Note:</b> The default implementation delegates to {@link #getAll(String, Collection)} and can therefore not
+   * detect the expiration times. Implementations should override it.
+   *
+   * @param name must not be {@literal null}.
+   * @param keys must not be {@literal null}.
+   * @return completes with the lookup results of all keys that exist and are not stale.
+   */
+  default CompletableFuture<Map<String, DynamoCacheLookup>> lookupAll(String name, Collection<String> keys) {
+    return getAll(name, keys).thenApply(values -> {
+      Map<String, DynamoCacheLookup> result = new HashMap<>();
+      values.forEach((key, value) -> result.put(key, DynamoCacheLookup.present(value, null)));
+      return result;
+    });
+  }
+
+  /**
+   * Write the given value to Dynamo if the key does not already exist.
+   *
+   * @param name           The cache name must not be {@literal null}.
+   * @param key            The key for the cache entry. Must not be {@literal null}.
+   * @param value          The value stored for the key. Can be {@literal null}.
+   * @param ttl            Optional expiration time. Can be {@literal null}.
+   * @param rootAttributes Optional additional root attributes. Can be {@literal null}.
+   * @return completes with {@literal null} if the value has been written, the value stored for the key if it already exists.
+   */
+  CompletableFuture<byte[]> putIfAbsent(String name, String key, @Nullable byte[] value, @Nullable Duration ttl, @Nullable List<RootAttribute> rootAttributes);
+
+  /**
+   * Remove the given key from Dynamo.
+   *
+   * @param name The cache name must not be {@literal null}.
+   * @param key  The key for the cache entry. Must not be {@literal null}.
+   * @return completes when the key has been removed.
+   */
+  CompletableFuture<Void> remove(String name, String key);
+
+  /**
+   * Remove all keys from the given cache name.
+   *
+   * @param name The cache name must not be {@literal null}.
+   * @return completes when all keys have been removed.
+   */
+  CompletableFuture<Void> clear(String name);
+}
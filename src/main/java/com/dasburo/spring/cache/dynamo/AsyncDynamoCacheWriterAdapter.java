@@ -0,0 +1,128 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dasburo.spring.cache.dynamo;
+
+import com.dasburo.spring.cache.dynamo.rootattribute.RootAttribute;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * {@link DynamoCacheWriter} backed by an {@link AsyncDynamoCacheWriter}, so a {@link DynamoCache} can be used on top of
+ * a {@link software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient}. Every operation waits for the returned future
+ * and rethrows its cause; callers that want to stay non-blocking use {@link #getAsyncCacheWriter()} directly.
+ */
+public class AsyncDynamoCacheWriterAdapter implements DynamoCacheWriter {
+
+  private final AsyncDynamoCacheWriter asyncCacheWriter;
+
+  /**
+   * @param asyncCacheWriter must not be {@literal null}.
+   */
+  public AsyncDynamoCacheWriterAdapter(AsyncDynamoCacheWriter asyncCacheWriter) {
+    Assert.notNull(asyncCacheWriter, "AsyncDynamoCacheWriter must not be null!");
+
+    this.asyncCacheWriter = asyncCacheWriter;
+  }
+
+  /**
+   * Returns the adapted {@link AsyncDynamoCacheWriter}.
+   *
+   * @return the async cache writer.
+   */
+  public AsyncDynamoCacheWriter getAsyncCacheWriter() {
+    return asyncCacheWriter;
+  }
+
+  /**
+   * There is no blocking client behind this writer.
+   *
+   * @return always {@literal null}; use {@link #getAsyncCacheWriter()} to access the
+   * {@link software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient}.
+   */
+  @Override
+  @Nullable
+  public DynamoDbClient getNativeCacheWriter() {
+    return null;
+  }
+
+  @Override
+  public boolean createIfNotExists(String name, Duration ttl, Long readCapacityUnits, Long writeCapacityUnits) {
+    return join(asyncCacheWriter.createIfNotExists(name, ttl, readCapacityUnits, writeCapacityUnits));
+  }
+
+  @Override
+  public void put(String name, String key, byte[] value, @Nullable Duration ttl, @Nullable List<RootAttribute> rootAttributes) {
+    join(asyncCacheWriter.put(name, key, value, ttl, rootAttributes));
+  }
+
+  @Override
+  public byte[] get(String name, String key) {
+    return join(asyncCacheWriter.get(name, key));
+  }
+
+  @Override
+  public DynamoCacheLookup lookup(String name, String key) {
+    return join(asyncCacheWriter.lookup(name, key));
+  }
+
+  @Override
+  public Map<String, byte[]> getAll(String name, Collection<String> keys) {
+    return join(asyncCacheWriter.getAll(name, keys));
+  }
+
+  @Override
+  public Map<String, DynamoCacheLookup> lookupAll(String name, Collection<String> keys) {
+    return join(asyncCacheWriter.lookupAll(name, keys));
+  }
+
+  @Override
+  public byte[] putIfAbsent(String name, String key, byte[] value, @Nullable Duration ttl, @Nullable List<RootAttribute> rootAttributes) {
+    return join(asyncCacheWriter.putIfAbsent(name, key, value, ttl, rootAttributes));
+  }
+
+  @Override
+  public void remove(String name, String key) {
+    join(asyncCacheWriter.remove(name, key));
+  }
+
+  @Override
+  public void clear(String name) {
+    join(asyncCacheWriter.clear(name));
+  }
+
+  private static <T> T join(CompletableFuture<T> future) {
+    try {
+      return future.join();
+    } catch (CompletionException e) {
+      Throwable cause = DefaultAsyncDynamoCacheWriter.unwrap(e);
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw e;
+    }
+  }
+}
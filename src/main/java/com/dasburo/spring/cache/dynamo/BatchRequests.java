@@ -0,0 +1,135 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dasburo.spring.cache.dynamo;
+
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.WriteRequest;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.function.IntConsumer;
+
+/**
+ * Batch requests shared by the writers and clear strategies: the DynamoDB batch limits, the backoff between retries
+ * of unprocessed items and a {@code BatchWriteItem} loop retrying them.
+ */
+final class BatchRequests {
+
+  /**
+   * Maximum number of write requests DynamoDB accepts in a single {@code BatchWriteItem} request.
+   */
+  static final int MAX_BATCH_WRITE_SIZE = 25;
+
+  /**
+   * Maximum number of retries of unprocessed batch items.
+   */
+  static final int MAX_BATCH_RETRIES = 8;
+
+  private static final long BATCH_RETRY_BASE_DELAY_MILLIS = 25;
+
+  private BatchRequests() {
+    throw new IllegalStateException("Utility class");
+  }
+
+  /**
+   * Write the given requests with {@code BatchWriteItem}, retrying unprocessed items with exponential backoff.
+   *
+   * @param dynamoTemplate must not be {@literal null}.
+   * @param requestItems   the requests by table name, at most {@value #MAX_BATCH_WRITE_SIZE} in total.
+   * @return the items still unprocessed after {@value #MAX_BATCH_RETRIES} retries or an interrupt, empty if all have
+   * been written.
+   */
+  static Map<String, List<WriteRequest>> batchWrite(DynamoDbClient dynamoTemplate, Map<String, List<WriteRequest>> requestItems) {
+    return batchWrite(dynamoTemplate, requestItems, written -> {
+    });
+  }
+
+  /**
+   * Write the given requests with {@code BatchWriteItem}, retrying unprocessed items with exponential backoff.
+   *
+   * @param dynamoTemplate must not be {@literal null}.
+   * @param requestItems   the requests by table name, at most {@value #MAX_BATCH_WRITE_SIZE} in total.
+   * @param onWritten      called with the number of items written by each request.
+   * @return the items still unprocessed after {@value #MAX_BATCH_RETRIES} retries or an interrupt, empty if all have
+   * been written.
+   */
+  static Map<String, List<WriteRequest>> batchWrite(DynamoDbClient dynamoTemplate, Map<String, List<WriteRequest>> requestItems,
+                                                    IntConsumer onWritten) {
+    Map<String, List<WriteRequest>> unprocessed = requestItems;
+    for (int attempt = 0; !unprocessed.isEmpty(); attempt++) {
+      if (attempt > 0 && (attempt > MAX_BATCH_RETRIES || !backoff(attempt))) {
+        break;
+      }
+
+      BatchWriteItemResponse response = dynamoTemplate.batchWriteItem(BatchWriteItemRequest.builder()
+        .requestItems(unprocessed)
+        .build());
+      int remaining = count(unprocessed);
+      unprocessed = response.hasUnprocessedItems() ? response.unprocessedItems() : Collections.emptyMap();
+      onWritten.accept(remaining - count(unprocessed));
+    }
+    return unprocessed;
+  }
+
+  /**
+   * @return the number of write requests in the given request items.
+   */
+  static int count(Map<String, List<WriteRequest>> requestItems) {
+    return requestItems.values().stream().mapToInt(List::size).sum();
+  }
+
+  /**
+   * Exponential backoff between retries of unprocessed batch items.
+   *
+   * @return {@literal false} if the thread has been interrupted while waiting.
+   */
+  static boolean backoff(int attempt) {
+    try {
+      Thread.sleep(backoffMillis(attempt));
+      return true;
+    } catch (InterruptedException e) {
+      // Re-interrupt current thread, to allow other participants to react.
+      Thread.currentThread().interrupt();
+      return false;
+    }
+  }
+
+  /**
+   * @return the delay in milliseconds before the given retry of unprocessed batch items.
+   */
+  static long backoffMillis(int attempt) {
+    return BATCH_RETRY_BASE_DELAY_MILLIS << Math.min(attempt - 1, 5);
+  }
+
+  /**
+   * @return the shared, bounded pool of daemon threads used to issue batch requests concurrently.
+   */
+  static Executor batchExecutor() {
+    return BatchExecutorHolder.EXECUTOR;
+  }
+
+  /**
+   * Shared, bounded pool of daemon threads used to issue batch requests concurrently.
+   */
+  private static class BatchExecutorHolder {
+
+    private static final Executor EXECUTOR = DaemonExecutors.newPool("dynamo-cache-batch-", Integer.MAX_VALUE);
+  }
+}
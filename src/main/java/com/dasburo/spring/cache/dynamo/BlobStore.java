@@ -0,0 +1,148 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dasburo.spring.cache.dynamo;
+
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.function.Consumer;
+
+/**
+ * External store for values offloaded by {@link DefaultDynamoCacheWriter}. The cache table only keeps a pointer to
+ * the blob together with its size and checksum.
+ * <p>
+ * Blobs are addressed by the cache name and an id chosen by the writer, each write uses a new id. Blobs that are no
+ * longer referenced by the table are removed by a {@link BlobSweeper}.
+ */
+public interface BlobStore {
+
+  /**
+   * Store a blob.
+   *
+   * @param name      the cache name. Must not be {@literal null}.
+   * @param id        the id of the blob. Must not be {@literal null}.
+   * @param value     the content of the blob. Must not be {@literal null}.
+   * @param expiresAt the time the blob expires at. Can be {@literal null} if it does not expire.
+   */
+  void put(String name, String id, byte[] value, @Nullable Instant expiresAt);
+
+  /**
+   * Read a blob.
+   *
+   * @param name the cache name. Must not be {@literal null}.
+   * @param id   the id of the blob. Must not be {@literal null}.
+   * @return the content of the blob, {@literal null} if it does not exist or has expired.
+   */
+  @Nullable
+  byte[] get(String name, String id);
+
+  /**
+   * Remove a blob if it exists.
+   *
+   * @param name the cache name. Must not be {@literal null}.
+   * @param id   the id of the blob. Must not be {@literal null}.
+   */
+  void delete(String name, String id);
+
+  /**
+   * Pass all blobs stored for the given cache to the action.
+   *
+   * @param name   the cache name. Must not be {@literal null}.
+   * @param action must not be {@literal null}.
+   */
+  void forEach(String name, Consumer<BlobInfo> action);
+
+  /**
+   * Remove the remains of writes of the given cache that have not completed, e.g. due to a crash, and were started
+   * before the given time. Stores writing blobs atomically need not override this.
+   *
+   * @param name   the cache name. Must not be {@literal null}.
+   * @param before the time incomplete writes must have been started before to be removed. Must not be {@literal null}.
+   * @return the number of removed incomplete writes.
+   */
+  default long removeIncomplete(String name, Instant before) {
+    return 0;
+  }
+
+  /**
+   * A {@link BlobStore} keeping one file per blob below the given directory, for tests and single-host deployments.
+   *
+   * @param directory the root directory, created if it does not exist. Must not be {@literal null}.
+   * @return new instance of {@link BlobStore}.
+   */
+  static BlobStore fileSystem(Path directory) {
+    Assert.notNull(directory, "Directory must not be null!");
+
+    return new FileSystemBlobStore(directory);
+  }
+
+  /**
+   * Metadata of a stored blob.
+   */
+  final class BlobInfo {
+
+    private final String id;
+    private final Instant createdAt;
+    @Nullable
+    private final Instant expiresAt;
+
+    /**
+     * @param id        the id of the blob. Must not be {@literal null}.
+     * @param createdAt the time the blob has been written. Must not be {@literal null}.
+     * @param expiresAt the time the blob expires at. Can be {@literal null} if it does not expire.
+     */
+    public BlobInfo(String id, Instant createdAt, @Nullable Instant expiresAt) {
+      Assert.notNull(id, "Id must not be null!");
+      Assert.notNull(createdAt, "CreatedAt must not be null!");
+
+      this.id = id;
+      this.createdAt = createdAt;
+      this.expiresAt = expiresAt;
+    }
+
+    /**
+     * @return the id of the blob.
+     */
+    public String getId() {
+      return id;
+    }
+
+    /**
+     * @return the time the blob has been written.
+     */
+    public Instant getCreatedAt() {
+      return createdAt;
+    }
+
+    /**
+     * @return the time the blob expires at, {@literal null} if it does not expire.
+     */
+    @Nullable
+    public Instant getExpiresAt() {
+      return expiresAt;
+    }
+
+    /**
+     * @param now the current time. Must not be {@literal null}.
+     * @return {@literal true} if the blob has expired.
+     */
+    public boolean isExpired(Instant now) {
+      return expiresAt != null && now.isAfter(expiresAt);
+    }
+  }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dasburo.spring.cache.dynamo;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.Assert;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ScanRequest;
+import software.amazon.awssdk.services.dynamodb.model.ScanResponse;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.dasburo.spring.cache.dynamo.DefaultDynamoCacheWriter.ATTRIBUTE_BLOB_ID;
+
+/**
+ * Removes blobs of a {@link BlobStore} that are no longer referenced by the cache table, e.g. because their entry has
+ * been overwritten, removed or cleared, as well as expired blobs.
+ * <p>
+ * The referenced blobs are collected with a scan of the table. Blobs younger than the grace period are kept even if
+ * they are not referenced, as a writer stores the blob before the item pointing to it. Sweeping is meant to run
+ * periodically, e.g. from a scheduled task.
+ */
+public class BlobSweeper {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(BlobSweeper.class);
+
+  /**
+   * Default minimum age of an unreferenced blob before it is removed.
+   */
+  public static final Duration DEFAULT_GRACE_PERIOD = Duration.ofMinutes(5);
+
+  private final DynamoDbClient dynamoTemplate;
+  private final BlobStore blobStore;
+  private final Duration gracePeriod;
+
+  /**
+   * @param dynamoTemplate must not be {@literal null}.
+   * @param blobStore      must not be {@literal null}.
+   */
+  public BlobSweeper(DynamoDbClient dynamoTemplate, BlobStore blobStore) {
+    this(dynamoTemplate, blobStore, DEFAULT_GRACE_PERIOD);
+  }
+
+  /**
+   * @param dynamoTemplate must not be {@literal null}.
+   * @param blobStore      must not be {@literal null}.
+   * @param gracePeriod    minimum age of an unreferenced blob before it is removed. Must not be {@literal null}.
+   */
+  public BlobSweeper(DynamoDbClient dynamoTemplate, BlobStore blobStore, Duration gracePeriod) {
+    Assert.notNull(dynamoTemplate, "DynamoDbClient must not be null!");
+    Assert.notNull(blobStore, "BlobStore must not be null!");
+    Assert.notNull(gracePeriod, "GracePeriod must not be null!");
+    Assert.isTrue(!gracePeriod.isNegative(), "GracePeriod must not be negative!");
+
+    this.dynamoTemplate = dynamoTemplate;
+    this.blobStore = blobStore;
+    this.gracePeriod = gracePeriod;
+  }
+
+  /**
+   * Remove expired and unreferenced blobs of the given cache, as well as incomplete writes older than the grace period.
+   *
+   * @param name the cache name. Must not be {@literal null}.
+   * @return the number of removed blobs and incomplete writes.
+   */
+  public long sweep(String name) {
+    Assert.notNull(name, "Name must not be null!");
+
+    Set<String> referenced = referencedBlobs(name);
+    Instant now = Instant.now();
+    Instant unreferencedBefore = now.minus(gracePeriod);
+
+    AtomicLong removed = new AtomicLong();
+    blobStore.forEach(name, blob -> {
+      if (blob.isExpired(now) || (!referenced.contains(blob.getId()) && blob.getCreatedAt().isBefore(unreferencedBefore))) {
+        blobStore.delete(name, blob.getId());
+        removed.incrementAndGet();
+      }
+    });
+
+    // blobs are written within the grace period, so a write started before it has failed
+    long incomplete = blobStore.removeIncomplete(name, unreferencedBefore);
+
+    LOGGER.debug("Removed {} blobs and {} incomplete writes of cache '{}', {} are referenced.", removed.get(), incomplete, name, referenced.size());
+    return removed.get() + incomplete;
+  }
+
+  private Set<String> referencedBlobs(String name) {
+    Set<String> referenced = new HashSet<>();
+    Map<String, AttributeValue> exclusiveStartKey = null;
+    do {
+      ScanResponse response = dynamoTemplate.scan(ScanRequest.builder()
+        .tableName(name)
+        .projectionExpression("#blobId")
+        .filterExpression("attribute_exists(#blobId)")
+        .expressionAttributeNames(Collections.singletonMap("#blobId", ATTRIBUTE_BLOB_ID))
+        .exclusiveStartKey(exclusiveStartKey)
+        .build());
+
+      response.items().forEach(item -> referenced.add(item.get(ATTRIBUTE_BLOB_ID).s()));
+      exclusiveStartKey = response.hasLastEvaluatedKey() && !response.lastEvaluatedKey().isEmpty() ? response.lastEvaluatedKey() : null;
+    } while (exclusiveStartKey != null);
+    return referenced;
+  }
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dasburo.spring.cache.dynamo;
+
+import org.springframework.util.Assert;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+
+import java.time.Duration;
+
+/**
+ * Strategy used by {@link DefaultDynamoCacheWriter} to remove all entries of a cache table.
+ */
+public interface ClearStrategy {
+
+  /**
+   * Default number of segments scanned in parallel.
+   */
+  int DEFAULT_TOTAL_SEGMENTS = 4;
+
+  /**
+   * Default time operations wait for a recreated table.
+   */
+  Duration DEFAULT_MAX_WAIT = Duration.ofMinutes(1);
+
+  /**
+   * Default time to wait for a table to be deleted and to become active again.
+   */
+  Duration DEFAULT_TABLE_TIMEOUT = Duration.ofMinutes(5);
+
+  /**
+   * Default time the generation of a cache is used before it is read again.
+   */
+  Duration DEFAULT_REFRESH_INTERVAL = Duration.ofSeconds(1);
+
+  /**
+   * Remove all entries from the given cache table.
+   *
+   * @param dynamoTemplate must not be {@literal null}.
+   * @param name           the cache name. Must not be {@literal null}.
+   * @return the number of deleted items.
+   */
+  long clear(DynamoDbClient dynamoTemplate, String name);
+
+  /**
+   * Called by the writer before each operation on the given cache. Strategies making the table temporarily
+   * unavailable block or fail here until the table can be used again.
+   *
+   * @param name the cache name. Must not be {@literal null}.
+   */
+  default void awaitAvailable(String name) {
+  }
+
+  /**
+   * Map the key of a cache entry to the key of the item stored in the table.
+   *
+   * @param dynamoTemplate must not be {@literal null}.
+   * @param name           the cache name. Must not be {@literal null}.
+   * @param key            the key of the cache entry. Must not be {@literal null}.
+   * @return the key of the item, the given key by default.
+   */
+  default String physicalKey(DynamoDbClient dynamoTemplate, String name, String key) {
+    return key;
+  }
+
+  /**
+   * A {@link ClearStrategy} scanning the table in {@link #DEFAULT_TOTAL_SEGMENTS} parallel segments and deleting the
+   * entries with {@code BatchWriteItem}.
+   *
+   * @return new instance of {@link ClearStrategy}.
+   */
+  static ClearStrategy segmentedScan() {
+    return segmentedScan(DEFAULT_TOTAL_SEGMENTS);
+  }
+
+  /**
+   * A {@link ClearStrategy} scanning the table in the given number of parallel segments and deleting the entries with
+   * {@code BatchWriteItem}.
+   *
+   * @param totalSegments number of segments, must be greater than {@literal 0}.
+   * @return new instance of {@link ClearStrategy}.
+   */
+  static ClearStrategy segmentedScan(int totalSegments) {
+    return segmentedScan(totalSegments, (name, deletedItems) -> {
+    });
+  }
+
+  /**
+   * A {@link ClearStrategy} scanning the table in the given number of parallel segments and deleting the entries with
+   * {@code BatchWriteItem}.
+   *
+   * @param totalSegments number of segments, must be greater than {@literal 0}.
+   * @param listener      notified about the progress. Must not be {@literal null}.
+   * @return new instance of {@link ClearStrategy}.
+   */
+  static ClearStrategy segmentedScan(int totalSegments, ProgressListener listener) {
+    Assert.isTrue(totalSegments > 0, "TotalSegments must be greater than 0!");
+    Assert.notNull(listener, "ProgressListener must not be null!");
+
+    return new SegmentedScanClearStrategy(totalSegments, listener);
+  }
+
+  /**
+   * A {@link ClearStrategy} deleting and recreating the table. Operations on the same node wait up to
+   * {@link #DEFAULT_MAX_WAIT} for the table to become active again.
+   *
+   * @return new instance of {@link ClearStrategy}.
+   */
+  static ClearStrategy recreateTable() {
+    return recreateTable(DEFAULT_MAX_WAIT);
+  }
+
+  /**
+   * A {@link ClearStrategy} deleting and recreating the table. The number of cleared items reported is the
+   * approximate item count of the deleted table.
+   *
+   * @param maxWait maximum time operations on the same node wait for the table to become active again. Use
+   *                {@link Duration#ZERO} to fail immediately. Must not be {@literal null}.
+   * @return new instance of {@link ClearStrategy}.
+   */
+  static ClearStrategy recreateTable(Duration maxWait) {
+    Assert.notNull(maxWait, "MaxWait must not be null!");
+    Assert.isTrue(!maxWait.isNegative(), "MaxWait must not be negative!");
+
+    return new RecreateTableClearStrategy(maxWait, DEFAULT_TABLE_TIMEOUT);
+  }
+
+  /**
+   * A {@link ClearStrategy} clearing a cache by advancing its generation number with a single {@code UpdateItem}.
+   * Nodes read the generation at most every {@link #DEFAULT_REFRESH_INTERVAL}.
+   *
+   * @return new instance of {@link ClearStrategy}.
+   */
+  static ClearStrategy generation() {
+    return generation(DEFAULT_REFRESH_INTERVAL);
+  }
+
+  /**
+   * A {@link ClearStrategy} clearing a cache by advancing its generation number with a single {@code UpdateItem}.
+   * The generation is part of the key of every entry, entries of previous generations expire through their TTL.
+   * No items are deleted, so the number of cleared items reported is always {@literal 0}.
+   *
+   * @param refreshInterval time the generation of a cache is used before it is read again, and thereby the maximum
+   *                        time until a clear issued by another node becomes visible. Must not be {@literal null} and
+   *                        must be positive.
+   * @return new instance of {@link ClearStrategy}.
+   */
+  static ClearStrategy generation(Duration refreshInterval) {
+    Assert.notNull(refreshInterval, "RefreshInterval must not be null!");
+    Assert.isTrue(!refreshInterval.isNegative() && !refreshInterval.isZero(), "RefreshInterval must be positive!");
+
+    return new GenerationClearStrategy(refreshInterval);
+  }
+
+  /**
+   * Listener notified while a cache is cleared.
+   */
+  @FunctionalInterface
+  interface ProgressListener {
+
+    /**
+     * Called after each group of deleted items. May be called concurrently by the scanned segments.
+     *
+     * @param name         the cache name.
+     * @param deletedItems the total number of items deleted so far.
+     */
+    void onProgress(String name, long deletedItems);
+  }
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dasburo.spring.cache.dynamo;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates the pools of daemon threads shared by all caches, so background work never keeps the JVM alive.
+ */
+final class DaemonExecutors {
+
+  private DaemonExecutors() {
+    throw new IllegalStateException("Utility class");
+  }
+
+  /**
+   * Create a pool of one daemon thread per processor, at least two, that time out when idle.
+   *
+   * @param threadNamePrefix the prefix of the thread names, followed by a counter. Must not be {@literal null}.
+   * @param queueCapacity    the number of tasks queued while all threads are busy, further tasks are rejected.
+   * @return new instance of {@link Executor}.
+   */
+  static Executor newPool(String threadNamePrefix, int queueCapacity) {
+    int threads = Math.max(2, Runtime.getRuntime().availableProcessors());
+    AtomicInteger counter = new AtomicInteger();
+    ThreadFactory threadFactory = runnable -> {
+      Thread thread = new Thread(runnable, threadNamePrefix + counter.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    };
+    ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+      new LinkedBlockingQueue<>(queueCapacity), threadFactory);
+    executor.allowCoreThreadTimeOut(true);
+    return executor;
+  }
+}
@@ -0,0 +1,377 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dasburo.spring.cache.dynamo;
+
+import com.dasburo.spring.cache.dynamo.rootattribute.RootAttribute;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.DeleteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.DeleteRequest;
+import software.amazon.awssdk.services.dynamodb.model.DescribeTableRequest;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.KeysAndAttributes;
+import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.ResourceInUseException;
+import software.amazon.awssdk.services.dynamodb.model.ResourceNotFoundException;
+import software.amazon.awssdk.services.dynamodb.model.ScanRequest;
+import software.amazon.awssdk.services.dynamodb.model.WriteRequest;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static com.dasburo.spring.cache.dynamo.DefaultDynamoCacheWriter.ATTRIBUTE_BLOB_ID;
+import static com.dasburo.spring.cache.dynamo.DefaultDynamoCacheWriter.ATTRIBUTE_CHUNKS;
+import static com.dasburo.spring.cache.dynamo.DefaultDynamoCacheWriter.ATTRIBUTE_KEY;
+import static com.dasburo.spring.cache.dynamo.DefaultDynamoCacheWriter.ATTRIBUTE_LOAD_DURATION;
+import static com.dasburo.spring.cache.dynamo.DefaultDynamoCacheWriter.ATTRIBUTE_SOFT_TTL;
+import static com.dasburo.spring.cache.dynamo.DefaultDynamoCacheWriter.ATTRIBUTE_TTL;
+import static com.dasburo.spring.cache.dynamo.DefaultDynamoCacheWriter.ATTRIBUTE_VALUE;
+import static com.dasburo.spring.cache.dynamo.BatchRequests.MAX_BATCH_RETRIES;
+import static com.dasburo.spring.cache.dynamo.BatchRequests.MAX_BATCH_WRITE_SIZE;
+import static com.dasburo.spring.cache.dynamo.DefaultDynamoCacheWriter.MAX_BATCH_GET_SIZE;
+
+/**
+ * {@link AsyncDynamoCacheWriter} implementation issuing all requests on a {@link DynamoDbAsyncClient}. No thread is
+ * blocked while a request is in flight; retries of unprocessed batch items are scheduled instead of slept on.
+ * <p>
+ * The writer does not lock, so operations spanning multiple DynamoDB interactions like {@code clear} may overlap
+ * with concurrent writes. It stores every value in the item of its key and neither chunks values, offloads them to a
+ * {@link BlobStore} nor maps keys by generation. A table may therefore only be shared with a
+ * {@link DefaultDynamoCacheWriter} using neither of these nor a {@link GenerationClearStrategy generation} clear
+ * strategy. Items of chunked or offloaded values are rejected with an {@link IllegalStateException} rather than being
+ * treated as absent. {@code clear} keeps leases and other items stored next to the cache entries.
+ */
+public class DefaultAsyncDynamoCacheWriter implements AsyncDynamoCacheWriter {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(DefaultAsyncDynamoCacheWriter.class);
+
+  private final DynamoDbAsyncClient dynamoTemplate;
+
+  /**
+   * @param dynamoTemplate must not be {@literal null}.
+   */
+  DefaultAsyncDynamoCacheWriter(DynamoDbAsyncClient dynamoTemplate) {
+    Assert.notNull(dynamoTemplate, "DynamoDbAsyncClient must not be null!");
+
+    this.dynamoTemplate = dynamoTemplate;
+  }
+
+  @Override
+  public DynamoDbAsyncClient getNativeCacheWriter() {
+    return dynamoTemplate;
+  }
+
+  @Override
+  public CompletableFuture<Boolean> createIfNotExists(String name, Duration ttl, Long readCapacityUnits, Long writeCapacityUnits) {
+    Assert.notNull(name, "Name must not be null!");
+    Assert.notNull(ttl, "TTL must not be null! Use Duration.ZERO to disable TTL.");
+
+    return dynamoTemplate.describeTable(DescribeTableRequest.builder().tableName(name).build())
+      .thenApply(response -> false)
+      .exceptionally(e -> {
+        if (unwrap(e) instanceof ResourceNotFoundException) {
+          return null;
+        }
+        throw new CompletionException(unwrap(e));
+      })
+      .thenCompose(exists -> {
+        if (exists != null) {
+          return CompletableFuture.completedFuture(false);
+        }
+        return createTable(name, ttl, readCapacityUnits, writeCapacityUnits);
+      });
+  }
+
+  @Override
+  public CompletableFuture<Void> put(String name, String key, @Nullable byte[] value, @Nullable Duration ttl, @Nullable List<RootAttribute> rootAttributes) {
+    Assert.notNull(name, "Name must not be null!");
+    DefaultDynamoCacheWriter.assertKey(key);
+
+    return dynamoTemplate.putItem(PutItemRequest.builder()
+        .tableName(name)
+        .item(DefaultDynamoCacheWriter.createItem(key, value, ttl, rootAttributes))
+        .build())
+      .thenApply(response -> null);
+  }
+
+  @Override
+  public CompletableFuture<byte[]> get(String name, String key) {
+    return lookup(name, key).thenApply(DynamoCacheLookup::getValue);
+  }
+
+  @Override
+  public CompletableFuture<DynamoCacheLookup> lookup(String name, String key) {
+    Assert.notNull(name, "Name must not be null!");
+    DefaultDynamoCacheWriter.assertKey(key);
+
+    return lookup(name, key, false);
+  }
+
+  private CompletableFuture<DynamoCacheLookup> lookup(String name, String key, boolean consistentRead) {
+    return dynamoTemplate.getItem(GetItemRequest.builder()
+        .attributesToGet(ATTRIBUTE_KEY, ATTRIBUTE_VALUE, ATTRIBUTE_TTL, ATTRIBUTE_SOFT_TTL, ATTRIBUTE_LOAD_DURATION,
+          ATTRIBUTE_CHUNKS, ATTRIBUTE_BLOB_ID)
+        .consistentRead(consistentRead)
+        .tableName(name)
+        .key(Collections.singletonMap(ATTRIBUTE_KEY, AttributeValue.fromS(key)))
+        .build())
+      .thenApply(response -> {
+        if (response.hasItem()) {
+          assertDirect(name, response.item());
+        }
+        return DefaultDynamoCacheWriter.toLookup(response);
+      });
+  }
+
+  @Override
+  public CompletableFuture<Map<String, byte[]>> getAll(String name, Collection<String> keys) {
+    return lookupAll(name, keys).thenApply(lookups -> {
+      Map<String, byte[]> result = new HashMap<>();
+      lookups.forEach((key, lookup) -> result.put(key, lookup.getValue()));
+      return result;
+    });
+  }
+
+  @Override
+  public CompletableFuture<Map<String, DynamoCacheLookup>> lookupAll(String name, Collection<String> keys) {
+    Assert.notNull(name, "Name must not be null!");
+    Assert.notNull(keys, "Keys must not be null!");
+    keys.forEach(DefaultDynamoCacheWriter::assertKey);
+
+    List<String> distinctKeys = new ArrayList<>(new LinkedHashSet<>(keys));
+    List<CompletableFuture<Map<String, DynamoCacheLookup>>> futures = new ArrayList<>();
+    for (int i = 0; i < distinctKeys.size(); i += MAX_BATCH_GET_SIZE) {
+      List<String> chunk = distinctKeys.subList(i, Math.min(i + MAX_BATCH_GET_SIZE, distinctKeys.size()));
+      futures.add(batchGet(name, KeysAndAttributes.builder()
+        .attributesToGet(ATTRIBUTE_KEY, ATTRIBUTE_VALUE, ATTRIBUTE_TTL, ATTRIBUTE_SOFT_TTL, ATTRIBUTE_LOAD_DURATION,
+          ATTRIBUTE_CHUNKS, ATTRIBUTE_BLOB_ID)
+        .keys(chunk.stream()
+          .map(key -> Collections.singletonMap(ATTRIBUTE_KEY, AttributeValue.fromS(key)))
+          .collect(Collectors.toList()))
+        .build(), new HashMap<>(), 0));
+    }
+
+    return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+      .thenApply(ignored -> {
+        Map<String, DynamoCacheLookup> result = new HashMap<>();
+        futures.forEach(future -> result.putAll(future.join()));
+        return result;
+      });
+  }
+
+  @Override
+  public CompletableFuture<byte[]> putIfAbsent(String name, String key, @Nullable byte[] value, @Nullable Duration ttl, @Nullable List<RootAttribute> rootAttributes) {
+    Assert.notNull(name, "Name must not be null!");
+    DefaultDynamoCacheWriter.assertKey(key);
+
+    return dynamoTemplate.putItem(DefaultDynamoCacheWriter.putIfAbsentRequest(name, key, value, ttl, rootAttributes))
+      .handle((response, e) -> {
+        if (e == null) {
+          return CompletableFuture.<byte[]>completedFuture(null);
+        }
+        Throwable cause = unwrap(e);
+        if (!(cause instanceof ConditionalCheckFailedException)) {
+          throw new CompletionException(cause);
+        }
+        ConditionalCheckFailedException conditionFailure = (ConditionalCheckFailedException) cause;
+        if (conditionFailure.hasItem() && !conditionFailure.item().isEmpty()) {
+          assertDirect(name, conditionFailure.item());
+          return CompletableFuture.completedFuture(DefaultDynamoCacheWriter.getAttributeValue(conditionFailure.item()));
+        }
+        // endpoints not returning the item on a failed condition, e.g. older DynamoDB local versions
+        return lookup(name, key, true).thenApply(DynamoCacheLookup::getValue);
+      })
+      .thenCompose(future -> future);
+  }
+
+  @Override
+  public CompletableFuture<Void> remove(String name, String key) {
+    Assert.notNull(name, "Name must not be null!");
+    DefaultDynamoCacheWriter.assertKey(key);
+
+    return dynamoTemplate.deleteItem(DeleteItemRequest.builder()
+        .tableName(name)
+        .key(Collections.singletonMap(ATTRIBUTE_KEY, AttributeValue.fromS(key)))
+        .build())
+      .thenApply(response -> null);
+  }
+
+  @Override
+  public CompletableFuture<Void> clear(String name) {
+    Assert.notNull(name, "Name must not be null!");
+
+    return clearPage(name, null)
+      .exceptionally(e -> {
+        if (unwrap(e) instanceof ResourceNotFoundException) {
+          // ignore table not found
+          return null;
+        }
+        throw new CompletionException(unwrap(e));
+      });
+  }
+
+  private CompletableFuture<Boolean> createTable(String name, Duration ttl, Long readCapacityUnits, Long writeCapacityUnits) {
+    return dynamoTemplate.createTable(DefaultDynamoCacheWriter.createTableRequest(name, readCapacityUnits, writeCapacityUnits))
+      .thenApply(response -> true)
+      .exceptionally(e -> {
+        if (unwrap(e) instanceof ResourceInUseException) {
+          LOGGER.trace("Table {} already exists", name);
+          return false;
+        }
+        throw new CompletionException(unwrap(e));
+      })
+      .thenCompose(created -> {
+        if (created && !ttl.isZero()) {
+          return dynamoTemplate.updateTimeToLive(DefaultDynamoCacheWriter.updateTimeToLiveRequest(name))
+            .thenApply(response -> true);
+        }
+        return CompletableFuture.completedFuture(created);
+      });
+  }
+
+  private CompletableFuture<Map<String, DynamoCacheLookup>> batchGet(String name, KeysAndAttributes keysAndAttributes,
+                                                                     Map<String, DynamoCacheLookup> result, int attempt) {
+    return dynamoTemplate.batchGetItem(BatchGetItemRequest.builder()
+        .requestItems(Collections.singletonMap(name, keysAndAttributes))
+        .build())
+      .thenCompose(response -> {
+        response.responses().getOrDefault(name, Collections.emptyList()).stream()
+          .filter(item -> !DefaultDynamoCacheWriter.isPastTtl(item) && !DefaultDynamoCacheWriter.isStale(item))
+          .forEach(item -> {
+            assertDirect(name, item);
+            result.put(item.get(ATTRIBUTE_KEY).s(), DefaultDynamoCacheWriter.toLookup(item));
+          });
+
+        KeysAndAttributes unprocessed = response.unprocessedKeys().get(name);
+        if (unprocessed == null || !unprocessed.hasKeys() || unprocessed.keys().isEmpty()) {
+          return CompletableFuture.completedFuture(result);
+        }
+        if (attempt + 1 > MAX_BATCH_RETRIES) {
+          LOGGER.warn("Giving up on {} unprocessed keys of cache '{}' after {} attempts.", unprocessed.keys().size(), name, attempt + 1);
+          return CompletableFuture.completedFuture(result);
+        }
+        return delay(attempt + 1).thenCompose(ignored -> batchGet(name, unprocessed, result, attempt + 1));
+      });
+  }
+
+  private CompletableFuture<Void> clearPage(String name, @Nullable Map<String, AttributeValue> exclusiveStartKey) {
+    return dynamoTemplate.scan(ScanRequest.builder()
+        .tableName(name)
+        .attributesToGet(ATTRIBUTE_KEY, LeaseLock.ATTRIBUTE_LOCK_OWNER)
+        .exclusiveStartKey(exclusiveStartKey)
+        .build())
+      .thenCompose(response -> {
+        List<WriteRequest> deletes = response.items().stream()
+          .filter(item -> !LeaseLock.isLease(item) && !DefaultDynamoCacheWriter.isMetadataKey(item.get(ATTRIBUTE_KEY).s()))
+          .map(item -> WriteRequest.builder()
+            .deleteRequest(DeleteRequest.builder()
+              .key(Collections.singletonMap(ATTRIBUTE_KEY, item.get(ATTRIBUTE_KEY)))
+              .build())
+            .build())
+          .collect(Collectors.toList());
+
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (int i = 0; i < deletes.size(); i += MAX_BATCH_WRITE_SIZE) {
+          futures.add(batchWrite(name, deletes.subList(i, Math.min(i + MAX_BATCH_WRITE_SIZE, deletes.size())), 0));
+        }
+
+        CompletableFuture<Void> page = CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]));
+        if (response.hasLastEvaluatedKey() && !response.lastEvaluatedKey().isEmpty()) {
+          return page.thenCompose(ignored -> clearPage(name, response.lastEvaluatedKey()));
+        }
+        return page;
+      });
+  }
+
+  private CompletableFuture<Void> batchWrite(String name, List<WriteRequest> writeRequests, int attempt) {
+    return dynamoTemplate.batchWriteItem(BatchWriteItemRequest.builder()
+        .requestItems(Collections.singletonMap(name, writeRequests))
+        .build())
+      .thenCompose(response -> {
+        List<WriteRequest> unprocessed = response.unprocessedItems().get(name);
+        if (unprocessed == null || unprocessed.isEmpty()) {
+          return CompletableFuture.completedFuture(null);
+        }
+        if (attempt + 1 > MAX_BATCH_RETRIES) {
+          LOGGER.warn("Giving up on {} unprocessed items of cache '{}' after {} attempts.", unprocessed.size(), name, attempt + 1);
+          return CompletableFuture.completedFuture(null);
+        }
+        return delay(attempt + 1).thenCompose(ignored -> batchWrite(name, unprocessed, attempt + 1));
+      });
+  }
+
+  /**
+   * Reject items of values stored in chunks or a blob store, which this writer cannot read.
+   */
+  private static void assertDirect(String name, Map<String, AttributeValue> item) {
+    if (DefaultDynamoCacheWriter.isIndirect(item)) {
+      throw new IllegalStateException(String.format("Item '%s' of cache %s is stored in chunks or a blob store, which %s does not support.",
+        item.get(ATTRIBUTE_KEY).s(), name, DefaultAsyncDynamoCacheWriter.class.getSimpleName()));
+    }
+  }
+
+  /**
+   * Exponential backoff between retries of unprocessed batch items, without blocking the calling thread.
+   */
+  private static CompletableFuture<Void> delay(int attempt) {
+    CompletableFuture<Void> future = new CompletableFuture<>();
+    SchedulerHolder.SCHEDULER.schedule(() -> future.complete(null),
+      BatchRequests.backoffMillis(attempt), TimeUnit.MILLISECONDS);
+    return future;
+  }
+
+  /**
+   * Unwrap the cause of a failed stage.
+   */
+  static Throwable unwrap(Throwable throwable) {
+    Throwable cause = throwable;
+    while (cause instanceof CompletionException && cause.getCause() != null) {
+      cause = cause.getCause();
+    }
+    return cause;
+  }
+
+  /**
+   * Single daemon thread used to schedule retries of unprocessed batch items.
+   */
+  private static class SchedulerHolder {
+
+    private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "dynamo-cache-async-retry");
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+}
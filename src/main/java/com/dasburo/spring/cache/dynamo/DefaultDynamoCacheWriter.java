@@ -17,6 +17,9 @@ package com.dasburo.spring.cache.dynamo;
 
 import com.dasburo.spring.cache.dynamo.rootattribute.RootAttribute;
 import com.dasburo.spring.cache.dynamo.util.TableUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.ConcurrencyFailureException;
 import org.springframework.dao.PessimisticLockingFailureException;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
@@ -24,28 +27,56 @@ import software.amazon.awssdk.core.SdkBytes;
 import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
 import software.amazon.awssdk.services.dynamodb.model.AttributeDefinition;
 import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
 import software.amazon.awssdk.services.dynamodb.model.CreateTableRequest;
+import software.amazon.awssdk.services.dynamodb.model.Delete;
 import software.amazon.awssdk.services.dynamodb.model.DeleteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.DeleteItemResponse;
 import software.amazon.awssdk.services.dynamodb.model.DescribeTableRequest;
 import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
 import software.amazon.awssdk.services.dynamodb.model.GetItemResponse;
 import software.amazon.awssdk.services.dynamodb.model.KeySchemaElement;
 import software.amazon.awssdk.services.dynamodb.model.KeyType;
+import software.amazon.awssdk.services.dynamodb.model.KeysAndAttributes;
 import software.amazon.awssdk.services.dynamodb.model.ProvisionedThroughput;
+import software.amazon.awssdk.services.dynamodb.model.Put;
 import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.PutItemResponse;
 import software.amazon.awssdk.services.dynamodb.model.ResourceNotFoundException;
+import software.amazon.awssdk.services.dynamodb.model.ReturnValue;
+import software.amazon.awssdk.services.dynamodb.model.ReturnValuesOnConditionCheckFailure;
 import software.amazon.awssdk.services.dynamodb.model.TimeToLiveSpecification;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItem;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItemsRequest;
+import software.amazon.awssdk.services.dynamodb.model.TransactionCanceledException;
 import software.amazon.awssdk.services.dynamodb.model.UpdateTimeToLiveRequest;
 
 import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.NoSuchElementException;
 import java.util.Objects;
-import java.util.function.Function;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.zip.CRC32;
 
 import static software.amazon.awssdk.services.dynamodb.model.ScalarAttributeType.S;
 
@@ -54,23 +85,61 @@ import static software.amazon.awssdk.services.dynamodb.model.ScalarAttributeType
  * and {@literal cluster} environments. Works upon a given {@link DynamoDbClient} holds the actual connection.
  * <p>
  * {@link DefaultDynamoCacheWriter} can be used in
- * {@link DynamoCacheWriter#lockingDynamoCacheWriter(DynamoDbClient) locking} or
- * {@link DynamoCacheWriter#nonLockingDynamoCacheWriter(DynamoDbClient) non-locking} mode. While
+ * {@link DynamoCacheWriterBuilder#withLocking() locking} or non-locking mode. While
  * {@literal non-locking} aims for maximum performance it may result in overlapping, non-atomic, command execution for
- * operations spanning multiple DynamoDB interactions like {@code putIfAbsent}. The {@literal locking} counterpart prevents
- * command overlap by setting an explicit lock key and checking against presence of this key which leads to additional
- * requests and potential command wait times.
+ * operations spanning multiple DynamoDB interactions like {@code clear}. {@code putIfAbsent} is a single conditional
+ * write and atomic in both modes. An item whose chunks or blob are missing or corrupt is treated as absent by
+ * {@code putIfAbsent} and replaced. The {@literal locking} counterpart prevents
+ * command overlap by acquiring a {@link LeaseLock} on the written key, which leads to additional requests and potential
+ * command wait times for writes to the same key. {@code put} and {@code remove} write in a transaction with a check of
+ * the lease held by {@code clear}, so they wait for a running clear instead of overlapping with it. Reads never wait,
+ * and a lease of a crashed holder is taken over once it has expired.
+ * <p>
+ * Keys starting with {@code ~} or ending with {@code ~lock}, {@code ~load} or {@code ~chunk} followed by a number are
+ * reserved for the items stored next to the cache entries and rejected.
  *
  * @author Georg Zimmermann
  */
 public class DefaultDynamoCacheWriter implements DynamoCacheWriter {
 
+  private static final Logger LOGGER = LoggerFactory.getLogger(DefaultDynamoCacheWriter.class);
+
   public static final String ATTRIBUTE_KEY = "key";
   public static final String ATTRIBUTE_VALUE = "value";
   public static final String ATTRIBUTE_TTL = "ttl";
+  public static final String ATTRIBUTE_SOFT_TTL = "softTtl";
+  public static final String ATTRIBUTE_LOAD_DURATION = "loadMillis";
+  public static final String ATTRIBUTE_CHUNKS = "chunks";
+  public static final String ATTRIBUTE_CHUNK_VERSION = "chunkVersion";
+  public static final String ATTRIBUTE_VALUE_SIZE = "valueSize";
+  public static final String ATTRIBUTE_BLOB_ID = "blobId";
+  public static final String ATTRIBUTE_CHECKSUM = "checksum";
+
+  /**
+   * Maximum number of keys DynamoDB accepts in a single {@code BatchGetItem} request.
+   */
+  static final int MAX_BATCH_GET_SIZE = 100;
+  private static final int MAX_PUT_IF_ABSENT_ATTEMPTS = 4;
+  /**
+   * Time a concurrent write is given to complete the chunks of its manifest before the manifest is considered orphaned.
+   */
+  private static final Duration ORPHAN_GRACE_PERIOD = Duration.ofSeconds(1);
+
+  /**
+   * Default time after which a lease that has not been released may be taken over.
+   */
+  static final Duration DEFAULT_LEASE_DURATION = Duration.ofSeconds(30);
+  private static final String CLEAR_LOCK_KEY = "~clear";
 
   private final DynamoDbClient dynamoTemplate;
   private final Duration sleepTime;
+  @Nullable
+  private final LeaseLock leaseLock;
+  private final ClearStrategy clearStrategy;
+  private final ValueChunker valueChunker;
+  @Nullable
+  private final BlobStore blobStore;
+  private final int blobThreshold;
 
   /**
    * @param dynamoTemplate must not be {@literal null}.
@@ -79,17 +148,69 @@ public class DefaultDynamoCacheWriter implements DynamoCacheWriter {
     this(dynamoTemplate, Duration.ZERO);
   }
 
+  /**
+   * @param dynamoTemplate must not be {@literal null}.
+   * @param clearStrategy  must not be {@literal null}.
+   */
+  DefaultDynamoCacheWriter(DynamoDbClient dynamoTemplate, ClearStrategy clearStrategy) {
+    this(dynamoTemplate, Duration.ZERO, DEFAULT_LEASE_DURATION, clearStrategy);
+  }
+
   /**
    * @param dynamoTemplate must not be {@literal null}.
    * @param sleepTime      sleep time between lock request attempts. Must not be {@literal null}. Use {@link Duration#ZERO}
    *                       to disable locking.
    */
   DefaultDynamoCacheWriter(DynamoDbClient dynamoTemplate, Duration sleepTime) {
+    this(dynamoTemplate, sleepTime, DEFAULT_LEASE_DURATION);
+  }
+
+  /**
+   * @param dynamoTemplate must not be {@literal null}.
+   * @param sleepTime      sleep time between lock request attempts. Must not be {@literal null}. Use {@link Duration#ZERO}
+   *                       to disable locking.
+   * @param leaseDuration  time after which a lock that has not been released may be taken over. Must not be {@literal null}.
+   */
+  DefaultDynamoCacheWriter(DynamoDbClient dynamoTemplate, Duration sleepTime, Duration leaseDuration) {
+    this(dynamoTemplate, sleepTime, leaseDuration, ClearStrategy.segmentedScan());
+  }
+
+  /**
+   * @param dynamoTemplate must not be {@literal null}.
+   * @param sleepTime      sleep time between lock request attempts. Must not be {@literal null}. Use {@link Duration#ZERO}
+   *                       to disable locking.
+   * @param leaseDuration  time after which a lock that has not been released may be taken over. Must not be {@literal null}.
+   * @param clearStrategy  strategy used to remove all entries of a cache. Must not be {@literal null}.
+   */
+  DefaultDynamoCacheWriter(DynamoDbClient dynamoTemplate, Duration sleepTime, Duration leaseDuration, ClearStrategy clearStrategy) {
+    this(dynamoTemplate, sleepTime, leaseDuration, clearStrategy, null, 0);
+  }
+
+  /**
+   * @param dynamoTemplate must not be {@literal null}.
+   * @param sleepTime      sleep time between lock request attempts. Must not be {@literal null}. Use {@link Duration#ZERO}
+   *                       to disable locking.
+   * @param leaseDuration  time after which a lock that has not been released may be taken over. Must not be {@literal null}.
+   * @param clearStrategy  strategy used to remove all entries of a cache. Must not be {@literal null}.
+   * @param blobStore      store values larger than the blob threshold are offloaded to. Can be {@literal null} to keep
+   *                       all values in the table.
+   * @param blobThreshold  size in bytes above which values are offloaded. Must be positive if a blob store is given.
+   */
+  DefaultDynamoCacheWriter(DynamoDbClient dynamoTemplate, Duration sleepTime, Duration leaseDuration, ClearStrategy clearStrategy,
+                           @Nullable BlobStore blobStore, int blobThreshold) {
     Assert.notNull(dynamoTemplate, "ConnectionFactory must not be null!");
     Assert.notNull(sleepTime, "SleepTime must not be null!");
+    Assert.notNull(leaseDuration, "LeaseDuration must not be null!");
+    Assert.notNull(clearStrategy, "ClearStrategy must not be null!");
+    Assert.isTrue(blobStore == null || blobThreshold > 0, "BlobThreshold must be positive!");
 
     this.dynamoTemplate = dynamoTemplate;
     this.sleepTime = sleepTime;
+    this.leaseLock = isLockingCacheWriter() ? new LeaseLock(dynamoTemplate, leaseDuration) : null;
+    this.clearStrategy = clearStrategy;
+    this.valueChunker = new ValueChunker(dynamoTemplate, ValueChunker.DEFAULT_CHUNK_SIZE);
+    this.blobStore = blobStore;
+    this.blobThreshold = blobThreshold;
   }
 
   @Override
@@ -100,10 +221,11 @@ public class DefaultDynamoCacheWriter implements DynamoCacheWriter {
   @Override
   public void put(String name, String key, byte[] value, @Nullable Duration ttl, @Nullable List<RootAttribute> rootAttributes) {
     Assert.notNull(name, "Name must not be null!");
-    Assert.notNull(key, "Key must not be null!");
+    assertKey(key);
 
-    execute(name, connection -> {
-      putInternal(name, key, value, ttl, rootAttributes);
+    clearStrategy.awaitAvailable(name);
+    execute(name, key, () -> {
+      putInternal(name, physicalKey(name, key), value, ttl, rootAttributes);
 
       return "OK";
     });
@@ -114,40 +236,182 @@ public class DefaultDynamoCacheWriter implements DynamoCacheWriter {
     Assert.notNull(name, "Name must not be null!");
     Assert.notNull(key, "Key must not be null!");
 
-    return execute(name, connection -> getInternal(name, key));
+    clearStrategy.awaitAvailable(name);
+    return lookupInternal(name, physicalKey(name, key)).getValue();
   }
 
   @Override
-  public byte[] putIfAbsent(String name, String key, @Nullable byte[] value, @Nullable Duration ttl, @Nullable List<RootAttribute> rootAttributes) {
+  public DynamoCacheLookup lookup(String name, String key) {
     Assert.notNull(name, "Name must not be null!");
     Assert.notNull(key, "Key must not be null!");
 
-    return execute(name, connection -> {
+    clearStrategy.awaitAvailable(name);
+    return lookupInternal(name, physicalKey(name, key));
+  }
 
-      if (isLockingCacheWriter()) {
-        doLock(name);
-      }
+  @Override
+  public Map<String, byte[]> getAll(String name, Collection<String> keys) {
+    Map<String, byte[]> result = new HashMap<>();
+    lookupAll(name, keys).forEach((key, lookup) -> result.put(key, lookup.getValue()));
+    return result;
+  }
 
-      try {
-        return getInternal(name, key);
-      } catch (NoSuchElementException e) {
-        putInternal(name, key, value, ttl, rootAttributes);
-      } finally {
-        if (isLockingCacheWriter()) {
-          doUnlock(name);
+  @Override
+  public Map<String, DynamoCacheLookup> lookupAll(String name, Collection<String> keys) {
+    Assert.notNull(name, "Name must not be null!");
+    Assert.notNull(keys, "Keys must not be null!");
+
+    clearStrategy.awaitAvailable(name);
+    Map<String, String> keysByPhysicalKey = new LinkedHashMap<>();
+    keys.forEach(key -> keysByPhysicalKey.put(physicalKey(name, key), key));
+
+    Map<String, DynamoCacheLookup> result = new HashMap<>();
+    getAllInternal(name, keysByPhysicalKey.keySet()).forEach((physicalKey, lookup) -> result.put(keysByPhysicalKey.get(physicalKey), lookup));
+    return result;
+  }
+
+  @Override
+  public byte[] putIfAbsent(String name, String key, @Nullable byte[] value, @Nullable Duration ttl, @Nullable List<RootAttribute> rootAttributes) {
+    return putIfAbsentLookup(name, key, value, ttl, rootAttributes).getValue();
+  }
+
+  @Override
+  public DynamoCacheLookup putIfAbsentLookup(String name, String key, @Nullable byte[] value, @Nullable Duration ttl,
+                                             @Nullable List<RootAttribute> rootAttributes) {
+    Assert.notNull(name, "Name must not be null!");
+    Assert.notNull(key, "Key must not be null!");
+
+    clearStrategy.awaitAvailable(name);
+    String physicalKey = physicalKey(name, key);
+    AttributeValue unreadableVersion = null;
+    for (int attempt = 1; ; attempt++) {
+      Map<String, AttributeValue> existing = putIfAbsentInternal(name, physicalKey, value, ttl, rootAttributes);
+      if (existing == null) {
+        return DynamoCacheLookup.absent();
+      }
+      if (!existing.isEmpty()) {
+        if (!isIndirect(existing)) {
+          return toLookup(existing);
+        }
+        byte[] existingValue = readIndirect(name, existing, true);
+        if (existingValue != null) {
+          return toLookup(existing, existingValue);
         }
       }
+      if (attempt >= MAX_PUT_IF_ABSENT_ATTEMPTS) {
+        throw new ConcurrencyFailureException(String.format("Could not write '%s' of cache %s, the stored entry kept changing", key, name));
+      }
+      if (existing.isEmpty()) {
+        continue;
+      }
+      // the value referenced by the item is missing or corrupt, so the entry is absent. The chunks of a manifest may
+      // still be being written though, so a manifest is only removed if it is still unreadable after a grace period.
+      AttributeValue version = existing.get(ValueChunker.isManifest(existing) ? ATTRIBUTE_CHUNK_VERSION : ATTRIBUTE_BLOB_ID);
+      if (ValueChunker.isManifest(existing) && !version.equals(unreadableVersion)) {
+        unreadableVersion = version;
+        awaitOrphanGracePeriod(name, key);
+      } else {
+        removeOrphan(name, existing);
+      }
+    }
+  }
+
+  private static void awaitOrphanGracePeriod(String name, String key) {
+    try {
+      Thread.sleep(ORPHAN_GRACE_PERIOD.toMillis());
+    } catch (InterruptedException ex) {
+      // Re-interrupt current thread, to allow other participants to react.
+      Thread.currentThread().interrupt();
+
+      throw new ConcurrencyFailureException(String.format("Interrupted while writing '%s' of cache %s", key, name), ex);
+    }
+  }
+
+  /**
+   * Write the value if there is no entry for the key.
+   *
+   * @return {@literal null} if the value has been written, the stored item otherwise. The item is empty if it has
+   * been removed since the write failed.
+   */
+  @Nullable
+  private Map<String, AttributeValue> putIfAbsentInternal(String name, String physicalKey, @Nullable byte[] value, @Nullable Duration ttl,
+                                                          @Nullable List<RootAttribute> rootAttributes) {
+    Map<String, AttributeValue> blobPointer = isOffloaded(value) ? writeBlob(name, createItem(physicalKey, ttl, rootAttributes), value) : null;
+    try {
+      Map<String, AttributeValue> item;
+      int previousChunks;
+      if (blobPointer != null) {
+        item = blobPointer;
+        previousChunks = putIfAbsentReplacing(name, item);
+      } else if (valueChunker.requiresChunking(value)) {
+        // the manifest is written first, readers treat the entry as absent until all chunks have been written
+        item = valueChunker.toManifest(createItem(physicalKey, ttl, rootAttributes), value);
+        previousChunks = putIfAbsentReplacing(name, item);
+        valueChunker.writeChunks(name, item, value);
+      } else {
+        item = createItem(physicalKey, value, ttl, rootAttributes);
+        previousChunks = putIfAbsentReplacing(name, item);
+      }
+      // an expired chunked entry may have been replaced
+      valueChunker.removeChunks(name, physicalKey, previousChunks, ValueChunker.chunksOf(item));
       return null;
-    });
+    } catch (ConditionalCheckFailedException e) {
+      if (blobPointer != null) {
+        blobStore.delete(name, blobPointer.get(ATTRIBUTE_BLOB_ID).s());
+      }
+      if (e.hasItem() && !e.item().isEmpty()) {
+        return e.item();
+      }
+      // endpoints not returning the item on a failed condition, e.g. older DynamoDB local versions
+      GetItemResponse response = getItemInternal(name, physicalKey, true);
+      return response.hasItem() ? response.item() : Collections.emptyMap();
+    }
+  }
+
+  /**
+   * Write the item if there is no entry for the key.
+   *
+   * @return the number of chunks of the expired entry replaced by the item.
+   * @throws ConditionalCheckFailedException if there is an entry for the key.
+   */
+  private int putIfAbsentReplacing(String name, Map<String, AttributeValue> item) {
+    PutItemResponse response = dynamoTemplate.putItem(putIfAbsentRequest(name, item).toBuilder()
+      .returnValues(ReturnValue.ALL_OLD)
+      .build());
+    return ValueChunker.chunksOf(response.attributes());
+  }
+
+  /**
+   * Remove an item whose chunks or blob are missing or corrupt, unless it has been replaced in the meantime.
+   */
+  private void removeOrphan(String name, Map<String, AttributeValue> item) {
+    String versionAttribute = ValueChunker.isManifest(item) ? ATTRIBUTE_CHUNK_VERSION : ATTRIBUTE_BLOB_ID;
+    try {
+      dynamoTemplate.deleteItem(DeleteItemRequest.builder()
+        .tableName(name)
+        .key(Collections.singletonMap(ATTRIBUTE_KEY, item.get(ATTRIBUTE_KEY)))
+        .conditionExpression("#version = :version")
+        .expressionAttributeNames(Collections.singletonMap("#version", versionAttribute))
+        .expressionAttributeValues(Collections.singletonMap(":version", item.get(versionAttribute)))
+        .build());
+    } catch (ConditionalCheckFailedException e) {
+      // the item has been replaced or removed
+      return;
+    }
+    valueChunker.removeChunks(name, item.get(ATTRIBUTE_KEY).s(), ValueChunker.chunksOf(item), 0);
+    if (blobStore != null && item.containsKey(ATTRIBUTE_BLOB_ID)) {
+      blobStore.delete(name, item.get(ATTRIBUTE_BLOB_ID).s());
+    }
   }
 
   @Override
   public void remove(String name, String key) {
     Assert.notNull(name, "Name must not be null!");
-    Assert.notNull(key, "Key must not be null!");
+    assertKey(key);
 
-    execute(name, connection -> {
-      removeInternal(name, key);
+    clearStrategy.awaitAvailable(name);
+    execute(name, key, () -> {
+      removeInternal(name, physicalKey(name, key));
       return "OK";
     });
   }
@@ -156,33 +420,12 @@ public class DefaultDynamoCacheWriter implements DynamoCacheWriter {
   public void clear(String name) {
     Assert.notNull(name, "Name must not be null!");
 
-    execute(name, connection -> {
-      try {
-        if (isLockingCacheWriter()) {
-          doLock(name);
-        }
-
-        List<Map<String, AttributeValue>> items = dynamoTemplate.scan(req -> req.tableName(name)).items();
-
-        items.parallelStream()
-          .forEach(map -> {
-            Map<String, AttributeValue> keyToDelete = new HashMap<>();
-            keyToDelete.put(ATTRIBUTE_KEY, map.get(ATTRIBUTE_KEY));
-            DeleteItemRequest delReq = DeleteItemRequest.builder()
-              .tableName(name)
-              .key(keyToDelete)
-              .build();
-            dynamoTemplate.deleteItem(delReq);
-          });
-      } catch (ResourceNotFoundException ignored) {
-        // ignore table not found
-      } finally {
-        if (isLockingCacheWriter()) {
-          doUnlock(name);
-        }
-      }
-      return "OK";
-    });
+    clearStrategy.awaitAvailable(name);
+    try {
+      executeRenewing(name, CLEAR_LOCK_KEY, () -> clearStrategy.clear(dynamoTemplate, name));
+    } catch (ResourceNotFoundException ignored) {
+      // ignore table not found
+    }
   }
 
   @Override
@@ -204,54 +447,389 @@ public class DefaultDynamoCacheWriter implements DynamoCacheWriter {
     return created;
   }
 
-  private byte[] getInternal(String name, String key) {
+  /**
+   * @return {@literal true} if the value is not stored in the item of its key, but offloaded to the blob store or
+   * spread over several items.
+   */
+  boolean isLargeValue(@Nullable byte[] value) {
+    return isOffloaded(value) || valueChunker.requiresChunking(value);
+  }
+
+  private boolean isOffloaded(@Nullable byte[] value) {
+    return blobStore != null && value != null && value.length > blobThreshold;
+  }
+
+  /**
+   * @return the key of the item stored for the given key of a cache entry, as mapped by the {@link ClearStrategy}.
+   */
+  String physicalKey(String name, String key) {
+    assertKey(key);
+    return clearStrategy.physicalKey(dynamoTemplate, name, key);
+  }
+
+  static void assertKey(String key) {
+    Assert.notNull(key, "Key must not be null!");
+    Assert.isTrue(!isReservedKey(key), () -> String.format("Key '%s' is reserved for items stored next to the cache entries!", key));
+  }
+
+  /**
+   * @return {@literal true} if the key could collide with a lease, a chunk or another item stored next to the cache
+   * entries.
+   */
+  static boolean isReservedKey(String key) {
+    return isMetadataKey(key) || ValueChunker.isChunkKey(key);
+  }
+
+  /**
+   * @return {@literal true} if the key is the key of a lease, the generation, a dictionary or another item stored next
+   * to the cache entries that is not part of an entry.
+   */
+  static boolean isMetadataKey(String key) {
+    return key.startsWith("~") || key.endsWith(LeaseLock.LOCK_SUFFIX) || key.endsWith(DynamoCache.LOAD_LEASE_SUFFIX);
+  }
+
+  private DynamoCacheLookup lookupInternal(String name, String key) {
+    return lookupInternal(name, key, false);
+  }
+
+  private DynamoCacheLookup lookupInternal(String name, String key, boolean consistentRead) {
+    final GetItemResponse result = getItemInternal(name, key, consistentRead);
+    if (result.hasItem() && isIndirect(result.item())) {
+      return toIndirectLookup(name, result.item(), consistentRead);
+    }
+    return toLookup(result);
+  }
+
+  private GetItemResponse getItemInternal(String name, String key, boolean consistentRead) {
     final GetItemRequest request = GetItemRequest.builder()
-      .attributesToGet(ATTRIBUTE_VALUE, ATTRIBUTE_TTL)
+      .attributesToGet(ATTRIBUTE_KEY, ATTRIBUTE_VALUE, ATTRIBUTE_TTL, ATTRIBUTE_SOFT_TTL, ATTRIBUTE_LOAD_DURATION,
+        ATTRIBUTE_CHUNKS, ATTRIBUTE_CHUNK_VERSION, ATTRIBUTE_VALUE_SIZE, ATTRIBUTE_BLOB_ID, ATTRIBUTE_CHECKSUM)
+      .consistentRead(consistentRead)
       .tableName(name)
       .key(Collections.singletonMap(ATTRIBUTE_KEY, AttributeValue.fromS(key)))
       .build();
 
-    final GetItemResponse result = dynamoTemplate.getItem(request);
-    if (result.hasItem() && !isPastTtl(result)) {
-      return getAttributeValue(result);
+    return dynamoTemplate.getItem(request);
+  }
+
+  private DynamoCacheLookup toIndirectLookup(String name, Map<String, AttributeValue> item, boolean consistentRead) {
+    if (isPastTtl(item)) {
+      return DynamoCacheLookup.absent();
+    }
+    byte[] value = readIndirect(name, item, consistentRead);
+    if (value == null) {
+      return DynamoCacheLookup.absent();
+    }
+    return toLookup(item, value);
+  }
+
+  /**
+   * @return {@literal true} if the item does not hold the value itself, but references chunks or a blob.
+   */
+  static boolean isIndirect(Map<String, AttributeValue> item) {
+    return ValueChunker.isManifest(item) || item.containsKey(ATTRIBUTE_BLOB_ID);
+  }
+
+  /**
+   * Read the value referenced by the item.
+   *
+   * @return the value, {@literal null} if it is missing or does not match the item.
+   */
+  @Nullable
+  private byte[] readIndirect(String name, Map<String, AttributeValue> item, boolean consistentRead) {
+    if (ValueChunker.isManifest(item)) {
+      return valueChunker.readChunks(name, item, consistentRead);
+    }
+
+    String blobId = item.get(ATTRIBUTE_BLOB_ID).s();
+    if (blobStore == null) {
+      LOGGER.warn("Blob '{}' of cache '{}' cannot be read without a BlobStore, treating '{}' as absent.", blobId, name, item.get(ATTRIBUTE_KEY).s());
+      return null;
+    }
+    byte[] value = blobStore.get(name, blobId);
+    if (value == null) {
+      return null;
+    }
+    if (value.length != Integer.parseInt(item.get(ATTRIBUTE_VALUE_SIZE).n()) || checksum(value) != Long.parseLong(item.get(ATTRIBUTE_CHECKSUM).n())) {
+      LOGGER.warn("Blob '{}' of cache '{}' does not match its size or checksum, treating '{}' as absent.", blobId, name, item.get(ATTRIBUTE_KEY).s());
+      return null;
+    }
+    return value;
+  }
+
+  /**
+   * Write the value to the blob store and turn the attributes of the entry into a pointer to the blob. The blob expires
+   * together with the item.
+   *
+   * @return the given attributes.
+   */
+  private Map<String, AttributeValue> writeBlob(String name, Map<String, AttributeValue> attributes, byte[] value) {
+    String blobId = UUID.randomUUID().toString();
+    Objects.requireNonNull(blobStore).put(name, blobId, value, getExpiresAt(attributes));
+
+    attributes.put(ATTRIBUTE_BLOB_ID, AttributeValue.fromS(blobId));
+    attributes.put(ATTRIBUTE_VALUE_SIZE, AttributeValue.fromN(String.valueOf(value.length)));
+    attributes.put(ATTRIBUTE_CHECKSUM, AttributeValue.fromN(String.valueOf(checksum(value))));
+    return attributes;
+  }
+
+  private static long checksum(byte[] value) {
+    CRC32 crc = new CRC32();
+    crc.update(value, 0, value.length);
+    return crc.getValue();
+  }
+
+  private Map<String, DynamoCacheLookup> getAllInternal(String name, Collection<String> keys) {
+    List<String> distinctKeys = new ArrayList<>(new LinkedHashSet<>(keys));
+    if (distinctKeys.isEmpty()) {
+      return Collections.emptyMap();
+    }
+    // values stored outside their items are resolved on the calling thread, as reading chunks uses the batch pool itself
+    Queue<Map<String, AttributeValue>> indirect = new ConcurrentLinkedQueue<>();
+    Map<String, DynamoCacheLookup> result;
+    if (distinctKeys.size() <= MAX_BATCH_GET_SIZE) {
+      result = batchGetInternal(name, distinctKeys, indirect);
     } else {
-      throw new NoSuchElementException(String.format("No entry found for '%s'.", key));
+      List<CompletableFuture<Map<String, DynamoCacheLookup>>> futures = new ArrayList<>();
+      for (int i = 0; i < distinctKeys.size(); i += MAX_BATCH_GET_SIZE) {
+        List<String> chunk = distinctKeys.subList(i, Math.min(i + MAX_BATCH_GET_SIZE, distinctKeys.size()));
+        futures.add(CompletableFuture.supplyAsync(() -> batchGetInternal(name, chunk, indirect), BatchRequests.batchExecutor()));
+      }
+
+      result = new HashMap<>();
+      try {
+        for (CompletableFuture<Map<String, DynamoCacheLookup>> future : futures) {
+          result.putAll(future.join());
+        }
+      } catch (CompletionException e) {
+        if (e.getCause() instanceof RuntimeException) {
+          throw (RuntimeException) e.getCause();
+        }
+        throw e;
+      }
+    }
+
+    for (Map<String, AttributeValue> item : indirect) {
+      byte[] value = readIndirect(name, item, false);
+      if (value != null) {
+        result.put(item.get(ATTRIBUTE_KEY).s(), toLookup(item, value));
+      }
+    }
+    return result;
+  }
+
+  private Map<String, DynamoCacheLookup> batchGetInternal(String name, List<String> keys, Queue<Map<String, AttributeValue>> indirect) {
+    Map<String, DynamoCacheLookup> result = new HashMap<>();
+
+    KeysAndAttributes keysAndAttributes = KeysAndAttributes.builder()
+      .attributesToGet(ATTRIBUTE_KEY, ATTRIBUTE_VALUE, ATTRIBUTE_TTL, ATTRIBUTE_SOFT_TTL, ATTRIBUTE_LOAD_DURATION,
+        ATTRIBUTE_CHUNKS, ATTRIBUTE_CHUNK_VERSION, ATTRIBUTE_VALUE_SIZE, ATTRIBUTE_BLOB_ID, ATTRIBUTE_CHECKSUM)
+      .keys(keys.stream()
+        .map(key -> Collections.singletonMap(ATTRIBUTE_KEY, AttributeValue.fromS(key)))
+        .collect(Collectors.toList()))
+      .build();
+
+    int attempt = 0;
+    while (keysAndAttributes != null && keysAndAttributes.hasKeys() && !keysAndAttributes.keys().isEmpty()) {
+      if (attempt > 0 && !BatchRequests.backoff(attempt)) {
+        break;
+      }
+
+      BatchGetItemResponse response = dynamoTemplate.batchGetItem(BatchGetItemRequest.builder()
+        .requestItems(Collections.singletonMap(name, keysAndAttributes))
+        .build());
+
+      response.responses().getOrDefault(name, Collections.emptyList()).stream()
+        .filter(item -> !isPastTtl(item) && !isStale(item))
+        .forEach(item -> {
+          if (isIndirect(item)) {
+            indirect.add(item);
+          } else {
+            result.put(item.get(ATTRIBUTE_KEY).s(), toLookup(item));
+          }
+        });
+
+      keysAndAttributes = response.unprocessedKeys().get(name);
+      if (++attempt > BatchRequests.MAX_BATCH_RETRIES && keysAndAttributes != null && keysAndAttributes.hasKeys()) {
+        LOGGER.warn("Giving up on {} unprocessed keys of cache '{}' after {} attempts.", keysAndAttributes.keys().size(), name, attempt);
+        break;
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Convert the response of a {@code GetItem} request to a {@link DynamoCacheLookup}. Items past their TTL that have
+   * not been deleted by DynamoDB yet are reported as absent.
+   */
+  static DynamoCacheLookup toLookup(GetItemResponse result) {
+    if (!result.hasItem() || result.item().isEmpty()) {
+      return DynamoCacheLookup.absent();
+    }
+    if (isPastTtl(result.item())) {
+      return DynamoCacheLookup.absent();
     }
+    return toLookup(result.item());
   }
 
-  private byte[] getAttributeValue(GetItemResponse result) {
-    final AttributeValue attribute = result.item().get(ATTRIBUTE_VALUE);
+  /**
+   * Convert an item holding its value to a {@link DynamoCacheLookup} of a present entry.
+   */
+  static DynamoCacheLookup toLookup(Map<String, AttributeValue> item) {
+    return toLookup(item, getAttributeValue(item));
+  }
+
+  private static DynamoCacheLookup toLookup(Map<String, AttributeValue> item, @Nullable byte[] value) {
+    return DynamoCacheLookup.present(value, getExpiresAt(item), getStaleAt(item), getLoadDuration(item));
+  }
+
+  static byte[] getAttributeValue(Map<String, AttributeValue> item) {
+    final AttributeValue attribute = item.get(ATTRIBUTE_VALUE);
     if (attribute == null) {
       throw new IllegalStateException(String.format("Attribute value does not match the expected '%s'.", ATTRIBUTE_VALUE));
     }
 
     SdkBytes element = attribute.b();
     if (element == null && attribute.nul()) {
-      // TODO to return null is bad style, but how to distinct between null value from getInternal and no entry at all?
       return null;
     } else {
-      return Objects.requireNonNull(element).asByteArray();
+      // the bytes are not modified by the cache, so they are not copied
+      return Objects.requireNonNull(element).asByteArrayUnsafe();
     }
   }
 
-  private boolean isPastTtl(GetItemResponse result) {
-    final AttributeValue attributeTtl = result.item().get(ATTRIBUTE_TTL);
-    if (attributeTtl != null && attributeTtl.n() != null) {
-      Instant ttlInstant = Instant.ofEpochSecond(Long.parseLong(attributeTtl.n()));
-      return Instant.now().isAfter(ttlInstant);
+  static boolean isPastTtl(Map<String, AttributeValue> item) {
+    Instant expiresAt = getExpiresAt(item);
+    return expiresAt != null && Instant.now().isAfter(expiresAt);
+  }
+
+  @Nullable
+  static Instant getExpiresAt(Map<String, AttributeValue> item) {
+    return getInstant(item, ATTRIBUTE_TTL);
+  }
+
+  /**
+   * @return {@literal true} if the item has a soft TTL that has passed, so its value may only be served stale.
+   */
+  static boolean isStale(Map<String, AttributeValue> item) {
+    Instant staleAt = getStaleAt(item);
+    return staleAt != null && Instant.now().isAfter(staleAt);
+  }
+
+  @Nullable
+  static Instant getStaleAt(Map<String, AttributeValue> item) {
+    return getInstant(item, ATTRIBUTE_SOFT_TTL);
+  }
+
+  @Nullable
+  static Duration getLoadDuration(Map<String, AttributeValue> item) {
+    final AttributeValue attribute = item.get(ATTRIBUTE_LOAD_DURATION);
+    if (attribute != null && attribute.n() != null) {
+      return Duration.ofMillis(Long.parseLong(attribute.n()));
+    }
+    return null;
+  }
+
+  @Nullable
+  private static Instant getInstant(Map<String, AttributeValue> item, String attributeName) {
+    final AttributeValue attribute = item.get(attributeName);
+    if (attribute != null && attribute.n() != null) {
+      return Instant.ofEpochSecond(Long.parseLong(attribute.n()));
     }
-    return false;
+    return null;
   }
 
   private void putInternal(String name, String key, @Nullable byte[] value, @Nullable Duration ttl, @Nullable List<RootAttribute> rootAttributes) {
-    Map<String, AttributeValue> attributeValues = new HashMap<>();
-    attributeValues.put(ATTRIBUTE_KEY, AttributeValue.fromS(key));
+    Map<String, AttributeValue> item;
+    if (isOffloaded(value)) {
+      item = writeBlob(name, createItem(key, ttl, rootAttributes), value);
+    } else if (valueChunker.requiresChunking(value)) {
+      // chunks are written before the manifest that references them
+      item = valueChunker.toManifest(createItem(key, ttl, rootAttributes), value);
+      valueChunker.writeChunks(name, item, value);
+    } else {
+      item = createItem(key, value, ttl, rootAttributes);
+    }
+
+    int chunks = ValueChunker.chunksOf(item);
+    if (leaseLock != null) {
+      // transactions do not return the replaced item, it cannot change while the lease of the key is held though
+      int previousChunks = storedChunks(name, key);
+      writeExcludingClear(name, TransactWriteItem.builder()
+        .put(Put.builder()
+          .tableName(name)
+          .item(item)
+          .build())
+        .build());
+      valueChunker.removeChunks(name, key, previousChunks, chunks);
+      return;
+    }
+
+    PutItemRequest putItemRequest = PutItemRequest.builder()
+      .tableName(name)
+      .item(item)
+      .returnValues(ReturnValue.ALL_OLD)
+      .build();
+    PutItemResponse response = dynamoTemplate.putItem(putItemRequest);
+    valueChunker.removeChunks(name, key, ValueChunker.chunksOf(response.attributes()), chunks);
+  }
+
+  /**
+   * @return the number of chunks of the item stored for the key, {@literal 0} if it holds its value or is absent.
+   */
+  private int storedChunks(String name, String key) {
+    GetItemResponse response = dynamoTemplate.getItem(GetItemRequest.builder()
+      .tableName(name)
+      .key(Collections.singletonMap(ATTRIBUTE_KEY, AttributeValue.fromS(key)))
+      .attributesToGet(ATTRIBUTE_CHUNKS)
+      .consistentRead(true)
+      .build());
+    return response.hasItem() ? ValueChunker.chunksOf(response.item()) : 0;
+  }
+
+  /**
+   * Create a {@code PutItem} request that only succeeds if there is no item for the key or the stored item is past its
+   * TTL. On failure the stored item is returned with the {@link ConditionalCheckFailedException}.
+   */
+  static PutItemRequest putIfAbsentRequest(String name, String key, @Nullable byte[] value, @Nullable Duration ttl, @Nullable List<RootAttribute> rootAttributes) {
+    return putIfAbsentRequest(name, createItem(key, value, ttl, rootAttributes));
+  }
+
+  private static PutItemRequest putIfAbsentRequest(String name, Map<String, AttributeValue> item) {
+    Map<String, String> attributeNames = new HashMap<>();
+    attributeNames.put("#key", ATTRIBUTE_KEY);
+    attributeNames.put("#ttl", ATTRIBUTE_TTL);
+
+    return PutItemRequest.builder()
+      .tableName(name)
+      .item(item)
+      .conditionExpression("attribute_not_exists(#key) OR #ttl < :now")
+      .expressionAttributeNames(attributeNames)
+      .expressionAttributeValues(Collections.singletonMap(":now", AttributeValue.fromN(String.valueOf(Instant.now().getEpochSecond()))))
+      .returnValuesOnConditionCheckFailure(ReturnValuesOnConditionCheckFailure.ALL_OLD)
+      .build();
+  }
+
+  /**
+   * Create the attributes of the item stored for the given key/value pair.
+   */
+  static Map<String, AttributeValue> createItem(String key, @Nullable byte[] value, @Nullable Duration ttl, @Nullable List<RootAttribute> rootAttributes) {
+    Map<String, AttributeValue> attributeValues = createItem(key, ttl, rootAttributes);
 
     if (value == null) {
       attributeValues.put(ATTRIBUTE_VALUE, AttributeValue.fromNul(true));
     } else {
-      attributeValues.put(ATTRIBUTE_VALUE, AttributeValue.fromB(SdkBytes.fromByteArray(value)));
+      attributeValues.put(ATTRIBUTE_VALUE, AttributeValue.fromB(SdkBytes.fromByteArrayUnsafe(value)));
     }
+    return attributeValues;
+  }
+
+  /**
+   * Create the attributes of the item stored for the given key, without the value.
+   */
+  private static Map<String, AttributeValue> createItem(String key, @Nullable Duration ttl, @Nullable List<RootAttribute> rootAttributes) {
+    Map<String, AttributeValue> attributeValues = new HashMap<>();
+    attributeValues.put(ATTRIBUTE_KEY, AttributeValue.fromS(key));
 
     if (shouldExpireWithin(ttl)) {
       attributeValues.put(ATTRIBUTE_TTL, AttributeValue.fromN(String.valueOf(Instant.now().plus(ttl).getEpochSecond())));
@@ -260,41 +838,59 @@ public class DefaultDynamoCacheWriter implements DynamoCacheWriter {
     if (rootAttributes != null) {
       rootAttributes.forEach(rootAttribute -> attributeValues.put(rootAttribute.getName(), rootAttribute.getAttributeValue()));
     }
-
-    PutItemRequest putItemRequest = PutItemRequest.builder()
-      .tableName(name)
-      .item(attributeValues)
-      .build();
-    dynamoTemplate.putItem(putItemRequest);
+    return attributeValues;
   }
 
   private void removeInternal(String name, String key) {
-    dynamoTemplate.deleteItem(DeleteItemRequest.builder()
+    if (leaseLock != null) {
+      int previousChunks = storedChunks(name, key);
+      writeExcludingClear(name, TransactWriteItem.builder()
+        .delete(Delete.builder()
+          .tableName(name)
+          .key(Collections.singletonMap(ATTRIBUTE_KEY, AttributeValue.fromS(key)))
+          .build())
+        .build());
+      valueChunker.removeChunks(name, key, previousChunks, 0);
+      return;
+    }
+
+    DeleteItemResponse response = dynamoTemplate.deleteItem(DeleteItemRequest.builder()
       .tableName(name)
       .key(Collections.singletonMap(ATTRIBUTE_KEY, AttributeValue.fromS(key)))
+      .returnValues(ReturnValue.ALL_OLD)
       .build());
+    valueChunker.removeChunks(name, key, ValueChunker.chunksOf(response.attributes()), 0);
   }
 
-  private void doLock(String name) {
-    // TODO should a ttl be provided for locking?
-    putInternal(name, createCacheLockKey(name), "1".getBytes(), null, null);
-  }
+  /**
+   * Write in a transaction that fails while the lease of {@code clear} is held, waiting until the clear has finished.
+   * Entries written concurrently to a clear are thereby either removed by the clear or written after it.
+   */
+  private void writeExcludingClear(String name, TransactWriteItem write) {
+    LeaseLock lock = Objects.requireNonNull(leaseLock);
+    while (true) {
+      try {
+        dynamoTemplate.transactWriteItems(TransactWriteItemsRequest.builder()
+          .transactItems(write, lock.notHeld(name, CLEAR_LOCK_KEY))
+          .build());
+        return;
+      } catch (TransactionCanceledException e) {
+        // the lease of clear is held or a concurrent transaction on the same items is in progress
+        if (!e.hasCancellationReasons() || e.cancellationReasons().stream()
+          .noneMatch(reason -> "ConditionalCheckFailed".equals(reason.code()) || "TransactionConflict".equals(reason.code()))) {
+          throw e;
+        }
+      }
 
-  private void doUnlock(String name) {
-    try {
-      removeInternal(name, createCacheLockKey(name));
-    } catch (ResourceNotFoundException e) {
-      // ignore
-    }
-  }
+      try {
+        Thread.sleep(sleepTime.toMillis());
+      } catch (InterruptedException ex) {
+        // Re-interrupt current thread, to allow other participants to react.
+        Thread.currentThread().interrupt();
 
-  private boolean doCheckLock(String name) {
-    try {
-      getInternal(name, createCacheLockKey(name));
-    } catch (NoSuchElementException | ResourceNotFoundException e) {
-      return false;
+        throw new PessimisticLockingFailureException(String.format("Interrupted while waiting for clear of cache %s", name), ex);
+      }
     }
-    return true;
   }
 
   /**
@@ -304,26 +900,51 @@ public class DefaultDynamoCacheWriter implements DynamoCacheWriter {
     return !sleepTime.isZero() && !sleepTime.isNegative();
   }
 
-  private <T> T execute(String name, Function<DynamoDbClient, T> callback) {
-    checkAndPotentiallyWaitUntilUnlocked(name);
-    return callback.apply(dynamoTemplate);
+  /**
+   * Run the callback while holding the lease on the given key if this writer locks. Unrelated keys never wait on
+   * each other, reads do not lock at all.
+   */
+  private <T> T execute(String name, String key, Supplier<T> callback) {
+    if (leaseLock == null) {
+      return callback.get();
+    }
+
+    String token = leaseLock.acquire(name, key, sleepTime);
+    try {
+      return callback.get();
+    } finally {
+      leaseLock.release(name, key, token);
+    }
   }
 
-  private void checkAndPotentiallyWaitUntilUnlocked(String name) {
-    if (!isLockingCacheWriter()) {
-      return;
+  /**
+   * Like {@link #execute(String, String, Supplier)}, but renew the lease every third of its duration while the
+   * callback runs, so callbacks that may take longer than the lease duration, like a clear, keep excluding writers.
+   */
+  private <T> T executeRenewing(String name, String key, Supplier<T> callback) {
+    if (leaseLock == null) {
+      return callback.get();
     }
 
-    try {
-      while (doCheckLock(name)) {
-        Thread.sleep(sleepTime.toMillis());
+    String token = leaseLock.acquire(name, key, sleepTime);
+    AtomicBoolean done = new AtomicBoolean();
+    long period = Math.max(1, leaseLock.getLeaseDuration().toMillis() / 3);
+    ScheduledFuture<?> renewal = RenewalSchedulerHolder.SCHEDULER.scheduleAtFixedRate(() -> {
+      try {
+        if (!leaseLock.renew(name, key, token) && !done.get()) {
+          LOGGER.warn("Lease on '{}' of cache {} has been lost before it could be renewed.", key, name);
+        }
+      } catch (RuntimeException e) {
+        // keep renewing, a later attempt may succeed before the lease expires
+        LOGGER.warn("Failed to renew lease on '{}' of cache {}.", key, name, e);
       }
-    } catch (InterruptedException ex) {
-      // Re-interrupt current thread, to allow other participants to react.
-      Thread.currentThread().interrupt();
-
-      throw new PessimisticLockingFailureException(String.format("Interrupted while waiting to unlock cache %s", name),
-        ex);
+    }, period, period, TimeUnit.MILLISECONDS);
+    try {
+      return callback.get();
+    } finally {
+      done.set(true);
+      renewal.cancel(false);
+      leaseLock.release(name, key, token);
     }
   }
 
@@ -331,11 +952,7 @@ public class DefaultDynamoCacheWriter implements DynamoCacheWriter {
     return ttl != null && !ttl.isZero() && !ttl.isNegative();
   }
 
-  private static String createCacheLockKey(String name) {
-    return (name + "~lock");
-  }
-
-  private CreateTableRequest createTableRequest(String name, Long readCapacityUnits, Long writeCapacityUnits) {
+  static CreateTableRequest createTableRequest(String name, Long readCapacityUnits, Long writeCapacityUnits) {
     return CreateTableRequest.builder()
       .tableName(name)
       .attributeDefinitions(AttributeDefinition.builder()
@@ -353,8 +970,20 @@ public class DefaultDynamoCacheWriter implements DynamoCacheWriter {
       .build();
   }
 
+  /**
+   * Single daemon thread used to renew leases held for long-running operations.
+   */
+  private static class RenewalSchedulerHolder {
+
+    private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "dynamo-cache-lease-renewal");
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
   // TODO to be tested (not implemented in AmazonDynamoDB local)
-  private UpdateTimeToLiveRequest updateTimeToLiveRequest(String name) {
+  static UpdateTimeToLiveRequest updateTimeToLiveRequest(String name) {
     return UpdateTimeToLiveRequest.builder()
       .tableName(name)
       .timeToLiveSpecification(TimeToLiveSpecification.builder()
@@ -22,16 +22,31 @@ import com.dasburo.spring.cache.dynamo.serializer.DynamoSerializer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.cache.Cache;
-import org.springframework.cache.support.SimpleValueWrapper;
+import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
 
+import java.nio.ByteBuffer;
 import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
-import java.util.NoSuchElementException;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.stream.Collectors;
 
+import static com.dasburo.spring.cache.dynamo.DefaultDynamoCacheWriter.ATTRIBUTE_LOAD_DURATION;
+import static com.dasburo.spring.cache.dynamo.DefaultDynamoCacheWriter.ATTRIBUTE_SOFT_TTL;
+
 /**
  * Spring {@link Cache} adapter implementation
  * on top of Amazons DynamoDB.
@@ -42,9 +57,23 @@ public class DynamoCache implements Cache {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(DynamoCache.class);
 
+  /**
+   * Suffix of the keys leased while a value is loaded, distinct from the keys leased by locking writers.
+   */
+  static final String LOAD_LEASE_SUFFIX = "~load";
+  private static final long MIN_LOAD_BACKOFF_MILLIS = 25;
+  private static final long MAX_LOAD_BACKOFF_MILLIS = 400;
+
   private final String cacheName;
   private final DynamoCacheWriter writer;
   private final DynamoCacheConfiguration cacheConfig;
+  @Nullable
+  private final NearCache nearCache;
+  private final SingleFlight singleFlight = new SingleFlight();
+  private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+  private final LongAdder earlyExpirationCount = new LongAdder();
+  @Nullable
+  private final LeaseLock loadLease;
 
   private RootAttributeReader rootAttributeReader = new RootAttributeReader();
 
@@ -72,6 +101,8 @@ public class DynamoCache implements Cache {
     this.cacheName = cacheName;
     this.writer = writer;
     this.cacheConfig = cacheConfig;
+    this.nearCache = createNearCache(cacheConfig);
+    this.loadLease = createLoadLease(writer, cacheConfig);
 
     initialize();
   }
@@ -79,6 +110,9 @@ public class DynamoCache implements Cache {
   @Override
   public void clear() {
     writer.clear(cacheName);
+    if (nearCache != null) {
+      nearCache.clear();
+    }
   }
 
   @Override
@@ -86,27 +120,26 @@ public class DynamoCache implements Cache {
     Assert.isTrue(key instanceof String, "'key' must be an instance of 'java.lang.String'.");
 
     writer.remove(cacheName, (String) key);
+    if (nearCache != null) {
+      nearCache.evict((String) key);
+    }
   }
 
   @Override
   public ValueWrapper get(Object key) {
-    try {
-      Object value = getFromCache(key);
-      return new SimpleValueWrapper(value);
-    } catch (NoSuchElementException e) {
-      return null;
-    }
+    return getFromCache(key);
   }
 
   @Override
   public <T> T get(Object key, Class<T> type) {
+    final ValueWrapper cached = getFromCache(key);
+    if (cached == null) {
+      return null;
+    }
     try {
-      final Object value = getFromCache(key);
-      return type.cast(value);
+      return type.cast(cached.get());
     } catch (ClassCastException e) {
       throw new IllegalStateException("Unable to cast the object.", e);
-    } catch (NoSuchElementException e) {
-      return null;
     }
   }
 
@@ -115,19 +148,200 @@ public class DynamoCache implements Cache {
     Assert.isTrue(key instanceof String, "'key' must be an instance of 'java.lang.String'.");
     Assert.notNull(valueLoader, "'valueLoader' must not be null.");
 
-    ValueWrapper cached = get(key);
+    if (nearCache != null) {
+      ValueWrapper local = nearCache.get((String) key);
+      if (local != null) {
+        return (T) local.get();
+      }
+    }
 
-    if (cached != null) {
-      return (T) cached.get();
+    // concurrent callers on this node share one lookup and one loader call
+    Object result = singleFlight.execute((String) key, () -> {
+      DynamoCacheLookup lookup = writer.lookup(cacheName, (String) key);
+      Instant now = Instant.now();
+      if (lookup.isPresent() && !lookup.isStale(now)) {
+        if (!shouldExpireEarly(lookup, now)) {
+          return (T) toValueWrapper((String) key, lookup).get();
+        }
+        earlyExpirationCount.increment();
+        try {
+          return loadCoordinated((String) key, valueLoader);
+        } catch (RuntimeException e) {
+          LOGGER.warn("Reloading '{}' of cache {} before its expiry failed, serving the cached value.", key, cacheName, e);
+          return (T) toValueWrapper((String) key, lookup).get();
+        }
+      }
+      if (isStaleWithin(lookup, cacheConfig.getStaleWhileRevalidate(), now)) {
+        return new StaleValue(deserialize(lookup.getValueBuffer()), lookup);
+      }
+
+      try {
+        return loadCoordinated((String) key, valueLoader);
+      } catch (RuntimeException e) {
+        if (isStaleWithin(lookup, cacheConfig.getStaleIfError(), now)) {
+          LOGGER.warn("Loading '{}' of cache {} failed, serving the stale value.", key, cacheName, e);
+          return (T) deserialize(lookup.getValueBuffer());
+        }
+        throw e;
+      }
+    });
+
+    // the refresh is scheduled once the flight has ended, so that it runs the loader instead of sharing the stale value
+    if (result instanceof StaleValue) {
+      StaleValue stale = (StaleValue) result;
+      refreshAsync((String) key, valueLoader, stale.lookup);
+      return (T) stale.value;
     }
+    return (T) result;
+  }
 
+  /**
+   * Reload the value of a stale entry in the background. A key is refreshed at most once at a time, and refreshes are
+   * skipped while the shared refresh queue is full. The refresh runs as the single flight of the key, so concurrent
+   * {@link #get(Object, Callable)} calls share its value, or the stale value if it fails, instead of loading again.
+   */
+  @SuppressWarnings("unchecked")
+  private <T> void refreshAsync(String key, Callable<T> valueLoader, DynamoCacheLookup stale) {
+    if (!refreshing.add(key)) {
+      return;
+    }
     try {
-      T value = valueLoader.call();
-      put(key, value);
-      return value;
+      RefreshExecutorHolder.EXECUTOR.execute(() -> {
+        try {
+          Object result;
+          do {
+            // a flight that served the stale value does not replace the refresh, so wait for it and try again
+            result = singleFlight.execute(key, () -> {
+              try {
+                return loadCoordinated(key, valueLoader);
+              } catch (RuntimeException e) {
+                LOGGER.warn("Refreshing '{}' of cache {} failed, serving the stale value.", key, cacheName, e);
+                return (T) deserialize(stale.getValueBuffer());
+              }
+            });
+          } while (result instanceof StaleValue);
+        } catch (RuntimeException e) {
+          LOGGER.warn("Refreshing '{}' of cache {} failed.", key, cacheName, e);
+        } finally {
+          refreshing.remove(key);
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      refreshing.remove(key);
+      LOGGER.debug("Refresh queue is full, serving '{}' of cache {} stale.", key, cacheName);
+    }
+  }
+
+  /**
+   * Decide whether to reload a valid entry before it expires (XFetch). The time left until expiry is compared with the
+   * load duration of the entry scaled by the configured beta and an exponentially distributed random factor, so that
+   * reloads become likely shortly before the expiry and callers on different nodes do not reload at the same time.
+   */
+  private boolean shouldExpireEarly(DynamoCacheLookup lookup, Instant now) {
+    double beta = cacheConfig.getEarlyExpirationBeta();
+    Duration loadDuration = lookup.getLoadDuration();
+    Instant expiresAt = lookup.getStaleAt() != null ? lookup.getStaleAt() : lookup.getExpiresAt();
+    if (beta <= 0 || loadDuration == null || expiresAt == null) {
+      return false;
+    }
+    double gapMillis = loadDuration.toMillis() * beta * -Math.log(1 - ThreadLocalRandom.current().nextDouble());
+    return !now.plusMillis((long) gapMillis).isBefore(expiresAt);
+  }
+
+  /**
+   * @return {@literal true} if the lookup holds a stale entry whose soft TTL has passed less than the given time ago.
+   */
+  private static boolean isStaleWithin(DynamoCacheLookup lookup, @Nullable Duration window, Instant now) {
+    if (!lookup.isStale(now) || window == null || window.isZero() || window.isNegative()) {
+      return false;
+    }
+    return now.isBefore(lookup.getStaleAt().plus(window));
+  }
+
+  /**
+   * Run the value loader, holding the load lease of the key if load leases are enabled.
+   */
+  private <T> T loadCoordinated(String key, Callable<T> valueLoader) {
+    return loadLease != null ? loadWithLease(key, valueLoader) : load(key, valueLoader);
+  }
+
+  /**
+   * Run the value loader once the lease for the key has been acquired. Other nodes holding the lease are given time
+   * to publish their value, which is polled with a bounded backoff. A lease that has expired is taken over.
+   */
+  @SuppressWarnings("unchecked")
+  private <T> T loadWithLease(String key, Callable<T> valueLoader) {
+    String leaseKey = key + LOAD_LEASE_SUFFIX;
+    long backoff = MIN_LOAD_BACKOFF_MILLIS;
+    String token;
+    while ((token = loadLease.tryAcquire(cacheName, leaseKey)) == null) {
+      try {
+        Thread.sleep(backoff);
+      } catch (InterruptedException e) {
+        // Re-interrupt current thread, to allow other participants to react.
+        Thread.currentThread().interrupt();
+        throw new ValueRetrievalException(key, valueLoader, e);
+      }
+      backoff = Math.min(backoff * 2, MAX_LOAD_BACKOFF_MILLIS);
+
+      ValueWrapper published = getFromCache(key);
+      if (published != null) {
+        return (T) published.get();
+      }
+    }
+
+    try {
+      // the previous holder may have published the value right before releasing its lease
+      ValueWrapper published = getFromCache(key);
+      if (published != null) {
+        return (T) published.get();
+      }
+      return load(key, valueLoader);
+    } finally {
+      loadLease.release(cacheName, leaseKey, token);
+    }
+  }
+
+  private <T> T load(String key, Callable<T> valueLoader) {
+    T value;
+    long start = System.nanoTime();
+    try {
+      value = valueLoader.call();
     } catch (Exception e) {
       throw new ValueRetrievalException(key, valueLoader, e);
     }
+    putInternal(key, value, Duration.ofNanos(System.nanoTime() - start));
+    return value;
+  }
+
+  /**
+   * Returns the cached values for the given keys. Keys not present in the near cache are fetched
+   * from DynamoDB with as few batch requests as possible.
+   *
+   * @param keys the keys whose associated values are to be returned. Each key must be an instance of
+   *             {@link String}.
+   * @return a {@link ValueWrapper} for each key that is present in the cache, never {@literal null}.
+   * Keys without a cache entry are not contained.
+   */
+  public Map<String, ValueWrapper> getAll(Collection<?> keys) {
+    Assert.notNull(keys, "'keys' must not be null.");
+
+    Map<String, ValueWrapper> result = new HashMap<>();
+    List<String> missing = new ArrayList<>();
+    for (Object key : keys) {
+      Assert.isTrue(key instanceof String, "'key' must be an instance of 'java.lang.String'.");
+      ValueWrapper local = nearCache != null ? nearCache.get((String) key) : null;
+      if (local != null) {
+        result.put((String) key, local);
+      } else {
+        missing.add((String) key);
+      }
+    }
+
+    if (!missing.isEmpty()) {
+      writer.lookupAll(cacheName, missing).forEach((key, lookup) -> result.put(key, toValueWrapper(key, lookup)));
+    }
+    return result;
   }
 
   /**
@@ -146,6 +360,9 @@ public class DynamoCache implements Cache {
 
   @Override
   public Object getNativeCache() {
+    if (writer instanceof AsyncDynamoCacheWriterAdapter) {
+      return ((AsyncDynamoCacheWriterAdapter) writer).getAsyncCacheWriter().getNativeCacheWriter();
+    }
     return writer.getNativeCacheWriter();
   }
 
@@ -167,6 +384,43 @@ public class DynamoCache implements Cache {
     return cacheConfig.getRootAttributes();
   }
 
+  /**
+   * Returns the maximum number of entries held in the near cache in front of DynamoDB.
+   *
+   * @return the nearCacheMaxSize value, {@literal 0} if the near cache is disabled.
+   */
+  public final int getNearCacheMaxSize() {
+    return cacheConfig.getNearCacheMaxSize();
+  }
+
+  /**
+   * Returns the number of {@link #get(Object, Callable)} calls that looked up the key and ran the value loader on a miss.
+   *
+   * @return the loadCount value.
+   */
+  public final long getLoadCount() {
+    return singleFlight.getExecutionCount();
+  }
+
+  /**
+   * Returns the number of {@link #get(Object, Callable)} calls that shared the lookup and value loader of a concurrent
+   * call for the same key instead of running their own.
+   *
+   * @return the coalescedLoadCount value.
+   */
+  public final long getCoalescedLoadCount() {
+    return singleFlight.getCoalescedCount();
+  }
+
+  /**
+   * Returns the number of {@link #get(Object, Callable)} calls that reloaded a valid entry shortly before its expiry.
+   *
+   * @return the earlyExpirationCount value.
+   */
+  public final long getEarlyExpirationCount() {
+    return earlyExpirationCount.sum();
+  }
+
   /**
    * Returns the implementation of {@link DynamoCacheWriter} used for caching
    *
@@ -188,27 +442,147 @@ public class DynamoCache implements Cache {
   @Override
   public void put(Object key, Object value) {
     Assert.isTrue(key instanceof String, "'key' must be an instance of 'java.lang.String'.");
-    writer.put(cacheName, (String) key, serialize(value), cacheConfig.getTtl(), readRootAttributes(cacheConfig.getRootAttributes(), value));
+    putInternal((String) key, value, null);
+  }
+
+  private void putInternal(String key, Object value, @Nullable Duration loadDuration) {
+    Duration ttl = getJitteredTtl();
+    writer.put(cacheName, key, serialize(value), getStoredTtl(ttl), readRootAttributes(cacheConfig.getRootAttributes(), value, ttl, loadDuration));
+    if (nearCache != null) {
+      nearCache.put(key, value, getExpiresAt(ttl));
+    }
   }
 
   @Override
   public ValueWrapper putIfAbsent(Object key, Object value) {
     Assert.isTrue(key instanceof String, "'key' must be an instance of 'java.lang.String'.");
 
-    byte[] result = writer.putIfAbsent(cacheName, (String) key, serialize(value), cacheConfig.getTtl(), readRootAttributes(cacheConfig.getRootAttributes(), value));
-    if (result != null) {
+    Duration ttl = getJitteredTtl();
+    DynamoCacheLookup result = writer.putIfAbsentLookup(cacheName, (String) key, serialize(value), getStoredTtl(ttl),
+      readRootAttributes(cacheConfig.getRootAttributes(), value, ttl, null));
+    if (result.isPresent()) {
       LOGGER.debug(String.format("Key: %s already exists in the cache. Element will not be replaced.", key));
-      return new SimpleValueWrapper(deserialize(result));
+      ValueWrapper existing = lazyValueWrapper(result.getValueBuffer());
+      Instant expiresAt = result.getStaleAt() != null ? result.getStaleAt() : result.getExpiresAt();
+      // an entry of unknown expiry is only kept locally if entries do not expire
+      if (nearCache != null && (expiresAt != null || !isPositive(cacheConfig.getTtl()))) {
+        nearCache.putWrapper((String) key, existing, expiresAt);
+      }
+      return existing;
     }
 
+    if (nearCache != null) {
+      nearCache.put((String) key, value, getExpiresAt(ttl));
+    }
     return null;
   }
 
-  private Object getFromCache(Object key) {
+  @Nullable
+  private ValueWrapper getFromCache(Object key) {
     Assert.isTrue(key instanceof String, "'key' must be an instance of 'java.lang.String'.");
 
-    byte[] element = writer.get(cacheName, (String) key);
-    return deserialize(element);
+    if (nearCache != null) {
+      ValueWrapper local = nearCache.get((String) key);
+      if (local != null) {
+        return local;
+      }
+    }
+
+    DynamoCacheLookup lookup = writer.lookup(cacheName, (String) key);
+    if (!lookup.isPresent() || lookup.isStale(Instant.now())) {
+      return null;
+    }
+    return toValueWrapper((String) key, lookup);
+  }
+
+  private ValueWrapper toValueWrapper(String key, DynamoCacheLookup lookup) {
+    ValueWrapper wrapper = lazyValueWrapper(lookup.getValueBuffer());
+    if (nearCache != null) {
+      nearCache.putWrapper(key, wrapper, lookup.getStaleAt() != null ? lookup.getStaleAt() : lookup.getExpiresAt());
+    }
+    return wrapper;
+  }
+
+  /**
+   * Wrap the stored bytes of a value, which are only deserialized once the value is accessed.
+   */
+  private ValueWrapper lazyValueWrapper(@Nullable ByteBuffer value) {
+    return new LazyValueWrapper(cacheConfig.getSerializer(), value);
+  }
+
+  /**
+   * @return {@literal true} if entries are kept past their TTL to be served stale.
+   */
+  private boolean hasSoftTtl() {
+    return isPositive(cacheConfig.getTtl())
+      && (isPositive(cacheConfig.getStaleWhileRevalidate()) || isPositive(cacheConfig.getStaleIfError()));
+  }
+
+  /**
+   * The TTL of a written entry, shortened by a random time up to the configured jitter but never by more than half.
+   */
+  private Duration getJitteredTtl() {
+    Duration ttl = cacheConfig.getTtl();
+    if (!isPositive(ttl) || !isPositive(cacheConfig.getTtlJitter())) {
+      return ttl;
+    }
+    long maxJitterMillis = Math.min(cacheConfig.getTtlJitter().toMillis(), ttl.toMillis() / 2);
+    return ttl.minusMillis(ThreadLocalRandom.current().nextLong(maxJitterMillis + 1));
+  }
+
+  /**
+   * The time a value written now with the given TTL expires or becomes stale at, {@literal null} if it does not expire.
+   */
+  @Nullable
+  private static Instant getExpiresAt(Duration ttl) {
+    return isPositive(ttl) ? Instant.now().plus(ttl) : null;
+  }
+
+  /**
+   * The TTL written to DynamoDB. With a soft TTL, entries are kept for the longer of both stale windows after the given
+   * TTL has passed.
+   */
+  private Duration getStoredTtl(Duration ttl) {
+    if (!hasSoftTtl()) {
+      return ttl;
+    }
+    Duration staleWhileRevalidate = isPositive(cacheConfig.getStaleWhileRevalidate()) ? cacheConfig.getStaleWhileRevalidate() : Duration.ZERO;
+    Duration staleIfError = isPositive(cacheConfig.getStaleIfError()) ? cacheConfig.getStaleIfError() : Duration.ZERO;
+    return ttl.plus(staleWhileRevalidate.compareTo(staleIfError) > 0 ? staleWhileRevalidate : staleIfError);
+  }
+
+  private static boolean isPositive(@Nullable Duration duration) {
+    return duration != null && !duration.isZero() && !duration.isNegative();
+  }
+
+  @Nullable
+  private static NearCache createNearCache(DynamoCacheConfiguration cacheConfig) {
+    if (cacheConfig.getNearCacheMaxSize() <= 0) {
+      return null;
+    }
+    return new NearCache(cacheConfig.getNearCacheMaxSize(), nearCacheTtl(cacheConfig.getTtl(), cacheConfig.getNearCacheTtl()));
+  }
+
+  @Nullable
+  private static LeaseLock createLoadLease(DynamoCacheWriter writer, DynamoCacheConfiguration cacheConfig) {
+    Duration leaseDuration = cacheConfig.getLoadLeaseDuration();
+    if (leaseDuration == null || leaseDuration.isZero() || leaseDuration.isNegative()) {
+      return null;
+    }
+    Assert.state(writer.getNativeCacheWriter() != null, "Load leases require a writer providing a DynamoDbClient.");
+    return new LeaseLock(writer.getNativeCacheWriter(), leaseDuration);
+  }
+
+  /**
+   * Local entries must never outlive the TTL written to DynamoDB, so the shorter of both durations is used.
+   */
+  private static Duration nearCacheTtl(@Nullable Duration ttl, @Nullable Duration nearCacheTtl) {
+    boolean hasTtl = ttl != null && !ttl.isZero() && !ttl.isNegative();
+    boolean hasNearCacheTtl = nearCacheTtl != null && !nearCacheTtl.isZero() && !nearCacheTtl.isNegative();
+    if (hasTtl && hasNearCacheTtl) {
+      return ttl.compareTo(nearCacheTtl) < 0 ? ttl : nearCacheTtl;
+    }
+    return hasTtl ? ttl : (hasNearCacheTtl ? nearCacheTtl : Duration.ZERO);
   }
 
   private void initialize() {
@@ -219,18 +593,50 @@ public class DynamoCache implements Cache {
     writer.createIfNotExists(cacheName, cacheConfig.getTtl(), cacheConfig.getReadCapacityUnits(), cacheConfig.getWriteCapacityUnits());
   }
 
-  private Object deserialize(byte[] value) {
-    return cacheConfig.getSerializer().deserialize(value);
+  private Object deserialize(@Nullable ByteBuffer value) {
+    return cacheConfig.getSerializer().deserializeFromBuffer(value);
   }
 
   private byte[] serialize(Object value) {
     return cacheConfig.getSerializer().serialize(value);
   }
 
-  private List<RootAttribute> readRootAttributes(List<RootAttributeConfig> rootAttributeConfigs, Object value) {
-    return rootAttributeConfigs.stream()
+  private List<RootAttribute> readRootAttributes(List<RootAttributeConfig> rootAttributeConfigs, Object value, Duration ttl,
+                                                 @Nullable Duration loadDuration) {
+    List<RootAttribute> rootAttributes = rootAttributeConfigs.stream()
       .map(rootAttributeConfig -> rootAttributeReader.readRootAttribute(rootAttributeConfig, value))
       .filter(Objects::nonNull)
-      .collect(Collectors.toList());
+      .collect(Collectors.toCollection(ArrayList::new));
+    if (hasSoftTtl()) {
+      rootAttributes.add(new RootAttribute(ATTRIBUTE_SOFT_TTL,
+        AttributeValue.fromN(String.valueOf(Instant.now().plus(ttl).getEpochSecond()))));
+    }
+    if (loadDuration != null && cacheConfig.getEarlyExpirationBeta() > 0) {
+      rootAttributes.add(new RootAttribute(ATTRIBUTE_LOAD_DURATION, AttributeValue.fromN(String.valueOf(loadDuration.toMillis()))));
+    }
+    return rootAttributes;
+  }
+
+  /**
+   * Result of a single flight that served a stale value, telling its callers to schedule a refresh after the flight.
+   */
+  private static final class StaleValue {
+
+    private final Object value;
+    private final DynamoCacheLookup lookup;
+
+    private StaleValue(Object value, DynamoCacheLookup lookup) {
+      this.value = value;
+      this.lookup = lookup;
+    }
+  }
+
+  /**
+   * Shared, bounded pool of daemon threads used to refresh stale entries.
+   */
+  private static class RefreshExecutorHolder {
+
+    private static final int QUEUE_CAPACITY = 1024;
+    private static final Executor EXECUTOR = DaemonExecutors.newPool("dynamo-cache-refresh-", QUEUE_CAPACITY);
   }
 }
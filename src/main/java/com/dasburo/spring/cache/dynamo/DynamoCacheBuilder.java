@@ -138,6 +138,93 @@ public class DynamoCacheBuilder {
     return this;
   }
 
+  /**
+   * Give the maximum number of entries kept in the in-heap near cache in front of DynamoDB.
+   * Defaults to {@literal 0}, which disables the near cache.
+   *
+   * @param nearCacheMaxSize maximum number of locally held entries.
+   * @return this builder for chaining.
+   */
+  public DynamoCacheBuilder withNearCacheMaxSize(int nearCacheMaxSize) {
+    cacheConfig.setNearCacheMaxSize(nearCacheMaxSize);
+    return this;
+  }
+
+  /**
+   * Give a TTL to the entries of the near cache. Local entries never outlive the TTL of the cache itself.
+   * Defaults to {@code Duration.ZERO}, which bounds local entries by the TTL of the cache only.
+   *
+   * @param nearCacheTtl a time-to-live for locally held entries.
+   * @return this builder for chaining.
+   */
+  public DynamoCacheBuilder withNearCacheTtl(Duration nearCacheTtl) {
+    cacheConfig.setNearCacheTtl(nearCacheTtl);
+    return this;
+  }
+
+  /**
+   * Coordinate {@link DynamoCache#get(Object, java.util.concurrent.Callable)} across nodes with lease items, so that
+   * only one node runs the value loader for a missing key while the others wait for its result.
+   * Defaults to {@code Duration.ZERO}, which coordinates callers within a single JVM only.
+   *
+   * @param loadLeaseDuration the time after which a lease of a node that did not publish a value may be taken over.
+   * @return this builder for chaining.
+   */
+  public DynamoCacheBuilder withLoadLeaseDuration(Duration loadLeaseDuration) {
+    cacheConfig.setLoadLeaseDuration(loadLeaseDuration);
+    return this;
+  }
+
+  /**
+   * Keep entries for the given time after their TTL has passed. Within that time
+   * {@link DynamoCache#get(Object, java.util.concurrent.Callable)} returns the stale value immediately and reloads it
+   * in the background. Defaults to {@code Duration.ZERO}, which makes the TTL a hard expiry.
+   *
+   * @param staleWhileRevalidate the time a stale value is served while it is reloaded.
+   * @return this builder for chaining.
+   */
+  public DynamoCacheBuilder withStaleWhileRevalidate(Duration staleWhileRevalidate) {
+    cacheConfig.setStaleWhileRevalidate(staleWhileRevalidate);
+    return this;
+  }
+
+  /**
+   * Keep entries for the given time after their TTL has passed to serve them if the value loader fails.
+   * Defaults to {@code Duration.ZERO}, which propagates every failure of the value loader.
+   *
+   * @param staleIfError the time a stale value is served in place of a failing value loader.
+   * @return this builder for chaining.
+   */
+  public DynamoCacheBuilder withStaleIfError(Duration staleIfError) {
+    cacheConfig.setStaleIfError(staleIfError);
+    return this;
+  }
+
+  /**
+   * Let {@link DynamoCache#get(Object, java.util.concurrent.Callable)} reload entries shortly before they expire, with a
+   * probability rising towards the expiry and with the time it took to load the value (XFetch). Larger values reload
+   * earlier, {@literal 1.0} is a good start. Defaults to {@literal 0}, which disables early expiration.
+   *
+   * @param earlyExpirationBeta the factor applied to the load duration of an entry.
+   * @return this builder for chaining.
+   */
+  public DynamoCacheBuilder withEarlyExpiration(double earlyExpirationBeta) {
+    cacheConfig.setEarlyExpirationBeta(earlyExpirationBeta);
+    return this;
+  }
+
+  /**
+   * Shorten the TTL of each written entry by a random time up to the given jitter, so that entries written together
+   * do not expire together. Defaults to {@code Duration.ZERO}.
+   *
+   * @param ttlJitter the maximum time the TTL is shortened by.
+   * @return this builder for chaining.
+   */
+  public DynamoCacheBuilder withTtlJitter(Duration ttlJitter) {
+    cacheConfig.setTtlJitter(ttlJitter);
+    return this;
+  }
+
   /**
    * Give a {@link DynamoCacheWriter} to the cache to be built.
    * Defaults to {@link DefaultDynamoCacheWriter}.
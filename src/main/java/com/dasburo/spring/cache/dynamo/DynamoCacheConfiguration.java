@@ -36,18 +36,35 @@ public class DynamoCacheConfiguration {
   private Long writeCapacityUnits;
   private DynamoSerializer serializer;
   private List<RootAttributeConfig> rootAttributes;
-
-  private DynamoCacheConfiguration(Duration ttl, boolean flushOnBoot, Long readCapacityUnits, Long writeCapacityUnits, DynamoSerializer serializer, List<RootAttributeConfig> rootAttributes) {
+  private int nearCacheMaxSize;
+  private Duration nearCacheTtl;
+  private Duration loadLeaseDuration;
+  private Duration staleWhileRevalidate;
+  private Duration staleIfError;
+  private double earlyExpirationBeta;
+  private Duration ttlJitter;
+
+  private DynamoCacheConfiguration(Duration ttl, boolean flushOnBoot, Long readCapacityUnits, Long writeCapacityUnits, DynamoSerializer serializer, List<RootAttributeConfig> rootAttributes,
+                                   int nearCacheMaxSize, Duration nearCacheTtl, Duration loadLeaseDuration,
+                                   Duration staleWhileRevalidate, Duration staleIfError, double earlyExpirationBeta, Duration ttlJitter) {
     this.ttl = ttl;
     this.flushOnBoot = flushOnBoot;
     this.readCapacityUnits = readCapacityUnits;
     this.writeCapacityUnits = writeCapacityUnits;
     this.serializer = serializer;
     this.rootAttributes = rootAttributes;
+    this.nearCacheMaxSize = nearCacheMaxSize;
+    this.nearCacheTtl = nearCacheTtl;
+    this.loadLeaseDuration = loadLeaseDuration;
+    this.staleWhileRevalidate = staleWhileRevalidate;
+    this.staleIfError = staleIfError;
+    this.earlyExpirationBeta = earlyExpirationBeta;
+    this.ttlJitter = ttlJitter;
   }
 
   public static DynamoCacheConfiguration defaultCacheConfig() {
-    return new DynamoCacheConfiguration(Duration.ZERO, false, 1L, 1L, new StringSerializer(), emptyList());
+    return new DynamoCacheConfiguration(Duration.ZERO, false, 1L, 1L, new StringSerializer(), emptyList(), 0, Duration.ZERO, Duration.ZERO,
+      Duration.ZERO, Duration.ZERO, 0, Duration.ZERO);
   }
 
   public Duration getTtl() {
@@ -97,4 +114,60 @@ public class DynamoCacheConfiguration {
   public void setRootAttributes(List<RootAttributeConfig> rootAttributes) {
     this.rootAttributes = rootAttributes;
   }
+
+  public int getNearCacheMaxSize() {
+    return nearCacheMaxSize;
+  }
+
+  public void setNearCacheMaxSize(int nearCacheMaxSize) {
+    this.nearCacheMaxSize = nearCacheMaxSize;
+  }
+
+  public Duration getNearCacheTtl() {
+    return nearCacheTtl;
+  }
+
+  public void setNearCacheTtl(Duration nearCacheTtl) {
+    this.nearCacheTtl = nearCacheTtl;
+  }
+
+  public Duration getLoadLeaseDuration() {
+    return loadLeaseDuration;
+  }
+
+  public void setLoadLeaseDuration(Duration loadLeaseDuration) {
+    this.loadLeaseDuration = loadLeaseDuration;
+  }
+
+  public Duration getStaleWhileRevalidate() {
+    return staleWhileRevalidate;
+  }
+
+  public void setStaleWhileRevalidate(Duration staleWhileRevalidate) {
+    this.staleWhileRevalidate = staleWhileRevalidate;
+  }
+
+  public Duration getStaleIfError() {
+    return staleIfError;
+  }
+
+  public void setStaleIfError(Duration staleIfError) {
+    this.staleIfError = staleIfError;
+  }
+
+  public double getEarlyExpirationBeta() {
+    return earlyExpirationBeta;
+  }
+
+  public void setEarlyExpirationBeta(double earlyExpirationBeta) {
+    this.earlyExpirationBeta = earlyExpirationBeta;
+  }
+
+  public Duration getTtlJitter() {
+    return ttlJitter;
+  }
+
+  public void setTtlJitter(Duration ttlJitter) {
+    this.ttlJitter = ttlJitter;
+  }
 }
@@ -0,0 +1,147 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dasburo.spring.cache.dynamo;
+
+import org.springframework.lang.Nullable;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Result of looking up a single key with a {@link DynamoCacheWriter}. Distinguishes an absent entry from an entry
+ * holding a {@literal null} value without signalling the miss by an exception.
+ */
+public final class DynamoCacheLookup {
+
+  private static final DynamoCacheLookup ABSENT = new DynamoCacheLookup(false, null, null, null, null);
+
+  private final boolean present;
+  @Nullable
+  private final byte[] value;
+  @Nullable
+  private final Instant expiresAt;
+  @Nullable
+  private final Instant staleAt;
+  @Nullable
+  private final Duration loadDuration;
+
+  private DynamoCacheLookup(boolean present, @Nullable byte[] value, @Nullable Instant expiresAt, @Nullable Instant staleAt,
+                            @Nullable Duration loadDuration) {
+    this.present = present;
+    this.value = value;
+    this.expiresAt = expiresAt;
+    this.staleAt = staleAt;
+    this.loadDuration = loadDuration;
+  }
+
+  /**
+   * @return the shared lookup result for a key without a cache entry.
+   */
+  public static DynamoCacheLookup absent() {
+    return ABSENT;
+  }
+
+  /**
+   * @param value     the stored value. Can be {@literal null} if {@literal null} has been cached.
+   * @param expiresAt the time the entry expires at. Can be {@literal null} if the entry does not expire.
+   * @return lookup result for a key with a cache entry.
+   */
+  public static DynamoCacheLookup present(@Nullable byte[] value, @Nullable Instant expiresAt) {
+    return new DynamoCacheLookup(true, value, expiresAt, null, null);
+  }
+
+  /**
+   * @param value     the stored value. Can be {@literal null} if {@literal null} has been cached.
+   * @param expiresAt the time the entry expires at. Can be {@literal null} if the entry does not expire.
+   * @param staleAt   the time after which the value is only served stale. Can be {@literal null} if the entry has no
+   *                  soft TTL.
+   * @return lookup result for a key with a cache entry.
+   */
+  public static DynamoCacheLookup present(@Nullable byte[] value, @Nullable Instant expiresAt, @Nullable Instant staleAt) {
+    return new DynamoCacheLookup(true, value, expiresAt, staleAt, null);
+  }
+
+  /**
+   * @param value        the stored value. Can be {@literal null} if {@literal null} has been cached.
+   * @param expiresAt    the time the entry expires at. Can be {@literal null} if the entry does not expire.
+   * @param staleAt      the time after which the value is only served stale. Can be {@literal null} if the entry has no
+   *                     soft TTL.
+   * @param loadDuration the time it took to load the value. Can be {@literal null} if unknown.
+   * @return lookup result for a key with a cache entry.
+   */
+  public static DynamoCacheLookup present(@Nullable byte[] value, @Nullable Instant expiresAt, @Nullable Instant staleAt,
+                                          @Nullable Duration loadDuration) {
+    return new DynamoCacheLookup(true, value, expiresAt, staleAt, loadDuration);
+  }
+
+  /**
+   * @return {@literal true} if there is a cache entry for the key, even if it holds {@literal null}.
+   */
+  public boolean isPresent() {
+    return present;
+  }
+
+  /**
+   * @return the stored value, {@literal null} if the entry is absent or holds {@literal null}.
+   */
+  @Nullable
+  public byte[] getValue() {
+    return value;
+  }
+
+  /**
+   * @return a view of the stored value, {@literal null} if the entry is absent or holds {@literal null}. The view
+   * shares the content of the value and must not be modified.
+   */
+  @Nullable
+  public ByteBuffer getValueBuffer() {
+    return value != null ? ByteBuffer.wrap(value) : null;
+  }
+
+  /**
+   * @return the time the entry expires at, {@literal null} if the entry is absent or does not expire.
+   */
+  @Nullable
+  public Instant getExpiresAt() {
+    return expiresAt;
+  }
+
+  /**
+   * @return the time after which the value is only served stale, {@literal null} if the entry is absent or has no soft
+   * TTL.
+   */
+  @Nullable
+  public Instant getStaleAt() {
+    return staleAt;
+  }
+
+  /**
+   * @return the time it took to load the value, {@literal null} if the entry is absent or the time is unknown.
+   */
+  @Nullable
+  public Duration getLoadDuration() {
+    return loadDuration;
+  }
+
+  /**
+   * @param now the current time. Must not be {@literal null}.
+   * @return {@literal true} if the entry is present and its soft TTL has passed.
+   */
+  public boolean isStale(Instant now) {
+    return present && staleAt != null && now.isAfter(staleAt);
+  }
+}
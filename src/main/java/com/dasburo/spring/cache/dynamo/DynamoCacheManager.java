@@ -15,13 +15,17 @@
  */
 package com.dasburo.spring.cache.dynamo;
 
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.cache.Cache;
 import org.springframework.cache.support.AbstractCacheManager;
 import org.springframework.util.Assert;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.LinkedHashSet;
+import java.util.Set;
 
 /**
  * CacheManager implementation that lazily builds {@link DynamoCache}
@@ -29,7 +33,7 @@ import java.util.LinkedHashSet;
  *
  * @author Georg Zimmermann
  */
-public class DynamoCacheManager extends AbstractCacheManager {
+public class DynamoCacheManager extends AbstractCacheManager implements DisposableBean {
 
   private final Collection<DynamoCacheBuilder> initialCaches;
 
@@ -54,4 +58,23 @@ public class DynamoCacheManager extends AbstractCacheManager {
     return caches;
   }
 
+  /**
+   * Release the {@link DynamoCacheWriter writers} of all caches, e.g. to drain queued writes on shutdown.
+   */
+  @Override
+  public void destroy() throws Exception {
+    Set<DynamoCacheWriter> writers = Collections.newSetFromMap(new IdentityHashMap<>());
+    for (String cacheName : getCacheNames()) {
+      Cache cache = getCache(cacheName);
+      if (cache instanceof DynamoCache) {
+        writers.add(((DynamoCache) cache).getWriter());
+      }
+    }
+    for (DynamoCacheWriter writer : writers) {
+      if (writer instanceof DisposableBean) {
+        ((DisposableBean) writer).destroy();
+      }
+    }
+  }
+
 }
@@ -21,7 +21,12 @@ import org.springframework.util.Assert;
 import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
 
 import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
 
 /**
  * {@link DynamoCacheWriter} provides low level access to DynamoDB commands ({@code PUT, GET, ...}) used for
@@ -34,7 +39,8 @@ import java.util.List;
 public interface DynamoCacheWriter {
 
   /**
-   * Create new {@link DynamoCacheWriter} without locking behavior.
+   * Create new {@link DynamoCacheWriter} without locking behavior. Use {@link DynamoCacheWriterBuilder} for further
+   * options.
    *
    * @return new instance of {@link DefaultDynamoCacheWriter}.
    */
@@ -42,11 +48,12 @@ public interface DynamoCacheWriter {
 
     Assert.notNull(dynamoTemplate, "AmazonDynamoDB must not be null!");
 
-    return new DefaultDynamoCacheWriter(dynamoTemplate);
+    return DynamoCacheWriterBuilder.newInstance(dynamoTemplate).build();
   }
 
   /**
-   * Create new {@link DynamoCacheWriter} with locking behavior.
+   * Create new {@link DynamoCacheWriter} with locking behavior. Use {@link DynamoCacheWriterBuilder} for further
+   * options.
    *
    * @param dynamoTemplate must not be {@literal null}.
    * @return new instance of {@link DefaultDynamoCacheWriter}.
@@ -55,7 +62,7 @@ public interface DynamoCacheWriter {
 
     Assert.notNull(dynamoTemplate, "AmazonDynamoDB must not be null!");
 
-    return new DefaultDynamoCacheWriter(dynamoTemplate, Duration.ofMillis(50));
+    return DynamoCacheWriterBuilder.newInstance(dynamoTemplate).withLocking().build();
   }
 
   /**
@@ -78,8 +85,8 @@ public interface DynamoCacheWriter {
 
   /**
    * Write the given key/value pair to Dynamo and set the expiration time if defined.
-   * <br><b>Note:</b> The values size must be less than 400 KB.
-   * As this is the maximum element size of a binary in Amazons DynamoDB.
+   * <br><b>Note:</b> The maximum item size of Amazons DynamoDB is 400 KB. {@link DefaultDynamoCacheWriter} stores
+   * larger values in chunks spread over several items or offloads them to a {@link BlobStore}.
    *
    * @param name           The cache name must not be {@literal null}.
    * @param key            The key for the cache entry. Must not be {@literal null}.
@@ -99,10 +106,68 @@ public interface DynamoCacheWriter {
   @Nullable
   byte[] get(String name, String key);
 
+  /**
+   * Look up the entry stored for the given key. Unlike {@link #get(String, String)} the result tells an absent entry
+   * from an entry holding {@literal null}.
+   * <br><b>Note:</b> The default implementation delegates to {@link #get(String, String)} and can therefore not detect
+   * stored {@literal null} values or the expiration time. Implementations should override it.
+   *
+   * @param name must not be {@literal null}.
+   * @param key  must not be {@literal null}.
+   * @return the lookup result, never {@literal null}.
+   */
+  default DynamoCacheLookup lookup(String name, String key) {
+    try {
+      byte[] value = get(name, key);
+      return value != null ? DynamoCacheLookup.present(value, null) : DynamoCacheLookup.absent();
+    } catch (NoSuchElementException e) {
+      return DynamoCacheLookup.absent();
+    }
+  }
+
+  /**
+   * Get the binary value representations from Dynamo stored for the given keys.
+   * <br><b>Note:</b> The default implementation issues one {@link #lookup(String, String)} per key. Implementations
+   * should override it to fetch the keys in batches.
+   *
+   * @param name must not be {@literal null}.
+   * @param keys must not be {@literal null}.
+   * @return the values of all keys that exist and are not stale, never {@literal null}. Keys that do not exist are not
+   * contained, keys holding {@literal null} are contained with a {@literal null} value.
+   */
+  default Map<String, byte[]> getAll(String name, Collection<String> keys) {
+    Instant now = Instant.now();
+    Map<String, byte[]> result = new HashMap<>();
+    for (String key : keys) {
+      DynamoCacheLookup lookup = lookup(name, key);
+      if (lookup.isPresent() && !lookup.isStale(now)) {
+        result.put(key, lookup.getValue());
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Look up the entries stored for the given keys, like {@link #getAll(String, Collection)} but with their
+   * expiration times.
+   * <br><b>Note:</b> The default implementation delegates to {@link #getAll(String, Collection)} and can therefore not
+   * detect the expiration times. Implementations should override it.
+   *
+   * @param name must not be {@literal null}.
+   * @param keys must not be {@literal null}.
+   * @return the lookup results of all keys that exist and are not stale, never {@literal null}. Keys that do not exist
+   * are not contained.
+   */
+  default Map<String, DynamoCacheLookup> lookupAll(String name, Collection<String> keys) {
+    Map<String, DynamoCacheLookup> result = new HashMap<>();
+    getAll(name, keys).forEach((key, value) -> result.put(key, DynamoCacheLookup.present(value, null)));
+    return result;
+  }
+
   /**
    * Write the given value to Dynamo if the key does not already exist.
-   * <br><b>Note:</b> The values size must be less than 400 KB.
-   * As this is the maximum element size of a binary in Amazons DynamoDB.
+   * <br><b>Note:</b> The maximum item size of Amazons DynamoDB is 400 KB. {@link DefaultDynamoCacheWriter} stores
+   * larger values in chunks spread over several items or offloads them to a {@link BlobStore}.
    *
    * @param name           The cache name must not be {@literal null}.
    * @param key            The key for the cache entry. Must not be {@literal null}.
@@ -114,6 +179,27 @@ public interface DynamoCacheWriter {
   @Nullable
   byte[] putIfAbsent(String name, String key, byte[] value, @Nullable Duration ttl, @Nullable List<RootAttribute> rootAttributes);
 
+  /**
+   * Write the given value to Dynamo if the key does not already exist, like
+   * {@link #putIfAbsent(String, String, byte[], Duration, List)} but returning the existing entry with its expiration
+   * time.
+   * <br><b>Note:</b> The default implementation delegates to {@link #putIfAbsent(String, String, byte[], Duration, List)}
+   * and can therefore not detect existing {@literal null} values or the expiration time. Implementations should
+   * override it.
+   *
+   * @param name           The cache name must not be {@literal null}.
+   * @param key            The key for the cache entry. Must not be {@literal null}.
+   * @param value          The value stored for the key. Must not be {@literal null}.
+   * @param ttl            Optional expiration time. Can be {@literal null}.
+   * @param rootAttributes Optional additional root attributes. Can be {@literal null}.
+   * @return an absent lookup result if the value has been written, the entry stored for the key if it already exists.
+   */
+  default DynamoCacheLookup putIfAbsentLookup(String name, String key, byte[] value, @Nullable Duration ttl,
+                                              @Nullable List<RootAttribute> rootAttributes) {
+    byte[] existing = putIfAbsent(name, key, value, ttl, rootAttributes);
+    return existing != null ? DynamoCacheLookup.present(existing, null) : DynamoCacheLookup.absent();
+  }
+
   /**
    * Remove the given key from Dynamo.
    *
@@ -124,7 +210,7 @@ public interface DynamoCacheWriter {
 
   /**
    * Remove all keys from the given cache name.
-   * <br><b>Note:</b> Clear is actually a table scan followed by per Item deletion.
+   * <br><b>Note:</b> Clear is actually a table scan followed by deletion of the scanned items, see {@link ClearStrategy}.
    * This could lead to performance issues on very large data sets.
    *
    * @param name The cache name must not be {@literal null}.
@@ -0,0 +1,151 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dasburo.spring.cache.dynamo;
+
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+
+import java.time.Duration;
+
+/**
+ * A builder for {@link DynamoCacheWriter} instances.
+ * <p>
+ * Without further options it builds a non-locking {@link DefaultDynamoCacheWriter} clearing with
+ * {@link ClearStrategy#segmentedScan()}. Locking, the clear strategy, blob offloading and write-behind can be combined,
+ * except for locking and write-behind, as queued puts are written without leases.
+ */
+public class DynamoCacheWriterBuilder {
+
+  private final DynamoDbClient dynamoTemplate;
+  private Duration sleepTime = Duration.ZERO;
+  private Duration leaseDuration = DefaultDynamoCacheWriter.DEFAULT_LEASE_DURATION;
+  private ClearStrategy clearStrategy = ClearStrategy.segmentedScan();
+  @Nullable
+  private BlobStore blobStore;
+  private int blobThreshold;
+  private int writeBehindQueueCapacity;
+  @Nullable
+  private Duration writeBehindFlushInterval;
+
+  /**
+   * Constructor.
+   *
+   * @param dynamoTemplate a {@link DynamoDbClient} instance.
+   */
+  protected DynamoCacheWriterBuilder(DynamoDbClient dynamoTemplate) {
+    Assert.notNull(dynamoTemplate, "AmazonDynamoDB must not be null!");
+
+    this.dynamoTemplate = dynamoTemplate;
+  }
+
+  /**
+   * Create a new builder instance for the given client.
+   *
+   * @param dynamoTemplate a {@link DynamoDbClient} instance.
+   * @return a new builder
+   */
+  public static DynamoCacheWriterBuilder newInstance(DynamoDbClient dynamoTemplate) {
+    return new DynamoCacheWriterBuilder(dynamoTemplate);
+  }
+
+  /**
+   * Build a new {@link DynamoCacheWriter}.
+   *
+   * @return a {@link DefaultDynamoCacheWriter}, or a {@link WriteBehindDynamoCacheWriter} if write-behind is enabled.
+   */
+  public DynamoCacheWriter build() {
+    Assert.state(writeBehindFlushInterval == null || sleepTime.isZero(), "Locking is not supported with write-behind!");
+
+    DefaultDynamoCacheWriter writer = new DefaultDynamoCacheWriter(dynamoTemplate, sleepTime, leaseDuration, clearStrategy,
+      blobStore, blobThreshold);
+    if (writeBehindFlushInterval != null) {
+      return new WriteBehindDynamoCacheWriter(writer, writeBehindQueueCapacity, writeBehindFlushInterval);
+    }
+    return writer;
+  }
+
+  /**
+   * Serialize writes to the same key with lease locks, polled every 50 ms and taken over after 30 seconds.
+   *
+   * @return this builder for chaining.
+   */
+  public DynamoCacheWriterBuilder withLocking() {
+    return withLocking(Duration.ofMillis(50), DefaultDynamoCacheWriter.DEFAULT_LEASE_DURATION);
+  }
+
+  /**
+   * Serialize writes to the same key with lease locks.
+   *
+   * @param sleepTime     sleep time between lock request attempts. Must be positive.
+   * @param leaseDuration time after which a lock that has not been released may be taken over. Must not be {@literal null}.
+   * @return this builder for chaining.
+   */
+  public DynamoCacheWriterBuilder withLocking(Duration sleepTime, Duration leaseDuration) {
+    Assert.isTrue(sleepTime != null && !sleepTime.isZero() && !sleepTime.isNegative(), "SleepTime must be positive!");
+    Assert.notNull(leaseDuration, "LeaseDuration must not be null!");
+
+    this.sleepTime = sleepTime;
+    this.leaseDuration = leaseDuration;
+    return this;
+  }
+
+  /**
+   * Give a {@link ClearStrategy} to the writer to be built. Defaults to {@link ClearStrategy#segmentedScan()}.
+   *
+   * @param clearStrategy strategy used to remove all entries of a cache. Must not be {@literal null}.
+   * @return this builder for chaining.
+   */
+  public DynamoCacheWriterBuilder withClearStrategy(ClearStrategy clearStrategy) {
+    Assert.notNull(clearStrategy, "ClearStrategy must not be null!");
+
+    this.clearStrategy = clearStrategy;
+    return this;
+  }
+
+  /**
+   * Offload large values to a {@link BlobStore}.
+   *
+   * @param blobStore     store values larger than the threshold are offloaded to. Must not be {@literal null}.
+   * @param blobThreshold size in bytes above which values are offloaded. Must be positive.
+   * @return this builder for chaining.
+   */
+  public DynamoCacheWriterBuilder withBlobStore(BlobStore blobStore, int blobThreshold) {
+    Assert.notNull(blobStore, "BlobStore must not be null!");
+    Assert.isTrue(blobThreshold > 0, "BlobThreshold must be positive!");
+
+    this.blobStore = blobStore;
+    this.blobThreshold = blobThreshold;
+    return this;
+  }
+
+  /**
+   * Queue {@code put} operations and write them asynchronously in batches with a {@link WriteBehindDynamoCacheWriter}.
+   * Values stored outside their item are written through immediately.
+   *
+   * @param queueCapacity maximum number of queued puts before callers are blocked, must be greater than {@literal 0}.
+   * @param flushInterval maximum time a put stays queued. Must be positive.
+   * @return this builder for chaining.
+   */
+  public DynamoCacheWriterBuilder withWriteBehind(int queueCapacity, Duration flushInterval) {
+    Assert.isTrue(queueCapacity > 0, "QueueCapacity must be greater than 0!");
+    Assert.isTrue(flushInterval != null && !flushInterval.isZero() && !flushInterval.isNegative(), "FlushInterval must be positive!");
+
+    this.writeBehindQueueCapacity = queueCapacity;
+    this.writeBehindFlushInterval = flushInterval;
+    return this;
+  }
+}
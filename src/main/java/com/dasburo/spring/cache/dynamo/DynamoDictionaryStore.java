@@ -0,0 +1,136 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dasburo.spring.cache.dynamo;
+
+import com.dasburo.spring.cache.dynamo.serializer.DictionaryStore;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import software.amazon.awssdk.core.SdkBytes;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.GetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static com.dasburo.spring.cache.dynamo.DefaultDynamoCacheWriter.ATTRIBUTE_KEY;
+import static com.dasburo.spring.cache.dynamo.DefaultDynamoCacheWriter.ATTRIBUTE_VALUE;
+
+/**
+ * {@link DictionaryStore} keeping the dictionaries of a cache in metadata items of its table. Each dictionary is
+ * stored as {@code ~dictionary~<id>} item, the current one is referenced by the {@code ~dictionary} item together
+ * with its version, which is advanced with a conditional {@code UpdateItem}.
+ * <p>
+ * The items carry no TTL. Clearing the cache by scanning the table removes them, in which case the
+ * {@link com.dasburo.spring.cache.dynamo.serializer.ZstdDictionarySerializer} publishes its dictionary again.
+ */
+public class DynamoDictionaryStore implements DictionaryStore {
+
+  static final String DICTIONARY_KEY = "~dictionary";
+  static final String ATTRIBUTE_VERSION = "version";
+  static final String ATTRIBUTE_DICTIONARY_ID = "dictionaryId";
+
+  private final DynamoDbClient dynamoTemplate;
+  private final String name;
+
+  /**
+   * @param dynamoTemplate must not be {@literal null}.
+   * @param name           the cache name. Must not be {@literal null}.
+   */
+  public DynamoDictionaryStore(DynamoDbClient dynamoTemplate, String name) {
+    Assert.notNull(dynamoTemplate, "DynamoDbClient must not be null!");
+    Assert.notNull(name, "Name must not be null!");
+
+    this.dynamoTemplate = dynamoTemplate;
+    this.name = name;
+  }
+
+  @Override
+  public CurrentDictionary current() {
+    GetItemResponse response = dynamoTemplate.getItem(GetItemRequest.builder()
+      .tableName(name)
+      .key(key(DICTIONARY_KEY))
+      .consistentRead(true)
+      .build());
+
+    if (!response.hasItem() || !response.item().containsKey(ATTRIBUTE_VERSION)) {
+      return null;
+    }
+    return new CurrentDictionary(Long.parseLong(response.item().get(ATTRIBUTE_VERSION).n()),
+      Integer.parseInt(response.item().get(ATTRIBUTE_DICTIONARY_ID).n()));
+  }
+
+  @Override
+  public byte[] get(int id) {
+    GetItemResponse response = dynamoTemplate.getItem(GetItemRequest.builder()
+      .tableName(name)
+      .key(key(dictionaryKey(id)))
+      .build());
+
+    AttributeValue value = response.hasItem() ? response.item().get(ATTRIBUTE_VALUE) : null;
+    return value != null ? value.b().asByteArrayUnsafe() : null;
+  }
+
+  @Override
+  public CurrentDictionary publish(@Nullable CurrentDictionary previous, int id, byte[] dictionary) {
+    Assert.notNull(dictionary, "Dictionary must not be null!");
+
+    Map<String, AttributeValue> item = new HashMap<>(key(dictionaryKey(id)));
+    item.put(ATTRIBUTE_VALUE, AttributeValue.fromB(SdkBytes.fromByteArrayUnsafe(dictionary)));
+    dynamoTemplate.putItem(PutItemRequest.builder()
+      .tableName(name)
+      .item(item)
+      .build());
+
+    long version = previous != null ? previous.getVersion() + 1 : 1;
+    Map<String, String> attributeNames = new HashMap<>();
+    attributeNames.put("#version", ATTRIBUTE_VERSION);
+    attributeNames.put("#dictionaryId", ATTRIBUTE_DICTIONARY_ID);
+    Map<String, AttributeValue> attributeValues = new HashMap<>();
+    attributeValues.put(":version", AttributeValue.fromN(String.valueOf(version)));
+    attributeValues.put(":dictionaryId", AttributeValue.fromN(String.valueOf(id)));
+    if (previous != null) {
+      attributeValues.put(":previous", AttributeValue.fromN(String.valueOf(previous.getVersion())));
+    }
+
+    try {
+      dynamoTemplate.updateItem(UpdateItemRequest.builder()
+        .tableName(name)
+        .key(key(DICTIONARY_KEY))
+        .updateExpression("SET #version = :version, #dictionaryId = :dictionaryId")
+        .conditionExpression(previous != null ? "#version = :previous" : "attribute_not_exists(#version)")
+        .expressionAttributeNames(attributeNames)
+        .expressionAttributeValues(attributeValues)
+        .build());
+      return new CurrentDictionary(version, id);
+    } catch (ConditionalCheckFailedException e) {
+      return current();
+    }
+  }
+
+  private static String dictionaryKey(int id) {
+    return DICTIONARY_KEY + "~" + id;
+  }
+
+  private static Map<String, AttributeValue> key(String key) {
+    return Collections.singletonMap(ATTRIBUTE_KEY, AttributeValue.fromS(key));
+  }
+}
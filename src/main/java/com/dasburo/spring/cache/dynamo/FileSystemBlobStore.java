@@ -0,0 +1,205 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dasburo.spring.cache.dynamo;
+
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * {@link BlobStore} keeping one file per blob in a directory per cache. Each file starts with the expiration time of
+ * the blob in epoch milliseconds, {@literal 0} if it does not expire, followed by the content. Files are written to a
+ * temporary file first and moved into place atomically, so readers never see partially written blobs.
+ */
+class FileSystemBlobStore implements BlobStore {
+
+  private static final Pattern VALID_NAME = Pattern.compile("[A-Za-z0-9_.-]+");
+  private static final String TEMP_SUFFIX = ".tmp";
+  private static final int HEADER_SIZE = Long.BYTES;
+
+  private final Path directory;
+
+  /**
+   * @param directory the root directory, created if it does not exist. Must not be {@literal null}.
+   */
+  FileSystemBlobStore(Path directory) {
+    this.directory = directory;
+  }
+
+  @Override
+  public void put(String name, String id, byte[] value, @Nullable Instant expiresAt) {
+    Assert.notNull(value, "Value must not be null!");
+
+    Path file = resolve(name, id);
+    try {
+      Files.createDirectories(file.getParent());
+      Path temp = Files.createTempFile(file.getParent(), id, TEMP_SUFFIX);
+      try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putLong(expiresAt != null ? expiresAt.toEpochMilli() : 0);
+        ((Buffer) header).flip();
+        ByteBuffer content = ByteBuffer.wrap(value);
+        while (header.hasRemaining() || content.hasRemaining()) {
+          channel.write(new ByteBuffer[]{header, content});
+        }
+      } catch (IOException e) {
+        Files.deleteIfExists(temp);
+        throw e;
+      }
+      Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    } catch (IOException e) {
+      throw new DataAccessResourceFailureException(String.format("Could not write blob '%s' of cache %s", id, name), e);
+    }
+  }
+
+  @Override
+  public byte[] get(String name, String id) {
+    Path file = resolve(name, id);
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      long size = channel.size() - HEADER_SIZE;
+      if (size < 0 || size > Integer.MAX_VALUE) {
+        return null;
+      }
+
+      ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+      readFully(channel, header);
+      if (isExpired(header.getLong(0))) {
+        return null;
+      }
+
+      byte[] value = new byte[(int) size];
+      readFully(channel, ByteBuffer.wrap(value));
+      return value;
+    } catch (NoSuchFileException e) {
+      return null;
+    } catch (IOException e) {
+      throw new DataAccessResourceFailureException(String.format("Could not read blob '%s' of cache %s", id, name), e);
+    }
+  }
+
+  @Override
+  public void delete(String name, String id) {
+    try {
+      Files.deleteIfExists(resolve(name, id));
+    } catch (IOException e) {
+      throw new DataAccessResourceFailureException(String.format("Could not delete blob '%s' of cache %s", id, name), e);
+    }
+  }
+
+  @Override
+  public void forEach(String name, Consumer<BlobInfo> action) {
+    Assert.notNull(action, "Action must not be null!");
+
+    Path cacheDirectory = resolve(name);
+    if (!Files.isDirectory(cacheDirectory)) {
+      return;
+    }
+    try (DirectoryStream<Path> files = Files.newDirectoryStream(cacheDirectory, file -> !file.getFileName().toString().endsWith(TEMP_SUFFIX))) {
+      for (Path file : files) {
+        BlobInfo info = readInfo(file);
+        if (info != null) {
+          action.accept(info);
+        }
+      }
+    } catch (IOException e) {
+      throw new DataAccessResourceFailureException(String.format("Could not list blobs of cache %s", name), e);
+    }
+  }
+
+  /**
+   * Remove temporary files of writes that did not reach the move into place.
+   */
+  @Override
+  public long removeIncomplete(String name, Instant before) {
+    Assert.notNull(before, "Before must not be null!");
+
+    Path cacheDirectory = resolve(name);
+    if (!Files.isDirectory(cacheDirectory)) {
+      return 0;
+    }
+    long removed = 0;
+    try (DirectoryStream<Path> files = Files.newDirectoryStream(cacheDirectory, file -> file.getFileName().toString().endsWith(TEMP_SUFFIX))) {
+      for (Path file : files) {
+        try {
+          if (Files.getLastModifiedTime(file).toInstant().isBefore(before) && Files.deleteIfExists(file)) {
+            removed++;
+          }
+        } catch (NoSuchFileException e) {
+          // moved into place or deleted concurrently
+        }
+      }
+    } catch (IOException e) {
+      throw new DataAccessResourceFailureException(String.format("Could not remove incomplete blobs of cache %s", name), e);
+    }
+    return removed;
+  }
+
+  @Nullable
+  private static BlobInfo readInfo(Path file) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+      if (channel.read(header) < HEADER_SIZE) {
+        return null;
+      }
+      long expiresAt = header.getLong(0);
+      return new BlobInfo(file.getFileName().toString(), Files.getLastModifiedTime(file).toInstant(),
+        expiresAt != 0 ? Instant.ofEpochMilli(expiresAt) : null);
+    } catch (NoSuchFileException e) {
+      // deleted concurrently
+      return null;
+    }
+  }
+
+  private static void readFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+    while (buffer.hasRemaining()) {
+      if (channel.read(buffer) < 0) {
+        throw new IOException("Unexpected end of blob");
+      }
+    }
+  }
+
+  private static boolean isExpired(long expiresAt) {
+    return expiresAt != 0 && System.currentTimeMillis() > expiresAt;
+  }
+
+  private Path resolve(String name) {
+    Assert.isTrue(name != null && isValid(name), "Name must be a valid file name!");
+    return directory.resolve(name);
+  }
+
+  private Path resolve(String name, String id) {
+    Assert.isTrue(id != null && isValid(id), "Id must be a valid file name!");
+    return resolve(name).resolve(id);
+  }
+
+  private static boolean isValid(String fileName) {
+    return VALID_NAME.matcher(fileName).matches() && !".".equals(fileName) && !"..".equals(fileName)
+      && !fileName.endsWith(TEMP_SUFFIX);
+  }
+}
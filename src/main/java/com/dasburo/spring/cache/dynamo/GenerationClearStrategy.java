@@ -0,0 +1,133 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dasburo.spring.cache.dynamo;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.GetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.ReturnValue;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemResponse;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static com.dasburo.spring.cache.dynamo.DefaultDynamoCacheWriter.ATTRIBUTE_KEY;
+
+/**
+ * {@link ClearStrategy} that never touches cache entries. Each cache has a generation number stored in a metadata
+ * item, and the generation is part of the key of every entry. Clearing increments the generation with a single atomic
+ * {@code UpdateItem}, which makes the entries of previous generations unreachable. They are removed by DynamoDB once
+ * their TTL has passed, so caches without TTL keep them until the table is cleared otherwise.
+ * <p>
+ * Every node caches the generation for the refresh interval, so a clear issued by another node becomes visible after
+ * at most that time. Once it is due, one thread reads the generation while concurrent callers keep using the cached
+ * one.
+ */
+class GenerationClearStrategy implements ClearStrategy {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(GenerationClearStrategy.class);
+
+  static final String GENERATION_KEY = "~generation";
+  static final String ATTRIBUTE_GENERATION = "generation";
+
+  private final long refreshIntervalNanos;
+  private final Map<String, Generation> generations = new ConcurrentHashMap<>();
+
+  /**
+   * @param refreshInterval time the generation of a cache is used before it is read again. Must not be {@literal null}.
+   */
+  GenerationClearStrategy(Duration refreshInterval) {
+    this.refreshIntervalNanos = refreshInterval.toNanos();
+  }
+
+  @Override
+  public long clear(DynamoDbClient dynamoTemplate, String name) {
+    UpdateItemResponse response = dynamoTemplate.updateItem(UpdateItemRequest.builder()
+      .tableName(name)
+      .key(Collections.singletonMap(ATTRIBUTE_KEY, AttributeValue.fromS(GENERATION_KEY)))
+      .updateExpression("ADD #generation :one")
+      .expressionAttributeNames(Collections.singletonMap("#generation", ATTRIBUTE_GENERATION))
+      .expressionAttributeValues(Collections.singletonMap(":one", AttributeValue.fromN("1")))
+      .returnValues(ReturnValue.UPDATED_NEW)
+      .build());
+
+    long generation = Long.parseLong(response.attributes().get(ATTRIBUTE_GENERATION).n());
+    update(name, new Generation(generation, System.nanoTime()));
+
+    LOGGER.debug("Cleared cache '{}' by advancing to generation {}.", name, generation);
+    return 0;
+  }
+
+  @Override
+  public String physicalKey(DynamoDbClient dynamoTemplate, String name, String key) {
+    return getGeneration(dynamoTemplate, name) + ":" + key;
+  }
+
+  /**
+   * @return the current generation of the given cache, read from the table if the cached one is due for refresh.
+   */
+  long getGeneration(DynamoDbClient dynamoTemplate, String name) {
+    Generation generation = generations.get(name);
+    if (generation != null && (System.nanoTime() - generation.readAt < refreshIntervalNanos
+      || !generation.refreshing.compareAndSet(false, true))) {
+      return generation.value;
+    }
+
+    try {
+      GetItemResponse response = dynamoTemplate.getItem(GetItemRequest.builder()
+        .tableName(name)
+        .key(Collections.singletonMap(ATTRIBUTE_KEY, AttributeValue.fromS(GENERATION_KEY)))
+        .attributesToGet(ATTRIBUTE_GENERATION)
+        .consistentRead(true)
+        .build());
+
+      AttributeValue value = response.hasItem() ? response.item().get(ATTRIBUTE_GENERATION) : null;
+      return update(name, new Generation(value != null ? Long.parseLong(value.n()) : 0, System.nanoTime())).value;
+    } finally {
+      if (generation != null) {
+        generation.refreshing.set(false);
+      }
+    }
+  }
+
+  /**
+   * Store the given generation, keeping the higher one if a newer one has been stored concurrently, as generations
+   * never go back. Either way the generation counts as read at the later of both times.
+   */
+  private Generation update(String name, Generation generation) {
+    return generations.merge(name, generation, (current, next) -> new Generation(Math.max(current.value, next.value),
+      next.readAt - current.readAt > 0 ? next.readAt : current.readAt));
+  }
+
+  private static final class Generation {
+
+    private final long value;
+    private final long readAt;
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+
+    private Generation(long value, long readAt) {
+      this.value = value;
+      this.readAt = readAt;
+    }
+  }
+}
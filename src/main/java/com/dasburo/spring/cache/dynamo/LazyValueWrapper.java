@@ -0,0 +1,76 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dasburo.spring.cache.dynamo;
+
+import com.dasburo.spring.cache.dynamo.serializer.DynamoSerializer;
+import com.dasburo.spring.cache.dynamo.serializer.SerializationException;
+import org.springframework.cache.Cache.ValueWrapper;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+import java.nio.ByteBuffer;
+
+/**
+ * {@link ValueWrapper} holding the stored bytes of a value and deserializing them on the first call of {@link #get()}.
+ * <p>
+ * Callers that only check whether an entry is present never pay for deserialization. The result is memoized and the
+ * bytes are released afterwards, so the wrapper can be shared, e.g. by the {@link NearCache}. If deserialization fails,
+ * the {@link SerializationException} is thrown by {@link #get()} and the next call tries again.
+ */
+final class LazyValueWrapper implements ValueWrapper {
+
+  private static final Object UNRESOLVED = new Object();
+
+  private final DynamoSerializer<?> serializer;
+  @Nullable
+  private ByteBuffer bytes;
+  private volatile Object value = UNRESOLVED;
+
+  /**
+   * @param serializer the serializer reading the value. Must not be {@literal null}.
+   * @param bytes      the stored bytes. Can be {@literal null} if {@literal null} has been cached.
+   */
+  LazyValueWrapper(DynamoSerializer<?> serializer, @Nullable ByteBuffer bytes) {
+    Assert.notNull(serializer, "Serializer must not be null!");
+
+    this.serializer = serializer;
+    this.bytes = bytes;
+  }
+
+  @Override
+  @Nullable
+  public Object get() {
+    Object result = value;
+    if (result == UNRESOLVED) {
+      synchronized (this) {
+        result = value;
+        if (result == UNRESOLVED) {
+          result = serializer.deserializeFromBuffer(bytes);
+          bytes = null;
+          value = result;
+        }
+      }
+    }
+    return result;
+  }
+
+  /**
+   * @return {@literal true} if the value has been deserialized.
+   */
+  boolean isResolved() {
+    return value != UNRESOLVED;
+  }
+}
@@ -0,0 +1,252 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dasburo.spring.cache.dynamo;
+
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ConditionCheck;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.DeleteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItem;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import static com.dasburo.spring.cache.dynamo.DefaultDynamoCacheWriter.ATTRIBUTE_KEY;
+import static com.dasburo.spring.cache.dynamo.DefaultDynamoCacheWriter.ATTRIBUTE_TTL;
+
+/**
+ * Distributed lease locks on single keys of a cache table.
+ * <p>
+ * A lease is an item stored next to the cache entries. It carries a token identifying the acquisition and the time
+ * the lease expires at, and is acquired with a conditional write that only succeeds if there is no lease or the lease
+ * has expired. Leases of crashed holders are therefore taken over once they have expired, and DynamoDB removes them
+ * eventually via the TTL attribute. Every acquisition has its own token, so leases exclude other threads of the same
+ * instance just like other nodes, and they are not re-entrant.
+ */
+public class LeaseLock {
+
+  public static final String ATTRIBUTE_LOCK_OWNER = "lockOwner";
+  public static final String ATTRIBUTE_LOCK_EXPIRY = "lockExpiry";
+
+  static final String LOCK_SUFFIX = "~lock";
+  private static final String NOT_HELD_CONDITION = "attribute_not_exists(#key) OR #expiry < :now";
+
+  private final DynamoDbClient dynamoTemplate;
+  private final Duration leaseDuration;
+
+  /**
+   * @param dynamoTemplate must not be {@literal null}.
+   * @param leaseDuration  time after which a lease that has not been released may be taken over. Must be positive.
+   */
+  public LeaseLock(DynamoDbClient dynamoTemplate, Duration leaseDuration) {
+    Assert.notNull(dynamoTemplate, "DynamoDbClient must not be null!");
+    Assert.notNull(leaseDuration, "LeaseDuration must not be null!");
+    Assert.isTrue(!leaseDuration.isZero() && !leaseDuration.isNegative(), "LeaseDuration must be positive!");
+
+    this.dynamoTemplate = dynamoTemplate;
+    this.leaseDuration = leaseDuration;
+  }
+
+  /**
+   * @return the time after which a lease that has not been released may be taken over.
+   */
+  public Duration getLeaseDuration() {
+    return leaseDuration;
+  }
+
+  /**
+   * Try to acquire the lease on the given key once.
+   *
+   * @param name the cache name. Must not be {@literal null}.
+   * @param key  the locked key. Must not be {@literal null}.
+   * @return the token of the acquired lease, {@literal null} if the lease is held.
+   */
+  @Nullable
+  public String tryAcquire(String name, String key) {
+    Assert.notNull(name, "Name must not be null!");
+    Assert.notNull(key, "Key must not be null!");
+
+    String token = UUID.randomUUID().toString();
+    long expiry = System.currentTimeMillis() + leaseDuration.toMillis();
+
+    Map<String, AttributeValue> item = new HashMap<>();
+    item.put(ATTRIBUTE_KEY, AttributeValue.fromS(lockKey(key)));
+    item.put(ATTRIBUTE_LOCK_OWNER, AttributeValue.fromS(token));
+    item.put(ATTRIBUTE_LOCK_EXPIRY, AttributeValue.fromN(String.valueOf(expiry)));
+    item.put(ATTRIBUTE_TTL, AttributeValue.fromN(String.valueOf(expiry / 1000 + 1)));
+
+    try {
+      dynamoTemplate.putItem(PutItemRequest.builder()
+        .tableName(name)
+        .item(item)
+        .conditionExpression(NOT_HELD_CONDITION)
+        .expressionAttributeNames(notHeldAttributeNames())
+        .expressionAttributeValues(notHeldAttributeValues())
+        .build());
+      return token;
+    } catch (ConditionalCheckFailedException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Acquire the lease on the given key, waiting until it has been released or has expired.
+   *
+   * @param name      the cache name. Must not be {@literal null}.
+   * @param key       the locked key. Must not be {@literal null}.
+   * @param sleepTime sleep time between attempts. Must not be {@literal null}.
+   * @return the token of the acquired lease.
+   * @throws PessimisticLockingFailureException if interrupted while waiting.
+   */
+  public String acquire(String name, String key, Duration sleepTime) {
+    Assert.notNull(sleepTime, "SleepTime must not be null!");
+
+    try {
+      String token;
+      while ((token = tryAcquire(name, key)) == null) {
+        Thread.sleep(sleepTime.toMillis());
+      }
+      return token;
+    } catch (InterruptedException ex) {
+      // Re-interrupt current thread, to allow other participants to react.
+      Thread.currentThread().interrupt();
+
+      throw new PessimisticLockingFailureException(String.format("Interrupted while waiting for lock on '%s' of cache %s", key, name),
+        ex);
+    }
+  }
+
+  /**
+   * Release the lease on the given key if it is still held with the given token.
+   *
+   * @param name  the cache name. Must not be {@literal null}.
+   * @param key   the locked key. Must not be {@literal null}.
+   * @param token the token returned when the lease has been acquired. Must not be {@literal null}.
+   */
+  public void release(String name, String key, String token) {
+    Assert.notNull(name, "Name must not be null!");
+    Assert.notNull(key, "Key must not be null!");
+    Assert.notNull(token, "Token must not be null!");
+
+    try {
+      dynamoTemplate.deleteItem(DeleteItemRequest.builder()
+        .tableName(name)
+        .key(Collections.singletonMap(ATTRIBUTE_KEY, AttributeValue.fromS(lockKey(key))))
+        .conditionExpression("#owner = :owner")
+        .expressionAttributeNames(Collections.singletonMap("#owner", ATTRIBUTE_LOCK_OWNER))
+        .expressionAttributeValues(Collections.singletonMap(":owner", AttributeValue.fromS(token)))
+        .build());
+    } catch (ConditionalCheckFailedException e) {
+      // lease has expired and been taken over or removed
+    }
+  }
+
+  /**
+   * Extend the lease on the given key by the lease duration from now if it is still held with the given token, so a
+   * holder running longer than the lease duration keeps it.
+   *
+   * @param name  the cache name. Must not be {@literal null}.
+   * @param key   the locked key. Must not be {@literal null}.
+   * @param token the token returned when the lease has been acquired. Must not be {@literal null}.
+   * @return {@literal true} if the lease has been extended, {@literal false} if it has expired and been taken over or
+   * removed.
+   */
+  public boolean renew(String name, String key, String token) {
+    Assert.notNull(name, "Name must not be null!");
+    Assert.notNull(key, "Key must not be null!");
+    Assert.notNull(token, "Token must not be null!");
+
+    long expiry = System.currentTimeMillis() + leaseDuration.toMillis();
+
+    Map<String, String> attributeNames = new HashMap<>();
+    attributeNames.put("#owner", ATTRIBUTE_LOCK_OWNER);
+    attributeNames.put("#expiry", ATTRIBUTE_LOCK_EXPIRY);
+    attributeNames.put("#ttl", ATTRIBUTE_TTL);
+    Map<String, AttributeValue> attributeValues = new HashMap<>();
+    attributeValues.put(":owner", AttributeValue.fromS(token));
+    attributeValues.put(":expiry", AttributeValue.fromN(String.valueOf(expiry)));
+    attributeValues.put(":ttl", AttributeValue.fromN(String.valueOf(expiry / 1000 + 1)));
+
+    try {
+      dynamoTemplate.updateItem(UpdateItemRequest.builder()
+        .tableName(name)
+        .key(Collections.singletonMap(ATTRIBUTE_KEY, AttributeValue.fromS(lockKey(key))))
+        .updateExpression("SET #expiry = :expiry, #ttl = :ttl")
+        .conditionExpression("#owner = :owner")
+        .expressionAttributeNames(attributeNames)
+        .expressionAttributeValues(attributeValues)
+        .build());
+      return true;
+    } catch (ConditionalCheckFailedException e) {
+      return false;
+    }
+  }
+
+  /**
+   * Create a condition that fails while the lease on the given key is held, so a write in the same transaction
+   * excludes the holder of the lease.
+   *
+   * @param name the cache name. Must not be {@literal null}.
+   * @param key  the locked key. Must not be {@literal null}.
+   * @return the condition check on the lease.
+   */
+  public TransactWriteItem notHeld(String name, String key) {
+    Assert.notNull(name, "Name must not be null!");
+    Assert.notNull(key, "Key must not be null!");
+
+    return TransactWriteItem.builder()
+      .conditionCheck(ConditionCheck.builder()
+        .tableName(name)
+        .key(Collections.singletonMap(ATTRIBUTE_KEY, AttributeValue.fromS(lockKey(key))))
+        .conditionExpression(NOT_HELD_CONDITION)
+        .expressionAttributeNames(notHeldAttributeNames())
+        .expressionAttributeValues(notHeldAttributeValues())
+        .build())
+      .build();
+  }
+
+  /**
+   * @param item an item of a cache table. Must not be {@literal null}.
+   * @return {@literal true} if the item is a lease rather than a cache entry.
+   */
+  public static boolean isLease(Map<String, AttributeValue> item) {
+    return item.containsKey(ATTRIBUTE_LOCK_OWNER);
+  }
+
+  private static Map<String, String> notHeldAttributeNames() {
+    Map<String, String> attributeNames = new HashMap<>();
+    attributeNames.put("#key", ATTRIBUTE_KEY);
+    attributeNames.put("#expiry", ATTRIBUTE_LOCK_EXPIRY);
+    return attributeNames;
+  }
+
+  private static Map<String, AttributeValue> notHeldAttributeValues() {
+    return Collections.singletonMap(":now", AttributeValue.fromN(String.valueOf(System.currentTimeMillis())));
+  }
+
+  private static String lockKey(String key) {
+    return key + LOCK_SUFFIX;
+  }
+}
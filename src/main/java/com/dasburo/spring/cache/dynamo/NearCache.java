@@ -0,0 +1,143 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dasburo.spring.cache.dynamo;
+
+import org.springframework.cache.Cache.ValueWrapper;
+import org.springframework.cache.support.SimpleValueWrapper;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded in-heap cache tier in front of a {@link DynamoCacheWriter}.
+ * <p>
+ * Entries are evicted in least-recently-used order once {@literal maximumSize} is reached and expire after the given
+ * time to live. The near cache is local to a single JVM, so changes made by other nodes only become visible once the
+ * local entry has expired.
+ */
+class NearCache {
+
+  private final int maximumSize;
+  private final long ttlMillis;
+  private final Map<String, Entry> entries;
+
+  /**
+   * @param maximumSize maximum number of entries, must be greater than {@literal 0}.
+   * @param ttl         time to live of an entry. Must not be {@literal null}. Use {@link Duration#ZERO} to keep entries
+   *                    until they are evicted.
+   */
+  NearCache(int maximumSize, Duration ttl) {
+    Assert.isTrue(maximumSize > 0, "MaximumSize must be greater than 0!");
+    Assert.notNull(ttl, "TTL must not be null!");
+
+    this.maximumSize = maximumSize;
+    this.ttlMillis = ttl.isNegative() ? 0 : ttl.toMillis();
+    this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+        return size() > NearCache.this.maximumSize;
+      }
+    };
+  }
+
+  /**
+   * @param key must not be {@literal null}.
+   * @return {@literal null} if there is no valid local entry for the key.
+   */
+  @Nullable
+  ValueWrapper get(String key) {
+    synchronized (entries) {
+      Entry entry = entries.get(key);
+      if (entry == null) {
+        return null;
+      }
+      if (entry.isExpired(System.currentTimeMillis())) {
+        entries.remove(key);
+        return null;
+      }
+      return entry.value;
+    }
+  }
+
+  /**
+   * @param key   must not be {@literal null}.
+   * @param value can be {@literal null}.
+   */
+  void put(String key, @Nullable Object value) {
+    put(key, value, null);
+  }
+
+  /**
+   * @param key           must not be {@literal null}.
+   * @param value         can be {@literal null}.
+   * @param itemExpiresAt time the item expires at in DynamoDB. Can be {@literal null}. The local entry never outlives it.
+   */
+  void put(String key, @Nullable Object value, @Nullable Instant itemExpiresAt) {
+    putWrapper(key, new SimpleValueWrapper(value), itemExpiresAt);
+  }
+
+  /**
+   * @param key           must not be {@literal null}.
+   * @param wrapper       the wrapper returned for the key. Must not be {@literal null}.
+   * @param itemExpiresAt time the item expires at in DynamoDB. Can be {@literal null}. The local entry never outlives it.
+   */
+  void putWrapper(String key, ValueWrapper wrapper, @Nullable Instant itemExpiresAt) {
+    long expiresAt = ttlMillis == 0 ? Long.MAX_VALUE : System.currentTimeMillis() + ttlMillis;
+    if (itemExpiresAt != null) {
+      expiresAt = Math.min(expiresAt, itemExpiresAt.toEpochMilli());
+    }
+    synchronized (entries) {
+      entries.put(key, new Entry(wrapper, expiresAt));
+    }
+  }
+
+  void evict(String key) {
+    synchronized (entries) {
+      entries.remove(key);
+    }
+  }
+
+  void clear() {
+    synchronized (entries) {
+      entries.clear();
+    }
+  }
+
+  int size() {
+    synchronized (entries) {
+      return entries.size();
+    }
+  }
+
+  private static final class Entry {
+
+    private final ValueWrapper value;
+    private final long expiresAt;
+
+    private Entry(ValueWrapper value, long expiresAt) {
+      this.value = value;
+      this.expiresAt = expiresAt;
+    }
+
+    private boolean isExpired(long now) {
+      return now >= expiresAt;
+    }
+  }
+}
@@ -0,0 +1,186 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dasburo.spring.cache.dynamo;
+
+import com.dasburo.spring.cache.dynamo.util.TableUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.lang.Nullable;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.BillingMode;
+import software.amazon.awssdk.services.dynamodb.model.BillingModeSummary;
+import software.amazon.awssdk.services.dynamodb.model.CreateTableRequest;
+import software.amazon.awssdk.services.dynamodb.model.DeleteTableRequest;
+import software.amazon.awssdk.services.dynamodb.model.DescribeTableRequest;
+import software.amazon.awssdk.services.dynamodb.model.DescribeTimeToLiveRequest;
+import software.amazon.awssdk.services.dynamodb.model.ProvisionedThroughput;
+import software.amazon.awssdk.services.dynamodb.model.ProvisionedThroughputDescription;
+import software.amazon.awssdk.services.dynamodb.model.ResourceNotFoundException;
+import software.amazon.awssdk.services.dynamodb.model.TableDescription;
+import software.amazon.awssdk.services.dynamodb.model.TableStatus;
+import software.amazon.awssdk.services.dynamodb.model.TimeToLiveDescription;
+import software.amazon.awssdk.services.dynamodb.model.TimeToLiveStatus;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link ClearStrategy} deleting and recreating the cache table. Its cost does not depend on the number of entries,
+ * which makes it the faster choice for large caches, but the table is unavailable until it is {@code ACTIVE} again.
+ * The provisioned throughput and the TTL setting of the deleted table are carried over to the new table. Lease locks
+ * are removed together with the table.
+ * <p>
+ * Operations of writers on the same node wait for the swap to complete up to a configured time, or fail immediately
+ * with a {@link TransientDataAccessResourceException}. Other nodes see the table as missing during the swap.
+ */
+class RecreateTableClearStrategy implements ClearStrategy {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(RecreateTableClearStrategy.class);
+
+  /**
+   * Time between two checks of the table status.
+   */
+  static final Duration POLL_INTERVAL = Duration.ofMillis(250);
+
+  private final Duration maxWait;
+  private final Duration tableTimeout;
+  private final Map<String, CountDownLatch> swaps = new ConcurrentHashMap<>();
+
+  /**
+   * @param maxWait      maximum time operations wait for a swap to complete. {@link Duration#ZERO} fails immediately.
+   *                     Must not be {@literal null}.
+   * @param tableTimeout maximum time to wait for the table to be deleted and to become active again. Must not be
+   *                     {@literal null}.
+   */
+  RecreateTableClearStrategy(Duration maxWait, Duration tableTimeout) {
+    this.maxWait = maxWait;
+    this.tableTimeout = tableTimeout;
+  }
+
+  @Override
+  public long clear(DynamoDbClient dynamoTemplate, String name) {
+    long start = System.nanoTime();
+
+    TableDescription table = dynamoTemplate.describeTable(DescribeTableRequest.builder()
+      .tableName(name)
+      .build()).table();
+    boolean ttlEnabled = isTimeToLiveEnabled(dynamoTemplate, name);
+
+    CountDownLatch swap = new CountDownLatch(1);
+    swaps.put(name, swap);
+    try {
+      dynamoTemplate.deleteTable(DeleteTableRequest.builder()
+        .tableName(name)
+        .build());
+      awaitStatus(dynamoTemplate, name, null);
+
+      TableUtils.createTableIfNotExists(dynamoTemplate, createTableRequest(table));
+      awaitStatus(dynamoTemplate, name, TableStatus.ACTIVE);
+
+      if (ttlEnabled) {
+        dynamoTemplate.updateTimeToLive(DefaultDynamoCacheWriter.updateTimeToLiveRequest(name));
+      }
+    } finally {
+      swaps.remove(name, swap);
+      swap.countDown();
+    }
+
+    LOGGER.debug("Recreated table of cache '{}' with about {} items in {} ms.", name, table.itemCount(),
+      TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    return table.itemCount() != null ? table.itemCount() : 0;
+  }
+
+  @Override
+  public void awaitAvailable(String name) {
+    CountDownLatch swap = swaps.get(name);
+    if (swap == null) {
+      return;
+    }
+
+    try {
+      if (maxWait.isZero() || !swap.await(maxWait.toMillis(), TimeUnit.MILLISECONDS)) {
+        throw new TransientDataAccessResourceException(String.format("Table of cache %s is being recreated", name));
+      }
+    } catch (InterruptedException ex) {
+      // Re-interrupt current thread, to allow other participants to react.
+      Thread.currentThread().interrupt();
+
+      throw new TransientDataAccessResourceException(String.format("Interrupted while waiting for table of cache %s", name), ex);
+    }
+  }
+
+  /**
+   * Create the request for a table with the key schema of the cache and the throughput of the given table.
+   */
+  static CreateTableRequest createTableRequest(TableDescription table) {
+    BillingModeSummary billingMode = table.billingModeSummary();
+    if (billingMode != null && billingMode.billingMode() == BillingMode.PAY_PER_REQUEST) {
+      return DefaultDynamoCacheWriter.createTableRequest(table.tableName(), null, null).toBuilder()
+        .billingMode(BillingMode.PAY_PER_REQUEST)
+        .provisionedThroughput((ProvisionedThroughput) null)
+        .build();
+    }
+
+    ProvisionedThroughputDescription throughput = table.provisionedThroughput();
+    return DefaultDynamoCacheWriter.createTableRequest(table.tableName(),
+      throughput.readCapacityUnits(), throughput.writeCapacityUnits());
+  }
+
+  private static boolean isTimeToLiveEnabled(DynamoDbClient dynamoTemplate, String name) {
+    TimeToLiveDescription description = dynamoTemplate.describeTimeToLive(DescribeTimeToLiveRequest.builder()
+      .tableName(name)
+      .build()).timeToLiveDescription();
+    return description != null
+      && (description.timeToLiveStatus() == TimeToLiveStatus.ENABLED || description.timeToLiveStatus() == TimeToLiveStatus.ENABLING);
+  }
+
+  /**
+   * Poll the table until it has the given status, or until it does not exist if the status is {@literal null}.
+   */
+  private void awaitStatus(DynamoDbClient dynamoTemplate, String name, @Nullable TableStatus status) {
+    long deadline = System.nanoTime() + tableTimeout.toNanos();
+    while (true) {
+      TableStatus current;
+      try {
+        current = dynamoTemplate.describeTable(DescribeTableRequest.builder()
+          .tableName(name)
+          .build()).table().tableStatus();
+      } catch (ResourceNotFoundException e) {
+        current = null;
+      }
+      if (current == status) {
+        return;
+      }
+      if (System.nanoTime() > deadline) {
+        throw new TransientDataAccessResourceException(String.format("Table of cache %s did not reach status %s within %s", name,
+          status != null ? status : "DELETED", tableTimeout));
+      }
+
+      try {
+        Thread.sleep(POLL_INTERVAL.toMillis());
+      } catch (InterruptedException ex) {
+        // Re-interrupt current thread, to allow other participants to react.
+        Thread.currentThread().interrupt();
+
+        throw new TransientDataAccessResourceException(String.format("Interrupted while recreating table of cache %s", name), ex);
+      }
+    }
+  }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dasburo.spring.cache.dynamo;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.DeleteRequest;
+import software.amazon.awssdk.services.dynamodb.model.ScanRequest;
+import software.amazon.awssdk.services.dynamodb.model.ScanResponse;
+import software.amazon.awssdk.services.dynamodb.model.WriteRequest;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.dasburo.spring.cache.dynamo.DefaultDynamoCacheWriter.ATTRIBUTE_KEY;
+
+/**
+ * {@link ClearStrategy} scanning the table in parallel segments. Each segment follows {@code LastEvaluatedKey} until
+ * the segment is exhausted, fetches the key attribute only and deletes the entries of each page in
+ * {@code BatchWriteItem} groups of {@value BatchRequests#MAX_BATCH_WRITE_SIZE}. Segments run on a dedicated, bounded pool of daemon
+ * threads.
+ */
+class SegmentedScanClearStrategy implements ClearStrategy {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(SegmentedScanClearStrategy.class);
+
+
+  private final int totalSegments;
+  private final ProgressListener listener;
+
+  /**
+   * @param totalSegments number of segments, must be greater than {@literal 0}.
+   * @param listener      must not be {@literal null}.
+   */
+  SegmentedScanClearStrategy(int totalSegments, ProgressListener listener) {
+    this.totalSegments = totalSegments;
+    this.listener = listener;
+  }
+
+  @Override
+  public long clear(DynamoDbClient dynamoTemplate, String name) {
+    long start = System.nanoTime();
+    AtomicLong deleted = new AtomicLong();
+
+    if (totalSegments == 1) {
+      clearSegment(dynamoTemplate, name, 0, deleted);
+    } else {
+      List<CompletableFuture<Void>> futures = new ArrayList<>();
+      for (int segment = 0; segment < totalSegments; segment++) {
+        int current = segment;
+        futures.add(CompletableFuture.runAsync(() -> clearSegment(dynamoTemplate, name, current, deleted), ClearExecutorHolder.EXECUTOR));
+      }
+      try {
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+      } catch (CompletionException e) {
+        if (e.getCause() instanceof RuntimeException) {
+          throw (RuntimeException) e.getCause();
+        }
+        throw e;
+      }
+    }
+
+    LOGGER.debug("Cleared {} items of cache '{}' in {} ms.", deleted.get(), name, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    return deleted.get();
+  }
+
+  private void clearSegment(DynamoDbClient dynamoTemplate, String name, int segment, AtomicLong deleted) {
+    Map<String, AttributeValue> exclusiveStartKey = null;
+    do {
+      ScanResponse response = dynamoTemplate.scan(ScanRequest.builder()
+        .tableName(name)
+        .attributesToGet(ATTRIBUTE_KEY, LeaseLock.ATTRIBUTE_LOCK_OWNER)
+        .segment(segment)
+        .totalSegments(totalSegments)
+        .exclusiveStartKey(exclusiveStartKey)
+        .build());
+
+      List<WriteRequest> deletes = new ArrayList<>();
+      for (Map<String, AttributeValue> item : response.items()) {
+        if (LeaseLock.isLease(item) || DefaultDynamoCacheWriter.isMetadataKey(item.get(ATTRIBUTE_KEY).s())) {
+          continue;
+        }
+        deletes.add(WriteRequest.builder()
+          .deleteRequest(DeleteRequest.builder()
+            .key(Collections.singletonMap(ATTRIBUTE_KEY, item.get(ATTRIBUTE_KEY)))
+            .build())
+          .build());
+        if (deletes.size() == BatchRequests.MAX_BATCH_WRITE_SIZE) {
+          delete(dynamoTemplate, name, deletes, deleted);
+          deletes = new ArrayList<>();
+        }
+      }
+      if (!deletes.isEmpty()) {
+        delete(dynamoTemplate, name, deletes, deleted);
+      }
+
+      exclusiveStartKey = response.hasLastEvaluatedKey() && !response.lastEvaluatedKey().isEmpty() ? response.lastEvaluatedKey() : null;
+    } while (exclusiveStartKey != null);
+  }
+
+  private void delete(DynamoDbClient dynamoTemplate, String name, List<WriteRequest> deletes, AtomicLong deleted) {
+    Map<String, List<WriteRequest>> unprocessed = BatchRequests.batchWrite(dynamoTemplate, Collections.singletonMap(name, deletes),
+      written -> listener.onProgress(name, deleted.addAndGet(written)));
+    if (!unprocessed.isEmpty()) {
+      LOGGER.warn("Giving up on deleting {} unprocessed items of cache '{}'.", BatchRequests.count(unprocessed), name);
+    }
+  }
+
+  /**
+   * Shared, bounded pool of daemon threads used to scan segments concurrently.
+   */
+  private static class ClearExecutorHolder {
+
+    private static final Executor EXECUTOR = DaemonExecutors.newPool("dynamo-cache-clear-", Integer.MAX_VALUE);
+  }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dasburo.spring.cache.dynamo;
+
+import org.springframework.util.Assert;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent calls for the same key within a single JVM.
+ * <p>
+ * The first caller for a key runs the callback, callers arriving while it is running wait for and share its result or
+ * exception. A key is only tracked while its callback is running, so the bookkeeping is bounded by the number of
+ * concurrent callers. Calls for the same key from within the callback run directly instead of waiting for themselves.
+ */
+class SingleFlight {
+
+  private final Map<String, Flight> flights = new ConcurrentHashMap<>();
+  private final LongAdder executionCount = new LongAdder();
+  private final LongAdder coalescedCount = new LongAdder();
+
+  /**
+   * Run the callback for the given key, or wait for the result of a call for the same key already in progress.
+   *
+   * @param key      must not be {@literal null}.
+   * @param callback must not be {@literal null}.
+   * @return the result of the callback.
+   * @throws IllegalStateException if interrupted while waiting.
+   */
+  @SuppressWarnings("unchecked")
+  <T> T execute(String key, Supplier<T> callback) {
+    Assert.notNull(key, "Key must not be null!");
+    Assert.notNull(callback, "Callback must not be null!");
+
+    Flight flight = new Flight();
+    Flight existing = flights.putIfAbsent(key, flight);
+    if (existing != null) {
+      if (existing.owner == Thread.currentThread()) {
+        return callback.get();
+      }
+      coalescedCount.increment();
+      return (T) await(key, existing);
+    }
+
+    executionCount.increment();
+    try {
+      T value = callback.get();
+      flight.result.complete(value);
+      return value;
+    } catch (RuntimeException | Error e) {
+      flight.result.completeExceptionally(e);
+      throw e;
+    } finally {
+      flights.remove(key, flight);
+    }
+  }
+
+  /**
+   * @return the number of calls that ran their callback.
+   */
+  long getExecutionCount() {
+    return executionCount.sum();
+  }
+
+  /**
+   * @return the number of calls that shared the result of a call already in progress.
+   */
+  long getCoalescedCount() {
+    return coalescedCount.sum();
+  }
+
+  /**
+   * @return the number of keys with a call in progress.
+   */
+  int getInFlightCount() {
+    return flights.size();
+  }
+
+  private static Object await(String key, Flight flight) {
+    try {
+      return flight.result.get();
+    } catch (InterruptedException e) {
+      // Re-interrupt current thread, to allow other participants to react.
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException(String.format("Interrupted while waiting for '%s' to be loaded", key), e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      if (e.getCause() instanceof Error) {
+        throw (Error) e.getCause();
+      }
+      throw new IllegalStateException(e.getCause());
+    }
+  }
+
+  private static final class Flight {
+
+    private final Thread owner = Thread.currentThread();
+    private final CompletableFuture<Object> result = new CompletableFuture<>();
+  }
+}
@@ -0,0 +1,324 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dasburo.spring.cache.dynamo;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import software.amazon.awssdk.core.SdkBytes;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.DeleteRequest;
+import software.amazon.awssdk.services.dynamodb.model.KeysAndAttributes;
+import software.amazon.awssdk.services.dynamodb.model.PutRequest;
+import software.amazon.awssdk.services.dynamodb.model.WriteRequest;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static com.dasburo.spring.cache.dynamo.DefaultDynamoCacheWriter.ATTRIBUTE_CHUNKS;
+import static com.dasburo.spring.cache.dynamo.DefaultDynamoCacheWriter.ATTRIBUTE_CHUNK_VERSION;
+import static com.dasburo.spring.cache.dynamo.DefaultDynamoCacheWriter.ATTRIBUTE_KEY;
+import static com.dasburo.spring.cache.dynamo.DefaultDynamoCacheWriter.ATTRIBUTE_TTL;
+import static com.dasburo.spring.cache.dynamo.DefaultDynamoCacheWriter.ATTRIBUTE_VALUE;
+import static com.dasburo.spring.cache.dynamo.DefaultDynamoCacheWriter.ATTRIBUTE_VALUE_SIZE;
+
+/**
+ * Splits values exceeding the item size limit of DynamoDB across several items.
+ * <p>
+ * A chunked entry is stored as a manifest item under the key of the entry. It holds the TTL and root attributes of the
+ * entry, the number of chunks, the size of the value and a version stamp instead of the value. The chunks are stored
+ * as items keyed {@code <key>~chunk<index>} that carry the version stamp of their write. Every write uses a new stamp,
+ * so a reader treats an entry whose chunks do not all match its manifest, e.g. while the key is written concurrently,
+ * as absent instead of mixing chunks of two writes. Chunks are overwritten by the next chunked write of the key, chunks
+ * beyond the chunk count of the next write and all chunks of a removed entry are deleted together with the manifest.
+ */
+class ValueChunker {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ValueChunker.class);
+
+  /**
+   * Default maximum number of bytes stored in a single item, leaving room for the key and the other attributes within
+   * the 400 KB item limit of DynamoDB.
+   */
+  static final int DEFAULT_CHUNK_SIZE = 384 * 1024;
+
+  /**
+   * Maximum number of chunks read with a single {@code BatchGetItem} request, keeping full chunks below the 16 MB
+   * response limit of DynamoDB.
+   */
+  private static final int MAX_BATCH_GET_SIZE = 40;
+  private static final String CHUNK_SUFFIX = "~chunk";
+
+  private final DynamoDbClient dynamoTemplate;
+  private final int chunkSize;
+
+  /**
+   * @param dynamoTemplate must not be {@literal null}.
+   * @param chunkSize      maximum number of bytes stored in a single item. Must be positive.
+   */
+  ValueChunker(DynamoDbClient dynamoTemplate, int chunkSize) {
+    Assert.notNull(dynamoTemplate, "DynamoDbClient must not be null!");
+    Assert.isTrue(chunkSize > 0, "ChunkSize must be positive!");
+
+    this.dynamoTemplate = dynamoTemplate;
+    this.chunkSize = chunkSize;
+  }
+
+  /**
+   * @return {@literal true} if the value does not fit into a single item.
+   */
+  boolean requiresChunking(@Nullable byte[] value) {
+    return value != null && value.length > chunkSize;
+  }
+
+  /**
+   * @param item an item of a cache table. Must not be {@literal null}.
+   * @return {@literal true} if the item is the manifest of a chunked entry rather than an entry holding its value.
+   */
+  static boolean isManifest(Map<String, AttributeValue> item) {
+    return item.containsKey(ATTRIBUTE_CHUNKS);
+  }
+
+  /**
+   * @param item an item of a cache table, can be {@literal null}.
+   * @return the number of chunks of the item if it is a manifest, {@literal 0} otherwise.
+   */
+  static int chunksOf(@Nullable Map<String, AttributeValue> item) {
+    return item != null && isManifest(item) ? Integer.parseInt(item.get(ATTRIBUTE_CHUNKS).n()) : 0;
+  }
+
+  /**
+   * @param key a key of a cache table. Must not be {@literal null}.
+   * @return {@literal true} if the key has the form of the key of a chunk.
+   */
+  static boolean isChunkKey(String key) {
+    int index = key.lastIndexOf(CHUNK_SUFFIX) + CHUNK_SUFFIX.length();
+    if (index < CHUNK_SUFFIX.length() || index == key.length()) {
+      return false;
+    }
+    for (int i = index; i < key.length(); i++) {
+      if (!Character.isDigit(key.charAt(i))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Turn the attributes of an entry without value into the manifest of the given value, stamped with a new version.
+   *
+   * @param attributes the attributes of the entry, modified in place. Must not be {@literal null}.
+   * @param value      the chunked value. Must not be {@literal null}.
+   * @return the given attributes.
+   */
+  Map<String, AttributeValue> toManifest(Map<String, AttributeValue> attributes, byte[] value) {
+    attributes.put(ATTRIBUTE_CHUNKS, AttributeValue.fromN(String.valueOf(chunkCount(value.length))));
+    attributes.put(ATTRIBUTE_CHUNK_VERSION, AttributeValue.fromS(UUID.randomUUID().toString()));
+    attributes.put(ATTRIBUTE_VALUE_SIZE, AttributeValue.fromN(String.valueOf(value.length)));
+    return attributes;
+  }
+
+  /**
+   * Write the chunks of the given manifest with {@code BatchWriteItem}, groups are written in parallel.
+   *
+   * @param name     the cache name. Must not be {@literal null}.
+   * @param manifest the manifest created for the value. Must not be {@literal null}.
+   * @param value    the chunked value. Must not be {@literal null}.
+   * @throws IllegalStateException if not all chunks could be written.
+   */
+  void writeChunks(String name, Map<String, AttributeValue> manifest, byte[] value) {
+    String key = manifest.get(ATTRIBUTE_KEY).s();
+    AttributeValue version = manifest.get(ATTRIBUTE_CHUNK_VERSION);
+    AttributeValue ttl = manifest.get(ATTRIBUTE_TTL);
+
+    List<WriteRequest> puts = new ArrayList<>();
+    for (int index = 0, offset = 0; offset < value.length; index++, offset += chunkSize) {
+      Map<String, AttributeValue> chunk = new HashMap<>();
+      chunk.put(ATTRIBUTE_KEY, AttributeValue.fromS(chunkKey(key, index)));
+      chunk.put(ATTRIBUTE_VALUE, AttributeValue.fromB(SdkBytes.fromByteBuffer(ByteBuffer.wrap(value, offset, Math.min(chunkSize, value.length - offset)))));
+      chunk.put(ATTRIBUTE_CHUNK_VERSION, version);
+      if (ttl != null) {
+        chunk.put(ATTRIBUTE_TTL, ttl);
+      }
+      puts.add(WriteRequest.builder().putRequest(PutRequest.builder().item(chunk).build()).build());
+    }
+
+    inParallel(partition(puts, BatchRequests.MAX_BATCH_WRITE_SIZE), group -> {
+      writeGroup(name, key, group);
+      return null;
+    });
+  }
+
+  /**
+   * Read and reassemble the value of the given manifest. Chunks are fetched with {@code BatchGetItem}, groups are read
+   * in parallel into a buffer sized by the manifest.
+   *
+   * @param name           the cache name. Must not be {@literal null}.
+   * @param manifest       the manifest of the entry. Must not be {@literal null}.
+   * @param consistentRead whether chunks are read strongly consistent.
+   * @return the value, {@literal null} if a chunk is missing or belongs to another write of the key.
+   */
+  @Nullable
+  byte[] readChunks(String name, Map<String, AttributeValue> manifest, boolean consistentRead) {
+    String key = manifest.get(ATTRIBUTE_KEY).s();
+    int chunks = Integer.parseInt(manifest.get(ATTRIBUTE_CHUNKS).n());
+    String version = manifest.get(ATTRIBUTE_CHUNK_VERSION).s();
+
+    List<String> chunkKeys = new ArrayList<>(chunks);
+    for (int index = 0; index < chunks; index++) {
+      chunkKeys.add(chunkKey(key, index));
+    }
+    Map<String, Map<String, AttributeValue>> items = new HashMap<>();
+    inParallel(partition(chunkKeys, MAX_BATCH_GET_SIZE), group -> readGroup(name, group, consistentRead))
+      .forEach(items::putAll);
+
+    byte[] value = new byte[Integer.parseInt(manifest.get(ATTRIBUTE_VALUE_SIZE).n())];
+    int offset = 0;
+    for (String chunkKey : chunkKeys) {
+      Map<String, AttributeValue> chunk = items.get(chunkKey);
+      if (chunk == null || !version.equals(chunk.get(ATTRIBUTE_CHUNK_VERSION).s())) {
+        LOGGER.debug("Chunk '{}' of cache '{}' is missing or belongs to another write, treating '{}' as absent.", chunkKey, name, key);
+        return null;
+      }
+      ByteBuffer bytes = chunk.get(ATTRIBUTE_VALUE).b().asByteBuffer();
+      if (bytes.remaining() > value.length - offset) {
+        return null;
+      }
+      int length = bytes.remaining();
+      bytes.get(value, offset, length);
+      offset += length;
+    }
+    return offset == value.length ? value : null;
+  }
+
+  /**
+   * Delete the chunks of a replaced or removed entry that have not been overwritten, with {@code BatchWriteItem}.
+   * Chunks that cannot be deleted are logged and left to their TTL.
+   *
+   * @param name           the cache name. Must not be {@literal null}.
+   * @param key            the key of the entry. Must not be {@literal null}.
+   * @param previousChunks the number of chunks of the replaced or removed entry.
+   * @param chunks         the number of chunks of the entry now stored under the key.
+   */
+  void removeChunks(String name, String key, int previousChunks, int chunks) {
+    if (previousChunks <= chunks) {
+      return;
+    }
+
+    List<WriteRequest> deletes = new ArrayList<>();
+    for (int index = chunks; index < previousChunks; index++) {
+      deletes.add(WriteRequest.builder()
+        .deleteRequest(DeleteRequest.builder()
+          .key(Collections.singletonMap(ATTRIBUTE_KEY, AttributeValue.fromS(chunkKey(key, index))))
+          .build())
+        .build());
+    }
+
+    inParallel(partition(deletes, BatchRequests.MAX_BATCH_WRITE_SIZE), group -> {
+      Map<String, List<WriteRequest>> unprocessed = BatchRequests.batchWrite(dynamoTemplate, Collections.singletonMap(name, group));
+      if (!unprocessed.isEmpty()) {
+        LOGGER.warn("Could not delete {} chunks of '{}' of cache '{}'.", BatchRequests.count(unprocessed), key, name);
+      }
+      return null;
+    });
+  }
+
+  private int chunkCount(int length) {
+    return (length + chunkSize - 1) / chunkSize;
+  }
+
+  private void writeGroup(String name, String key, List<WriteRequest> puts) {
+    Map<String, List<WriteRequest>> unprocessed = BatchRequests.batchWrite(dynamoTemplate, Collections.singletonMap(name, puts));
+    if (!unprocessed.isEmpty()) {
+      throw new IllegalStateException(String.format("Could not write %d chunks of '%s' for cache %s", BatchRequests.count(unprocessed), key, name));
+    }
+  }
+
+  private Map<String, Map<String, AttributeValue>> readGroup(String name, List<String> chunkKeys, boolean consistentRead) {
+    Map<String, Map<String, AttributeValue>> result = new HashMap<>();
+    KeysAndAttributes keysAndAttributes = KeysAndAttributes.builder()
+      .attributesToGet(ATTRIBUTE_KEY, ATTRIBUTE_VALUE, ATTRIBUTE_CHUNK_VERSION)
+      .consistentRead(consistentRead)
+      .keys(chunkKeys.stream()
+        .map(chunkKey -> Collections.singletonMap(ATTRIBUTE_KEY, AttributeValue.fromS(chunkKey)))
+        .collect(Collectors.toList()))
+      .build();
+
+    int attempt = 0;
+    while (keysAndAttributes != null && keysAndAttributes.hasKeys() && !keysAndAttributes.keys().isEmpty()) {
+      if (attempt > 0 && (attempt > BatchRequests.MAX_BATCH_RETRIES || !BatchRequests.backoff(attempt))) {
+        LOGGER.warn("Giving up on {} unprocessed chunks of cache '{}' after {} attempts.", keysAndAttributes.keys().size(), name, attempt);
+        break;
+      }
+
+      BatchGetItemResponse response = dynamoTemplate.batchGetItem(BatchGetItemRequest.builder()
+        .requestItems(Collections.singletonMap(name, keysAndAttributes))
+        .build());
+      response.responses().getOrDefault(name, Collections.emptyList())
+        .forEach(item -> result.put(item.get(ATTRIBUTE_KEY).s(), item));
+
+      keysAndAttributes = response.unprocessedKeys().get(name);
+      attempt++;
+    }
+    return result;
+  }
+
+  /**
+   * Apply the function to all groups, using the shared batch pool if there is more than one group.
+   */
+  private static <T, R> List<R> inParallel(List<List<T>> groups, Function<List<T>, R> function) {
+    if (groups.size() == 1) {
+      return Collections.singletonList(function.apply(groups.get(0)));
+    }
+
+    List<CompletableFuture<R>> futures = groups.stream()
+      .map(group -> CompletableFuture.supplyAsync(() -> function.apply(group), BatchRequests.batchExecutor()))
+      .collect(Collectors.toList());
+    try {
+      return futures.stream().map(CompletableFuture::join).collect(Collectors.toList());
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw e;
+    }
+  }
+
+  private static <T> List<List<T>> partition(List<T> list, int size) {
+    List<List<T>> groups = new ArrayList<>();
+    for (int i = 0; i < list.size(); i += size) {
+      groups.add(list.subList(i, Math.min(i + size, list.size())));
+    }
+    return groups;
+  }
+
+  private static String chunkKey(String key, int index) {
+    return key + CHUNK_SUFFIX + index;
+  }
+}
@@ -0,0 +1,496 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dasburo.spring.cache.dynamo;
+
+import com.dasburo.spring.cache.dynamo.rootattribute.RootAttribute;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.PutRequest;
+import software.amazon.awssdk.services.dynamodb.model.WriteRequest;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * {@link DynamoCacheWriter} that queues {@code put} operations and writes them to DynamoDB in the background.
+ * <p>
+ * Repeated puts to the same key are collapsed to the latest value while they are queued. Queued puts are flushed in
+ * {@code BatchWriteItem} groups of {@value BatchRequests#MAX_BATCH_WRITE_SIZE} as soon as a full group is available or the flush
+ * interval has elapsed. Once {@literal queueCapacity} puts are queued, callers block until the queue has been drained.
+ * Reads see queued values, all other operations are delegated to the wrapped {@link DefaultDynamoCacheWriter}.
+ * <p>
+ * Queued puts are lost if the JVM terminates without calling {@link #destroy()}, which drains the queue. A queued put
+ * replacing a chunked entry cannot tell its chunks from the batch response, they are left to their TTL.
+ */
+public class WriteBehindDynamoCacheWriter implements DynamoCacheWriter, DisposableBean {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(WriteBehindDynamoCacheWriter.class);
+  private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+
+  private final DefaultDynamoCacheWriter delegate;
+  private final int queueCapacity;
+  private final Duration flushInterval;
+
+  private final Map<PendingKey, Map<String, AttributeValue>> pending = new LinkedHashMap<>();
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Condition notFull = lock.newCondition();
+  private final Condition flushRequested = lock.newCondition();
+  private final ReentrantLock flushLock = new ReentrantLock();
+  private final Thread flusher;
+  private volatile boolean running = true;
+
+  private final AtomicLong coalescedCount = new AtomicLong();
+  private final AtomicLong flushCount = new AtomicLong();
+  private final AtomicLong flushedItemCount = new AtomicLong();
+  private final AtomicLong failedItemCount = new AtomicLong();
+  private final AtomicLong lastFlushLatencyNanos = new AtomicLong();
+  private final AtomicLong maxFlushLatencyNanos = new AtomicLong();
+
+  /**
+   * @param delegate      the writer used for all operations but {@code put}. Must not be {@literal null}.
+   * @param queueCapacity maximum number of queued puts, must be greater than {@literal 0}.
+   * @param flushInterval maximum time a put stays queued. Must not be {@literal null}.
+   */
+  WriteBehindDynamoCacheWriter(DefaultDynamoCacheWriter delegate, int queueCapacity, Duration flushInterval) {
+    Assert.notNull(delegate, "Delegate must not be null!");
+    Assert.isTrue(queueCapacity > 0, "QueueCapacity must be greater than 0!");
+    Assert.notNull(flushInterval, "FlushInterval must not be null!");
+    Assert.isTrue(!flushInterval.isZero() && !flushInterval.isNegative(), "FlushInterval must be positive!");
+
+    this.delegate = delegate;
+    this.queueCapacity = queueCapacity;
+    this.flushInterval = flushInterval;
+
+    this.flusher = new Thread(this::runFlusher, "dynamo-cache-write-behind-" + THREAD_COUNTER.incrementAndGet());
+    this.flusher.setDaemon(true);
+    this.flusher.start();
+  }
+
+  @Override
+  public DynamoDbClient getNativeCacheWriter() {
+    return delegate.getNativeCacheWriter();
+  }
+
+  @Override
+  public boolean createIfNotExists(String name, Duration ttl, Long readCapacityUnits, Long writeCapacityUnits) {
+    return delegate.createIfNotExists(name, ttl, readCapacityUnits, writeCapacityUnits);
+  }
+
+  @Override
+  public void put(String name, String key, @Nullable byte[] value, @Nullable Duration ttl, @Nullable List<RootAttribute> rootAttributes) {
+    Assert.notNull(name, "Name must not be null!");
+    Assert.notNull(key, "Key must not be null!");
+
+    if (!running) {
+      delegate.put(name, key, value, ttl, rootAttributes);
+      return;
+    }
+    if (delegate.isLargeValue(value)) {
+      putLarge(name, key, value, ttl, rootAttributes);
+      return;
+    }
+
+    PendingKey pendingKey = new PendingKey(name, key);
+    Map<String, AttributeValue> item = DefaultDynamoCacheWriter.createItem(delegate.physicalKey(name, key), value, ttl, rootAttributes);
+
+    lock.lock();
+    try {
+      while (pending.size() >= queueCapacity && !pending.containsKey(pendingKey) && running) {
+        flushRequested.signal();
+        notFull.await();
+      }
+      if (!running) {
+        delegate.put(name, key, value, ttl, rootAttributes);
+        return;
+      }
+      if (pending.put(pendingKey, item) != null) {
+        coalescedCount.incrementAndGet();
+      }
+      if (pending.size() >= flushThreshold()) {
+        flushRequested.signal();
+      }
+    } catch (InterruptedException e) {
+      // Re-interrupt current thread, to allow other participants to react.
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException(String.format("Interrupted while queueing '%s' for cache %s", key, name), e);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public byte[] get(String name, String key) {
+    Assert.notNull(name, "Name must not be null!");
+    Assert.notNull(key, "Key must not be null!");
+
+    Map<String, AttributeValue> item = getPending(name, key);
+    if (item != null) {
+      return DefaultDynamoCacheWriter.getAttributeValue(item);
+    }
+    return delegate.get(name, key);
+  }
+
+  @Override
+  public DynamoCacheLookup lookup(String name, String key) {
+    Assert.notNull(name, "Name must not be null!");
+    Assert.notNull(key, "Key must not be null!");
+
+    Map<String, AttributeValue> item = getPending(name, key);
+    if (item != null) {
+      return DefaultDynamoCacheWriter.toLookup(item);
+    }
+    return delegate.lookup(name, key);
+  }
+
+  @Override
+  public Map<String, byte[]> getAll(String name, Collection<String> keys) {
+    Map<String, byte[]> result = new HashMap<>();
+    lookupAll(name, keys).forEach((key, lookup) -> result.put(key, lookup.getValue()));
+    return result;
+  }
+
+  @Override
+  public Map<String, DynamoCacheLookup> lookupAll(String name, Collection<String> keys) {
+    Assert.notNull(name, "Name must not be null!");
+    Assert.notNull(keys, "Keys must not be null!");
+
+    Map<String, DynamoCacheLookup> result = new HashMap<>();
+    List<String> missing = new ArrayList<>();
+    for (String key : keys) {
+      Map<String, AttributeValue> item = getPending(name, key);
+      if (item != null) {
+        result.put(key, DefaultDynamoCacheWriter.toLookup(item));
+      } else {
+        missing.add(key);
+      }
+    }
+    if (!missing.isEmpty()) {
+      result.putAll(delegate.lookupAll(name, missing));
+    }
+    return result;
+  }
+
+  @Override
+  public byte[] putIfAbsent(String name, String key, @Nullable byte[] value, @Nullable Duration ttl, @Nullable List<RootAttribute> rootAttributes) {
+    Assert.notNull(name, "Name must not be null!");
+    Assert.notNull(key, "Key must not be null!");
+
+    Map<String, AttributeValue> item = getPending(name, key);
+    if (item != null) {
+      return DefaultDynamoCacheWriter.getAttributeValue(item);
+    }
+    return delegate.putIfAbsent(name, key, value, ttl, rootAttributes);
+  }
+
+  @Override
+  public DynamoCacheLookup putIfAbsentLookup(String name, String key, @Nullable byte[] value, @Nullable Duration ttl,
+                                             @Nullable List<RootAttribute> rootAttributes) {
+    Assert.notNull(name, "Name must not be null!");
+    Assert.notNull(key, "Key must not be null!");
+
+    Map<String, AttributeValue> item = getPending(name, key);
+    if (item != null) {
+      return DefaultDynamoCacheWriter.toLookup(item);
+    }
+    return delegate.putIfAbsentLookup(name, key, value, ttl, rootAttributes);
+  }
+
+  @Override
+  public void remove(String name, String key) {
+    Assert.notNull(name, "Name must not be null!");
+    Assert.notNull(key, "Key must not be null!");
+
+    lock.lock();
+    try {
+      pending.remove(new PendingKey(name, key));
+      notFull.signalAll();
+    } finally {
+      lock.unlock();
+    }
+
+    awaitRunningFlush();
+    delegate.remove(name, key);
+  }
+
+  @Override
+  public void clear(String name) {
+    Assert.notNull(name, "Name must not be null!");
+
+    lock.lock();
+    try {
+      pending.keySet().removeIf(pendingKey -> pendingKey.name.equals(name));
+      notFull.signalAll();
+    } finally {
+      lock.unlock();
+    }
+
+    awaitRunningFlush();
+    delegate.clear(name);
+  }
+
+  /**
+   * Write all queued puts to DynamoDB and wait until they have been written.
+   */
+  public void flush() {
+    while (flushBatch()) {
+      // continue until the queue is drained
+    }
+  }
+
+  /**
+   * Stop the background flushing and write all queued puts to DynamoDB. Subsequent puts are written synchronously.
+   */
+  @Override
+  public void destroy() {
+    lock.lock();
+    try {
+      running = false;
+      flushRequested.signalAll();
+      notFull.signalAll();
+    } finally {
+      lock.unlock();
+    }
+
+    try {
+      flusher.join(TimeUnit.SECONDS.toMillis(30));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    flush();
+  }
+
+  /**
+   * @return the number of puts currently waiting to be written.
+   */
+  public int getQueueDepth() {
+    lock.lock();
+    try {
+      return pending.size();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * @return the number of puts that replaced an already queued value for the same key.
+   */
+  public long getCoalescedCount() {
+    return coalescedCount.get();
+  }
+
+  /**
+   * @return the number of {@code BatchWriteItem} groups written so far.
+   */
+  public long getFlushCount() {
+    return flushCount.get();
+  }
+
+  /**
+   * @return the number of items written so far.
+   */
+  public long getFlushedItemCount() {
+    return flushedItemCount.get();
+  }
+
+  /**
+   * @return the number of items that could not be written and have been dropped.
+   */
+  public long getFailedItemCount() {
+    return failedItemCount.get();
+  }
+
+  /**
+   * @return the time it took to write the last group of items.
+   */
+  public Duration getLastFlushLatency() {
+    return Duration.ofNanos(lastFlushLatencyNanos.get());
+  }
+
+  /**
+   * @return the longest time it took to write a group of items.
+   */
+  public Duration getMaxFlushLatency() {
+    return Duration.ofNanos(maxFlushLatencyNanos.get());
+  }
+
+  /**
+   * Values stored outside their item are not written in batches, they are written through once a queued put of the
+   * same key has been dropped and a batch that may still contain the key has been written.
+   */
+  private void putLarge(String name, String key, byte[] value, @Nullable Duration ttl, @Nullable List<RootAttribute> rootAttributes) {
+    lock.lock();
+    try {
+      pending.remove(new PendingKey(name, key));
+      notFull.signalAll();
+    } finally {
+      lock.unlock();
+    }
+
+    awaitRunningFlush();
+    delegate.put(name, key, value, ttl, rootAttributes);
+  }
+
+  /**
+   * Wait for a batch that may still contain dropped puts. Batches started afterwards only contain later puts, so the
+   * caller does not hold the flush lock while writing and other caches keep being flushed.
+   */
+  private void awaitRunningFlush() {
+    flushLock.lock();
+    flushLock.unlock();
+  }
+
+  @Nullable
+  private Map<String, AttributeValue> getPending(String name, String key) {
+    lock.lock();
+    try {
+      return pending.get(new PendingKey(name, key));
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private int flushThreshold() {
+    return Math.min(BatchRequests.MAX_BATCH_WRITE_SIZE, queueCapacity);
+  }
+
+  private void runFlusher() {
+    while (running) {
+      lock.lock();
+      try {
+        if (pending.size() < flushThreshold()) {
+          flushRequested.await(flushInterval.toMillis(), TimeUnit.MILLISECONDS);
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      } finally {
+        lock.unlock();
+      }
+
+      try {
+        flush();
+      } catch (RuntimeException e) {
+        LOGGER.warn("Failed to flush queued cache entries.", e);
+      }
+    }
+  }
+
+  /**
+   * Write one group of queued puts.
+   *
+   * @return {@literal false} if there was nothing to write.
+   */
+  private boolean flushBatch() {
+    flushLock.lock();
+    try {
+      Map<String, List<WriteRequest>> requestItems = new HashMap<>();
+      int size = 0;
+
+      lock.lock();
+      try {
+        Iterator<Map.Entry<PendingKey, Map<String, AttributeValue>>> iterator = pending.entrySet().iterator();
+        while (iterator.hasNext() && size < BatchRequests.MAX_BATCH_WRITE_SIZE) {
+          Map.Entry<PendingKey, Map<String, AttributeValue>> entry = iterator.next();
+          requestItems.computeIfAbsent(entry.getKey().name, name -> new ArrayList<>())
+            .add(WriteRequest.builder().putRequest(PutRequest.builder().item(entry.getValue()).build()).build());
+          iterator.remove();
+          size++;
+        }
+        notFull.signalAll();
+      } finally {
+        lock.unlock();
+      }
+
+      if (size == 0) {
+        return false;
+      }
+
+      long start = System.nanoTime();
+      writeBatch(requestItems, size);
+      long latency = System.nanoTime() - start;
+      lastFlushLatencyNanos.set(latency);
+      maxFlushLatencyNanos.accumulateAndGet(latency, Math::max);
+      flushCount.incrementAndGet();
+      return true;
+    } finally {
+      flushLock.unlock();
+    }
+  }
+
+  private void writeBatch(Map<String, List<WriteRequest>> requestItems, int size) {
+    AtomicInteger written = new AtomicInteger();
+    Map<String, List<WriteRequest>> unprocessed;
+    try {
+      unprocessed = BatchRequests.batchWrite(delegate.getNativeCacheWriter(), requestItems, written::addAndGet);
+    } catch (RuntimeException e) {
+      failedItemCount.addAndGet(size - written.get());
+      flushedItemCount.addAndGet(written.get());
+      throw e;
+    }
+
+    int failed = BatchRequests.count(unprocessed);
+    if (failed > 0) {
+      LOGGER.warn("Dropping {} queued cache entries that could not be written.", failed);
+      failedItemCount.addAndGet(failed);
+    }
+    flushedItemCount.addAndGet(size - failed);
+  }
+
+  private static final class PendingKey {
+
+    private final String name;
+    private final String key;
+
+    private PendingKey(String name, String key) {
+      this.name = name;
+      this.key = key;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof PendingKey)) {
+        return false;
+      }
+      PendingKey that = (PendingKey) o;
+      return name.equals(that.name) && key.equals(that.key);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(name, key);
+    }
+  }
+}
@@ -14,10 +14,22 @@
  */
 package com.dasburo.spring.cache.dynamo.autoconfigure;
 
+import com.dasburo.spring.cache.dynamo.BlobStore;
+import com.dasburo.spring.cache.dynamo.ClearStrategy;
 import com.dasburo.spring.cache.dynamo.DynamoCacheBuilder;
 import com.dasburo.spring.cache.dynamo.DynamoCacheManager;
 import com.dasburo.spring.cache.dynamo.DynamoCacheWriter;
+import com.dasburo.spring.cache.dynamo.DynamoCacheWriterBuilder;
+import com.dasburo.spring.cache.dynamo.DynamoDictionaryStore;
+import com.dasburo.spring.cache.dynamo.serializer.CompressingSerializer;
+import com.dasburo.spring.cache.dynamo.serializer.CompressionCodec;
+import com.dasburo.spring.cache.dynamo.serializer.DynamoSerializer;
+import com.dasburo.spring.cache.dynamo.serializer.EnvelopeSerializer;
+import com.dasburo.spring.cache.dynamo.serializer.JacksonSerializer;
+import com.dasburo.spring.cache.dynamo.serializer.KryoSerializer;
+import com.dasburo.spring.cache.dynamo.serializer.ProtobufSerializer;
 import com.dasburo.spring.cache.dynamo.serializer.StringSerializer;
+import com.dasburo.spring.cache.dynamo.serializer.ZstdDictionarySerializer;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
@@ -26,8 +38,11 @@ import org.springframework.boot.context.properties.EnableConfigurationProperties
 import org.springframework.cache.CacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
 import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
 
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -79,9 +94,16 @@ public class DynamoCacheAutoConfiguration {
             .withFlushOnBoot(dynamoCacheProperties.isFlushOnBoot())
             .withReadCapacityUnit(dynamoCacheProperties.getReadCapacityUnits())
             .withWriteCapacityUnit(dynamoCacheProperties.getWriteCapacityUnits())
-            .withSerializer(new StringSerializer())
+            .withSerializer(serializer(dynamoCacheProperties))
             .withRootAttributes(dynamoCacheProperties.getRootAttributes())
-            .withWriter(DynamoCacheWriter.nonLockingDynamoCacheWriter(dynamoTemplate))
+            .withNearCacheMaxSize(dynamoCacheProperties.getNearCacheMaxSize())
+            .withNearCacheTtl(dynamoCacheProperties.getNearCacheTtl())
+            .withLoadLeaseDuration(dynamoCacheProperties.getLoadLeaseDuration())
+            .withStaleWhileRevalidate(dynamoCacheProperties.getStaleWhileRevalidate())
+            .withStaleIfError(dynamoCacheProperties.getStaleIfError())
+            .withEarlyExpiration(dynamoCacheProperties.getEarlyExpirationBeta())
+            .withTtlJitter(dynamoCacheProperties.getTtlJitter())
+            .withWriter(dynamoCacheWriter(dynamoCacheProperties))
         );
       }
     }
@@ -89,4 +111,133 @@ public class DynamoCacheAutoConfiguration {
     return builders;
   }
 
+  private DynamoCacheWriter dynamoCacheWriter(DynamoCacheProperties dynamoCacheProperties) {
+    DynamoCacheWriterBuilder builder = DynamoCacheWriterBuilder.newInstance(dynamoTemplate)
+      .withClearStrategy(clearStrategy(dynamoCacheProperties));
+
+    if (StringUtils.hasText(dynamoCacheProperties.getBlobStoreDirectory())) {
+      builder.withBlobStore(BlobStore.fileSystem(Paths.get(dynamoCacheProperties.getBlobStoreDirectory())),
+        Math.toIntExact(dynamoCacheProperties.getBlobThreshold().toBytes()));
+    }
+    if (dynamoCacheProperties.isWriteBehind()) {
+      builder.withWriteBehind(dynamoCacheProperties.getWriteBehindQueueCapacity(), dynamoCacheProperties.getWriteBehindFlushInterval());
+    }
+    return builder.build();
+  }
+
+  private DynamoSerializer<?> serializer(DynamoCacheProperties dynamoCacheProperties) {
+    if (dynamoCacheProperties.isEnvelope()) {
+      return envelopeSerializer(dynamoCacheProperties);
+    }
+
+    DynamoSerializer<Object> serializer = valueSerializer(dynamoCacheProperties.getSerialization(), dynamoCacheProperties);
+    int compressionThreshold = Math.toIntExact(dynamoCacheProperties.getCompressionThreshold().toBytes());
+    switch (dynamoCacheProperties.getCompression()) {
+      case NONE:
+        return serializer;
+      case ZSTD_DICTIONARY:
+        return new ZstdDictionarySerializer<>(serializer, new DynamoDictionaryStore(dynamoTemplate, dynamoCacheProperties.getCacheName()),
+          compressionThreshold, dynamoCacheProperties.getCompressionMinSavings(), CompressionCodec.ZSTD_DEFAULT_LEVEL,
+          ZstdDictionarySerializer.DEFAULT_SAMPLE_COUNT, ZstdDictionarySerializer.DEFAULT_DICTIONARY_SIZE,
+          ZstdDictionarySerializer.DEFAULT_REFRESH_INTERVAL);
+      default:
+        return new CompressingSerializer<>(serializer, compressionCodec(dynamoCacheProperties.getCompression()),
+          compressionThreshold, dynamoCacheProperties.getCompressionMinSavings());
+    }
+  }
+
+  private static DynamoSerializer<Object> envelopeSerializer(DynamoCacheProperties dynamoCacheProperties) {
+    Assert.state(dynamoCacheProperties.getCompression() != DynamoCacheProperties.Compression.ZSTD_DICTIONARY,
+      "Compression ZSTD_DICTIONARY is not supported with envelope.");
+
+    DynamoCacheProperties.Serialization serialization = dynamoCacheProperties.getSerialization();
+    DynamoCacheProperties.Serialization previousSerialization = dynamoCacheProperties.getPreviousSerialization() != null
+      ? dynamoCacheProperties.getPreviousSerialization() : serialization;
+    DynamoSerializer<Object> serializer = valueSerializer(serialization, dynamoCacheProperties);
+    DynamoSerializer<Object> previousSerializer = previousSerialization == serialization
+      ? serializer : valueSerializer(previousSerialization, dynamoCacheProperties);
+
+    // values of other schema versions are read with the current serializer
+    List<EnvelopeSerializer.Encoding<Object>> readEncodings = new ArrayList<>();
+    readEncodings.add(EnvelopeSerializer.Encoding.of(serialization.getEnvelopeId(), EnvelopeSerializer.Encoding.ANY_SCHEMA_VERSION, serializer));
+    if (previousSerialization != serialization) {
+      readEncodings.add(EnvelopeSerializer.Encoding.of(previousSerialization.getEnvelopeId(), EnvelopeSerializer.Encoding.ANY_SCHEMA_VERSION, previousSerializer));
+    }
+
+    return new EnvelopeSerializer<>(
+      EnvelopeSerializer.Encoding.of(serialization.getEnvelopeId(), dynamoCacheProperties.getSchemaVersion(), serializer),
+      readEncodings, previousSerializer, compressionCodec(dynamoCacheProperties.getCompression()),
+      Math.toIntExact(dynamoCacheProperties.getCompressionThreshold().toBytes()), dynamoCacheProperties.getCompressionMinSavings());
+  }
+
+  @SuppressWarnings("unchecked")
+  private static DynamoSerializer<Object> valueSerializer(DynamoCacheProperties.Serialization serialization,
+                                                          DynamoCacheProperties dynamoCacheProperties) {
+    switch (serialization) {
+      case JSON:
+        return jacksonSerializer(JacksonSerializer.Format.JSON, dynamoCacheProperties);
+      case SMILE:
+        return jacksonSerializer(JacksonSerializer.Format.SMILE, dynamoCacheProperties);
+      case CBOR:
+        return jacksonSerializer(JacksonSerializer.Format.CBOR, dynamoCacheProperties);
+      case KRYO:
+        return kryoSerializer(dynamoCacheProperties);
+      case PROTOBUF:
+        return protobufSerializer(dynamoCacheProperties);
+      default:
+        return (DynamoSerializer<Object>) (DynamoSerializer<?>) new StringSerializer();
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private static DynamoSerializer<Object> jacksonSerializer(JacksonSerializer.Format format, DynamoCacheProperties dynamoCacheProperties) {
+    return new JacksonSerializer<>(JacksonSerializer.objectMapper(format, dynamoCacheProperties.isBytecodeGeneration()),
+      (Class<Object>) dynamoCacheProperties.getValueType());
+  }
+
+  @SuppressWarnings("unchecked")
+  private static DynamoSerializer<Object> kryoSerializer(DynamoCacheProperties dynamoCacheProperties) {
+    Class<?> valueType = dynamoCacheProperties.getValueType();
+    List<Class<?>> registeredClasses = new ArrayList<>();
+    if (valueType != Object.class && !dynamoCacheProperties.getRegisteredClasses().contains(valueType)) {
+      registeredClasses.add(valueType);
+    }
+    registeredClasses.addAll(dynamoCacheProperties.getRegisteredClasses());
+    return new KryoSerializer<>((Class<Object>) valueType, registeredClasses,
+      dynamoCacheProperties.isCompatibleFields());
+  }
+
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  private static DynamoSerializer<Object> protobufSerializer(DynamoCacheProperties dynamoCacheProperties) {
+    return (DynamoSerializer<Object>) new ProtobufSerializer(dynamoCacheProperties.getValueType());
+  }
+
+  private static CompressionCodec compressionCodec(DynamoCacheProperties.Compression compression) {
+    switch (compression) {
+      case GZIP:
+        return CompressionCodec.gzip();
+      case DEFLATE:
+        return CompressionCodec.deflate();
+      case LZ4:
+        return CompressionCodec.lz4();
+      case SNAPPY:
+        return CompressionCodec.snappy();
+      case ZSTD:
+        return CompressionCodec.zstd();
+      default:
+        return CompressionCodec.none();
+    }
+  }
+
+  private static ClearStrategy clearStrategy(DynamoCacheProperties dynamoCacheProperties) {
+    switch (dynamoCacheProperties.getClearMode()) {
+      case RECREATE_TABLE:
+        return ClearStrategy.recreateTable(dynamoCacheProperties.getRecreateTableMaxWait());
+      case GENERATION:
+        return ClearStrategy.generation(dynamoCacheProperties.getGenerationRefreshInterval());
+      default:
+        return ClearStrategy.segmentedScan();
+    }
+  }
+
 }
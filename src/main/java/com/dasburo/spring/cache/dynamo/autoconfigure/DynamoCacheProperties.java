@@ -16,8 +16,11 @@ package com.dasburo.spring.cache.dynamo.autoconfigure;
 
 import com.dasburo.spring.cache.dynamo.DynamoCache;
 import com.dasburo.spring.cache.dynamo.rootattribute.RootAttributeConfig;
+import com.dasburo.spring.cache.dynamo.serializer.CompressingSerializer;
+import org.springframework.util.unit.DataSize;
 
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -33,6 +36,32 @@ public class DynamoCacheProperties {
   private List<RootAttributeConfig> rootAttributes;
   private Long readCapacityUnits = 1L;
   private Long writeCapacityUnits = 1L;
+  private int nearCacheMaxSize;
+  private Duration nearCacheTtl = Duration.ZERO;
+  private Duration loadLeaseDuration = Duration.ZERO;
+  private Duration staleWhileRevalidate = Duration.ZERO;
+  private Duration staleIfError = Duration.ZERO;
+  private double earlyExpirationBeta;
+  private Duration ttlJitter = Duration.ZERO;
+  private boolean writeBehind;
+  private int writeBehindQueueCapacity = 10000;
+  private Duration writeBehindFlushInterval = Duration.ofSeconds(1);
+  private ClearMode clearMode = ClearMode.SCAN;
+  private Duration recreateTableMaxWait = Duration.ofMinutes(1);
+  private Duration generationRefreshInterval = Duration.ofSeconds(1);
+  private String blobStoreDirectory;
+  private DataSize blobThreshold = DataSize.ofKilobytes(64);
+  private Serialization serialization = Serialization.STRING;
+  private Class<?> valueType = Object.class;
+  private boolean bytecodeGeneration;
+  private List<Class<?>> registeredClasses = new ArrayList<>();
+  private boolean compatibleFields;
+  private boolean envelope;
+  private int schemaVersion;
+  private Serialization previousSerialization;
+  private Compression compression = Compression.NONE;
+  private DataSize compressionThreshold = DataSize.ofBytes(CompressingSerializer.DEFAULT_THRESHOLD);
+  private double compressionMinSavings = CompressingSerializer.DEFAULT_MIN_SAVINGS;
 
   public String getCacheName() {
     return cacheName;
@@ -82,4 +111,325 @@ public class DynamoCacheProperties {
     this.writeCapacityUnits = writeCapacityUnits;
   }
 
+  public int getNearCacheMaxSize() {
+    return nearCacheMaxSize;
+  }
+
+  public void setNearCacheMaxSize(int nearCacheMaxSize) {
+    this.nearCacheMaxSize = nearCacheMaxSize;
+  }
+
+  public Duration getNearCacheTtl() {
+    return nearCacheTtl;
+  }
+
+  public void setNearCacheTtl(Duration nearCacheTtl) {
+    this.nearCacheTtl = nearCacheTtl;
+  }
+
+  public Duration getLoadLeaseDuration() {
+    return loadLeaseDuration;
+  }
+
+  public void setLoadLeaseDuration(Duration loadLeaseDuration) {
+    this.loadLeaseDuration = loadLeaseDuration;
+  }
+
+  public Duration getStaleWhileRevalidate() {
+    return staleWhileRevalidate;
+  }
+
+  public void setStaleWhileRevalidate(Duration staleWhileRevalidate) {
+    this.staleWhileRevalidate = staleWhileRevalidate;
+  }
+
+  public Duration getStaleIfError() {
+    return staleIfError;
+  }
+
+  public void setStaleIfError(Duration staleIfError) {
+    this.staleIfError = staleIfError;
+  }
+
+  public double getEarlyExpirationBeta() {
+    return earlyExpirationBeta;
+  }
+
+  public void setEarlyExpirationBeta(double earlyExpirationBeta) {
+    this.earlyExpirationBeta = earlyExpirationBeta;
+  }
+
+  public Duration getTtlJitter() {
+    return ttlJitter;
+  }
+
+  public void setTtlJitter(Duration ttlJitter) {
+    this.ttlJitter = ttlJitter;
+  }
+
+  public boolean isWriteBehind() {
+    return writeBehind;
+  }
+
+  public void setWriteBehind(boolean writeBehind) {
+    this.writeBehind = writeBehind;
+  }
+
+  public int getWriteBehindQueueCapacity() {
+    return writeBehindQueueCapacity;
+  }
+
+  public void setWriteBehindQueueCapacity(int writeBehindQueueCapacity) {
+    this.writeBehindQueueCapacity = writeBehindQueueCapacity;
+  }
+
+  public Duration getWriteBehindFlushInterval() {
+    return writeBehindFlushInterval;
+  }
+
+  public void setWriteBehindFlushInterval(Duration writeBehindFlushInterval) {
+    this.writeBehindFlushInterval = writeBehindFlushInterval;
+  }
+
+  public ClearMode getClearMode() {
+    return clearMode;
+  }
+
+  public void setClearMode(ClearMode clearMode) {
+    this.clearMode = clearMode;
+  }
+
+  public Duration getRecreateTableMaxWait() {
+    return recreateTableMaxWait;
+  }
+
+  public void setRecreateTableMaxWait(Duration recreateTableMaxWait) {
+    this.recreateTableMaxWait = recreateTableMaxWait;
+  }
+
+  public Duration getGenerationRefreshInterval() {
+    return generationRefreshInterval;
+  }
+
+  public void setGenerationRefreshInterval(Duration generationRefreshInterval) {
+    this.generationRefreshInterval = generationRefreshInterval;
+  }
+
+  public String getBlobStoreDirectory() {
+    return blobStoreDirectory;
+  }
+
+  public void setBlobStoreDirectory(String blobStoreDirectory) {
+    this.blobStoreDirectory = blobStoreDirectory;
+  }
+
+  public DataSize getBlobThreshold() {
+    return blobThreshold;
+  }
+
+  public void setBlobThreshold(DataSize blobThreshold) {
+    this.blobThreshold = blobThreshold;
+  }
+
+  public Serialization getSerialization() {
+    return serialization;
+  }
+
+  public void setSerialization(Serialization serialization) {
+    this.serialization = serialization;
+  }
+
+  public Class<?> getValueType() {
+    return valueType;
+  }
+
+  public void setValueType(Class<?> valueType) {
+    this.valueType = valueType;
+  }
+
+  public boolean isBytecodeGeneration() {
+    return bytecodeGeneration;
+  }
+
+  public void setBytecodeGeneration(boolean bytecodeGeneration) {
+    this.bytecodeGeneration = bytecodeGeneration;
+  }
+
+  public List<Class<?>> getRegisteredClasses() {
+    return registeredClasses;
+  }
+
+  public void setRegisteredClasses(List<Class<?>> registeredClasses) {
+    this.registeredClasses = registeredClasses;
+  }
+
+  public boolean isCompatibleFields() {
+    return compatibleFields;
+  }
+
+  public void setCompatibleFields(boolean compatibleFields) {
+    this.compatibleFields = compatibleFields;
+  }
+
+  public boolean isEnvelope() {
+    return envelope;
+  }
+
+  public void setEnvelope(boolean envelope) {
+    this.envelope = envelope;
+  }
+
+  public int getSchemaVersion() {
+    return schemaVersion;
+  }
+
+  public void setSchemaVersion(int schemaVersion) {
+    this.schemaVersion = schemaVersion;
+  }
+
+  public Serialization getPreviousSerialization() {
+    return previousSerialization;
+  }
+
+  public void setPreviousSerialization(Serialization previousSerialization) {
+    this.previousSerialization = previousSerialization;
+  }
+
+  public Compression getCompression() {
+    return compression;
+  }
+
+  public void setCompression(Compression compression) {
+    this.compression = compression;
+  }
+
+  public DataSize getCompressionThreshold() {
+    return compressionThreshold;
+  }
+
+  public void setCompressionThreshold(DataSize compressionThreshold) {
+    this.compressionThreshold = compressionThreshold;
+  }
+
+  public double getCompressionMinSavings() {
+    return compressionMinSavings;
+  }
+
+  public void setCompressionMinSavings(double compressionMinSavings) {
+    this.compressionMinSavings = compressionMinSavings;
+  }
+
+  /**
+   * How a cache is cleared on {@code clear} and {@code flushOnBoot}.
+   */
+  public enum ClearMode {
+
+    /**
+     * Scan the table and delete all entries.
+     */
+    SCAN,
+
+    /**
+     * Delete and recreate the table.
+     */
+    RECREATE_TABLE,
+
+    /**
+     * Advance the generation number of the cache.
+     */
+    GENERATION
+  }
+
+  /**
+   * Format values are written in.
+   */
+  public enum Serialization {
+
+    /**
+     * Write {@link String} values as UTF-8.
+     */
+    STRING(0),
+
+    /**
+     * Write values of the value type as JSON with Jackson.
+     */
+    JSON(1),
+
+    /**
+     * Write values of the value type as Smile with Jackson, requires
+     * {@code com.fasterxml.jackson.dataformat:jackson-dataformat-smile}.
+     */
+    SMILE(2),
+
+    /**
+     * Write values of the value type as CBOR with Jackson, requires
+     * {@code com.fasterxml.jackson.dataformat:jackson-dataformat-cbor}.
+     */
+    CBOR(3),
+
+    /**
+     * Write values of the registered classes with Kryo, requires {@code com.esotericsoftware:kryo}.
+     */
+    KRYO(4),
+
+    /**
+     * Write generated Protocol Buffers messages of the value type, requires {@code com.google.protobuf:protobuf-java}.
+     */
+    PROTOBUF(5);
+
+    private final int envelopeId;
+
+    Serialization(int envelopeId) {
+      this.envelopeId = envelopeId;
+    }
+
+    /**
+     * @return the serializer id written into the envelope of values of this format.
+     */
+    public int getEnvelopeId() {
+      return envelopeId;
+    }
+  }
+
+  /**
+   * Codec values are compressed with.
+   */
+  public enum Compression {
+
+    /**
+     * Store values as written by the serializer.
+     */
+    NONE,
+
+    /**
+     * Compress values with GZIP.
+     */
+    GZIP,
+
+    /**
+     * Compress values with DEFLATE.
+     */
+    DEFLATE,
+
+    /**
+     * Compress values with LZ4, requires {@code org.lz4:lz4-java}.
+     */
+    LZ4,
+
+    /**
+     * Compress values with Snappy, requires {@code org.xerial.snappy:snappy-java}.
+     */
+    SNAPPY,
+
+    /**
+     * Compress values with Zstandard, requires {@code com.github.luben:zstd-jni}.
+     */
+    ZSTD,
+
+    /**
+     * Compress values with a Zstandard dictionary trained from the values of the cache, requires
+     * {@code com.github.luben:zstd-jni}.
+     */
+    ZSTD_DICTIONARY
+  }
 }
@@ -18,9 +18,16 @@ package com.dasburo.spring.cache.dynamo.rootattribute;
 import org.springframework.util.Assert;
 import software.amazon.awssdk.services.dynamodb.model.ScalarAttributeType;
 
+import static com.dasburo.spring.cache.dynamo.DefaultDynamoCacheWriter.ATTRIBUTE_BLOB_ID;
+import static com.dasburo.spring.cache.dynamo.DefaultDynamoCacheWriter.ATTRIBUTE_CHECKSUM;
+import static com.dasburo.spring.cache.dynamo.DefaultDynamoCacheWriter.ATTRIBUTE_CHUNKS;
+import static com.dasburo.spring.cache.dynamo.DefaultDynamoCacheWriter.ATTRIBUTE_CHUNK_VERSION;
 import static com.dasburo.spring.cache.dynamo.DefaultDynamoCacheWriter.ATTRIBUTE_KEY;
+import static com.dasburo.spring.cache.dynamo.DefaultDynamoCacheWriter.ATTRIBUTE_LOAD_DURATION;
+import static com.dasburo.spring.cache.dynamo.DefaultDynamoCacheWriter.ATTRIBUTE_SOFT_TTL;
 import static com.dasburo.spring.cache.dynamo.DefaultDynamoCacheWriter.ATTRIBUTE_TTL;
 import static com.dasburo.spring.cache.dynamo.DefaultDynamoCacheWriter.ATTRIBUTE_VALUE;
+import static com.dasburo.spring.cache.dynamo.DefaultDynamoCacheWriter.ATTRIBUTE_VALUE_SIZE;
 
 public class RootAttributeConfig {
 
@@ -46,6 +53,13 @@ public class RootAttributeConfig {
     Assert.isTrue(!ATTRIBUTE_KEY.equalsIgnoreCase(name), "name must not equal '" + ATTRIBUTE_KEY+"'");
     Assert.isTrue(!ATTRIBUTE_VALUE.equalsIgnoreCase(name), "name must not equal '" + ATTRIBUTE_VALUE+"'");
     Assert.isTrue(!ATTRIBUTE_TTL.equalsIgnoreCase(name), "name must not equal '" + ATTRIBUTE_TTL+"'");
+    Assert.isTrue(!ATTRIBUTE_SOFT_TTL.equalsIgnoreCase(name), "name must not equal '" + ATTRIBUTE_SOFT_TTL+"'");
+    Assert.isTrue(!ATTRIBUTE_LOAD_DURATION.equalsIgnoreCase(name), "name must not equal '" + ATTRIBUTE_LOAD_DURATION+"'");
+    Assert.isTrue(!ATTRIBUTE_CHUNKS.equalsIgnoreCase(name), "name must not equal '" + ATTRIBUTE_CHUNKS+"'");
+    Assert.isTrue(!ATTRIBUTE_CHUNK_VERSION.equalsIgnoreCase(name), "name must not equal '" + ATTRIBUTE_CHUNK_VERSION+"'");
+    Assert.isTrue(!ATTRIBUTE_VALUE_SIZE.equalsIgnoreCase(name), "name must not equal '" + ATTRIBUTE_VALUE_SIZE+"'");
+    Assert.isTrue(!ATTRIBUTE_BLOB_ID.equalsIgnoreCase(name), "name must not equal '" + ATTRIBUTE_BLOB_ID+"'");
+    Assert.isTrue(!ATTRIBUTE_CHECKSUM.equalsIgnoreCase(name), "name must not equal '" + ATTRIBUTE_CHECKSUM+"'");
     this.name = name;
   }
 
@@ -0,0 +1,179 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dasburo.spring.cache.dynamo.serializer;
+
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+import java.nio.ByteBuffer;
+
+/**
+ * {@link DynamoSerializer} that compresses the data written by the parent serializer with a {@link CompressionCodec}.
+ * <p>
+ * The data is preceded by the one-byte id of the codec, so values written with any of the built-in codecs or the
+ * configured codec can be read regardless of the codec currently used for writing. Values smaller than the threshold
+ * and values that do not shrink by at least the minimum savings are stored uncompressed. Values written by
+ * {@link GZipSerializer} are recognized by the GZIP magic number and can be read as well.
+ */
+public class CompressingSerializer<T> implements DynamoSerializer<T> {
+
+  /**
+   * Default size in bytes below which values are stored uncompressed.
+   */
+  public static final int DEFAULT_THRESHOLD = 512;
+
+  /**
+   * Default fraction of the size that compression must save for a value to be stored compressed.
+   */
+  public static final double DEFAULT_MIN_SAVINGS = 0.1;
+
+  private static final int HEADER_SIZE = 1;
+  private static final byte GZIP_MAGIC_FIRST = (byte) 0x1f;
+  private static final byte GZIP_MAGIC_SECOND = (byte) 0x8b;
+
+  private final DynamoSerializer<T> parent;
+  private final CompressionCodec codec;
+  private final int threshold;
+  private final double minSavings;
+
+  /**
+   * Creates a new {@link CompressingSerializer} using the default threshold and minimum savings.
+   *
+   * @param parent the parent {@link DynamoSerializer}. Must not be {@literal null}.
+   * @param codec  the codec to compress with. Must not be {@literal null}.
+   */
+  public CompressingSerializer(DynamoSerializer<T> parent, CompressionCodec codec) {
+    this(parent, codec, DEFAULT_THRESHOLD, DEFAULT_MIN_SAVINGS);
+  }
+
+  /**
+   * Creates a new {@link CompressingSerializer}.
+   *
+   * @param parent     the parent {@link DynamoSerializer}. Must not be {@literal null}.
+   * @param codec      the codec to compress with. Must not be {@literal null}.
+   * @param threshold  the size in bytes below which values are stored uncompressed.
+   * @param minSavings the fraction of the size, between {@literal 0} and {@literal 1}, that compression must save
+   *                   for a value to be stored compressed.
+   */
+  public CompressingSerializer(DynamoSerializer<T> parent, CompressionCodec codec, int threshold, double minSavings) {
+    Assert.notNull(parent, "Parent serializer must not be null!");
+    Assert.notNull(codec, "Codec must not be null!");
+    Assert.isTrue(threshold >= 0, "Threshold must not be negative!");
+    Assert.isTrue(minSavings >= 0 && minSavings < 1, "MinSavings must be at least 0 and less than 1!");
+
+    this.parent = parent;
+    this.codec = codec;
+    this.threshold = threshold;
+    this.minSavings = minSavings;
+  }
+
+  @Override
+  public byte[] serialize(@Nullable T t) throws SerializationException {
+    byte[] data = parent.serialize(t);
+
+    if (SerializationUtils.isEmpty(data)) {
+      return null;
+    }
+
+    if (data.length >= threshold && codec.getId() != NoCompressionCodec.ID) {
+      byte[] compressed = codec.compress(data);
+      if (HEADER_SIZE + compressed.length <= data.length * (1 - minSavings)) {
+        return withHeader(codec.getId(), compressed);
+      }
+    }
+    return withHeader(NoCompressionCodec.ID, data);
+  }
+
+  @Override
+  public T deserialize(@Nullable byte[] bytes) throws SerializationException {
+    if (SerializationUtils.isEmpty(bytes)) {
+      return null;
+    }
+
+    return deserializeFromBuffer(ByteBuffer.wrap(bytes));
+  }
+
+  /**
+   * Deserialize the data following the codec id. Uncompressed data is passed on to the parent serializer as a view of
+   * the given buffer, compressed data is decompressed from the backing array in place if accessible.
+   */
+  @Override
+  public T deserializeFromBuffer(@Nullable ByteBuffer buffer) throws SerializationException {
+    if (SerializationUtils.isEmpty(buffer)) {
+      return null;
+    }
+
+    int position = buffer.position();
+    if (buffer.remaining() > 1 && buffer.get(position) == GZIP_MAGIC_FIRST && buffer.get(position + 1) == GZIP_MAGIC_SECOND) {
+      return parent.deserialize(SerializationUtils.decompress(GZipCompressionCodec.INSTANCE, buffer));
+    }
+
+    byte id = buffer.get(position);
+    ByteBuffer data = SerializationUtils.skip(buffer, HEADER_SIZE);
+    if (id == NoCompressionCodec.ID) {
+      return parent.deserializeFromBuffer(data);
+    }
+    return parent.deserialize(SerializationUtils.decompress(codecFor(id, codec), data));
+  }
+
+  @Override
+  public boolean canSerialize(Class<?> type) {
+    return parent.canSerialize(type);
+  }
+
+  @Override
+  public Class<?> getTargetType() {
+    return parent.getTargetType();
+  }
+
+  /**
+   * Resolve the codec with the given id.
+   *
+   * @param id    the id written in front of the data.
+   * @param codec the configured codec, preferred over the built-in codec with the same id. Must not be {@literal null}.
+   * @return the codec with the given id.
+   * @throws SerializationException if the id is unknown.
+   */
+  static CompressionCodec codecFor(byte id, CompressionCodec codec) {
+    if (id == codec.getId()) {
+      return codec;
+    }
+
+    switch (id) {
+      case NoCompressionCodec.ID:
+        return CompressionCodec.none();
+      case GZipCompressionCodec.ID:
+        return CompressionCodec.gzip();
+      case DeflateCompressionCodec.ID:
+        return CompressionCodec.deflate();
+      case Lz4CompressionCodec.ID:
+        return CompressionCodec.lz4();
+      case SnappyCompressionCodec.ID:
+        return CompressionCodec.snappy();
+      case ZstdCompressionCodec.ID:
+        return CompressionCodec.zstd();
+      default:
+        throw new SerializationException("Unknown compression codec " + id + ".");
+    }
+  }
+
+  private static byte[] withHeader(byte id, byte[] data) {
+    byte[] bytes = new byte[HEADER_SIZE + data.length];
+    bytes[0] = id;
+    System.arraycopy(data, 0, bytes, HEADER_SIZE, data.length);
+    return bytes;
+  }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dasburo.spring.cache.dynamo.serializer;
+
+/**
+ * Compression algorithm used by {@link CompressingSerializer}. Each codec is identified by a one-byte id that is
+ * written in front of the compressed data, so values written with different codecs can be read side by side.
+ * <p>
+ * Ids {@literal 0} to {@literal 31} are reserved for the codecs provided by this interface and
+ * {@link ZstdDictionarySerializer}. LZ4, Snappy and Zstd
+ * require {@code org.lz4:lz4-java}, {@code org.xerial.snappy:snappy-java} and {@code com.github.luben:zstd-jni} on
+ * the classpath.
+ */
+public interface CompressionCodec {
+
+  /**
+   * Default Zstandard compression level.
+   */
+  int ZSTD_DEFAULT_LEVEL = 3;
+
+  /**
+   * @return the id written in front of the data compressed by this codec.
+   */
+  byte getId();
+
+  /**
+   * Compress the given data.
+   *
+   * @param data must not be {@literal null}.
+   * @return the compressed data.
+   * @throws SerializationException if the data cannot be compressed.
+   */
+  byte[] compress(byte[] data) throws SerializationException;
+
+  /**
+   * Decompress the given range of data.
+   *
+   * @param data   must not be {@literal null}.
+   * @param offset the start of the compressed data.
+   * @param length the length of the compressed data.
+   * @return the decompressed data.
+   * @throws SerializationException if the data cannot be decompressed.
+   */
+  byte[] decompress(byte[] data, int offset, int length) throws SerializationException;
+
+  /**
+   * A {@link CompressionCodec} storing the data as is.
+   *
+   * @return the codec with id {@literal 0}.
+   */
+  static CompressionCodec none() {
+    return NoCompressionCodec.INSTANCE;
+  }
+
+  /**
+   * A {@link CompressionCodec} using the GZIP format.
+   *
+   * @return the codec with id {@literal 1}.
+   */
+  static CompressionCodec gzip() {
+    return GZipCompressionCodec.INSTANCE;
+  }
+
+  /**
+   * A {@link CompressionCodec} using the ZLIB format, saving the GZIP header and trailer.
+   *
+   * @return the codec with id {@literal 2}.
+   */
+  static CompressionCodec deflate() {
+    return DeflateCompressionCodec.INSTANCE;
+  }
+
+  /**
+   * A {@link CompressionCodec} using LZ4 block compression, trading compression ratio for speed.
+   *
+   * @return the codec with id {@literal 3}.
+   */
+  static CompressionCodec lz4() {
+    return Lz4CompressionCodec.INSTANCE;
+  }
+
+  /**
+   * A {@link CompressionCodec} using Snappy.
+   *
+   * @return the codec with id {@literal 4}.
+   */
+  static CompressionCodec snappy() {
+    return SnappyCompressionCodec.INSTANCE;
+  }
+
+  /**
+   * A {@link CompressionCodec} using Zstandard with the default compression level.
+   *
+   * @return the codec with id {@literal 5}.
+   */
+  static CompressionCodec zstd() {
+    return ZstdCompressionCodec.INSTANCE;
+  }
+
+  /**
+   * A {@link CompressionCodec} using Zstandard.
+   *
+   * @param level the compression level, higher levels compress better but slower.
+   * @return the codec with id {@literal 5}.
+   */
+  static CompressionCodec zstd(int level) {
+    return new ZstdCompressionCodec(level);
+  }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dasburo.spring.cache.dynamo.serializer;
+
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * {@link CompressionCodec} writing the ZLIB format with a pooled {@link Deflater} and reading it with a pooled
+ * {@link Inflater}. Both directions work on a scratch buffer that is copied once into an array of the exact size.
+ */
+class DeflateCompressionCodec implements CompressionCodec {
+
+  static final byte ID = 2;
+  static final DeflateCompressionCodec INSTANCE = new DeflateCompressionCodec();
+
+  private static final int ZLIB_WRAPPER_SIZE = 6;
+  private static final int INITIAL_RATIO = 4;
+
+  @Override
+  public byte getId() {
+    return ID;
+  }
+
+  @Override
+  public byte[] compress(byte[] data) {
+    try (SerializationBuffers buffers = SerializationBuffers.acquire()) {
+      Deflater deflater = buffers.deflater(false);
+      deflater.setInput(data);
+      deflater.finish();
+
+      byte[] buffer = buffers.buffer(GZipCompressionCodec.deflateBound(data.length) + ZLIB_WRAPPER_SIZE);
+      int length = 0;
+      while (!deflater.finished()) {
+        if (length == buffer.length) {
+          buffer = buffers.grow();
+        }
+        length += deflater.deflate(buffer, length, buffer.length - length);
+      }
+      return Arrays.copyOf(buffer, length);
+    }
+  }
+
+  @Override
+  public byte[] decompress(byte[] data, int offset, int length) {
+    try (SerializationBuffers buffers = SerializationBuffers.acquire()) {
+      Inflater inflater = buffers.inflater(false);
+      inflater.setInput(data, offset, length);
+
+      byte[] buffer = buffers.buffer((int) Math.min((long) length * INITIAL_RATIO, SerializationBuffers.MAX_RETAINED_SIZE));
+      int decompressedLength = 0;
+      while (!inflater.finished()) {
+        if (decompressedLength == buffer.length) {
+          buffer = buffers.grow();
+        }
+        int inflated = inflater.inflate(buffer, decompressedLength, buffer.length - decompressedLength);
+        if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+          throw new SerializationException("Failed to inflate value, unexpected end of data.");
+        }
+        decompressedLength += inflated;
+      }
+      return Arrays.copyOf(buffer, decompressedLength);
+    } catch (DataFormatException e) {
+      throw new SerializationException("Failed to inflate value.", e);
+    }
+  }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dasburo.spring.cache.dynamo.serializer;
+
+import org.springframework.lang.Nullable;
+
+/**
+ * Shared store for the compression dictionaries of a cache used by {@link ZstdDictionarySerializer}.
+ * <p>
+ * Dictionaries are immutable and addressed by their id. The store additionally keeps a versioned pointer to the
+ * dictionary new values are compressed with, which is only advanced by the writer that read its current version.
+ */
+public interface DictionaryStore {
+
+  /**
+   * @return the dictionary new values are compressed with, {@literal null} if none has been published yet.
+   */
+  @Nullable
+  CurrentDictionary current();
+
+  /**
+   * Read a dictionary.
+   *
+   * @param id the id of the dictionary.
+   * @return the content of the dictionary, {@literal null} if it does not exist.
+   */
+  @Nullable
+  byte[] get(int id);
+
+  /**
+   * Store a dictionary and make it the current one, unless another dictionary has been published since the given
+   * current one was read.
+   *
+   * @param previous   the current dictionary the new one replaces. Can be {@literal null} if there is none.
+   * @param id         the id of the new dictionary.
+   * @param dictionary the content of the new dictionary. Must not be {@literal null}.
+   * @return the current dictionary after publishing, which is the concurrently published one if there was any.
+   */
+  @Nullable
+  CurrentDictionary publish(@Nullable CurrentDictionary previous, int id, byte[] dictionary);
+
+  /**
+   * Version and id of the dictionary new values are compressed with.
+   */
+  final class CurrentDictionary {
+
+    private final long version;
+    private final int id;
+
+    /**
+     * @param version the version, incremented with every published dictionary.
+     * @param id      the id of the dictionary.
+     */
+    public CurrentDictionary(long version, int id) {
+      this.version = version;
+      this.id = id;
+    }
+
+    /**
+     * @return the version, incremented with every published dictionary.
+     */
+    public long getVersion() {
+      return version;
+    }
+
+    /**
+     * @return the id of the dictionary.
+     */
+    public int getId() {
+      return id;
+    }
+  }
+}
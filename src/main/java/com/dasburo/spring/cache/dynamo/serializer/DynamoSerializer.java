@@ -17,6 +17,8 @@ package com.dasburo.spring.cache.dynamo.serializer;
 import org.springframework.lang.Nullable;
 import org.springframework.util.ClassUtils;
 
+import java.nio.ByteBuffer;
+
 public interface DynamoSerializer<T> {
 
   /**
@@ -37,6 +39,21 @@ public interface DynamoSerializer<T> {
   @Nullable
   T deserialize(@Nullable byte[] bytes) throws SerializationException;
 
+  /**
+   * Deserialize an object from the remaining bytes of the given buffer, without changing its position. The buffer may
+   * be a view of the data stored in DynamoDB and must not be modified.
+   * <br><b>Note:</b> The default implementation passes the backing array to {@link #deserialize(byte[])} if the buffer
+   * spans it, and a copy of the remaining bytes otherwise. Implementations should override it to read the buffer in
+   * place.
+   *
+   * @param buffer object binary representation. Can be {@literal null}.
+   * @return the equivalent object instance. Can be {@literal null}.
+   */
+  @Nullable
+  default T deserializeFromBuffer(@Nullable ByteBuffer buffer) throws SerializationException {
+    return deserialize(buffer != null ? SerializationUtils.toByteArray(buffer) : null);
+  }
+
   default boolean canSerialize(Class<?> type) {
     return ClassUtils.isAssignable(getTargetType(), type);
   }
@@ -0,0 +1,252 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dasburo.spring.cache.dynamo.serializer;
+
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link DynamoSerializer} wrapping the data in an envelope that names the serializer, the compression codec and the
+ * schema version it was written with, so a cache can switch serializers and codecs without being flushed.
+ * <p>
+ * Values are always written with the write {@link Encoding} and the configured codec. Values are read with the
+ * {@link Encoding} registered for the serializer id and schema version of their envelope, or the one registered for
+ * the serializer id with {@link Encoding#ANY_SCHEMA_VERSION}, and any built-in codec. Values written before the
+ * envelope was introduced are read with the unwrapped serializer. Entries in an old format are thereby re-encoded
+ * lazily, when they are written the next time.
+ * <p>
+ * The envelope is a header of five bytes: the marker {@literal 0xff}, which starts neither UTF-8 text nor Java
+ * serialization, Smile, CBOR, Protocol Buffers or compressed data, the serializer id, the codec id and the schema
+ * version as unsigned short.
+ */
+public class EnvelopeSerializer<T> implements DynamoSerializer<T> {
+
+  private static final int HEADER_SIZE = 5;
+  private static final byte MARKER = (byte) 0xff;
+
+  private final Encoding<T> writeEncoding;
+  private final Map<Integer, Encoding<? extends T>> readEncodings = new HashMap<>();
+  private final CompressionCodec codec;
+  private final int threshold;
+  private final double minSavings;
+  @Nullable
+  private final DynamoSerializer<? extends T> unwrappedSerializer;
+
+  /**
+   * Creates a new uncompressed {@link EnvelopeSerializer}.
+   *
+   * @param writeEncoding       the encoding values are written with. Must not be {@literal null}.
+   * @param readEncodings       additional encodings values were written with before. Must not be {@literal null}.
+   * @param unwrappedSerializer the serializer values without envelope were written with, can be {@literal null}.
+   */
+  public EnvelopeSerializer(Encoding<T> writeEncoding, List<? extends Encoding<? extends T>> readEncodings,
+                            @Nullable DynamoSerializer<? extends T> unwrappedSerializer) {
+    this(writeEncoding, readEncodings, unwrappedSerializer, CompressionCodec.none(),
+      CompressingSerializer.DEFAULT_THRESHOLD, CompressingSerializer.DEFAULT_MIN_SAVINGS);
+  }
+
+  /**
+   * Creates a new {@link EnvelopeSerializer}.
+   *
+   * @param writeEncoding       the encoding values are written with. Must not be {@literal null}.
+   * @param readEncodings       additional encodings values were written with before. Must not be {@literal null}.
+   * @param unwrappedSerializer the serializer values without envelope were written with, can be {@literal null}.
+   * @param codec               the codec to compress with. Must not be {@literal null}.
+   * @param threshold           the size in bytes below which values are stored uncompressed.
+   * @param minSavings          the fraction of the size, between {@literal 0} and {@literal 1}, that compression must
+   *                            save for a value to be stored compressed.
+   */
+  public EnvelopeSerializer(Encoding<T> writeEncoding, List<? extends Encoding<? extends T>> readEncodings,
+                            @Nullable DynamoSerializer<? extends T> unwrappedSerializer, CompressionCodec codec,
+                            int threshold, double minSavings) {
+    Assert.notNull(writeEncoding, "WriteEncoding must not be null!");
+    Assert.isTrue(writeEncoding.schemaVersion != Encoding.ANY_SCHEMA_VERSION, "WriteEncoding must have a schema version!");
+    Assert.notNull(readEncodings, "ReadEncodings must not be null!");
+    Assert.noNullElements(readEncodings, "ReadEncodings must not contain null!");
+    Assert.notNull(codec, "Codec must not be null!");
+    Assert.isTrue(threshold >= 0, "Threshold must not be negative!");
+    Assert.isTrue(minSavings >= 0 && minSavings < 1, "MinSavings must be at least 0 and less than 1!");
+
+    this.writeEncoding = writeEncoding;
+    this.codec = codec;
+    this.threshold = threshold;
+    this.minSavings = minSavings;
+    this.unwrappedSerializer = unwrappedSerializer;
+
+    List<Encoding<? extends T>> encodings = new ArrayList<>(readEncodings);
+    encodings.add(writeEncoding);
+    for (Encoding<? extends T> encoding : encodings) {
+      Encoding<? extends T> existing = this.readEncodings.put(encoding.key(), encoding);
+      Assert.isTrue(existing == null || existing == encoding, () -> "Duplicate encoding " + encoding + "!");
+    }
+  }
+
+  @Override
+  public byte[] serialize(@Nullable T t) throws SerializationException {
+    byte[] data = writeEncoding.serializer.serialize(t);
+
+    if (data == null) {
+      return null;
+    }
+
+    if (data.length >= threshold && codec.getId() != NoCompressionCodec.ID) {
+      byte[] compressed = codec.compress(data);
+      if (HEADER_SIZE + compressed.length <= data.length * (1 - minSavings)) {
+        return withHeader(codec.getId(), compressed);
+      }
+    }
+    return withHeader(NoCompressionCodec.ID, data);
+  }
+
+  @Override
+  public T deserialize(@Nullable byte[] bytes) throws SerializationException {
+    if (SerializationUtils.isEmpty(bytes)) {
+      return null;
+    }
+
+    return deserializeFromBuffer(ByteBuffer.wrap(bytes));
+  }
+
+  /**
+   * Deserialize the data following the envelope. Uncompressed data is passed on to the serializer of the envelope as a
+   * view of the given buffer, compressed data is decompressed from the backing array in place if accessible.
+   */
+  @Override
+  public T deserializeFromBuffer(@Nullable ByteBuffer buffer) throws SerializationException {
+    if (SerializationUtils.isEmpty(buffer)) {
+      return null;
+    }
+
+    int position = buffer.position();
+    if (buffer.get(position) != MARKER) {
+      if (unwrappedSerializer == null) {
+        throw new SerializationException("Could not read value without envelope, no unwrapped serializer is configured.");
+      }
+      return unwrappedSerializer.deserializeFromBuffer(buffer);
+    }
+    if (buffer.remaining() < HEADER_SIZE) {
+      throw new SerializationException("Could not read envelope of " + buffer.remaining() + " bytes.");
+    }
+
+    int serializerId = buffer.get(position + 1) & 0xff;
+    byte codecId = buffer.get(position + 2);
+    int schemaVersion = ((buffer.get(position + 3) & 0xff) << 8) | (buffer.get(position + 4) & 0xff);
+    Encoding<? extends T> encoding = readEncodings.get(Encoding.key(serializerId, schemaVersion));
+    if (encoding == null) {
+      encoding = readEncodings.get(Encoding.key(serializerId, Encoding.ANY_SCHEMA_VERSION));
+    }
+    if (encoding == null) {
+      throw new SerializationException("Unknown serializer " + serializerId + " with schema version " + schemaVersion + ".");
+    }
+    ByteBuffer data = SerializationUtils.skip(buffer, HEADER_SIZE);
+    if (codecId == NoCompressionCodec.ID) {
+      return encoding.serializer.deserializeFromBuffer(data);
+    }
+    return encoding.serializer.deserialize(SerializationUtils.decompress(CompressingSerializer.codecFor(codecId, codec), data));
+  }
+
+  @Override
+  public boolean canSerialize(Class<?> type) {
+    return writeEncoding.serializer.canSerialize(type);
+  }
+
+  @Override
+  public Class<?> getTargetType() {
+    return writeEncoding.serializer.getTargetType();
+  }
+
+  private byte[] withHeader(byte codecId, byte[] data) {
+    byte[] bytes = new byte[HEADER_SIZE + data.length];
+    bytes[0] = MARKER;
+    bytes[1] = (byte) writeEncoding.serializerId;
+    bytes[2] = codecId;
+    bytes[3] = (byte) (writeEncoding.schemaVersion >>> 8);
+    bytes[4] = (byte) writeEncoding.schemaVersion;
+    System.arraycopy(data, 0, bytes, HEADER_SIZE, data.length);
+    return bytes;
+  }
+
+  /**
+   * A {@link DynamoSerializer} identified by a serializer id and the version of the schema it writes.
+   */
+  public static final class Encoding<T> {
+
+    /**
+     * Schema version of an encoding reading values of all schema versions without an encoding of their own.
+     * Must not be used for writing.
+     */
+    public static final int ANY_SCHEMA_VERSION = -1;
+
+    private final int serializerId;
+    private final int schemaVersion;
+    private final DynamoSerializer<T> serializer;
+
+    private Encoding(int serializerId, int schemaVersion, DynamoSerializer<T> serializer) {
+      this.serializerId = serializerId;
+      this.schemaVersion = schemaVersion;
+      this.serializer = serializer;
+    }
+
+    /**
+     * Create an {@link Encoding}.
+     *
+     * @param serializerId  the id of the serializer, between {@literal 0} and {@literal 254}.
+     * @param schemaVersion the version of the schema, between {@literal 0} and {@literal 65535}, or
+     *                      {@link #ANY_SCHEMA_VERSION}.
+     * @param serializer    the serializer. Must not be {@literal null}.
+     * @return new instance of {@link Encoding}.
+     */
+    public static <T> Encoding<T> of(int serializerId, int schemaVersion, DynamoSerializer<T> serializer) {
+      Assert.isTrue(serializerId >= 0 && serializerId < 0xff, "SerializerId must be between 0 and 254!");
+      Assert.isTrue(schemaVersion == ANY_SCHEMA_VERSION || (schemaVersion >= 0 && schemaVersion <= 0xffff),
+        "SchemaVersion must be between 0 and 65535!");
+      Assert.notNull(serializer, "Serializer must not be null!");
+
+      return new Encoding<>(serializerId, schemaVersion, serializer);
+    }
+
+    public int getSerializerId() {
+      return serializerId;
+    }
+
+    public int getSchemaVersion() {
+      return schemaVersion;
+    }
+
+    public DynamoSerializer<T> getSerializer() {
+      return serializer;
+    }
+
+    private int key() {
+      return key(serializerId, schemaVersion);
+    }
+
+    private static int key(int serializerId, int schemaVersion) {
+      return (serializerId << 17) | (schemaVersion & 0x1ffff);
+    }
+
+    @Override
+    public String toString() {
+      return "serializer " + serializerId + " with schema version " + schemaVersion;
+    }
+  }
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dasburo.spring.cache.dynamo.serializer;
+
+import org.springframework.util.StreamUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+
+/**
+ * {@link CompressionCodec} writing the GZIP format with a pooled {@link Deflater} and reading it with a pooled
+ * {@link Inflater}. Data is compressed into a scratch buffer and copied once into an array of the exact size, and
+ * decompressed directly into an array of the size recorded in the GZIP trailer. Data that is not a single GZIP member
+ * is read with a {@link GZIPInputStream}.
+ */
+class GZipCompressionCodec implements CompressionCodec {
+
+  static final byte ID = 1;
+  static final GZipCompressionCodec INSTANCE = new GZipCompressionCodec();
+
+  private static final byte[] HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+  private static final int TRAILER_SIZE = 8;
+  private static final int MAX_DEFLATE_RATIO = 1032;
+  private static final int FLAG_HCRC = 2;
+  private static final int FLAG_EXTRA = 4;
+  private static final int FLAG_NAME = 8;
+  private static final int FLAG_COMMENT = 16;
+
+  @Override
+  public byte getId() {
+    return ID;
+  }
+
+  @Override
+  public byte[] compress(byte[] data) {
+    try (SerializationBuffers buffers = SerializationBuffers.acquire()) {
+      Deflater deflater = buffers.deflater(true);
+      deflater.setInput(data);
+      deflater.finish();
+
+      byte[] buffer = buffers.buffer(HEADER.length + deflateBound(data.length) + TRAILER_SIZE);
+      System.arraycopy(HEADER, 0, buffer, 0, HEADER.length);
+      int length = HEADER.length;
+      while (!deflater.finished()) {
+        if (length == buffer.length) {
+          buffer = buffers.grow();
+        }
+        length += deflater.deflate(buffer, length, buffer.length - length);
+      }
+      if (buffer.length - length < TRAILER_SIZE) {
+        buffer = buffers.grow();
+      }
+
+      CRC32 crc = buffers.crc();
+      crc.update(data, 0, data.length);
+      writeIntLE(buffer, length, (int) crc.getValue());
+      writeIntLE(buffer, length + 4, data.length);
+      return Arrays.copyOf(buffer, length + TRAILER_SIZE);
+    }
+  }
+
+  @Override
+  public byte[] decompress(byte[] data, int offset, int length) {
+    int bodyOffset = bodyOffset(data, offset, length);
+    int bodyLength = offset + length - TRAILER_SIZE - bodyOffset;
+    if (bodyOffset < 0 || bodyLength < 0) {
+      return decompressStream(data, offset, length);
+    }
+
+    int expectedCrc = readIntLE(data, offset + length - TRAILER_SIZE);
+    int size = readIntLE(data, offset + length - 4);
+    if (size < 0 || size > (long) bodyLength * MAX_DEFLATE_RATIO + HEADER.length) {
+      // the size is only recorded modulo 2^32, e.g. for data that is not a single member
+      return decompressStream(data, offset, length);
+    }
+
+    try (SerializationBuffers buffers = SerializationBuffers.acquire()) {
+      Inflater inflater = buffers.inflater(true);
+      inflater.setInput(data, bodyOffset, bodyLength);
+
+      byte[] decompressed = new byte[size];
+      int decompressedLength = 0;
+      while (decompressedLength < size && !inflater.finished() && !inflater.needsInput()) {
+        decompressedLength += inflater.inflate(decompressed, decompressedLength, size - decompressedLength);
+      }
+      if (decompressedLength != size || (!inflater.finished() && inflater.inflate(buffers.buffer(1), 0, 1) != 0)
+        || !inflater.finished() || inflater.getRemaining() != 0) {
+        // e.g. multiple members, let GZIPInputStream handle them
+        return decompressStream(data, offset, length);
+      }
+
+      CRC32 crc = buffers.crc();
+      crc.update(decompressed, 0, size);
+      if ((int) crc.getValue() != expectedCrc) {
+        throw new SerializationException("Failed to unzip value, checksum does not match.");
+      }
+      return decompressed;
+    } catch (DataFormatException e) {
+      throw new SerializationException("Failed to unzip value.", e);
+    }
+  }
+
+  /**
+   * @return the offset of the compressed data following the GZIP header, {@literal -1} if the header is invalid.
+   */
+  private static int bodyOffset(byte[] data, int offset, int length) {
+    int end = offset + length;
+    if (length < HEADER.length + TRAILER_SIZE || data[offset] != HEADER[0] || data[offset + 1] != HEADER[1]
+      || data[offset + 2] != Deflater.DEFLATED) {
+      return -1;
+    }
+
+    int flags = data[offset + 3] & 0xff;
+    int position = offset + HEADER.length;
+    if ((flags & FLAG_EXTRA) != 0) {
+      if (position + 2 > end) {
+        return -1;
+      }
+      position += 2 + ((data[position] & 0xff) | (data[position + 1] & 0xff) << 8);
+    }
+    if ((flags & FLAG_NAME) != 0) {
+      position = skipZeroTerminated(data, position, end);
+    }
+    if ((flags & FLAG_COMMENT) != 0) {
+      position = skipZeroTerminated(data, position, end);
+    }
+    if ((flags & FLAG_HCRC) != 0) {
+      position += 2;
+    }
+    return position >= 0 && position <= end ? position : -1;
+  }
+
+  private static int skipZeroTerminated(byte[] data, int position, int end) {
+    while (position >= 0 && position < end) {
+      if (data[position++] == 0) {
+        return position;
+      }
+    }
+    return -1;
+  }
+
+  private static byte[] decompressStream(byte[] data, int offset, int length) {
+    try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(data, offset, length))) {
+      return StreamUtils.copyToByteArray(in);
+    } catch (IOException e) {
+      throw new SerializationException("Failed to unzip value.", e);
+    }
+  }
+
+  /**
+   * @return an upper bound of the size of raw DEFLATE data, as computed by zlib's {@code deflateBound}.
+   */
+  static int deflateBound(int length) {
+    return length + (length >> 12) + (length >> 14) + (length >> 25) + 13;
+  }
+
+  private static void writeIntLE(byte[] buffer, int offset, int value) {
+    buffer[offset] = (byte) value;
+    buffer[offset + 1] = (byte) (value >>> 8);
+    buffer[offset + 2] = (byte) (value >>> 16);
+    buffer[offset + 3] = (byte) (value >>> 24);
+  }
+
+  private static int readIntLE(byte[] buffer, int offset) {
+    return (buffer[offset] & 0xff) | (buffer[offset + 1] & 0xff) << 8 | (buffer[offset + 2] & 0xff) << 16
+      | (buffer[offset + 3] & 0xff) << 24;
+  }
+}
@@ -18,15 +18,12 @@ import org.springframework.beans.factory.InitializingBean;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
 import java.util.zip.GZIPInputStream;
-import java.util.zip.GZIPOutputStream;
 
 /**
  * {@link DynamoSerializer} that can read and write the given object with the parent serializer
- * and compress or uncompress the resulting data using {@link GZIPInputStream}
+ * and compress or uncompress the resulting data in the format of {@link GZIPInputStream}, reusing the
+ * {@link java.util.zip.Deflater} and {@link java.util.zip.Inflater} of the calling thread.
  *
  * @author Georg Zimmermann
  */
@@ -61,15 +58,7 @@ public class GZipSerializer<T> implements InitializingBean, DynamoSerializer<T>
       return null;
     }
 
-    ByteArrayOutputStream out = new ByteArrayOutputStream(data.length);
-
-    try (GZIPOutputStream zipOut = new GZIPOutputStream(out)) {
-      zipOut.write(data);
-    } catch (IOException e) {
-      throw new SerializationException("Failed to zip value.", e);
-    }
-
-    return out.toByteArray();
+    return GZipCompressionCodec.INSTANCE.compress(data);
   }
 
   @Override
@@ -79,24 +68,7 @@ public class GZipSerializer<T> implements InitializingBean, DynamoSerializer<T>
       return null;
     }
 
-    ByteArrayInputStream bais = new ByteArrayInputStream(zippedBytes);
-    ByteArrayOutputStream baos = new ByteArrayOutputStream();
-
-    try (GZIPInputStream is = new GZIPInputStream(bais)) {
-      int chunkSize = 1024;
-      byte[] buffer = new byte[chunkSize];
-      int length = 0;
-      while ((length = is.read(buffer, 0, chunkSize)) != -1) {
-        baos.write(buffer, 0, length);
-      }
-
-      baos.close();
-      bais.close();
-
-      return parent.deserialize(baos.toByteArray());
-    } catch (IOException e) {
-      throw new SerializationException("Failed to unzip value.", e);
-    }
+    return parent.deserialize(GZipCompressionCodec.INSTANCE.decompress(zippedBytes, 0, zippedBytes.length));
   }
 
   /*
@@ -0,0 +1,218 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dasburo.spring.cache.dynamo.serializer;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+import org.springframework.beans.BeanUtils;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+
+import java.lang.invoke.MethodHandles;
+import java.nio.ByteBuffer;
+
+/**
+ * {@link DynamoSerializer} reading and writing a fixed type with
+ * <a href="https://github.com/FasterXML/jackson-databind">Jackson Databind</a> in any format of the given
+ * {@link ObjectMapper}, e.g. the binary Smile or CBOR formats, which are faster and smaller than textual JSON.
+ * <p>
+ * Unlike {@link Jackson2JsonSerializer}, the {@link ObjectReader} and {@link ObjectWriter} are bound to the type once,
+ * so the root (de)serializer is not looked up on every call. Values of non-final types are written with their runtime
+ * type. {@link #objectMapper(Format, boolean)} creates mappers for the supported formats, optionally with Jackson's
+ * bytecode generating Blackbird or Afterburner module.
+ * <b>Note:</b>
+ * Does not perform any {@literal null} conversion.
+ */
+public class JacksonSerializer<T> implements DynamoSerializer<T> {
+
+  private static final String BLACKBIRD_MODULE = "com.fasterxml.jackson.module.blackbird.BlackbirdModule";
+  private static final String AFTERBURNER_MODULE = "com.fasterxml.jackson.module.afterburner.AfterburnerModule";
+
+  private final JavaType javaType;
+  private final ObjectReader reader;
+  private final ObjectWriter writer;
+
+  /**
+   * Creates a new {@link JacksonSerializer} for the given {@link Class}.
+   *
+   * @param objectMapper the mapper defining format and configuration. Must not be {@literal null}.
+   * @param type         the type to read and write. Must not be {@literal null}.
+   */
+  public JacksonSerializer(ObjectMapper objectMapper, Class<T> type) {
+    this(objectMapper, objectMapper != null && type != null ? objectMapper.constructType(type) : null);
+  }
+
+  /**
+   * Creates a new {@link JacksonSerializer} for the given {@link JavaType}.
+   *
+   * @param objectMapper the mapper defining format and configuration. Must not be {@literal null}.
+   * @param javaType     the type to read and write. Must not be {@literal null}.
+   */
+  public JacksonSerializer(ObjectMapper objectMapper, JavaType javaType) {
+    Assert.notNull(objectMapper, "ObjectMapper must not be null!");
+    Assert.notNull(javaType, "JavaType must not be null!");
+
+    this.javaType = javaType;
+    this.reader = objectMapper.readerFor(javaType);
+    this.writer = javaType.isFinal() ? objectMapper.writerFor(javaType) : objectMapper.writer();
+  }
+
+  /**
+   * @param type the type to read and write. Must not be {@literal null}.
+   * @return new instance of {@link JacksonSerializer} writing textual JSON.
+   */
+  public static <T> JacksonSerializer<T> json(Class<T> type) {
+    return new JacksonSerializer<>(objectMapper(Format.JSON, false), type);
+  }
+
+  /**
+   * @param type the type to read and write. Must not be {@literal null}.
+   * @return new instance of {@link JacksonSerializer} writing Smile, requires
+   * {@code com.fasterxml.jackson.dataformat:jackson-dataformat-smile}.
+   */
+  public static <T> JacksonSerializer<T> smile(Class<T> type) {
+    return new JacksonSerializer<>(objectMapper(Format.SMILE, false), type);
+  }
+
+  /**
+   * @param type the type to read and write. Must not be {@literal null}.
+   * @return new instance of {@link JacksonSerializer} writing CBOR, requires
+   * {@code com.fasterxml.jackson.dataformat:jackson-dataformat-cbor}.
+   */
+  public static <T> JacksonSerializer<T> cbor(Class<T> type) {
+    return new JacksonSerializer<>(objectMapper(Format.CBOR, false), type);
+  }
+
+  /**
+   * Create an {@link ObjectMapper} for the given format.
+   *
+   * @param format             the format to read and write. Must not be {@literal null}.
+   * @param bytecodeGeneration if {@literal true}, registers {@code jackson-module-blackbird} on Java 9 and later or
+   *                           {@code jackson-module-afterburner}, whichever is on the classpath.
+   * @return new instance of {@link ObjectMapper}.
+   * @throws IllegalStateException if bytecode generation is requested but no module is available.
+   */
+  public static ObjectMapper objectMapper(Format format, boolean bytecodeGeneration) {
+    Assert.notNull(format, "Format must not be null!");
+
+    ObjectMapper objectMapper = new ObjectMapper(format.createFactory());
+    if (bytecodeGeneration) {
+      objectMapper.registerModule(bytecodeGenerationModule());
+    }
+    return objectMapper;
+  }
+
+  @Override
+  public byte[] serialize(@Nullable T t) throws SerializationException {
+    if (t == null) {
+      return null;
+    }
+
+    try {
+      return writer.writeValueAsBytes(t);
+    } catch (Exception ex) {
+      throw new SerializationException("Could not write " + javaType + ": " + ex.getMessage(), ex);
+    }
+  }
+
+  @Override
+  public T deserialize(@Nullable byte[] bytes) throws SerializationException {
+    if (SerializationUtils.isEmpty(bytes)) {
+      return null;
+    }
+
+    try {
+      return reader.readValue(bytes, 0, bytes.length);
+    } catch (Exception ex) {
+      throw new SerializationException("Could not read " + javaType + ": " + ex.getMessage(), ex);
+    }
+  }
+
+  @Override
+  public T deserializeFromBuffer(@Nullable ByteBuffer buffer) throws SerializationException {
+    if (SerializationUtils.isEmpty(buffer)) {
+      return null;
+    }
+
+    try {
+      if (buffer.hasArray()) {
+        return reader.readValue(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+      }
+      return reader.readValue(new ByteBufferBackedInputStream(buffer.duplicate()));
+    } catch (Exception ex) {
+      throw new SerializationException("Could not read " + javaType + ": " + ex.getMessage(), ex);
+    }
+  }
+
+  @Override
+  public Class<?> getTargetType() {
+    return javaType.getRawClass();
+  }
+
+  private static Module bytecodeGenerationModule() {
+    ClassLoader classLoader = JacksonSerializer.class.getClassLoader();
+    String moduleName;
+    if (ClassUtils.isPresent(BLACKBIRD_MODULE, classLoader)
+      && ClassUtils.hasMethod(MethodHandles.class, "privateLookupIn", Class.class, MethodHandles.Lookup.class)) {
+      moduleName = BLACKBIRD_MODULE;
+    } else if (ClassUtils.isPresent(AFTERBURNER_MODULE, classLoader)) {
+      moduleName = AFTERBURNER_MODULE;
+    } else {
+      throw new IllegalStateException("Bytecode generation requires jackson-module-blackbird or jackson-module-afterburner on the classpath.");
+    }
+    return (Module) BeanUtils.instantiateClass(ClassUtils.resolveClassName(moduleName, classLoader));
+  }
+
+  /**
+   * Format written by a {@link JacksonSerializer}.
+   */
+  public enum Format {
+
+    /**
+     * Textual JSON.
+     */
+    JSON("com.fasterxml.jackson.core.JsonFactory"),
+
+    /**
+     * Binary Smile, requires {@code com.fasterxml.jackson.dataformat:jackson-dataformat-smile}.
+     */
+    SMILE("com.fasterxml.jackson.dataformat.smile.SmileFactory"),
+
+    /**
+     * Binary CBOR, requires {@code com.fasterxml.jackson.dataformat:jackson-dataformat-cbor}.
+     */
+    CBOR("com.fasterxml.jackson.dataformat.cbor.CBORFactory");
+
+    // resolved by name, so formats whose module is missing do not fail the others
+    private final String factoryClassName;
+
+    Format(String factoryClassName) {
+      this.factoryClassName = factoryClassName;
+    }
+
+    JsonFactory createFactory() {
+      Assert.state(ClassUtils.isPresent(factoryClassName, Format.class.getClassLoader()),
+        () -> "Format " + name() + " requires " + factoryClassName + " on the classpath.");
+      return (JsonFactory) BeanUtils.instantiateClass(ClassUtils.resolveClassName(factoryClassName, Format.class.getClassLoader()));
+    }
+  }
+}
@@ -0,0 +1,182 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dasburo.spring.cache.dynamo.serializer;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.KryoException;
+import com.esotericsoftware.kryo.SerializerFactory;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import com.esotericsoftware.kryo.serializers.CompatibleFieldSerializer;
+import com.esotericsoftware.kryo.util.DefaultInstantiatorStrategy;
+import com.esotericsoftware.kryo.util.Pool;
+import org.objenesis.strategy.StdInstantiatorStrategy;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * {@link DynamoSerializer} reading and writing values with <a href="https://github.com/EsotericSoftware/kryo">Kryo</a>,
+ * a compact binary replacement of {@link SerializableSerializer}. Requires {@code com.esotericsoftware:kryo}.
+ * <p>
+ * Classes have to be registered up front. Each is written as a small id instead of its name and class descriptor, so
+ * the registered classes and their order must be the same on all nodes sharing a cache; new classes are appended.
+ * Writing an unregistered class and reading an unknown id or a class missing on the classpath fail with a
+ * {@link SerializationException}.
+ * <p>
+ * In compatible mode fields are written with their names, so fields can be added to and removed from a class while
+ * values written by other versions stay readable, at the cost of larger values. Otherwise the fields of a class must
+ * not change as long as values written with it are cached.
+ * <p>
+ * {@link Kryo} instances are not thread-safe, they are pooled together with their output buffer.
+ * <b>Note:</b>
+ * Does not perform any {@literal null} conversion. Object graphs are written without references, cyclic graphs are not
+ * supported.
+ */
+public class KryoSerializer<T> implements DynamoSerializer<T> {
+
+  /**
+   * Id of the first registered class, the ids below are used by Kryo for primitives and {@link String}.
+   */
+  public static final int FIRST_REGISTRATION_ID = 16;
+
+  private static final int INITIAL_BUFFER_SIZE = 1024;
+
+  private final Class<T> type;
+  private final List<Class<?>> registeredClasses;
+  private final boolean compatible;
+  private final Pool<Context> pool;
+
+  /**
+   * Creates a new {@link KryoSerializer} registering the given type.
+   *
+   * @param type the type to read and write. Must not be {@literal null}.
+   */
+  public KryoSerializer(Class<T> type) {
+    this(type, Collections.singletonList(type), false);
+  }
+
+  /**
+   * Creates a new {@link KryoSerializer}.
+   *
+   * @param type              the type to read and write. Must not be {@literal null}.
+   * @param registeredClasses the classes written, including the type itself and the types of its fields, in the order
+   *                          their ids are assigned. Must not be {@literal null}.
+   * @param compatible        if {@literal true}, fields can be added to and removed from registered classes.
+   */
+  public KryoSerializer(Class<T> type, List<Class<?>> registeredClasses, boolean compatible) {
+    Assert.notNull(type, "Type must not be null!");
+    Assert.notNull(registeredClasses, "RegisteredClasses must not be null!");
+    Assert.noNullElements(registeredClasses, "RegisteredClasses must not contain null!");
+
+    this.type = type;
+    this.registeredClasses = new ArrayList<>(registeredClasses);
+    this.compatible = compatible;
+    this.pool = new Pool<Context>(true, true) {
+      @Override
+      protected Context create() {
+        return new Context(createKryo());
+      }
+    };
+  }
+
+  @Override
+  public byte[] serialize(@Nullable T t) throws SerializationException {
+    if (t == null) {
+      return null;
+    }
+
+    Context context = pool.obtain();
+    try {
+      Output output = context.output;
+      output.reset();
+      context.kryo.writeClassAndObject(output, t);
+      return output.toBytes();
+    } catch (KryoException | IllegalArgumentException ex) {
+      throw new SerializationException("Could not write " + t.getClass().getName() + ": " + ex.getMessage(), ex);
+    } finally {
+      context.release();
+      pool.free(context);
+    }
+  }
+
+  @Override
+  public T deserialize(@Nullable byte[] bytes) throws SerializationException {
+    if (SerializationUtils.isEmpty(bytes)) {
+      return null;
+    }
+
+    Object value;
+    Context context = pool.obtain();
+    try {
+      value = context.kryo.readClassAndObject(new Input(bytes));
+    } catch (KryoException | IllegalArgumentException ex) {
+      throw new SerializationException("Could not read " + type.getName() + ": " + ex.getMessage(), ex);
+    } finally {
+      pool.free(context);
+    }
+
+    if (!type.isInstance(value)) {
+      throw new SerializationException("Could not read " + type.getName() + ", value is of type "
+        + (value != null ? value.getClass().getName() : null) + ".");
+    }
+    return type.cast(value);
+  }
+
+  @Override
+  public Class<?> getTargetType() {
+    return type;
+  }
+
+  private Kryo createKryo() {
+    Kryo kryo = new Kryo();
+    kryo.setRegistrationRequired(true);
+    kryo.setReferences(false);
+    kryo.setInstantiatorStrategy(new DefaultInstantiatorStrategy(new StdInstantiatorStrategy()));
+    if (compatible) {
+      CompatibleFieldSerializer.CompatibleFieldSerializerConfig config = new CompatibleFieldSerializer.CompatibleFieldSerializerConfig();
+      // chunks allow skipping fields whose class is unknown to the reader
+      config.setChunkedEncoding(true);
+      kryo.setDefaultSerializer(new SerializerFactory.CompatibleFieldSerializerFactory(config));
+    }
+    for (int i = 0; i < registeredClasses.size(); i++) {
+      kryo.register(registeredClasses.get(i), FIRST_REGISTRATION_ID + i);
+    }
+    return kryo;
+  }
+
+  /**
+   * A {@link Kryo} instance and its output buffer.
+   */
+  private static final class Context {
+
+    private final Kryo kryo;
+    private final Output output = new Output(INITIAL_BUFFER_SIZE, -1);
+
+    private Context(Kryo kryo) {
+      this.kryo = kryo;
+    }
+
+    private void release() {
+      if (output.getBuffer().length > SerializationBuffers.MAX_RETAINED_SIZE) {
+        output.setBuffer(new byte[INITIAL_BUFFER_SIZE], -1);
+      }
+    }
+  }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dasburo.spring.cache.dynamo.serializer;
+
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Exception;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4FastDecompressor;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * {@link CompressionCodec} using LZ4 block compression. The block is preceded by the uncompressed length as four
+ * byte integer, as blocks do not carry it themselves.
+ */
+class Lz4CompressionCodec implements CompressionCodec {
+
+  static final byte ID = 3;
+  static final Lz4CompressionCodec INSTANCE = new Lz4CompressionCodec();
+
+  private static final int LENGTH_SIZE = Integer.BYTES;
+
+  private final LZ4Compressor compressor;
+  private final LZ4FastDecompressor decompressor;
+
+  private Lz4CompressionCodec() {
+    LZ4Factory factory = LZ4Factory.fastestInstance();
+    this.compressor = factory.fastCompressor();
+    this.decompressor = factory.fastDecompressor();
+  }
+
+  @Override
+  public byte getId() {
+    return ID;
+  }
+
+  @Override
+  public byte[] compress(byte[] data) {
+    try (SerializationBuffers buffers = SerializationBuffers.acquire()) {
+      byte[] buffer = buffers.buffer(LENGTH_SIZE + compressor.maxCompressedLength(data.length));
+      ByteBuffer.wrap(buffer).putInt(data.length);
+      int length = compressor.compress(data, 0, data.length, buffer, LENGTH_SIZE);
+      return Arrays.copyOf(buffer, LENGTH_SIZE + length);
+    }
+  }
+
+  @Override
+  public byte[] decompress(byte[] data, int offset, int length) {
+    if (length < LENGTH_SIZE) {
+      throw new SerializationException("Failed to decompress LZ4 value, length is missing.");
+    }
+    int decompressedLength = ByteBuffer.wrap(data, offset, LENGTH_SIZE).getInt();
+    if (decompressedLength < 0) {
+      throw new SerializationException("Failed to decompress LZ4 value, invalid length " + decompressedLength + ".");
+    }
+
+    try {
+      byte[] decompressed = new byte[decompressedLength];
+      decompressor.decompress(data, offset + LENGTH_SIZE, decompressed, 0, decompressedLength);
+      return decompressed;
+    } catch (LZ4Exception e) {
+      throw new SerializationException("Failed to decompress LZ4 value.", e);
+    }
+  }
+}
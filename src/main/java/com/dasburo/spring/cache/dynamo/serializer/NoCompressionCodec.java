@@ -0,0 +1,42 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dasburo.spring.cache.dynamo.serializer;
+
+import java.util.Arrays;
+
+/**
+ * {@link CompressionCodec} storing the data uncompressed.
+ */
+class NoCompressionCodec implements CompressionCodec {
+
+  static final byte ID = 0;
+  static final NoCompressionCodec INSTANCE = new NoCompressionCodec();
+
+  @Override
+  public byte getId() {
+    return ID;
+  }
+
+  @Override
+  public byte[] compress(byte[] data) {
+    return data;
+  }
+
+  @Override
+  public byte[] decompress(byte[] data, int offset, int length) {
+    return Arrays.copyOfRange(data, offset, offset + length);
+  }
+}
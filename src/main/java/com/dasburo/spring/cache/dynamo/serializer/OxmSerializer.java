@@ -98,15 +98,13 @@ public class OxmSerializer implements InitializingBean, DynamoSerializer<Object>
       return null;
     }
 
-    ByteArrayOutputStream stream = new ByteArrayOutputStream();
-    StreamResult result = new StreamResult(stream);
-
-    try {
-      marshaller.marshal(t, result);
+    try (SerializationBuffers buffers = SerializationBuffers.acquire()) {
+      ByteArrayOutputStream stream = buffers.outputStream();
+      marshaller.marshal(t, new StreamResult(stream));
+      return stream.toByteArray();
     } catch (Exception ex) {
       throw new SerializationException("Cannot serialize object", ex);
     }
-    return stream.toByteArray();
   }
 
   /*
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dasburo.spring.cache.dynamo.serializer;
+
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.ExtensionRegistryLite;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.MessageLite;
+import com.google.protobuf.Parser;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import org.springframework.util.ReflectionUtils;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+
+/**
+ * {@link DynamoSerializer} reading and writing generated <a href="https://protobuf.dev/">Protocol Buffers</a>
+ * messages of a fixed type in their binary wire format. Requires {@code com.google.protobuf:protobuf-java} or
+ * {@code protobuf-javalite}.
+ * <p>
+ * Messages are written straight into an array of their serialized size and parsed straight from the stored bytes with
+ * the parser of the message type, without intermediate buffers or copies.
+ * <b>Note:</b>
+ * Does not perform any {@literal null} conversion. An empty array is read as the default instance, since that is how
+ * a message without any set field is written.
+ */
+public class ProtobufSerializer<T extends MessageLite> implements DynamoSerializer<T> {
+
+  private final Class<T> type;
+  private final Parser<T> parser;
+  private final ExtensionRegistryLite extensionRegistry;
+
+  /**
+   * Creates a new {@link ProtobufSerializer} for the given generated message type.
+   *
+   * @param type the generated message type to read and write. Must not be {@literal null}.
+   */
+  public ProtobufSerializer(Class<T> type) {
+    this(defaultInstance(type), ExtensionRegistryLite.getEmptyRegistry());
+  }
+
+  /**
+   * Creates a new {@link ProtobufSerializer} for the type of the given message.
+   *
+   * @param defaultInstance   the default instance of the message type to read and write. Must not be {@literal null}.
+   * @param extensionRegistry the registry of the extensions to parse. Must not be {@literal null}.
+   */
+  @SuppressWarnings("unchecked")
+  public ProtobufSerializer(T defaultInstance, ExtensionRegistryLite extensionRegistry) {
+    Assert.notNull(defaultInstance, "DefaultInstance must not be null!");
+    Assert.notNull(extensionRegistry, "ExtensionRegistry must not be null!");
+
+    this.type = (Class<T>) defaultInstance.getClass();
+    this.parser = (Parser<T>) defaultInstance.getParserForType();
+    this.extensionRegistry = extensionRegistry;
+  }
+
+  @Override
+  public byte[] serialize(@Nullable T t) throws SerializationException {
+    if (t == null) {
+      return null;
+    }
+
+    byte[] bytes = new byte[t.getSerializedSize()];
+    try {
+      CodedOutputStream output = CodedOutputStream.newInstance(bytes);
+      t.writeTo(output);
+      output.checkNoSpaceLeft();
+    } catch (IOException | IllegalStateException ex) {
+      throw new SerializationException("Could not write " + type.getName() + ": " + ex.getMessage(), ex);
+    }
+    return bytes;
+  }
+
+  @Override
+  public T deserialize(@Nullable byte[] bytes) throws SerializationException {
+    if (bytes == null) {
+      return null;
+    }
+
+    try {
+      return parser.parseFrom(bytes, extensionRegistry);
+    } catch (InvalidProtocolBufferException ex) {
+      throw new SerializationException("Could not read " + type.getName() + ": " + ex.getMessage(), ex);
+    }
+  }
+
+  @Override
+  public T deserializeFromBuffer(@Nullable ByteBuffer buffer) throws SerializationException {
+    if (buffer == null) {
+      return null;
+    }
+
+    try {
+      return parser.parseFrom(buffer.duplicate(), extensionRegistry);
+    } catch (InvalidProtocolBufferException ex) {
+      throw new SerializationException("Could not read " + type.getName() + ": " + ex.getMessage(), ex);
+    }
+  }
+
+  @Override
+  public Class<?> getTargetType() {
+    return type;
+  }
+
+  private static <T extends MessageLite> T defaultInstance(Class<T> type) {
+    Assert.notNull(type, "Type must not be null!");
+
+    Method method = ReflectionUtils.findMethod(type, "getDefaultInstance");
+    Assert.isTrue(method != null && type.isAssignableFrom(method.getReturnType()),
+      () -> type.getName() + " is not a generated message type.");
+    return type.cast(ReflectionUtils.invokeMethod(method, null));
+  }
+}
@@ -20,6 +20,7 @@ import java.io.*;
 
 /**
  * {@link DynamoSerializer} that can read and write {@link Object} that implement {@link Serializable}.
+ * Objects are written to an output buffer reused by the calling thread.
  * <b>Note:</b>Null objects are serialized as empty arrays and vice versa.
  *
  * @author Georg Zimmermann
@@ -28,9 +29,11 @@ public class SerializableSerializer implements DynamoSerializer<Object> {
 
   @Override
   public byte[] serialize(@Nullable Object object) throws SerializationException {
-    try (final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
-         final ObjectOutputStream output = new ObjectOutputStream(buffer)) {
-      output.writeObject(object);
+    try (SerializationBuffers buffers = SerializationBuffers.acquire()) {
+      ByteArrayOutputStream buffer = buffers.outputStream();
+      try (ObjectOutputStream output = new ObjectOutputStream(buffer)) {
+        output.writeObject(object);
+      }
       return buffer.toByteArray();
     } catch (IOException e) {
       throw new SerializationException("Cannot serialize value.", e);
@@ -0,0 +1,194 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dasburo.spring.cache.dynamo.serializer;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Per-thread scratch buffers, {@link Deflater} and {@link Inflater} instances reused across serializer calls, saving
+ * the allocation of buffers and native zlib memory on every call.
+ * <p>
+ * Buffers are acquired with {@link #acquire()} and must be released with {@link #close()}, data written to them must
+ * be copied before. A thread acquiring buffers while it already holds them, e.g. from a nested serializer, gets a
+ * fresh, unpooled instance. Buffers grown beyond {@link #MAX_RETAINED_SIZE} are not kept.
+ */
+final class SerializationBuffers implements AutoCloseable {
+
+  static final int MAX_RETAINED_SIZE = 1024 * 1024;
+
+  private static final int INITIAL_SIZE = 1024;
+  private static final ThreadLocal<SerializationBuffers> BUFFERS = ThreadLocal.withInitial(() -> new SerializationBuffers(true));
+
+  private final boolean pooled;
+  private boolean inUse;
+
+  private byte[] buffer;
+  private ReusableOutputStream outputStream;
+  private Deflater deflater;
+  private Deflater rawDeflater;
+  private Inflater inflater;
+  private Inflater rawInflater;
+  private CRC32 crc;
+
+  private SerializationBuffers(boolean pooled) {
+    this.pooled = pooled;
+  }
+
+  /**
+   * @return the buffers of the current thread, or fresh ones if they are in use.
+   */
+  static SerializationBuffers acquire() {
+    SerializationBuffers buffers = BUFFERS.get();
+    if (buffers.inUse) {
+      return new SerializationBuffers(false);
+    }
+    buffers.inUse = true;
+    return buffers;
+  }
+
+  /**
+   * @param minSize the minimum size of the buffer.
+   * @return a scratch buffer of at least the given size.
+   */
+  byte[] buffer(int minSize) {
+    if (buffer == null || buffer.length < minSize) {
+      buffer = new byte[Math.max(minSize, INITIAL_SIZE)];
+    }
+    return buffer;
+  }
+
+  /**
+   * Grow the scratch buffer, keeping its content.
+   *
+   * @return the grown buffer.
+   */
+  byte[] grow() {
+    buffer = Arrays.copyOf(buffer, buffer.length > Integer.MAX_VALUE / 2 ? Integer.MAX_VALUE - 8 : buffer.length * 2);
+    return buffer;
+  }
+
+  /**
+   * @return an empty output stream.
+   */
+  ReusableOutputStream outputStream() {
+    if (outputStream == null) {
+      outputStream = new ReusableOutputStream();
+    }
+    outputStream.reset();
+    return outputStream;
+  }
+
+  /**
+   * @param nowrap if {@literal true}, raw DEFLATE data is written without ZLIB header and checksum.
+   * @return a reset deflater with default compression level.
+   */
+  Deflater deflater(boolean nowrap) {
+    if (nowrap) {
+      rawDeflater = reset(rawDeflater, true);
+      return rawDeflater;
+    }
+    deflater = reset(deflater, false);
+    return deflater;
+  }
+
+  /**
+   * @param nowrap if {@literal true}, raw DEFLATE data is read without ZLIB header and checksum.
+   * @return a reset inflater.
+   */
+  Inflater inflater(boolean nowrap) {
+    if (nowrap) {
+      rawInflater = reset(rawInflater, true);
+      return rawInflater;
+    }
+    inflater = reset(inflater, false);
+    return inflater;
+  }
+
+  /**
+   * @return a reset checksum.
+   */
+  CRC32 crc() {
+    if (crc == null) {
+      crc = new CRC32();
+    }
+    crc.reset();
+    return crc;
+  }
+
+  @Override
+  public void close() {
+    if (!pooled) {
+      end();
+      return;
+    }
+    if (buffer != null && buffer.length > MAX_RETAINED_SIZE) {
+      buffer = null;
+    }
+    if (outputStream != null && outputStream.capacity() > MAX_RETAINED_SIZE) {
+      outputStream = null;
+    }
+    inUse = false;
+  }
+
+  private void end() {
+    if (deflater != null) {
+      deflater.end();
+    }
+    if (rawDeflater != null) {
+      rawDeflater.end();
+    }
+    if (inflater != null) {
+      inflater.end();
+    }
+    if (rawInflater != null) {
+      rawInflater.end();
+    }
+  }
+
+  private static Deflater reset(Deflater deflater, boolean nowrap) {
+    if (deflater == null) {
+      return new Deflater(Deflater.DEFAULT_COMPRESSION, nowrap);
+    }
+    deflater.reset();
+    return deflater;
+  }
+
+  private static Inflater reset(Inflater inflater, boolean nowrap) {
+    if (inflater == null) {
+      return new Inflater(nowrap);
+    }
+    inflater.reset();
+    return inflater;
+  }
+
+  /**
+   * {@link ByteArrayOutputStream} whose buffer is kept across {@link #reset()}.
+   */
+  static final class ReusableOutputStream extends ByteArrayOutputStream {
+
+    private ReusableOutputStream() {
+      super(INITIAL_SIZE);
+    }
+
+    private int capacity() {
+      return buf.length;
+    }
+  }
+}
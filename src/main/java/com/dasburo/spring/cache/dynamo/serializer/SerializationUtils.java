@@ -16,6 +16,9 @@ package com.dasburo.spring.cache.dynamo.serializer;
 
 import org.springframework.lang.Nullable;
 
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+
 public abstract class SerializationUtils {
 
   private SerializationUtils() {
@@ -25,4 +28,42 @@ public abstract class SerializationUtils {
   static boolean isEmpty(@Nullable byte[] data) {
     return (data == null || data.length == 0);
   }
+
+  static boolean isEmpty(@Nullable ByteBuffer data) {
+    return (data == null || !data.hasRemaining());
+  }
+
+  /**
+   * Get the remaining bytes of the given buffer as array, without copying them if the buffer spans its whole backing
+   * array. The position of the buffer is not changed.
+   */
+  static byte[] toByteArray(ByteBuffer buffer) {
+    if (buffer.hasArray() && buffer.arrayOffset() == 0 && buffer.position() == 0 && buffer.remaining() == buffer.array().length) {
+      return buffer.array();
+    }
+    byte[] bytes = new byte[buffer.remaining()];
+    buffer.duplicate().get(bytes);
+    return bytes;
+  }
+
+  /**
+   * Get the bytes following the header of the given size as buffer sharing the content of the given buffer.
+   */
+  static ByteBuffer skip(ByteBuffer buffer, int headerSize) {
+    ByteBuffer data = buffer.duplicate();
+    // called on Buffer, the covariant override returning ByteBuffer added in Java 9 does not exist on Java 8
+    ((Buffer) data).position(buffer.position() + headerSize);
+    return data.slice();
+  }
+
+  /**
+   * Decompress the remaining bytes of the given buffer, reading them from the backing array in place if accessible.
+   */
+  static byte[] decompress(CompressionCodec codec, ByteBuffer data) {
+    if (data.hasArray()) {
+      return codec.decompress(data.array(), data.arrayOffset() + data.position(), data.remaining());
+    }
+    byte[] bytes = toByteArray(data);
+    return codec.decompress(bytes, 0, bytes.length);
+  }
 }
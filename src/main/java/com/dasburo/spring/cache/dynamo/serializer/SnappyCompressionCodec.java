@@ -0,0 +1,54 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dasburo.spring.cache.dynamo.serializer;
+
+import org.xerial.snappy.Snappy;
+
+import java.io.IOException;
+
+/**
+ * {@link CompressionCodec} using {@link Snappy}.
+ */
+class SnappyCompressionCodec implements CompressionCodec {
+
+  static final byte ID = 4;
+  static final SnappyCompressionCodec INSTANCE = new SnappyCompressionCodec();
+
+  @Override
+  public byte getId() {
+    return ID;
+  }
+
+  @Override
+  public byte[] compress(byte[] data) {
+    try {
+      return Snappy.compress(data);
+    } catch (IOException e) {
+      throw new SerializationException("Failed to compress Snappy value.", e);
+    }
+  }
+
+  @Override
+  public byte[] decompress(byte[] data, int offset, int length) {
+    try {
+      byte[] decompressed = new byte[Snappy.uncompressedLength(data, offset, length)];
+      Snappy.uncompress(data, offset, length, decompressed, 0);
+      return decompressed;
+    } catch (IOException e) {
+      throw new SerializationException("Failed to decompress Snappy value.", e);
+    }
+  }
+}
@@ -17,6 +17,7 @@ package com.dasburo.spring.cache.dynamo.serializer;
 
 import org.springframework.lang.Nullable;
 
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 
@@ -44,4 +45,15 @@ public class StringSerializer implements DynamoSerializer<String> {
   public String deserialize(@Nullable byte[] bytes) throws SerializationException {
     return (bytes == null ? null : new String(bytes, charset));
   }
+
+  @Override
+  public String deserializeFromBuffer(@Nullable ByteBuffer buffer) throws SerializationException {
+    if (buffer == null) {
+      return null;
+    }
+    if (buffer.hasArray()) {
+      return new String(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining(), charset);
+    }
+    return charset.decode(buffer.duplicate()).toString();
+  }
 }
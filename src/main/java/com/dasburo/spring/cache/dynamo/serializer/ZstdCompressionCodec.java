@@ -0,0 +1,74 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dasburo.spring.cache.dynamo.serializer;
+
+import com.github.luben.zstd.Zstd;
+import com.github.luben.zstd.ZstdException;
+
+/**
+ * {@link CompressionCodec} using {@link Zstd}. The frames carry their content size, so values are decompressed into
+ * a buffer of the exact size.
+ */
+class ZstdCompressionCodec implements CompressionCodec {
+
+  static final byte ID = 5;
+  static final ZstdCompressionCodec INSTANCE = new ZstdCompressionCodec(ZSTD_DEFAULT_LEVEL);
+
+  private final int level;
+
+  /**
+   * @param level the compression level.
+   */
+  ZstdCompressionCodec(int level) {
+    this.level = level;
+  }
+
+  @Override
+  public byte getId() {
+    return ID;
+  }
+
+  @Override
+  public byte[] compress(byte[] data) {
+    try {
+      return Zstd.compress(data, level);
+    } catch (ZstdException e) {
+      throw new SerializationException("Failed to compress Zstd value.", e);
+    }
+  }
+
+  @Override
+  public byte[] decompress(byte[] data, int offset, int length) {
+    long size = Zstd.getFrameContentSize(data, offset, length);
+    if (size < 0 || size > Integer.MAX_VALUE) {
+      throw new SerializationException("Failed to decompress Zstd value, invalid content size " + size + ".");
+    }
+
+    try {
+      byte[] decompressed = new byte[(int) size];
+      long decompressedSize = Zstd.decompressByteArray(decompressed, 0, decompressed.length, data, offset, length);
+      if (Zstd.isError(decompressedSize)) {
+        throw new SerializationException("Failed to decompress Zstd value, " + Zstd.getErrorName(decompressedSize) + ".");
+      }
+      if (decompressedSize != size) {
+        throw new SerializationException("Failed to decompress Zstd value, expected " + size + " bytes but got " + decompressedSize + ".");
+      }
+      return decompressed;
+    } catch (ZstdException e) {
+      throw new SerializationException("Failed to decompress Zstd value.", e);
+    }
+  }
+}
@@ -0,0 +1,394 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dasburo.spring.cache.dynamo.serializer;
+
+import com.github.luben.zstd.Zstd;
+import com.github.luben.zstd.ZstdDictCompress;
+import com.github.luben.zstd.ZstdDictDecompress;
+import com.github.luben.zstd.ZstdDictTrainer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@link DynamoSerializer} that compresses the data written by the parent serializer with a Zstandard dictionary
+ * trained from the values of the cache. Dictionaries shrink small values of the same shape far better than generic
+ * compression, which has little data to learn from in a single value.
+ * <p>
+ * Until a dictionary is available, values are sampled and written like by a {@link CompressingSerializer} using
+ * {@link CompressionCodec#zstd(int)}. Once enough samples have been collected, a dictionary is trained in the
+ * background and published to the {@link DictionaryStore}, where other nodes pick it up within the refresh interval.
+ * If another node has published a dictionary concurrently, that one is used instead. Values compressed with a
+ * dictionary start with the codec id {@literal 6} followed by the four byte id of the dictionary, readers load and
+ * keep dictionaries on demand. Dictionaries missing from the store are looked up again after the refresh interval.
+ * <p>
+ * The current dictionary is read from the store in the background, so writing a value never waits for the store.
+ * <p>
+ * Requires {@code com.github.luben:zstd-jni} on the classpath.
+ */
+public class ZstdDictionarySerializer<T> implements DynamoSerializer<T> {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ZstdDictionarySerializer.class);
+
+  /**
+   * Default size in bytes below which values are stored uncompressed.
+   */
+  public static final int DEFAULT_THRESHOLD = 64;
+
+  /**
+   * Default number of sampled values a dictionary is trained from.
+   */
+  public static final int DEFAULT_SAMPLE_COUNT = 1000;
+
+  /**
+   * Default maximum size in bytes of a trained dictionary.
+   */
+  public static final int DEFAULT_DICTIONARY_SIZE = 16 * 1024;
+
+  /**
+   * Default time the current dictionary is used before it is read from the store again.
+   */
+  public static final Duration DEFAULT_REFRESH_INTERVAL = Duration.ofMinutes(1);
+
+  static final byte ID = 6;
+
+  private static final int HEADER_SIZE = 1 + Integer.BYTES;
+  private static final int SAMPLE_BUFFER_FACTOR = 100;
+
+  private final DynamoSerializer<T> parent;
+  private final DictionaryStore dictionaryStore;
+  private final CompressingSerializer<byte[]> fallback;
+  private final int threshold;
+  private final double minSavings;
+  private final int level;
+  private final int sampleCount;
+  private final int dictionarySize;
+  private final long refreshIntervalNanos;
+
+  private final Map<Integer, ZstdDictDecompress> decompressors = new ConcurrentHashMap<>();
+  private final Map<Integer, Long> missingDictionaries = new ConcurrentHashMap<>();
+  private final AtomicBoolean refreshing = new AtomicBoolean();
+  private final AtomicBoolean training = new AtomicBoolean();
+
+  private volatile Dictionary dictionary;
+  private volatile Sampler sampler;
+  private volatile long refreshedAt;
+  private volatile boolean refreshed;
+
+  /**
+   * Creates a new {@link ZstdDictionarySerializer} using the default settings.
+   *
+   * @param parent          the parent {@link DynamoSerializer}. Must not be {@literal null}.
+   * @param dictionaryStore the store sharing dictionaries between nodes. Must not be {@literal null}.
+   */
+  public ZstdDictionarySerializer(DynamoSerializer<T> parent, DictionaryStore dictionaryStore) {
+    this(parent, dictionaryStore, DEFAULT_THRESHOLD, CompressingSerializer.DEFAULT_MIN_SAVINGS, CompressionCodec.ZSTD_DEFAULT_LEVEL,
+      DEFAULT_SAMPLE_COUNT, DEFAULT_DICTIONARY_SIZE, DEFAULT_REFRESH_INTERVAL);
+  }
+
+  /**
+   * Creates a new {@link ZstdDictionarySerializer}.
+   *
+   * @param parent          the parent {@link DynamoSerializer}. Must not be {@literal null}.
+   * @param dictionaryStore the store sharing dictionaries between nodes. Must not be {@literal null}.
+   * @param threshold       the size in bytes below which values are stored uncompressed.
+   * @param minSavings      the fraction of the size, between {@literal 0} and {@literal 1}, that compression must
+   *                        save for a value to be stored compressed.
+   * @param level           the Zstandard compression level.
+   * @param sampleCount     the number of sampled values a dictionary is trained from. Must be positive.
+   * @param dictionarySize  the maximum size in bytes of a trained dictionary. Must be positive.
+   * @param refreshInterval the time the current dictionary is used before it is read from the store again.
+   *                        Must not be {@literal null}.
+   */
+  public ZstdDictionarySerializer(DynamoSerializer<T> parent, DictionaryStore dictionaryStore, int threshold, double minSavings,
+                                  int level, int sampleCount, int dictionarySize, Duration refreshInterval) {
+    Assert.notNull(parent, "Parent serializer must not be null!");
+    Assert.notNull(dictionaryStore, "DictionaryStore must not be null!");
+    Assert.isTrue(sampleCount > 0, "SampleCount must be positive!");
+    Assert.isTrue(dictionarySize > 0, "DictionarySize must be positive!");
+    Assert.notNull(refreshInterval, "RefreshInterval must not be null!");
+
+    this.parent = parent;
+    this.dictionaryStore = dictionaryStore;
+    this.fallback = new CompressingSerializer<>(new BytesSerializer(), CompressionCodec.zstd(level), threshold, minSavings);
+    this.threshold = threshold;
+    this.minSavings = minSavings;
+    this.level = level;
+    this.sampleCount = sampleCount;
+    this.dictionarySize = dictionarySize;
+    this.refreshIntervalNanos = refreshInterval.toNanos();
+  }
+
+  @Override
+  public byte[] serialize(@Nullable T t) throws SerializationException {
+    byte[] data = parent.serialize(t);
+
+    if (SerializationUtils.isEmpty(data)) {
+      return null;
+    }
+
+    Dictionary current = getDictionary();
+    Sampler currentSampler = sampler;
+    if (currentSampler != null) {
+      sample(currentSampler, data);
+    }
+
+    if (current != null && data.length >= threshold) {
+      byte[] compressed = Zstd.compress(data, current.compress);
+      if (HEADER_SIZE + compressed.length <= data.length * (1 - minSavings)) {
+        byte[] bytes = new byte[HEADER_SIZE + compressed.length];
+        ByteBuffer.wrap(bytes).put(ID).putInt(current.id);
+        System.arraycopy(compressed, 0, bytes, HEADER_SIZE, compressed.length);
+        return bytes;
+      }
+    }
+    return fallback.serialize(data);
+  }
+
+  @Override
+  public T deserialize(@Nullable byte[] bytes) throws SerializationException {
+    if (SerializationUtils.isEmpty(bytes)) {
+      return null;
+    }
+
+    if (bytes[0] != ID) {
+      return parent.deserialize(fallback.deserialize(bytes));
+    }
+    if (bytes.length < HEADER_SIZE) {
+      throw new SerializationException("Failed to decompress Zstd value, dictionary id is missing.");
+    }
+
+    int id = ByteBuffer.wrap(bytes, 1, Integer.BYTES).getInt();
+    int length = bytes.length - HEADER_SIZE;
+    long size = Zstd.getFrameContentSize(bytes, HEADER_SIZE, length);
+    if (size < 0 || size > Integer.MAX_VALUE) {
+      throw new SerializationException("Failed to decompress Zstd value, invalid content size " + size + ".");
+    }
+
+    byte[] decompressed = new byte[(int) size];
+    long decompressedSize = Zstd.decompressFastDict(decompressed, 0, bytes, HEADER_SIZE, length, getDecompressor(id));
+    if (Zstd.isError(decompressedSize)) {
+      throw new SerializationException("Failed to decompress Zstd value, " + Zstd.getErrorName(decompressedSize) + ".");
+    }
+    if (decompressedSize != size) {
+      throw new SerializationException("Failed to decompress Zstd value, expected " + size + " bytes but got " + decompressedSize + ".");
+    }
+    return parent.deserialize(decompressed);
+  }
+
+  @Override
+  public boolean canSerialize(Class<?> type) {
+    return parent.canSerialize(type);
+  }
+
+  @Override
+  public Class<?> getTargetType() {
+    return parent.getTargetType();
+  }
+
+  /**
+   * Sample the next values and train a new dictionary from them, which replaces the current one once published.
+   * Values compressed with previous dictionaries stay readable.
+   */
+  public void retrain() {
+    sampler = new Sampler();
+  }
+
+  /**
+   * @return the id of the dictionary new values are compressed with, {@literal null} if there is none yet.
+   */
+  @Nullable
+  public Integer getDictionaryId() {
+    Dictionary current = dictionary;
+    return current != null ? current.id : null;
+  }
+
+  private ZstdDictDecompress getDecompressor(int id) {
+    ZstdDictDecompress decompressor = decompressors.get(id);
+    if (decompressor != null) {
+      return decompressor;
+    }
+
+    Long missingAt = missingDictionaries.get(id);
+    if (missingAt != null && System.nanoTime() - missingAt < refreshIntervalNanos) {
+      throw new SerializationException("Failed to decompress Zstd value, dictionary " + id + " does not exist.");
+    }
+
+    byte[] content = dictionaryStore.get(id);
+    if (content == null) {
+      missingDictionaries.put(id, System.nanoTime());
+      throw new SerializationException("Failed to decompress Zstd value, dictionary " + id + " does not exist.");
+    }
+    missingDictionaries.remove(id);
+    return decompressors.computeIfAbsent(id, key -> new ZstdDictDecompress(content));
+  }
+
+  /**
+   * @return the dictionary to compress with. If the current one is due for refresh, it is read from the store in the
+   * background.
+   */
+  @Nullable
+  private Dictionary getDictionary() {
+    if (refreshed && System.nanoTime() - refreshedAt < refreshIntervalNanos) {
+      return dictionary;
+    }
+    if (refreshing.compareAndSet(false, true)) {
+      TrainingExecutorHolder.EXECUTOR.execute(() -> {
+        try {
+          refresh();
+        } catch (RuntimeException e) {
+          LOGGER.warn("Could not read the current compression dictionary.", e);
+        } finally {
+          refreshedAt = System.nanoTime();
+          refreshed = true;
+          refreshing.set(false);
+        }
+      });
+    }
+    return dictionary;
+  }
+
+  private void refresh() {
+    Dictionary local = dictionary;
+    DictionaryStore.CurrentDictionary current = dictionaryStore.current();
+
+    if (current == null && local != null) {
+      // the dictionary has been removed from the store, e.g. by clearing the table, while values using it may still
+      // be written by this node
+      current = dictionaryStore.publish(null, local.id, local.content);
+    }
+    if (current != null) {
+      adopt(current, local != null && local.id == current.getId() ? local.content : null);
+    } else if (sampler == null && !training.get()) {
+      sampler = new Sampler();
+    }
+  }
+
+  private void adopt(DictionaryStore.CurrentDictionary current, @Nullable byte[] content) {
+    Dictionary local = dictionary;
+    if (local != null && local.id == current.getId()) {
+      return;
+    }
+
+    byte[] dictionaryContent = content != null ? content : dictionaryStore.get(current.getId());
+    if (dictionaryContent == null) {
+      LOGGER.warn("Compression dictionary {} does not exist.", current.getId());
+      return;
+    }
+    dictionary = new Dictionary(current, dictionaryContent, level);
+    LOGGER.debug("Compressing with dictionary {} of version {}.", current.getId(), current.getVersion());
+  }
+
+  private void sample(Sampler currentSampler, byte[] data) {
+    if (currentSampler.add(data) && training.compareAndSet(false, true)) {
+      sampler = null;
+      TrainingExecutorHolder.EXECUTOR.execute(() -> train(currentSampler));
+    }
+  }
+
+  private void train(Sampler currentSampler) {
+    try {
+      byte[] content = currentSampler.trainer.trainSamples();
+      int id = (int) Zstd.getDictIdFromDict(content);
+      Dictionary local = dictionary;
+
+      DictionaryStore.CurrentDictionary current = dictionaryStore.publish(local != null ? local.current : null, id, content);
+      if (current != null) {
+        adopt(current, current.getId() == id ? content : null);
+      }
+      LOGGER.debug("Trained dictionary {} from {} samples.", id, currentSampler.count.get());
+    } catch (RuntimeException e) {
+      LOGGER.warn("Could not train a compression dictionary, sampling again.", e);
+      if (dictionary == null) {
+        sampler = new Sampler();
+      }
+    } finally {
+      training.set(false);
+    }
+  }
+
+  /**
+   * A dictionary prepared for compression.
+   */
+  private static final class Dictionary {
+
+    private final DictionaryStore.CurrentDictionary current;
+    private final int id;
+    private final byte[] content;
+    private final ZstdDictCompress compress;
+
+    private Dictionary(DictionaryStore.CurrentDictionary current, byte[] content, int level) {
+      this.current = current;
+      this.id = current.getId();
+      this.content = content;
+      this.compress = new ZstdDictCompress(content, level);
+    }
+  }
+
+  /**
+   * Collects sampled values until enough have been gathered for training.
+   */
+  private final class Sampler {
+
+    private final ZstdDictTrainer trainer = new ZstdDictTrainer(dictionarySize * SAMPLE_BUFFER_FACTOR, dictionarySize);
+    private final AtomicInteger count = new AtomicInteger();
+
+    /**
+     * @return {@literal true} if enough samples have been collected.
+     */
+    private boolean add(byte[] data) {
+      return !trainer.addSample(data) || count.incrementAndGet() >= sampleCount;
+    }
+  }
+
+  /**
+   * Passes binary data through unchanged.
+   */
+  private static final class BytesSerializer implements DynamoSerializer<byte[]> {
+
+    @Override
+    public byte[] serialize(@Nullable byte[] bytes) {
+      return bytes;
+    }
+
+    @Override
+    public byte[] deserialize(@Nullable byte[] bytes) {
+      return bytes;
+    }
+  }
+
+  /**
+   * Single daemon thread used to read and train dictionaries.
+   */
+  private static class TrainingExecutorHolder {
+
+    private static final ExecutorService EXECUTOR = Executors.newSingleThreadExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "dynamo-cache-dictionary-training");
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+}
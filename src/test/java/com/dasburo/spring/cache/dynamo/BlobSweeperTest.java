@@ -0,0 +1,164 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dasburo.spring.cache.dynamo;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static com.dasburo.spring.cache.dynamo.DefaultDynamoCacheWriter.ATTRIBUTE_BLOB_ID;
+import static com.dasburo.spring.cache.dynamo.DefaultDynamoCacheWriter.ATTRIBUTE_KEY;
+import static com.dasburo.spring.cache.dynamo.DefaultDynamoCacheWriter.ATTRIBUTE_VALUE;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Integration tests for values offloaded to a {@link BlobStore} and removed by the {@link BlobSweeper}.
+ */
+@ExtendWith({SpringExtension.class, TestDbCreationExtension.class})
+@ContextConfiguration(classes = TestConfiguration.class)
+public class BlobSweeperTest {
+
+  private static final String CACHE_NAME = "blobs";
+  private static final Duration TTL = Duration.ofMinutes(1);
+  private static final int BLOB_THRESHOLD = 1024;
+
+  @Autowired
+  private DynamoDbClient ddbClient;
+
+  @TempDir
+  Path directory;
+
+  private BlobStore blobStore;
+  private DynamoCacheWriter writer;
+
+  @BeforeEach
+  public void setup() {
+    blobStore = BlobStore.fileSystem(directory);
+    writer = DynamoCacheWriterBuilder.newInstance(ddbClient)
+      .withBlobStore(blobStore, BLOB_THRESHOLD)
+      .build();
+    writer.createIfNotExists(CACHE_NAME, TTL, 1L, 1L);
+    writer.clear(CACHE_NAME);
+  }
+
+  @Test
+  public void largeValueShouldBeOffloaded() {
+    byte[] large = randomBytes(10 * BLOB_THRESHOLD);
+    byte[] small = randomBytes(BLOB_THRESHOLD);
+
+    writer.put(CACHE_NAME, "large", large, TTL, null);
+    writer.put(CACHE_NAME, "small", small, TTL, null);
+
+    Map<String, AttributeValue> pointer = getItem("large");
+    assertFalse(pointer.containsKey(ATTRIBUTE_VALUE));
+    assertArrayEquals(large, blobStore.get(CACHE_NAME, pointer.get(ATTRIBUTE_BLOB_ID).s()));
+    assertFalse(getItem("small").containsKey(ATTRIBUTE_BLOB_ID));
+
+    assertArrayEquals(large, writer.get(CACHE_NAME, "large"));
+    assertArrayEquals(large, writer.lookup(CACHE_NAME, "large").getValue());
+    assertArrayEquals(large, writer.getAll(CACHE_NAME, Collections.singletonList("large")).get("large"));
+    assertArrayEquals(large, writer.putIfAbsent(CACHE_NAME, "large", small, TTL, null));
+    assertEquals(1, blobs().size());
+  }
+
+  @Test
+  public void blobNotMatchingChecksumShouldBeAbsent() {
+    writer.put(CACHE_NAME, "corrupt", randomBytes(10 * BLOB_THRESHOLD), TTL, null);
+    String blobId = getItem("corrupt").get(ATTRIBUTE_BLOB_ID).s();
+
+    blobStore.put(CACHE_NAME, blobId, randomBytes(10 * BLOB_THRESHOLD), null);
+
+    assertFalse(writer.lookup(CACHE_NAME, "corrupt").isPresent());
+    assertNull(writer.get(CACHE_NAME, "corrupt"));
+  }
+
+  @Test
+  public void putIfAbsentShouldReplacePointerToMissingBlob() {
+    writer.put(CACHE_NAME, "orphan", randomBytes(10 * BLOB_THRESHOLD), TTL, null);
+    blobStore.delete(CACHE_NAME, getItem("orphan").get(ATTRIBUTE_BLOB_ID).s());
+    byte[] value = randomBytes(10 * BLOB_THRESHOLD);
+
+    assertNull(writer.putIfAbsent(CACHE_NAME, "orphan", value, TTL, null));
+    assertArrayEquals(value, writer.get(CACHE_NAME, "orphan"));
+    assertEquals(1, blobs().size());
+  }
+
+  @Test
+  public void sweepShouldRemoveUnreferencedBlobs() {
+    byte[] value = randomBytes(10 * BLOB_THRESHOLD);
+    writer.put(CACHE_NAME, "overwritten", randomBytes(10 * BLOB_THRESHOLD), TTL, null);
+    writer.put(CACHE_NAME, "overwritten", value, TTL, null);
+    writer.put(CACHE_NAME, "removed", randomBytes(10 * BLOB_THRESHOLD), TTL, null);
+    writer.remove(CACHE_NAME, "removed");
+    assertEquals(3, blobs().size());
+
+    assertEquals(0, new BlobSweeper(ddbClient, blobStore).sweep(CACHE_NAME));
+    assertEquals(2, new BlobSweeper(ddbClient, blobStore, Duration.ZERO).sweep(CACHE_NAME));
+
+    List<BlobStore.BlobInfo> blobs = blobs();
+    assertEquals(1, blobs.size());
+    assertEquals(getItem("overwritten").get(ATTRIBUTE_BLOB_ID).s(), blobs.get(0).getId());
+    assertNotNull(blobs.get(0).getExpiresAt());
+    assertArrayEquals(value, writer.get(CACHE_NAME, "overwritten"));
+  }
+
+  @Test
+  public void sweepShouldRemoveExpiredBlobs() {
+    blobStore.put(CACHE_NAME, "expired", randomBytes(16), Instant.now().minusSeconds(1));
+
+    assertEquals(1, new BlobSweeper(ddbClient, blobStore).sweep(CACHE_NAME));
+    assertTrue(blobs().isEmpty());
+  }
+
+  private List<BlobStore.BlobInfo> blobs() {
+    List<BlobStore.BlobInfo> blobs = new ArrayList<>();
+    blobStore.forEach(CACHE_NAME, blobs::add);
+    return blobs;
+  }
+
+  private Map<String, AttributeValue> getItem(String key) {
+    return ddbClient.getItem(GetItemRequest.builder()
+      .tableName(CACHE_NAME)
+      .key(Collections.singletonMap(ATTRIBUTE_KEY, AttributeValue.fromS(key)))
+      .build()).item();
+  }
+
+  private static byte[] randomBytes(int size) {
+    byte[] bytes = new byte[size];
+    new Random().nextBytes(bytes);
+    return bytes;
+  }
+}
@@ -0,0 +1,258 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dasburo.spring.cache.dynamo;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.Cache;
+import software.amazon.awssdk.core.SdkBytes;
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.DescribeTableRequest;
+import software.amazon.awssdk.services.dynamodb.model.DescribeTableResponse;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.GetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.KeysAndAttributes;
+import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.PutItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.ResourceNotFoundException;
+import software.amazon.awssdk.services.dynamodb.model.ScanRequest;
+import software.amazon.awssdk.services.dynamodb.model.ScanResponse;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static com.dasburo.spring.cache.dynamo.DefaultDynamoCacheWriter.ATTRIBUTE_CHUNKS;
+import static com.dasburo.spring.cache.dynamo.DefaultDynamoCacheWriter.ATTRIBUTE_KEY;
+import static com.dasburo.spring.cache.dynamo.DefaultDynamoCacheWriter.ATTRIBUTE_VALUE;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link DefaultAsyncDynamoCacheWriter} and {@link AsyncDynamoCacheWriterAdapter} against a mocked
+ * {@link DynamoDbAsyncClient}.
+ */
+@ExtendWith(MockitoExtension.class)
+public class DefaultAsyncDynamoCacheWriterTest {
+
+  private static final String CACHE_NAME = "cache";
+
+  @Mock
+  private DynamoDbAsyncClient dynamoTemplate;
+
+  @Test
+  public void getShouldCompleteWithValue() {
+    when(dynamoTemplate.getItem(any(GetItemRequest.class)))
+      .thenReturn(CompletableFuture.completedFuture(GetItemResponse.builder().item(item("key", "value")).build()));
+
+    AsyncDynamoCacheWriter writer = AsyncDynamoCacheWriter.nonLockingAsyncDynamoCacheWriter(dynamoTemplate);
+
+    assertArrayEquals("value".getBytes(), writer.get(CACHE_NAME, "key").join());
+  }
+
+  @Test
+  public void putIfAbsentShouldPutMissingKey() {
+    when(dynamoTemplate.putItem(any(PutItemRequest.class)))
+      .thenReturn(CompletableFuture.completedFuture(PutItemResponse.builder().build()));
+
+    AsyncDynamoCacheWriter writer = AsyncDynamoCacheWriter.nonLockingAsyncDynamoCacheWriter(dynamoTemplate);
+
+    assertNull(writer.putIfAbsent(CACHE_NAME, "key", "value".getBytes(), null, null).join());
+    verify(dynamoTemplate, times(1)).putItem(any(PutItemRequest.class));
+    verify(dynamoTemplate, never()).getItem(any(GetItemRequest.class));
+  }
+
+  @Test
+  public void putIfAbsentShouldReturnExistingValue() {
+    CompletableFuture<PutItemResponse> failed = new CompletableFuture<>();
+    failed.completeExceptionally(ConditionalCheckFailedException.builder().item(item("key", "existing")).build());
+    when(dynamoTemplate.putItem(any(PutItemRequest.class))).thenReturn(failed);
+
+    AsyncDynamoCacheWriter writer = AsyncDynamoCacheWriter.nonLockingAsyncDynamoCacheWriter(dynamoTemplate);
+
+    assertArrayEquals("existing".getBytes(), writer.putIfAbsent(CACHE_NAME, "key", "value".getBytes(), null, null).join());
+    verify(dynamoTemplate, never()).getItem(any(GetItemRequest.class));
+  }
+
+  @Test
+  public void getAllShouldRetryUnprocessedKeys() {
+    when(dynamoTemplate.batchGetItem(any(BatchGetItemRequest.class)))
+      .thenReturn(CompletableFuture.completedFuture(BatchGetItemResponse.builder()
+        .responses(Collections.singletonMap(CACHE_NAME, Collections.singletonList(item("key1", "value1"))))
+        .unprocessedKeys(Collections.singletonMap(CACHE_NAME, KeysAndAttributes.builder()
+          .keys(Collections.singletonList(Collections.singletonMap(ATTRIBUTE_KEY, AttributeValue.fromS("key2"))))
+          .build()))
+        .build()))
+      .thenReturn(CompletableFuture.completedFuture(BatchGetItemResponse.builder()
+        .responses(Collections.singletonMap(CACHE_NAME, Collections.singletonList(item("key2", "value2"))))
+        .build()));
+
+    AsyncDynamoCacheWriter writer = AsyncDynamoCacheWriter.nonLockingAsyncDynamoCacheWriter(dynamoTemplate);
+    Map<String, byte[]> result = writer.getAll(CACHE_NAME, Arrays.asList("key1", "key2")).join();
+
+    assertEquals(2, result.size());
+    assertArrayEquals("value2".getBytes(), result.get("key2"));
+    verify(dynamoTemplate, times(2)).batchGetItem(any(BatchGetItemRequest.class));
+  }
+
+  @Test
+  public void cacheGetAllShouldBatchThroughAdapter() {
+    when(dynamoTemplate.describeTable(any(DescribeTableRequest.class)))
+      .thenReturn(CompletableFuture.completedFuture(DescribeTableResponse.builder().build()));
+    when(dynamoTemplate.batchGetItem(any(BatchGetItemRequest.class)))
+      .thenReturn(CompletableFuture.completedFuture(BatchGetItemResponse.builder()
+        .responses(Collections.singletonMap(CACHE_NAME, Arrays.asList(item("key1", "value1"), item("key2", "value2"))))
+        .build()));
+
+    DynamoCache cache = new DynamoCache(CACHE_NAME,
+      new AsyncDynamoCacheWriterAdapter(AsyncDynamoCacheWriter.nonLockingAsyncDynamoCacheWriter(dynamoTemplate)));
+    Map<String, Cache.ValueWrapper> result = cache.getAll(Arrays.asList("key1", "key2", "key3"));
+
+    assertEquals(2, result.size());
+    assertEquals("value1", result.get("key1").get());
+    assertEquals("value2", result.get("key2").get());
+    verify(dynamoTemplate, times(1)).batchGetItem(any(BatchGetItemRequest.class));
+    verify(dynamoTemplate, never()).getItem(any(GetItemRequest.class));
+  }
+
+  @Test
+  public void clearShouldDeleteInBatchesOfTwentyFive() {
+    List<Map<String, AttributeValue>> items = IntStream.range(0, 60)
+      .mapToObj(i -> Collections.singletonMap(ATTRIBUTE_KEY, AttributeValue.fromS("key" + i)))
+      .collect(Collectors.toList());
+    when(dynamoTemplate.scan(any(ScanRequest.class)))
+      .thenReturn(CompletableFuture.completedFuture(ScanResponse.builder().items(items).build()));
+    when(dynamoTemplate.batchWriteItem(any(BatchWriteItemRequest.class)))
+      .thenReturn(CompletableFuture.completedFuture(BatchWriteItemResponse.builder().build()));
+
+    AsyncDynamoCacheWriter writer = AsyncDynamoCacheWriter.nonLockingAsyncDynamoCacheWriter(dynamoTemplate);
+    writer.clear(CACHE_NAME).join();
+
+    ArgumentCaptor<BatchWriteItemRequest> captor = ArgumentCaptor.forClass(BatchWriteItemRequest.class);
+    verify(dynamoTemplate, times(3)).batchWriteItem(captor.capture());
+    assertEquals(60, captor.getAllValues().stream()
+      .mapToInt(request -> request.requestItems().get(CACHE_NAME).size())
+      .sum());
+  }
+
+  @Test
+  public void clearShouldKeepLeasesAndMetadata() {
+    Map<String, AttributeValue> lease = new HashMap<>();
+    lease.put(ATTRIBUTE_KEY, AttributeValue.fromS("key~lock"));
+    lease.put(LeaseLock.ATTRIBUTE_LOCK_OWNER, AttributeValue.fromS("owner"));
+    List<Map<String, AttributeValue>> items = Arrays.asList(
+      Collections.singletonMap(ATTRIBUTE_KEY, AttributeValue.fromS("key")),
+      Collections.singletonMap(ATTRIBUTE_KEY, AttributeValue.fromS("key~chunk0")),
+      lease,
+      Collections.singletonMap(ATTRIBUTE_KEY, AttributeValue.fromS("~clear")),
+      Collections.singletonMap(ATTRIBUTE_KEY, AttributeValue.fromS("~dictionary")));
+    when(dynamoTemplate.scan(any(ScanRequest.class)))
+      .thenReturn(CompletableFuture.completedFuture(ScanResponse.builder().items(items).build()));
+    when(dynamoTemplate.batchWriteItem(any(BatchWriteItemRequest.class)))
+      .thenReturn(CompletableFuture.completedFuture(BatchWriteItemResponse.builder().build()));
+
+    AsyncDynamoCacheWriter writer = AsyncDynamoCacheWriter.nonLockingAsyncDynamoCacheWriter(dynamoTemplate);
+    writer.clear(CACHE_NAME).join();
+
+    ArgumentCaptor<BatchWriteItemRequest> captor = ArgumentCaptor.forClass(BatchWriteItemRequest.class);
+    verify(dynamoTemplate).batchWriteItem(captor.capture());
+    assertEquals(Arrays.asList("key", "key~chunk0"), captor.getValue().requestItems().get(CACHE_NAME).stream()
+      .map(request -> request.deleteRequest().key().get(ATTRIBUTE_KEY).s())
+      .collect(Collectors.toList()));
+  }
+
+  @Test
+  public void chunkedItemShouldBeRejected() {
+    Map<String, AttributeValue> manifest = new HashMap<>();
+    manifest.put(ATTRIBUTE_KEY, AttributeValue.fromS("key"));
+    manifest.put(ATTRIBUTE_CHUNKS, AttributeValue.fromN("3"));
+    when(dynamoTemplate.getItem(any(GetItemRequest.class)))
+      .thenReturn(CompletableFuture.completedFuture(GetItemResponse.builder().item(manifest).build()));
+    CompletableFuture<PutItemResponse> failed = new CompletableFuture<>();
+    failed.completeExceptionally(ConditionalCheckFailedException.builder().item(manifest).build());
+    when(dynamoTemplate.putItem(any(PutItemRequest.class))).thenReturn(failed);
+
+    AsyncDynamoCacheWriterAdapter adapter = new AsyncDynamoCacheWriterAdapter(
+      AsyncDynamoCacheWriter.nonLockingAsyncDynamoCacheWriter(dynamoTemplate));
+
+    assertThrows(IllegalStateException.class, () -> adapter.get(CACHE_NAME, "key"));
+    assertThrows(IllegalStateException.class, () -> adapter.putIfAbsent(CACHE_NAME, "key", "value".getBytes(), null, null));
+  }
+
+  @Test
+  public void clearShouldIgnoreMissingTable() {
+    CompletableFuture<ScanResponse> failed = new CompletableFuture<>();
+    failed.completeExceptionally(ResourceNotFoundException.builder().message("missing").build());
+    when(dynamoTemplate.scan(any(ScanRequest.class))).thenReturn(failed);
+
+    AsyncDynamoCacheWriter writer = AsyncDynamoCacheWriter.nonLockingAsyncDynamoCacheWriter(dynamoTemplate);
+
+    assertNull(writer.clear(CACHE_NAME).join());
+  }
+
+  @Test
+  public void getShouldCompleteWithNullIfAbsent() {
+    when(dynamoTemplate.getItem(any(GetItemRequest.class)))
+      .thenReturn(CompletableFuture.completedFuture(GetItemResponse.builder().build()));
+
+    AsyncDynamoCacheWriter writer = AsyncDynamoCacheWriter.nonLockingAsyncDynamoCacheWriter(dynamoTemplate);
+
+    assertNull(writer.get(CACHE_NAME, "key").join());
+    assertFalse(writer.lookup(CACHE_NAME, "key").join().isPresent());
+  }
+
+  @Test
+  public void adapterShouldRethrowCause() {
+    CompletableFuture<GetItemResponse> failed = new CompletableFuture<>();
+    failed.completeExceptionally(ResourceNotFoundException.builder().message("missing").build());
+    when(dynamoTemplate.getItem(any(GetItemRequest.class))).thenReturn(failed);
+
+    AsyncDynamoCacheWriterAdapter adapter = new AsyncDynamoCacheWriterAdapter(
+      AsyncDynamoCacheWriter.nonLockingAsyncDynamoCacheWriter(dynamoTemplate));
+
+    assertThrows(ResourceNotFoundException.class, () -> adapter.get(CACHE_NAME, "key"));
+    assertSame(dynamoTemplate, adapter.getAsyncCacheWriter().getNativeCacheWriter());
+  }
+
+  private static Map<String, AttributeValue> item(String key, String value) {
+    Map<String, AttributeValue> item = new HashMap<>();
+    item.put(ATTRIBUTE_KEY, AttributeValue.fromS(key));
+    item.put(ATTRIBUTE_VALUE, AttributeValue.fromB(SdkBytes.fromUtf8String(value)));
+    return item;
+  }
+}
@@ -0,0 +1,257 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dasburo.spring.cache.dynamo;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import software.amazon.awssdk.core.SdkBytes;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.GetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.KeysAndAttributes;
+import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.PutItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.ReturnValuesOnConditionCheckFailure;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static com.dasburo.spring.cache.dynamo.DefaultDynamoCacheWriter.ATTRIBUTE_KEY;
+import static com.dasburo.spring.cache.dynamo.DefaultDynamoCacheWriter.ATTRIBUTE_TTL;
+import static com.dasburo.spring.cache.dynamo.DefaultDynamoCacheWriter.ATTRIBUTE_VALUE;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link DefaultDynamoCacheWriter} against a mocked {@link DynamoDbClient}.
+ */
+@ExtendWith(MockitoExtension.class)
+public class DefaultDynamoCacheWriterTest {
+
+  private static final String CACHE_NAME = "cache";
+
+  @Mock
+  private DynamoDbClient dynamoTemplate;
+
+  @Test
+  public void getAllShouldRetryUnprocessedKeys() {
+    Map<String, AttributeValue> unprocessedKey = Collections.singletonMap(ATTRIBUTE_KEY, AttributeValue.fromS("key2"));
+
+    when(dynamoTemplate.batchGetItem(any(BatchGetItemRequest.class)))
+      .thenReturn(BatchGetItemResponse.builder()
+        .responses(Collections.singletonMap(CACHE_NAME, Collections.singletonList(item("key1", "value1", null))))
+        .unprocessedKeys(Collections.singletonMap(CACHE_NAME, KeysAndAttributes.builder()
+          .keys(Collections.singletonList(unprocessedKey))
+          .build()))
+        .build())
+      .thenReturn(BatchGetItemResponse.builder()
+        .responses(Collections.singletonMap(CACHE_NAME, Collections.singletonList(item("key2", "value2", null))))
+        .build());
+
+    DynamoCacheWriter writer = DynamoCacheWriter.nonLockingDynamoCacheWriter(dynamoTemplate);
+    Map<String, byte[]> result = writer.getAll(CACHE_NAME, Arrays.asList("key1", "key2"));
+
+    assertEquals(2, result.size());
+    assertArrayEquals("value1".getBytes(), result.get("key1"));
+    assertArrayEquals("value2".getBytes(), result.get("key2"));
+    verify(dynamoTemplate, times(2)).batchGetItem(any(BatchGetItemRequest.class));
+  }
+
+  @Test
+  public void getAllShouldSkipItemsPastTtl() {
+    when(dynamoTemplate.batchGetItem(any(BatchGetItemRequest.class)))
+      .thenReturn(BatchGetItemResponse.builder()
+        .responses(Collections.singletonMap(CACHE_NAME, Arrays.asList(
+          item("key1", "value1", Instant.now().plusSeconds(60)),
+          item("key2", "value2", Instant.now().minusSeconds(60)))))
+        .build());
+
+    DynamoCacheWriter writer = DynamoCacheWriter.nonLockingDynamoCacheWriter(dynamoTemplate);
+    Map<String, byte[]> result = writer.getAll(CACHE_NAME, Arrays.asList("key1", "key2"));
+
+    assertEquals(1, result.size());
+    assertFalse(result.containsKey("key2"));
+  }
+
+  @Test
+  public void getAllShouldSplitKeysIntoBatches() {
+    when(dynamoTemplate.batchGetItem(any(BatchGetItemRequest.class)))
+      .thenReturn(BatchGetItemResponse.builder().build());
+
+    List<String> keys = IntStream.range(0, 250).mapToObj(i -> "key" + i).collect(Collectors.toList());
+
+    DynamoCacheWriter writer = DynamoCacheWriter.nonLockingDynamoCacheWriter(dynamoTemplate);
+    writer.getAll(CACHE_NAME, keys);
+
+    verify(dynamoTemplate, times(3)).batchGetItem(any(BatchGetItemRequest.class));
+  }
+
+  @Test
+  public void getAllShouldContainNullValuesLikeDefaultImplementation() {
+    Instant ttl = Instant.now().plusSeconds(60);
+    Map<String, AttributeValue> nullItem = new HashMap<>();
+    nullItem.put(ATTRIBUTE_KEY, AttributeValue.fromS("key2"));
+    nullItem.put(ATTRIBUTE_VALUE, AttributeValue.fromNul(true));
+    Map<String, Map<String, AttributeValue>> items = new HashMap<>();
+    items.put("key1", item("key1", "value1", ttl));
+    items.put("key2", nullItem);
+
+    when(dynamoTemplate.batchGetItem(any(BatchGetItemRequest.class)))
+      .thenReturn(BatchGetItemResponse.builder()
+        .responses(Collections.singletonMap(CACHE_NAME, new ArrayList<>(items.values())))
+        .build());
+    when(dynamoTemplate.getItem(any(GetItemRequest.class))).thenAnswer(invocation -> {
+      GetItemRequest request = invocation.getArgument(0);
+      return GetItemResponse.builder().item(items.get(request.key().get(ATTRIBUTE_KEY).s())).build();
+    });
+
+    DynamoCacheWriter writer = DynamoCacheWriter.nonLockingDynamoCacheWriter(dynamoTemplate);
+    // runs the default implementations of the batch reads on top of the single key reads of the writer
+    DynamoCacheWriter defaults = mock(DynamoCacheWriter.class, invocation -> invocation.getMethod().getName().endsWith("All")
+      ? invocation.callRealMethod() : invocation.getMethod().invoke(writer, invocation.getArguments()));
+    List<String> keys = Arrays.asList("key1", "key2", "key3");
+
+    for (Map<String, byte[]> result : Arrays.asList(writer.getAll(CACHE_NAME, keys), defaults.getAll(CACHE_NAME, keys))) {
+      assertEquals(2, result.size());
+      assertArrayEquals("value1".getBytes(), result.get("key1"));
+      assertTrue(result.containsKey("key2"));
+      assertNull(result.get("key2"));
+    }
+    Map<String, DynamoCacheLookup> lookups = writer.lookupAll(CACHE_NAME, keys);
+    assertEquals(ttl.getEpochSecond(), lookups.get("key1").getExpiresAt().getEpochSecond());
+    assertFalse(lookups.containsKey("key3"));
+  }
+
+  @Test
+  public void reservedKeysShouldBeRejected() {
+    DynamoCacheWriter writer = DynamoCacheWriter.nonLockingDynamoCacheWriter(dynamoTemplate);
+
+    for (String key : Arrays.asList("~clear", "key~lock", "key~load", "key~chunk0")) {
+      assertThrows(IllegalArgumentException.class, () -> writer.put(CACHE_NAME, key, "value".getBytes(), null, null));
+      assertThrows(IllegalArgumentException.class, () -> writer.lookup(CACHE_NAME, key));
+      assertThrows(IllegalArgumentException.class, () -> writer.remove(CACHE_NAME, key));
+    }
+    assertFalse(DefaultDynamoCacheWriter.isReservedKey("key~chunk"));
+    assertFalse(DefaultDynamoCacheWriter.isReservedKey("key~"));
+  }
+
+  @Test
+  public void lookupShouldTellAbsentFromNullValue() {
+    Map<String, AttributeValue> nullItem = new HashMap<>();
+    nullItem.put(ATTRIBUTE_KEY, AttributeValue.fromS("key1"));
+    nullItem.put(ATTRIBUTE_VALUE, AttributeValue.fromNul(true));
+
+    when(dynamoTemplate.getItem(any(GetItemRequest.class)))
+      .thenReturn(GetItemResponse.builder().item(nullItem).build())
+      .thenReturn(GetItemResponse.builder().build());
+
+    DynamoCacheWriter writer = DynamoCacheWriter.nonLockingDynamoCacheWriter(dynamoTemplate);
+
+    DynamoCacheLookup present = writer.lookup(CACHE_NAME, "key1");
+    assertTrue(present.isPresent());
+    assertNull(present.getValue());
+
+    DynamoCacheLookup absent = writer.lookup(CACHE_NAME, "key2");
+    assertFalse(absent.isPresent());
+  }
+
+  @Test
+  public void lookupShouldReportExpiration() {
+    Instant ttl = Instant.now().plusSeconds(60);
+    when(dynamoTemplate.getItem(any(GetItemRequest.class)))
+      .thenReturn(GetItemResponse.builder().item(item("key1", "value1", ttl)).build());
+
+    DynamoCacheWriter writer = DynamoCacheWriter.nonLockingDynamoCacheWriter(dynamoTemplate);
+    DynamoCacheLookup lookup = writer.lookup(CACHE_NAME, "key1");
+
+    assertArrayEquals("value1".getBytes(), lookup.getValue());
+    assertEquals(ttl.getEpochSecond(), lookup.getExpiresAt().getEpochSecond());
+  }
+
+  @Test
+  public void putIfAbsentShouldUseSingleConditionalPut() {
+    when(dynamoTemplate.putItem(any(PutItemRequest.class))).thenReturn(PutItemResponse.builder().build());
+
+    DynamoCacheWriter writer = DynamoCacheWriter.lockingDynamoCacheWriter(dynamoTemplate);
+
+    assertNull(writer.putIfAbsent(CACHE_NAME, "key1", "value1".getBytes(), null, null));
+
+    ArgumentCaptor<PutItemRequest> captor = ArgumentCaptor.forClass(PutItemRequest.class);
+    verify(dynamoTemplate, times(1)).putItem(captor.capture());
+    assertEquals("attribute_not_exists(#key) OR #ttl < :now", captor.getValue().conditionExpression());
+    assertEquals(ReturnValuesOnConditionCheckFailure.ALL_OLD, captor.getValue().returnValuesOnConditionCheckFailure());
+  }
+
+  @Test
+  public void putIfAbsentShouldReturnItemOfFailedCondition() {
+    when(dynamoTemplate.putItem(any(PutItemRequest.class)))
+      .thenThrow(ConditionalCheckFailedException.builder().item(item("key1", "existing", null)).build());
+
+    DynamoCacheWriter writer = DynamoCacheWriter.nonLockingDynamoCacheWriter(dynamoTemplate);
+
+    assertArrayEquals("existing".getBytes(), writer.putIfAbsent(CACHE_NAME, "key1", "value1".getBytes(), null, null));
+    verify(dynamoTemplate, never()).getItem(any(GetItemRequest.class));
+  }
+
+  @Test
+  public void putIfAbsentShouldReadExistingValueIfNotReturned() {
+    when(dynamoTemplate.putItem(any(PutItemRequest.class)))
+      .thenThrow(ConditionalCheckFailedException.builder().build());
+    when(dynamoTemplate.getItem(any(GetItemRequest.class)))
+      .thenReturn(GetItemResponse.builder().item(item("key1", "existing", null)).build());
+
+    DynamoCacheWriter writer = DynamoCacheWriter.nonLockingDynamoCacheWriter(dynamoTemplate);
+
+    assertArrayEquals("existing".getBytes(), writer.putIfAbsent(CACHE_NAME, "key1", "value1".getBytes(), null, null));
+
+    ArgumentCaptor<GetItemRequest> captor = ArgumentCaptor.forClass(GetItemRequest.class);
+    verify(dynamoTemplate, times(1)).getItem(captor.capture());
+    assertTrue(captor.getValue().consistentRead());
+  }
+
+  private static Map<String, AttributeValue> item(String key, String value, Instant ttl) {
+    Map<String, AttributeValue> item = new HashMap<>();
+    item.put(ATTRIBUTE_KEY, AttributeValue.fromS(key));
+    item.put(ATTRIBUTE_VALUE, AttributeValue.fromB(SdkBytes.fromUtf8String(value)));
+    if (ttl != null) {
+      item.put(ATTRIBUTE_TTL, AttributeValue.fromN(String.valueOf(ttl.getEpochSecond())));
+    }
+    return item;
+  }
+}
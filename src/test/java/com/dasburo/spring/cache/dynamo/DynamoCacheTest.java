@@ -22,6 +22,7 @@ import com.dasburo.spring.cache.dynamo.serializer.StringSerializer;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cache.Cache;
 import org.springframework.test.context.ContextConfiguration;
@@ -31,8 +32,21 @@ import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
 import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
 import software.amazon.awssdk.services.dynamodb.model.GetItemResponse;
 
+import java.nio.ByteBuffer;
 import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static java.util.Collections.singletonList;
 import static org.junit.jupiter.api.Assertions.*;
@@ -99,6 +113,22 @@ public class DynamoCacheTest {
     verify(writer, times(1)).clear(cache.getName());
   }
 
+  /**
+   * Test for {@link DynamoCache#clear()} with more entries than fit into a single delete batch.
+   */
+  @Test
+  public void clearShouldRemoveAllEntries() {
+    List<String> keys = new ArrayList<>();
+    for (int i = 0; i < 60; i++) {
+      cache.put("key" + i, "value" + i);
+      keys.add("key" + i);
+    }
+
+    cache.clear();
+
+    assertTrue(cache.getAll(keys).isEmpty());
+  }
+
   /**
    * Test for {@link DynamoCache#getName()}.
    */
@@ -327,6 +357,516 @@ public class DynamoCacheTest {
     assertEquals(address, addressCache.get(key).get());
   }
 
+  /**
+   * Test for {@link DynamoCache#get(Object, java.util.concurrent.Callable)} with concurrent callers.
+   */
+  @Test
+  public void getWithCallableShouldLoadOnceForConcurrentCallers() throws Exception {
+    final String key = "singleFlight";
+    final int callers = 8;
+    AtomicInteger loads = new AtomicInteger();
+    CountDownLatch release = new CountDownLatch(1);
+
+    ExecutorService executor = Executors.newFixedThreadPool(callers);
+    try {
+      List<Future<String>> results = new ArrayList<>();
+      for (int i = 0; i < callers; i++) {
+        results.add(executor.submit(() -> cache.get(key, () -> {
+          loads.incrementAndGet();
+          assertTrue(release.await(5, TimeUnit.SECONDS));
+          return "loaded";
+        })));
+      }
+      long deadline = System.currentTimeMillis() + 5000;
+      while (cache.getCoalescedLoadCount() < callers - 1 && System.currentTimeMillis() < deadline) {
+        Thread.sleep(10);
+      }
+      release.countDown();
+
+      for (Future<String> result : results) {
+        assertEquals("loaded", result.get(5, TimeUnit.SECONDS));
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    assertEquals(1, loads.get());
+    assertEquals(1, cache.getLoadCount());
+    assertEquals(callers - 1, cache.getCoalescedLoadCount());
+    verify(writer, times(1)).lookup(CACHE_NAME, key);
+    verify(writer, times(1)).put(eq(CACHE_NAME), eq(key), any(), any(), any());
+  }
+
+  /**
+   * Test for {@link DynamoCache#get(Object, java.util.concurrent.Callable)} with load leases on multiple nodes.
+   */
+  @Test
+  public void getWithCallableShouldLoadOnceAcrossNodes() throws Exception {
+    final String key = "leasedLoad";
+    DynamoCache node1 = new DynamoCache(CACHE_NAME, writer, loadLeaseConfig());
+    DynamoCache node2 = new DynamoCache(CACHE_NAME, writer, loadLeaseConfig());
+    CountDownLatch loading = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      Future<String> first = executor.submit(() -> node1.get(key, () -> {
+        loading.countDown();
+        assertTrue(release.await(5, TimeUnit.SECONDS));
+        return "node1";
+      }));
+      assertTrue(loading.await(5, TimeUnit.SECONDS));
+
+      new Thread(() -> {
+        try {
+          Thread.sleep(200);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        release.countDown();
+      }).start();
+      String second = node2.get(key, () -> {
+        throw new IllegalStateException("Why call the value loader while another node is loading?");
+      });
+
+      assertEquals("node1", first.get(5, TimeUnit.SECONDS));
+      assertEquals("node1", second);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Test for {@link DynamoCache#get(Object, java.util.concurrent.Callable)} with the load lease of a crashed node.
+   */
+  @Test
+  public void getWithCallableShouldTakeOverExpiredLoadLease() {
+    final String key = "expiredLoad";
+    LeaseLock crashed = new LeaseLock(ddbClient, Duration.ofMillis(300));
+    assertNotNull(crashed.tryAcquire(CACHE_NAME, key + DynamoCache.LOAD_LEASE_SUFFIX));
+
+    DynamoCache node = new DynamoCache(CACHE_NAME, writer, loadLeaseConfig());
+
+    assertEquals("loaded", node.get(key, () -> "loaded"));
+    assertEquals("loaded", node.get(key).get());
+  }
+
+  /**
+   * Test for {@link DynamoCache#get(Object, java.util.concurrent.Callable)} with two loaders of the same node.
+   */
+  @Test
+  public void getWithCallableShouldLoadOnceOnOneNode() throws Exception {
+    final String key = "leasedLocalLoad";
+    DynamoCacheConfiguration config = staleConfig();
+    config.setLoadLeaseDuration(Duration.ofSeconds(5));
+    DynamoCache node = new DynamoCache(CACHE_NAME, writer, config);
+    doReturn(staleLookup("stale", Duration.ofSeconds(5))).doCallRealMethod().when(writer).lookup(CACHE_NAME, key);
+    CountDownLatch loading = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+
+    // the first loader refreshes the stale value in the background while holding the load lease
+    assertEquals("stale", node.get(key, () -> {
+      loading.countDown();
+      assertTrue(release.await(5, TimeUnit.SECONDS));
+      return "refreshed";
+    }));
+    assertTrue(loading.await(5, TimeUnit.SECONDS));
+
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      Future<String> second = executor.submit(() -> node.get(key, () -> {
+        throw new IllegalStateException("Why call the value loader while another thread is loading?");
+      }));
+      Thread.sleep(200);
+      release.countDown();
+
+      assertEquals("refreshed", second.get(5, TimeUnit.SECONDS));
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private static DynamoCacheConfiguration loadLeaseConfig() {
+    DynamoCacheConfiguration config = DynamoCacheConfiguration.defaultCacheConfig();
+    config.setTtl(TTL);
+    config.setLoadLeaseDuration(Duration.ofSeconds(5));
+    return config;
+  }
+
+  /**
+   * Test for {@link DynamoCache#get(Object, java.util.concurrent.Callable)} within the stale-while-revalidate window.
+   */
+  @Test
+  public void getWithCallableShouldServeStaleValueAndRefresh() {
+    final String key = "staleRevalidate";
+    DynamoCache staleCache = new DynamoCache(CACHE_NAME, writer, staleConfig());
+    doReturn(staleLookup("stale", Duration.ofSeconds(5))).when(writer).lookup(CACHE_NAME, key);
+
+    assertEquals("stale", staleCache.get(key, () -> "fresh"));
+    verify(writer, timeout(5000)).put(eq(CACHE_NAME), eq(key), eq(serializer.serialize("fresh")), eq(Duration.ofMinutes(6).plus(TTL)), any());
+  }
+
+  /**
+   * Test for {@link DynamoCache#get(Object, java.util.concurrent.Callable)} within the stale-if-error window.
+   */
+  @Test
+  public void getWithCallableShouldServeStaleValueIfLoaderFails() {
+    final String key = "staleError";
+    DynamoCache staleCache = new DynamoCache(CACHE_NAME, writer, staleConfig());
+    doReturn(staleLookup("stale", Duration.ofMinutes(2))).when(writer).lookup(CACHE_NAME, key);
+
+    assertEquals("stale", staleCache.get(key, () -> {
+      throw new IllegalStateException("backend down");
+    }));
+
+    doReturn(staleLookup("stale", Duration.ofMinutes(10))).when(writer).lookup(CACHE_NAME, key);
+    assertThrows(Cache.ValueRetrievalException.class, () -> staleCache.get(key, () -> {
+      throw new IllegalStateException("backend down");
+    }));
+  }
+
+  /**
+   * Test for {@link DynamoCache#get(Object)} with a stale entry.
+   */
+  @Test
+  public void getShouldNotReturnStaleValue() {
+    final String key = "staleGet";
+    DynamoCache staleCache = new DynamoCache(CACHE_NAME, writer, staleConfig());
+    doReturn(staleLookup("stale", Duration.ofSeconds(5))).when(writer).lookup(CACHE_NAME, key);
+
+    assertNull(staleCache.get(key));
+  }
+
+  /**
+   * Test for {@link DynamoCache#put(Object, Object)} with a soft TTL.
+   */
+  @Test
+  public void putShouldStoreSoftTtl() {
+    final String key = "softTtl";
+    DynamoCache staleCache = new DynamoCache(CACHE_NAME, writer, staleConfig());
+
+    staleCache.put(key, "value");
+
+    GetItemResponse response = ddbClient.getItem(GetItemRequest.builder()
+      .tableName(CACHE_NAME)
+      .key(Collections.singletonMap(DefaultDynamoCacheWriter.ATTRIBUTE_KEY, AttributeValue.fromS(key)))
+      .build());
+    long softTtl = Long.parseLong(response.item().get(DefaultDynamoCacheWriter.ATTRIBUTE_SOFT_TTL).n());
+    long ttl = Long.parseLong(response.item().get(DefaultDynamoCacheWriter.ATTRIBUTE_TTL).n());
+    assertEquals(Duration.ofMinutes(6).getSeconds(), ttl - softTtl, 1);
+    assertEquals("value", staleCache.get(key).get());
+  }
+
+  /**
+   * Test for {@link DynamoCache#get(Object, java.util.concurrent.Callable)} while a stale entry is refreshed.
+   */
+  @Test
+  public void getWithCallableShouldShareRefresh() throws Exception {
+    final String key = "sharedRefresh";
+    DynamoCache staleCache = new DynamoCache(CACHE_NAME, writer, staleConfig());
+    doReturn(staleLookup("stale", Duration.ofSeconds(5))).doCallRealMethod().when(writer).lookup(CACHE_NAME, key);
+    CountDownLatch loading = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+
+    assertEquals("stale", staleCache.get(key, () -> {
+      loading.countDown();
+      assertTrue(release.await(5, TimeUnit.SECONDS));
+      return "refreshed";
+    }));
+    assertTrue(loading.await(5, TimeUnit.SECONDS));
+
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      Future<String> second = executor.submit(() -> staleCache.get(key, () -> {
+        throw new IllegalStateException("Why call the value loader while the entry is refreshed?");
+      }));
+      Thread.sleep(200);
+      release.countDown();
+
+      assertEquals("refreshed", second.get(5, TimeUnit.SECONDS));
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Test for {@link DynamoCache#get(Object, java.util.concurrent.Callable)} refreshing a stale entry while the flight
+   * serving the stale value is still open.
+   */
+  @Test
+  public void getWithCallableShouldRefreshAfterStaleFlight() throws Exception {
+    final String key = "refreshAfterFlight";
+    AtomicBoolean holdFlight = new AtomicBoolean(true);
+    CountDownLatch deserializing = new CountDownLatch(1);
+    CountDownLatch releaseFlight = new CountDownLatch(1);
+    DynamoCacheConfiguration config = staleConfig();
+    config.setSerializer(new StringSerializer() {
+      @Override
+      public String deserializeFromBuffer(ByteBuffer buffer) {
+        if (holdFlight.compareAndSet(true, false)) {
+          deserializing.countDown();
+          try {
+            assertTrue(releaseFlight.await(5, TimeUnit.SECONDS));
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+        }
+        return super.deserializeFromBuffer(buffer);
+      }
+    });
+    DynamoCache staleCache = new DynamoCache(CACHE_NAME, writer, config);
+    doReturn(staleLookup("stale", Duration.ofSeconds(5))).doCallRealMethod().when(writer).lookup(CACHE_NAME, key);
+    CountDownLatch loaded = new CountDownLatch(1);
+
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      Future<String> caller = executor.submit(() -> staleCache.get(key, () -> {
+        loaded.countDown();
+        return "refreshed";
+      }));
+      assertTrue(deserializing.await(5, TimeUnit.SECONDS));
+      releaseFlight.countDown();
+
+      assertEquals("stale", caller.get(5, TimeUnit.SECONDS));
+      assertTrue(loaded.await(5, TimeUnit.SECONDS));
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private static DynamoCacheConfiguration staleConfig() {
+    DynamoCacheConfiguration config = DynamoCacheConfiguration.defaultCacheConfig();
+    config.setTtl(TTL);
+    config.setStaleWhileRevalidate(Duration.ofMinutes(1));
+    config.setStaleIfError(Duration.ofMinutes(6));
+    return config;
+  }
+
+  private DynamoCacheLookup staleLookup(String value, Duration staleFor) {
+    Instant staleAt = Instant.now().minus(staleFor);
+    return DynamoCacheLookup.present(serializer.serialize(value), staleAt.plus(Duration.ofMinutes(6)), staleAt);
+  }
+
+  /**
+   * Test for {@link DynamoCache#get(Object, java.util.concurrent.Callable)} shortly before the expiry of an entry.
+   */
+  @Test
+  public void getWithCallableShouldReloadShortlyBeforeExpiry() {
+    final String key = "earlyExpiration";
+    DynamoCache earlyCache = new DynamoCache(CACHE_NAME, writer, earlyExpirationConfig(1.0));
+    doReturn(expiringLookup("cached", Duration.ofSeconds(1), Duration.ofDays(1))).when(writer).lookup(CACHE_NAME, key);
+
+    assertEquals("fresh", earlyCache.get(key, () -> "fresh"));
+    assertEquals(1, earlyCache.getEarlyExpirationCount());
+  }
+
+  /**
+   * Test for {@link DynamoCache#get(Object, java.util.concurrent.Callable)} with early expiration disabled.
+   */
+  @Test
+  public void getWithCallableShouldNotReloadEarlyWithoutBeta() {
+    final String key = "noEarlyExpiration";
+    DynamoCache earlyCache = new DynamoCache(CACHE_NAME, writer, earlyExpirationConfig(0));
+    doReturn(expiringLookup("cached", Duration.ofSeconds(1), Duration.ofDays(1))).when(writer).lookup(CACHE_NAME, key);
+
+    assertEquals("cached", earlyCache.get(key, () -> "fresh"));
+    assertEquals(0, earlyCache.getEarlyExpirationCount());
+  }
+
+  /**
+   * Test for {@link DynamoCache#get(Object, java.util.concurrent.Callable)} storing the load duration.
+   */
+  @Test
+  public void getWithCallableShouldStoreLoadDuration() {
+    final String key = "loadDuration";
+    DynamoCache earlyCache = new DynamoCache(CACHE_NAME, writer, earlyExpirationConfig(1.0));
+
+    earlyCache.get(key, () -> {
+      Thread.sleep(50);
+      return "value";
+    });
+
+    GetItemResponse response = ddbClient.getItem(GetItemRequest.builder()
+      .tableName(CACHE_NAME)
+      .key(Collections.singletonMap(DefaultDynamoCacheWriter.ATTRIBUTE_KEY, AttributeValue.fromS(key)))
+      .build());
+    assertTrue(Long.parseLong(response.item().get(DefaultDynamoCacheWriter.ATTRIBUTE_LOAD_DURATION).n()) >= 50);
+    assertTrue(writer.lookup(CACHE_NAME, key).getLoadDuration().toMillis() >= 50);
+  }
+
+  /**
+   * Test for {@link DynamoCache#put(Object, Object)} with a TTL jitter.
+   */
+  @Test
+  public void putShouldShortenTtlByJitter() {
+    DynamoCacheConfiguration config = DynamoCacheConfiguration.defaultCacheConfig();
+    config.setTtl(TTL);
+    config.setTtlJitter(Duration.ofSeconds(4));
+    DynamoCache jitterCache = new DynamoCache(CACHE_NAME, writer, config);
+
+    for (int i = 0; i < 10; i++) {
+      jitterCache.put("jitter" + i, "value");
+    }
+
+    ArgumentCaptor<Duration> ttls = ArgumentCaptor.forClass(Duration.class);
+    verify(writer, times(10)).put(eq(CACHE_NAME), startsWith("jitter"), any(), ttls.capture(), any());
+    for (Duration ttl : ttls.getAllValues()) {
+      assertTrue(ttl.compareTo(TTL.minusSeconds(4)) >= 0 && ttl.compareTo(TTL) <= 0);
+    }
+    assertTrue(ttls.getAllValues().stream().distinct().count() > 1);
+  }
+
+  private static DynamoCacheConfiguration earlyExpirationConfig(double beta) {
+    DynamoCacheConfiguration config = DynamoCacheConfiguration.defaultCacheConfig();
+    config.setTtl(TTL);
+    config.setEarlyExpirationBeta(beta);
+    return config;
+  }
+
+  private DynamoCacheLookup expiringLookup(String value, Duration expiresIn, Duration loadDuration) {
+    return DynamoCacheLookup.present(serializer.serialize(value), Instant.now().plus(expiresIn), null, loadDuration);
+  }
+
+  /**
+   * Test for {@link DynamoCache#getAll(java.util.Collection)}.
+   */
+  @Test
+  public void getAll() {
+    List<String> keys = new ArrayList<>();
+    for (int i = 0; i < 250; i++) {
+      keys.add("key" + i);
+      if (i % 2 == 0) {
+        cache.put("key" + i, "value" + i);
+      }
+    }
+    cache.put("nullKey", null);
+    keys.add("nullKey");
+
+    Map<String, Cache.ValueWrapper> result = cache.getAll(keys);
+
+    assertEquals(126, result.size());
+    assertEquals("value0", result.get("key0").get());
+    assertEquals("value248", result.get("key248").get());
+    assertFalse(result.containsKey("key1"));
+    assertNull(result.get("nullKey").get());
+  }
+
+  /**
+   * Test for {@link DynamoCache#getAll(java.util.Collection)}.
+   */
+  @Test
+  public void getAllWithoutKeys() {
+    assertTrue(cache.getAll(Collections.emptyList()).isEmpty());
+  }
+
+  @Test
+  public void getShouldBeServedFromNearCache() {
+    final String key = "key";
+    final String value = "value";
+
+    DynamoCacheConfiguration config = DynamoCacheConfiguration.defaultCacheConfig();
+    config.setTtl(TTL);
+    config.setNearCacheMaxSize(10);
+
+    Cache nearCachedCache = new DynamoCache(CACHE_NAME, writer, config);
+    nearCachedCache.put(key, value);
+    reset(writer);
+
+    assertNotNull(nearCachedCache.get(key));
+    assertEquals(value, nearCachedCache.get(key).get());
+    verify(writer, never()).lookup(CACHE_NAME, key);
+  }
+
+  @Test
+  public void getShouldPopulateNearCache() {
+    final String key = "key";
+    final String value = "value";
+
+    DynamoCacheConfiguration config = DynamoCacheConfiguration.defaultCacheConfig();
+    config.setTtl(TTL);
+    config.setNearCacheMaxSize(10);
+
+    cache.put(key, value);
+    Cache nearCachedCache = new DynamoCache(CACHE_NAME, writer, config);
+    reset(writer);
+
+    assertEquals(value, nearCachedCache.get(key).get());
+    assertEquals(value, nearCachedCache.get(key).get());
+    verify(writer, times(1)).lookup(CACHE_NAME, key);
+  }
+
+  @Test
+  public void putShouldExpireNearCacheWithJitteredTtl() throws InterruptedException {
+    DynamoCacheConfiguration config = DynamoCacheConfiguration.defaultCacheConfig();
+    config.setTtl(Duration.ofSeconds(2));
+    config.setTtlJitter(Duration.ofSeconds(1));
+    config.setNearCacheMaxSize(100);
+
+    Cache nearCachedCache = new DynamoCache(CACHE_NAME, writer, config);
+    for (int i = 0; i < 20; i++) {
+      nearCachedCache.put("jitter" + i, "value");
+    }
+    reset(writer);
+
+    // the TTL of each entry is shortened by up to a second, most entries have left the near cache by now
+    Thread.sleep(1600);
+    for (int i = 0; i < 20; i++) {
+      nearCachedCache.get("jitter" + i);
+    }
+    verify(writer, atLeastOnce()).lookup(eq(CACHE_NAME), startsWith("jitter"));
+  }
+
+  @Test
+  public void putIfAbsentShouldExpireNearCacheWithExistingEntry() throws InterruptedException {
+    final String key = "putIfAbsentNearCache";
+
+    DynamoCacheConfiguration config = DynamoCacheConfiguration.defaultCacheConfig();
+    config.setTtl(TTL);
+    config.setNearCacheMaxSize(10);
+
+    Cache nearCachedCache = new DynamoCache(CACHE_NAME, writer, config);
+    doReturn(DynamoCacheLookup.present(serializer.serialize("existing"), Instant.now().plusMillis(500)))
+      .when(writer).putIfAbsentLookup(eq(CACHE_NAME), eq(key), any(), any(), any());
+
+    assertEquals("existing", nearCachedCache.putIfAbsent(key, "value").get());
+    reset(writer);
+
+    // the existing entry has expired in DynamoDB, so it must have left the near cache as well
+    Thread.sleep(700);
+    assertNull(nearCachedCache.get(key));
+    verify(writer, times(1)).lookup(CACHE_NAME, key);
+  }
+
+  @Test
+  public void evictShouldInvalidateNearCache() {
+    final String key = "key";
+
+    DynamoCacheConfiguration config = DynamoCacheConfiguration.defaultCacheConfig();
+    config.setTtl(TTL);
+    config.setNearCacheMaxSize(10);
+
+    Cache nearCachedCache = new DynamoCache(CACHE_NAME, writer, config);
+    nearCachedCache.put(key, "value");
+    nearCachedCache.evict(key);
+
+    assertNull(nearCachedCache.get(key));
+  }
+
+  @Test
+  public void clearShouldInvalidateNearCache() {
+    final String key = "key";
+
+    DynamoCacheConfiguration config = DynamoCacheConfiguration.defaultCacheConfig();
+    config.setTtl(TTL);
+    config.setNearCacheMaxSize(10);
+
+    Cache nearCachedCache = new DynamoCache(CACHE_NAME, writer, config);
+    nearCachedCache.put(key, "value");
+    nearCachedCache.clear();
+
+    assertNull(nearCachedCache.get(key));
+  }
+
   @Test
   public void putWithRootAttributeConfigDoesNotInfluenceTheCoreFunctionality() {
     //given
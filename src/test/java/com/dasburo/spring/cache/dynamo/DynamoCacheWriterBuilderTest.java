@@ -0,0 +1,57 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dasburo.spring.cache.dynamo;
+
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Tests for {@link DynamoCacheWriterBuilder}.
+ */
+public class DynamoCacheWriterBuilderTest {
+
+  private final DynamoDbClient dynamoTemplate = mock(DynamoDbClient.class);
+
+  @Test
+  public void shouldBuildDefaultWriterWithoutOptions() {
+    assertTrue(DynamoCacheWriterBuilder.newInstance(dynamoTemplate).build() instanceof DefaultDynamoCacheWriter);
+  }
+
+  @Test
+  public void shouldBuildWriteBehindWriterWithBlobStore() {
+    DynamoCacheWriter writer = DynamoCacheWriterBuilder.newInstance(dynamoTemplate)
+      .withBlobStore(mock(BlobStore.class), 1024)
+      .withWriteBehind(10, Duration.ofSeconds(1))
+      .build();
+
+    assertTrue(writer instanceof WriteBehindDynamoCacheWriter);
+    ((WriteBehindDynamoCacheWriter) writer).destroy();
+  }
+
+  @Test
+  public void lockingShouldNotBeCombinedWithWriteBehind() {
+    DynamoCacheWriterBuilder builder = DynamoCacheWriterBuilder.newInstance(dynamoTemplate)
+      .withLocking()
+      .withWriteBehind(10, Duration.ofSeconds(1));
+
+    assertThrows(IllegalStateException.class, builder::build);
+  }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dasburo.spring.cache.dynamo;
+
+import com.dasburo.spring.cache.dynamo.serializer.DictionaryStore.CurrentDictionary;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Integration tests for {@link DynamoDictionaryStore}.
+ */
+@ExtendWith({SpringExtension.class, TestDbCreationExtension.class})
+@ContextConfiguration(classes = TestConfiguration.class)
+public class DynamoDictionaryStoreTest {
+
+  private static final String CACHE_NAME = "dictionaries";
+
+  @Autowired
+  private DynamoDbClient ddbClient;
+
+  @Autowired
+  private DynamoCacheWriter writer;
+
+  private DynamoDictionaryStore store;
+
+  @BeforeEach
+  public void setup() {
+    writer.createIfNotExists(CACHE_NAME, Duration.ofMinutes(1), 1L, 1L);
+    writer.clear(CACHE_NAME);
+    store = new DynamoDictionaryStore(ddbClient, CACHE_NAME);
+  }
+
+  @Test
+  public void publishShouldAdvanceVersion() {
+    assertNull(store.current());
+    assertNull(store.get(1));
+
+    CurrentDictionary first = store.publish(null, 1, new byte[]{1});
+    assertEquals(1, first.getVersion());
+    assertEquals(1, first.getId());
+
+    CurrentDictionary second = store.publish(first, -2, new byte[]{2});
+    assertEquals(2, second.getVersion());
+    assertEquals(-2, store.current().getId());
+    assertArrayEquals(new byte[]{1}, store.get(1));
+    assertArrayEquals(new byte[]{2}, store.get(-2));
+  }
+
+  @Test
+  public void concurrentPublishShouldReturnWinner() {
+    CurrentDictionary first = store.publish(null, 1, new byte[]{1});
+
+    assertEquals(1, store.publish(null, 2, new byte[]{2}).getId());
+    assertEquals(3, store.publish(first, 3, new byte[]{3}).getId());
+    assertEquals(3, store.publish(first, 4, new byte[]{4}).getId());
+    assertEquals(2, store.current().getVersion());
+  }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dasburo.spring.cache.dynamo;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for {@link FileSystemBlobStore}.
+ */
+public class FileSystemBlobStoreTest {
+
+  private static final String CACHE_NAME = "cache";
+
+  @TempDir
+  Path directory;
+
+  @Test
+  public void putShouldStoreBlob() {
+    BlobStore blobStore = BlobStore.fileSystem(directory);
+
+    blobStore.put(CACHE_NAME, "blob", "value".getBytes(), Instant.now().plus(Duration.ofMinutes(1)));
+    blobStore.put(CACHE_NAME, "empty", new byte[0], null);
+
+    assertArrayEquals("value".getBytes(), blobStore.get(CACHE_NAME, "blob"));
+    assertArrayEquals(new byte[0], blobStore.get(CACHE_NAME, "empty"));
+    assertNull(blobStore.get(CACHE_NAME, "missing"));
+
+    blobStore.delete(CACHE_NAME, "blob");
+    assertNull(blobStore.get(CACHE_NAME, "blob"));
+  }
+
+  @Test
+  public void expiredBlobShouldNotBeReturned() {
+    BlobStore blobStore = BlobStore.fileSystem(directory);
+    Instant expiresAt = Instant.now().minusSeconds(1);
+
+    blobStore.put(CACHE_NAME, "expired", "value".getBytes(), expiresAt);
+
+    assertNull(blobStore.get(CACHE_NAME, "expired"));
+    List<BlobStore.BlobInfo> blobs = new ArrayList<>();
+    blobStore.forEach(CACHE_NAME, blobs::add);
+    assertEquals(1, blobs.size());
+    assertEquals("expired", blobs.get(0).getId());
+    assertEquals(expiresAt.toEpochMilli(), blobs.get(0).getExpiresAt().toEpochMilli());
+  }
+
+  @Test
+  public void removeIncompleteShouldRemoveOldTemporaryFiles() throws Exception {
+    BlobStore blobStore = BlobStore.fileSystem(directory);
+    blobStore.put(CACHE_NAME, "blob", "value".getBytes(), null);
+    Path old = Files.createFile(directory.resolve(CACHE_NAME).resolve("old.tmp"));
+    Files.setLastModifiedTime(old, FileTime.from(Instant.now().minus(Duration.ofHours(1))));
+    Path recent = Files.createFile(directory.resolve(CACHE_NAME).resolve("recent.tmp"));
+
+    assertEquals(1, blobStore.removeIncomplete(CACHE_NAME, Instant.now().minus(Duration.ofMinutes(5))));
+
+    assertFalse(Files.exists(old));
+    assertTrue(Files.exists(recent));
+    assertArrayEquals("value".getBytes(), blobStore.get(CACHE_NAME, "blob"));
+  }
+
+  @Test
+  public void idsShouldNotEscapeTheDirectory() {
+    BlobStore blobStore = BlobStore.fileSystem(directory);
+
+    assertThrows(IllegalArgumentException.class, () -> blobStore.put(CACHE_NAME, "../blob", "value".getBytes(), null));
+    assertThrows(IllegalArgumentException.class, () -> blobStore.get("..", "blob"));
+  }
+}
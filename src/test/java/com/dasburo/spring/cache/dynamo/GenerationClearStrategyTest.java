@@ -0,0 +1,139 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dasburo.spring.cache.dynamo;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.GetItemResponse;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
+import static com.dasburo.spring.cache.dynamo.DefaultDynamoCacheWriter.ATTRIBUTE_KEY;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Integration tests for {@link GenerationClearStrategy}.
+ */
+@ExtendWith({SpringExtension.class, TestDbCreationExtension.class})
+@ContextConfiguration(classes = TestConfiguration.class)
+public class GenerationClearStrategyTest {
+
+  private static final String CACHE_NAME = "generation";
+
+  @Autowired
+  private DynamoDbClient ddbClient;
+
+  @BeforeEach
+  public void setup() {
+    DynamoCacheWriter.nonLockingDynamoCacheWriter(ddbClient).createIfNotExists(CACHE_NAME, Duration.ofMinutes(1), 1L, 1L);
+  }
+
+  @Test
+  public void clearShouldHideEntriesOfPreviousGenerations() {
+    DynamoCacheWriter writer = DynamoCacheWriterBuilder.newInstance(ddbClient).withClearStrategy(ClearStrategy.generation()).build();
+    writer.put(CACHE_NAME, "key1", "value1".getBytes(), Duration.ofMinutes(1), null);
+    writer.put(CACHE_NAME, "key2", "value2".getBytes(), Duration.ofMinutes(1), null);
+
+    Map<String, byte[]> values = writer.getAll(CACHE_NAME, Arrays.asList("key1", "key2"));
+    assertEquals(2, values.size());
+    assertArrayEquals("value1".getBytes(), values.get("key1"));
+
+    writer.clear(CACHE_NAME);
+
+    assertFalse(writer.lookup(CACHE_NAME, "key1").isPresent());
+    assertTrue(writer.getAll(CACHE_NAME, Arrays.asList("key1", "key2")).isEmpty());
+    assertNull(writer.putIfAbsent(CACHE_NAME, "key1", "value3".getBytes(), Duration.ofMinutes(1), null));
+    assertArrayEquals("value3".getBytes(), writer.get(CACHE_NAME, "key1"));
+  }
+
+  @Test
+  public void clearShouldNotDeleteItems() {
+    GenerationClearStrategy clearStrategy = (GenerationClearStrategy) ClearStrategy.generation();
+    DynamoCacheWriter writer = DynamoCacheWriterBuilder.newInstance(ddbClient).withClearStrategy(clearStrategy).build();
+    writer.put(CACHE_NAME, "kept", "value".getBytes(), Duration.ofMinutes(1), null);
+    String physicalKey = clearStrategy.getGeneration(ddbClient, CACHE_NAME) + ":kept";
+
+    writer.clear(CACHE_NAME);
+
+    assertTrue(ddbClient.getItem(GetItemRequest.builder()
+      .tableName(CACHE_NAME)
+      .key(Collections.singletonMap(ATTRIBUTE_KEY, AttributeValue.fromS(physicalKey)))
+      .build()).hasItem());
+  }
+
+  @Test
+  public void otherNodesShouldSeeClearAfterRefreshInterval() throws InterruptedException {
+    DynamoCacheWriter node1 = DynamoCacheWriterBuilder.newInstance(ddbClient).withClearStrategy(ClearStrategy.generation()).build();
+    DynamoCacheWriter node2 = DynamoCacheWriterBuilder.newInstance(ddbClient)
+      .withClearStrategy(ClearStrategy.generation(Duration.ofMillis(200)))
+      .build();
+    node1.put(CACHE_NAME, "shared", "value".getBytes(), Duration.ofMinutes(1), null);
+    assertTrue(node2.lookup(CACHE_NAME, "shared").isPresent());
+
+    node1.clear(CACHE_NAME);
+    assertFalse(node1.lookup(CACHE_NAME, "shared").isPresent());
+
+    Thread.sleep(300);
+
+    assertFalse(node2.lookup(CACHE_NAME, "shared").isPresent());
+  }
+
+  @Test
+  public void lowerGenerationReadShouldKeepHigherOneUntilNextRefresh() throws InterruptedException {
+    DynamoDbClient dynamoTemplate = mock(DynamoDbClient.class);
+    when(dynamoTemplate.getItem(any(GetItemRequest.class)))
+      .thenReturn(generationItem(5))
+      .thenReturn(generationItem(3));
+    GenerationClearStrategy clearStrategy = (GenerationClearStrategy) ClearStrategy.generation(Duration.ofMillis(200));
+
+    assertEquals(5, clearStrategy.getGeneration(dynamoTemplate, CACHE_NAME));
+    Thread.sleep(300);
+    assertEquals(5, clearStrategy.getGeneration(dynamoTemplate, CACHE_NAME));
+    assertEquals(5, clearStrategy.getGeneration(dynamoTemplate, CACHE_NAME));
+
+    verify(dynamoTemplate, times(2)).getItem(any(GetItemRequest.class));
+  }
+
+  @Test
+  public void refreshIntervalShouldBePositive() {
+    assertThrows(IllegalArgumentException.class, () -> ClearStrategy.generation(Duration.ZERO));
+  }
+
+  private static GetItemResponse generationItem(long generation) {
+    return GetItemResponse.builder()
+      .item(Collections.singletonMap(GenerationClearStrategy.ATTRIBUTE_GENERATION, AttributeValue.fromN(String.valueOf(generation))))
+      .build();
+  }
+}
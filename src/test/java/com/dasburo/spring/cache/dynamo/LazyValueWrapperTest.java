@@ -0,0 +1,85 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dasburo.spring.cache.dynamo;
+
+import com.dasburo.spring.cache.dynamo.serializer.SerializationException;
+import com.dasburo.spring.cache.dynamo.serializer.StringSerializer;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LazyValueWrapperTest {
+
+  @Test
+  public void valueShouldBeDeserializedOnceOnFirstAccess() {
+    CountingSerializer serializer = new CountingSerializer();
+    LazyValueWrapper wrapper = new LazyValueWrapper(serializer, ByteBuffer.wrap("value".getBytes(StandardCharsets.UTF_8)));
+
+    assertFalse(wrapper.isResolved());
+    assertEquals(0, serializer.count.get());
+
+    Object value = wrapper.get();
+    assertEquals("value", value);
+    assertSame(value, wrapper.get());
+    assertTrue(wrapper.isResolved());
+    assertEquals(1, serializer.count.get());
+  }
+
+  @Test
+  public void nullValueShouldBeMemoized() {
+    CountingSerializer serializer = new CountingSerializer();
+    LazyValueWrapper wrapper = new LazyValueWrapper(serializer, null);
+
+    assertNull(wrapper.get());
+    assertNull(wrapper.get());
+    assertTrue(wrapper.isResolved());
+    assertEquals(1, serializer.count.get());
+  }
+
+  @Test
+  public void failedDeserializationShouldBeRetried() {
+    CountingSerializer serializer = new CountingSerializer();
+    serializer.failures.set(1);
+    LazyValueWrapper wrapper = new LazyValueWrapper(serializer, ByteBuffer.wrap("value".getBytes(StandardCharsets.UTF_8)));
+
+    assertThrows(SerializationException.class, wrapper::get);
+    assertFalse(wrapper.isResolved());
+    assertEquals("value", wrapper.get());
+  }
+
+  private static class CountingSerializer extends StringSerializer {
+
+    private final AtomicInteger count = new AtomicInteger();
+    private final AtomicInteger failures = new AtomicInteger();
+
+    @Override
+    public String deserializeFromBuffer(ByteBuffer buffer) {
+      count.incrementAndGet();
+      if (failures.getAndDecrement() > 0) {
+        throw new SerializationException("Could not read value.");
+      }
+      return super.deserializeFromBuffer(buffer);
+    }
+  }
+}
@@ -0,0 +1,202 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dasburo.spring.cache.dynamo;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Integration tests for {@link LeaseLock}.
+ */
+@ExtendWith({SpringExtension.class, TestDbCreationExtension.class})
+@ContextConfiguration(classes = TestConfiguration.class)
+public class LeaseLockTest {
+
+  private static final String CACHE_NAME = "lease";
+
+  @Autowired
+  private DynamoDbClient ddbClient;
+
+  @BeforeEach
+  public void setup() {
+    DynamoCacheWriter writer = DynamoCacheWriter.nonLockingDynamoCacheWriter(ddbClient);
+    writer.createIfNotExists(CACHE_NAME, Duration.ZERO, 1L, 1L);
+    writer.clear(CACHE_NAME);
+  }
+
+  @Test
+  public void leaseShouldBeExclusive() {
+    LeaseLock first = new LeaseLock(ddbClient, Duration.ofMinutes(1));
+    LeaseLock second = new LeaseLock(ddbClient, Duration.ofMinutes(1));
+
+    String token = first.tryAcquire(CACHE_NAME, "exclusive");
+    assertNotNull(token);
+    assertNull(second.tryAcquire(CACHE_NAME, "exclusive"));
+    assertNull(first.tryAcquire(CACHE_NAME, "exclusive"));
+
+    first.release(CACHE_NAME, "exclusive", token);
+    token = second.tryAcquire(CACHE_NAME, "exclusive");
+    assertNotNull(token);
+    second.release(CACHE_NAME, "exclusive", token);
+  }
+
+  @Test
+  public void leaseShouldBeExclusiveBetweenThreadsOfOneInstance() throws Exception {
+    LeaseLock lock = new LeaseLock(ddbClient, Duration.ofMinutes(1));
+    String token = lock.tryAcquire(CACHE_NAME, "local");
+    assertNotNull(token);
+
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      Future<String> other = executor.submit(() -> lock.acquire(CACHE_NAME, "local", Duration.ofMillis(20)));
+      Thread.sleep(200);
+      assertFalse(other.isDone());
+
+      lock.release(CACHE_NAME, "local", token);
+      String otherToken = other.get(5, TimeUnit.SECONDS);
+      assertNotEquals(token, otherToken);
+      // a release with a token of a released lease must not remove the lease of the other thread
+      lock.release(CACHE_NAME, "local", token);
+      assertNull(lock.tryAcquire(CACHE_NAME, "local"));
+      lock.release(CACHE_NAME, "local", otherToken);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void unrelatedKeysShouldNotBlockEachOther() {
+    LeaseLock first = new LeaseLock(ddbClient, Duration.ofMinutes(1));
+    LeaseLock second = new LeaseLock(ddbClient, Duration.ofMinutes(1));
+
+    String firstToken = first.tryAcquire(CACHE_NAME, "unrelated1");
+    String secondToken = second.tryAcquire(CACHE_NAME, "unrelated2");
+    assertNotNull(firstToken);
+    assertNotNull(secondToken);
+
+    first.release(CACHE_NAME, "unrelated1", firstToken);
+    second.release(CACHE_NAME, "unrelated2", secondToken);
+  }
+
+  @Test
+  public void expiredLeaseShouldBeTakenOver() throws InterruptedException {
+    LeaseLock crashed = new LeaseLock(ddbClient, Duration.ofMillis(100));
+    LeaseLock second = new LeaseLock(ddbClient, Duration.ofMinutes(1));
+
+    String crashedToken = crashed.tryAcquire(CACHE_NAME, "stale");
+    assertNotNull(crashedToken);
+    assertNull(second.tryAcquire(CACHE_NAME, "stale"));
+
+    Thread.sleep(200);
+
+    String token = second.tryAcquire(CACHE_NAME, "stale");
+    assertNotNull(token);
+    // release of a lease that has been taken over must not remove the new one
+    crashed.release(CACHE_NAME, "stale", crashedToken);
+    assertNull(crashed.tryAcquire(CACHE_NAME, "stale"));
+    second.release(CACHE_NAME, "stale", token);
+  }
+
+  @Test
+  public void readsShouldNotWaitForLease() {
+    DynamoCacheWriter writer = DynamoCacheWriter.lockingDynamoCacheWriter(ddbClient);
+    writer.put(CACHE_NAME, "read", "value".getBytes(), null, null);
+
+    LeaseLock other = new LeaseLock(ddbClient, Duration.ofMinutes(1));
+    String token = other.tryAcquire(CACHE_NAME, "read");
+    assertNotNull(token);
+
+    assertTrue(writer.lookup(CACHE_NAME, "read").isPresent());
+    writer.put(CACHE_NAME, "write", "value".getBytes(), null, null);
+    other.release(CACHE_NAME, "read", token);
+  }
+
+  @Test
+  public void putShouldWaitForClear() throws Exception {
+    DynamoCacheWriter writer = DynamoCacheWriter.lockingDynamoCacheWriter(ddbClient);
+    LeaseLock clearing = new LeaseLock(ddbClient, Duration.ofMinutes(1));
+    String token = clearing.tryAcquire(CACHE_NAME, "~clear");
+    assertNotNull(token);
+
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      Future<?> put = executor.submit(() -> writer.put(CACHE_NAME, "cleared", "value".getBytes(), null, null));
+      Thread.sleep(200);
+      assertFalse(put.isDone());
+      assertFalse(writer.lookup(CACHE_NAME, "cleared").isPresent());
+
+      clearing.release(CACHE_NAME, "~clear", token);
+      put.get(5, TimeUnit.SECONDS);
+      assertTrue(writer.lookup(CACHE_NAME, "cleared").isPresent());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void putShouldWaitForClearTakingLongerThanLease() throws Exception {
+    CountDownLatch clearing = new CountDownLatch(1);
+    CountDownLatch finishClear = new CountDownLatch(1);
+    DynamoCacheWriter writer = DynamoCacheWriterBuilder.newInstance(ddbClient)
+      .withLocking(Duration.ofMillis(20), Duration.ofMillis(300))
+      .withClearStrategy((dynamoTemplate, name) -> {
+        clearing.countDown();
+        try {
+          finishClear.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        return 0;
+      })
+      .build();
+
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      Future<?> clear = executor.submit(() -> writer.clear(CACHE_NAME));
+      assertTrue(clearing.await(5, TimeUnit.SECONDS));
+
+      Future<?> put = executor.submit(() -> writer.put(CACHE_NAME, "renewed", "value".getBytes(), null, null));
+      // several lease durations, the lease must have been renewed in between
+      Thread.sleep(1000);
+      assertFalse(put.isDone());
+      assertFalse(writer.lookup(CACHE_NAME, "renewed").isPresent());
+
+      finishClear.countDown();
+      clear.get(5, TimeUnit.SECONDS);
+      put.get(5, TimeUnit.SECONDS);
+      assertTrue(writer.lookup(CACHE_NAME, "renewed").isPresent());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dasburo.spring.cache.dynamo;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class NearCacheTest {
+
+  @Test
+  public void putAndGet() {
+    NearCache nearCache = new NearCache(10, Duration.ZERO);
+    nearCache.put("key", "value");
+
+    Cache.ValueWrapper wrapper = nearCache.get("key");
+    assertNotNull(wrapper);
+    assertEquals("value", wrapper.get());
+  }
+
+  @Test
+  public void putAndGetNullValue() {
+    NearCache nearCache = new NearCache(10, Duration.ZERO);
+    nearCache.put("key", null);
+
+    Cache.ValueWrapper wrapper = nearCache.get("key");
+    assertNotNull(wrapper);
+    assertNull(wrapper.get());
+  }
+
+  @Test
+  public void shouldEvictLeastRecentlyUsedEntry() {
+    NearCache nearCache = new NearCache(2, Duration.ZERO);
+    nearCache.put("key1", "value1");
+    nearCache.put("key2", "value2");
+    nearCache.get("key1");
+    nearCache.put("key3", "value3");
+
+    assertEquals(2, nearCache.size());
+    assertNotNull(nearCache.get("key1"));
+    assertNull(nearCache.get("key2"));
+    assertNotNull(nearCache.get("key3"));
+  }
+
+  @Test
+  public void shouldExpireEntries() throws InterruptedException {
+    NearCache nearCache = new NearCache(10, Duration.ofMillis(50));
+    nearCache.put("key", "value");
+    assertNotNull(nearCache.get("key"));
+
+    Thread.sleep(100);
+
+    assertNull(nearCache.get("key"));
+    assertEquals(0, nearCache.size());
+  }
+
+  @Test
+  public void shouldNotOutliveItemExpiry() {
+    NearCache nearCache = new NearCache(10, Duration.ofMinutes(10));
+    nearCache.put("key", "value", Instant.now().minusMillis(1));
+
+    assertNull(nearCache.get("key"));
+  }
+
+  @Test
+  public void evictAndClear() {
+    NearCache nearCache = new NearCache(10, Duration.ZERO);
+    nearCache.put("key1", "value1");
+    nearCache.put("key2", "value2");
+
+    nearCache.evict("key1");
+    assertNull(nearCache.get("key1"));
+
+    nearCache.clear();
+    assertEquals(0, nearCache.size());
+  }
+
+  @Test
+  public void shouldRejectInvalidMaximumSize() {
+    assertThrows(IllegalArgumentException.class, () -> new NearCache(0, Duration.ZERO));
+  }
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dasburo.spring.cache.dynamo;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.TransientDataAccessResourceException;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.BillingMode;
+import software.amazon.awssdk.services.dynamodb.model.BillingModeSummary;
+import software.amazon.awssdk.services.dynamodb.model.CreateTableRequest;
+import software.amazon.awssdk.services.dynamodb.model.CreateTableResponse;
+import software.amazon.awssdk.services.dynamodb.model.DeleteTableRequest;
+import software.amazon.awssdk.services.dynamodb.model.DeleteTableResponse;
+import software.amazon.awssdk.services.dynamodb.model.DescribeTableRequest;
+import software.amazon.awssdk.services.dynamodb.model.DescribeTableResponse;
+import software.amazon.awssdk.services.dynamodb.model.DescribeTimeToLiveRequest;
+import software.amazon.awssdk.services.dynamodb.model.DescribeTimeToLiveResponse;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.ProvisionedThroughputDescription;
+import software.amazon.awssdk.services.dynamodb.model.ResourceNotFoundException;
+import software.amazon.awssdk.services.dynamodb.model.TableDescription;
+import software.amazon.awssdk.services.dynamodb.model.TableStatus;
+import software.amazon.awssdk.services.dynamodb.model.TimeToLiveStatus;
+import software.amazon.awssdk.services.dynamodb.model.UpdateTimeToLiveRequest;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link RecreateTableClearStrategy}.
+ */
+@ExtendWith(MockitoExtension.class)
+public class RecreateTableClearStrategyTest {
+
+  private static final String CACHE_NAME = "cache";
+
+  @Mock
+  private DynamoDbClient dynamoTemplate;
+
+  @Test
+  public void clearShouldRecreateTableWithThroughputAndTtl() {
+    when(dynamoTemplate.describeTable(any(DescribeTableRequest.class)))
+      .thenReturn(describe(TableStatus.ACTIVE))
+      .thenReturn(describe(TableStatus.DELETING))
+      .thenThrow(ResourceNotFoundException.builder().build())
+      .thenReturn(describe(TableStatus.CREATING))
+      .thenReturn(describe(TableStatus.ACTIVE));
+    when(dynamoTemplate.describeTimeToLive(any(DescribeTimeToLiveRequest.class)))
+      .thenReturn(DescribeTimeToLiveResponse.builder()
+        .timeToLiveDescription(ttl -> ttl.timeToLiveStatus(TimeToLiveStatus.ENABLED))
+        .build());
+    when(dynamoTemplate.deleteTable(any(DeleteTableRequest.class))).thenReturn(DeleteTableResponse.builder().build());
+    when(dynamoTemplate.createTable(any(CreateTableRequest.class))).thenReturn(CreateTableResponse.builder().build());
+
+    long cleared = ClearStrategy.recreateTable().clear(dynamoTemplate, CACHE_NAME);
+
+    assertEquals(42, cleared);
+    ArgumentCaptor<CreateTableRequest> create = ArgumentCaptor.forClass(CreateTableRequest.class);
+    verify(dynamoTemplate).createTable(create.capture());
+    assertEquals(CACHE_NAME, create.getValue().tableName());
+    assertEquals(3L, create.getValue().provisionedThroughput().readCapacityUnits());
+    assertEquals(5L, create.getValue().provisionedThroughput().writeCapacityUnits());
+    verify(dynamoTemplate).updateTimeToLive(DefaultDynamoCacheWriter.updateTimeToLiveRequest(CACHE_NAME));
+  }
+
+  @Test
+  public void clearShouldKeepOnDemandBillingAndSkipDisabledTtl() {
+    TableDescription onDemand = describe(TableStatus.ACTIVE).table().toBuilder()
+      .billingModeSummary(BillingModeSummary.builder().billingMode(BillingMode.PAY_PER_REQUEST).build())
+      .build();
+    when(dynamoTemplate.describeTable(any(DescribeTableRequest.class)))
+      .thenReturn(DescribeTableResponse.builder().table(onDemand).build())
+      .thenThrow(ResourceNotFoundException.builder().build())
+      .thenReturn(describe(TableStatus.ACTIVE));
+    when(dynamoTemplate.describeTimeToLive(any(DescribeTimeToLiveRequest.class)))
+      .thenReturn(DescribeTimeToLiveResponse.builder()
+        .timeToLiveDescription(ttl -> ttl.timeToLiveStatus(TimeToLiveStatus.DISABLED))
+        .build());
+
+    ClearStrategy.recreateTable().clear(dynamoTemplate, CACHE_NAME);
+
+    ArgumentCaptor<CreateTableRequest> create = ArgumentCaptor.forClass(CreateTableRequest.class);
+    verify(dynamoTemplate).createTable(create.capture());
+    assertEquals(BillingMode.PAY_PER_REQUEST, create.getValue().billingMode());
+    assertNull(create.getValue().provisionedThroughput());
+    verify(dynamoTemplate, never()).updateTimeToLive(any(UpdateTimeToLiveRequest.class));
+  }
+
+  @Test
+  public void operationsShouldFailFastDuringSwap() {
+    ClearStrategy clearStrategy = ClearStrategy.recreateTable(Duration.ZERO);
+    DynamoCacheWriter writer = DynamoCacheWriterBuilder.newInstance(dynamoTemplate).withClearStrategy(clearStrategy).build();
+
+    when(dynamoTemplate.describeTable(any(DescribeTableRequest.class)))
+      .thenReturn(describe(TableStatus.ACTIVE))
+      .thenThrow(ResourceNotFoundException.builder().build())
+      .thenReturn(describe(TableStatus.ACTIVE));
+    when(dynamoTemplate.describeTimeToLive(any(DescribeTimeToLiveRequest.class)))
+      .thenReturn(DescribeTimeToLiveResponse.builder().build());
+    when(dynamoTemplate.deleteTable(any(DeleteTableRequest.class))).thenAnswer(invocation -> {
+      assertThrows(TransientDataAccessResourceException.class, () -> writer.lookup(CACHE_NAME, "key"));
+      return DeleteTableResponse.builder().build();
+    });
+
+    writer.clear(CACHE_NAME);
+
+    // the table can be used again once it has been recreated
+    clearStrategy.awaitAvailable(CACHE_NAME);
+    verify(dynamoTemplate, never()).getItem(any(GetItemRequest.class));
+  }
+
+  private static DescribeTableResponse describe(TableStatus status) {
+    return DescribeTableResponse.builder()
+      .table(TableDescription.builder()
+        .tableName(CACHE_NAME)
+        .tableStatus(status)
+        .itemCount(42L)
+        .provisionedThroughput(ProvisionedThroughputDescription.builder()
+          .readCapacityUnits(3L)
+          .writeCapacityUnits(5L)
+          .build())
+        .build())
+      .build();
+  }
+}
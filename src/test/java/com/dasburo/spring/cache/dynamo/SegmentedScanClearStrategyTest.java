@@ -0,0 +1,163 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dasburo.spring.cache.dynamo;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.ScanRequest;
+import software.amazon.awssdk.services.dynamodb.model.ScanResponse;
+import software.amazon.awssdk.services.dynamodb.model.WriteRequest;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static com.dasburo.spring.cache.dynamo.DefaultDynamoCacheWriter.ATTRIBUTE_KEY;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link SegmentedScanClearStrategy}.
+ */
+@ExtendWith(MockitoExtension.class)
+public class SegmentedScanClearStrategyTest {
+
+  private static final String CACHE_NAME = "cache";
+
+  @Mock
+  private DynamoDbClient dynamoTemplate;
+
+  @Test
+  public void clearShouldFollowLastEvaluatedKey() {
+    when(dynamoTemplate.scan(any(ScanRequest.class)))
+      .thenReturn(ScanResponse.builder()
+        .items(keys(0, 30))
+        .lastEvaluatedKey(key(29))
+        .build())
+      .thenReturn(ScanResponse.builder()
+        .items(keys(30, 40))
+        .build());
+    when(dynamoTemplate.batchWriteItem(any(BatchWriteItemRequest.class)))
+      .thenReturn(BatchWriteItemResponse.builder().build());
+
+    AtomicLong progress = new AtomicLong();
+    long deleted = ClearStrategy.segmentedScan(1, (name, deletedItems) -> progress.set(deletedItems))
+      .clear(dynamoTemplate, CACHE_NAME);
+
+    assertEquals(40, deleted);
+    assertEquals(40, progress.get());
+
+    ArgumentCaptor<ScanRequest> scans = ArgumentCaptor.forClass(ScanRequest.class);
+    verify(dynamoTemplate, times(2)).scan(scans.capture());
+    assertEquals(key(29), scans.getAllValues().get(1).exclusiveStartKey());
+
+    ArgumentCaptor<BatchWriteItemRequest> writes = ArgumentCaptor.forClass(BatchWriteItemRequest.class);
+    verify(dynamoTemplate, times(3)).batchWriteItem(writes.capture());
+    writes.getAllValues().forEach(request ->
+      assertTrue(request.requestItems().get(CACHE_NAME).size() <= BatchRequests.MAX_BATCH_WRITE_SIZE));
+  }
+
+  @Test
+  public void clearShouldScanAllSegments() {
+    Set<Integer> segments = ConcurrentHashMap.newKeySet();
+    when(dynamoTemplate.scan(any(ScanRequest.class))).thenAnswer(invocation -> {
+      ScanRequest request = invocation.getArgument(0);
+      segments.add(request.segment());
+      assertEquals(4, request.totalSegments());
+      return ScanResponse.builder().items(keys(request.segment() * 10, request.segment() * 10 + 10)).build();
+    });
+    when(dynamoTemplate.batchWriteItem(any(BatchWriteItemRequest.class)))
+      .thenReturn(BatchWriteItemResponse.builder().build());
+
+    long deleted = ClearStrategy.segmentedScan(4).clear(dynamoTemplate, CACHE_NAME);
+
+    assertEquals(40, deleted);
+    assertEquals(4, segments.size());
+  }
+
+  @Test
+  public void clearShouldRetryUnprocessedItemsAndSkipLeases() {
+    List<Map<String, AttributeValue>> items = new ArrayList<>(keys(0, 2));
+    Map<String, AttributeValue> lease = new HashMap<>(key(2));
+    lease.put(LeaseLock.ATTRIBUTE_LOCK_OWNER, AttributeValue.fromS("owner"));
+    items.add(lease);
+
+    List<WriteRequest> unprocessed = Collections.singletonList(WriteRequest.builder().build());
+    when(dynamoTemplate.scan(any(ScanRequest.class)))
+      .thenReturn(ScanResponse.builder().items(items).build());
+    when(dynamoTemplate.batchWriteItem(any(BatchWriteItemRequest.class)))
+      .thenReturn(BatchWriteItemResponse.builder()
+        .unprocessedItems(Collections.singletonMap(CACHE_NAME, unprocessed))
+        .build())
+      .thenReturn(BatchWriteItemResponse.builder().build());
+
+    long deleted = ClearStrategy.segmentedScan(1).clear(dynamoTemplate, CACHE_NAME);
+
+    assertEquals(2, deleted);
+    ArgumentCaptor<BatchWriteItemRequest> writes = ArgumentCaptor.forClass(BatchWriteItemRequest.class);
+    verify(dynamoTemplate, atLeastOnce()).batchWriteItem(writes.capture());
+    assertEquals(2, writes.getAllValues().get(0).requestItems().get(CACHE_NAME).size());
+    assertEquals(unprocessed, writes.getAllValues().get(1).requestItems().get(CACHE_NAME));
+  }
+
+  @Test
+  public void clearShouldKeepMetadata() {
+    List<Map<String, AttributeValue>> items = new ArrayList<>(keys(0, 2));
+    items.add(Collections.singletonMap(ATTRIBUTE_KEY, AttributeValue.fromS("~generation")));
+    items.add(Collections.singletonMap(ATTRIBUTE_KEY, AttributeValue.fromS("~dictionary")));
+
+    when(dynamoTemplate.scan(any(ScanRequest.class)))
+      .thenReturn(ScanResponse.builder().items(items).build());
+    when(dynamoTemplate.batchWriteItem(any(BatchWriteItemRequest.class)))
+      .thenReturn(BatchWriteItemResponse.builder().build());
+
+    long deleted = ClearStrategy.segmentedScan(1).clear(dynamoTemplate, CACHE_NAME);
+
+    assertEquals(2, deleted);
+    ArgumentCaptor<BatchWriteItemRequest> writes = ArgumentCaptor.forClass(BatchWriteItemRequest.class);
+    verify(dynamoTemplate, times(1)).batchWriteItem(writes.capture());
+    assertEquals(Arrays.asList("key0", "key1"), writes.getValue().requestItems().get(CACHE_NAME).stream()
+      .map(request -> request.deleteRequest().key().get(ATTRIBUTE_KEY).s())
+      .collect(Collectors.toList()));
+  }
+
+  private static List<Map<String, AttributeValue>> keys(int from, int to) {
+    return IntStream.range(from, to).mapToObj(SegmentedScanClearStrategyTest::key).collect(Collectors.toList());
+  }
+
+  private static Map<String, AttributeValue> key(int i) {
+    return Collections.singletonMap(ATTRIBUTE_KEY, AttributeValue.fromS("key" + i));
+  }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dasburo.spring.cache.dynamo;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for {@link SingleFlight}.
+ */
+public class SingleFlightTest {
+
+  private static final int CALLERS = 8;
+
+  @Test
+  public void concurrentCallsShouldShareOneExecution() throws Exception {
+    SingleFlight singleFlight = new SingleFlight();
+    AtomicInteger executions = new AtomicInteger();
+    CountDownLatch release = new CountDownLatch(1);
+
+    ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+    try {
+      List<Future<String>> results = new ArrayList<>();
+      for (int i = 0; i < CALLERS; i++) {
+        results.add(executor.submit(() -> singleFlight.execute("key", () -> {
+          executions.incrementAndGet();
+          await(release);
+          return "value";
+        })));
+      }
+      waitUntil(() -> singleFlight.getCoalescedCount() == CALLERS - 1);
+      release.countDown();
+
+      for (Future<String> result : results) {
+        assertEquals("value", result.get(5, TimeUnit.SECONDS));
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    assertEquals(1, executions.get());
+    assertEquals(1, singleFlight.getExecutionCount());
+    assertEquals(CALLERS - 1, singleFlight.getCoalescedCount());
+    assertEquals(0, singleFlight.getInFlightCount());
+  }
+
+  @Test
+  public void waitingCallsShouldReceiveTheException() throws Exception {
+    SingleFlight singleFlight = new SingleFlight();
+    IllegalArgumentException failure = new IllegalArgumentException("failed");
+    CountDownLatch release = new CountDownLatch(1);
+
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      Future<?> leader = executor.submit(() -> singleFlight.execute("key", () -> {
+        await(release);
+        throw failure;
+      }));
+      waitUntil(() -> singleFlight.getInFlightCount() == 1);
+
+      new Thread(() -> {
+        waitUntil(() -> singleFlight.getCoalescedCount() == 1);
+        release.countDown();
+      }).start();
+      IllegalArgumentException thrown = assertThrows(IllegalArgumentException.class,
+        () -> singleFlight.execute("key", () -> "unused"));
+      assertSame(failure, thrown);
+      assertThrows(Exception.class, () -> leader.get(5, TimeUnit.SECONDS));
+    } finally {
+      executor.shutdownNow();
+    }
+
+    assertEquals(0, singleFlight.getInFlightCount());
+    assertEquals("next", singleFlight.execute("key", () -> "next"));
+  }
+
+  @Test
+  public void nestedCallsForTheSameKeyShouldNotWait() {
+    SingleFlight singleFlight = new SingleFlight();
+
+    String value = singleFlight.execute("key", () -> singleFlight.execute("key", () -> "nested"));
+
+    assertEquals("nested", value);
+    assertEquals(0, singleFlight.getCoalescedCount());
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      assertTrue(latch.await(5, TimeUnit.SECONDS));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static void waitUntil(BooleanSupplier condition) {
+    long deadline = System.currentTimeMillis() + 5000;
+    while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+      Thread.yield();
+    }
+  }
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dasburo.spring.cache.dynamo;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import software.amazon.awssdk.core.SdkBytes;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.DeleteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static com.dasburo.spring.cache.dynamo.DefaultDynamoCacheWriter.ATTRIBUTE_CHUNKS;
+import static com.dasburo.spring.cache.dynamo.DefaultDynamoCacheWriter.ATTRIBUTE_CHUNK_VERSION;
+import static com.dasburo.spring.cache.dynamo.DefaultDynamoCacheWriter.ATTRIBUTE_KEY;
+import static com.dasburo.spring.cache.dynamo.DefaultDynamoCacheWriter.ATTRIBUTE_VALUE;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Integration tests for values stored in chunks by {@link ValueChunker}.
+ */
+@ExtendWith({SpringExtension.class, TestDbCreationExtension.class})
+@ContextConfiguration(classes = TestConfiguration.class)
+public class ValueChunkerTest {
+
+  private static final String CACHE_NAME = "chunks";
+  private static final Duration TTL = Duration.ofMinutes(1);
+
+  @Autowired
+  private DynamoDbClient ddbClient;
+
+  private DynamoCacheWriter writer;
+
+  @BeforeEach
+  public void setup() {
+    writer = DynamoCacheWriter.nonLockingDynamoCacheWriter(ddbClient);
+    writer.createIfNotExists(CACHE_NAME, TTL, 1L, 1L);
+  }
+
+  @Test
+  public void largeValueShouldBeStoredInChunks() {
+    byte[] value = randomBytes(1024 * 1024);
+
+    writer.put(CACHE_NAME, "large", value, TTL, null);
+
+    assertArrayEquals(value, writer.get(CACHE_NAME, "large"));
+    DynamoCacheLookup lookup = writer.lookup(CACHE_NAME, "large");
+    assertTrue(lookup.isPresent());
+    assertArrayEquals(value, lookup.getValue());
+
+    Map<String, AttributeValue> manifest = getItem("large");
+    assertEquals("3", manifest.get(ATTRIBUTE_CHUNKS).n());
+    assertFalse(manifest.containsKey(ATTRIBUTE_VALUE));
+  }
+
+  @Test
+  public void smallValueShouldBeStoredInSingleItem() {
+    byte[] value = randomBytes(1024);
+
+    writer.put(CACHE_NAME, "small", value, TTL, null);
+
+    Map<String, AttributeValue> item = getItem("small");
+    assertArrayEquals(value, item.get(ATTRIBUTE_VALUE).b().asByteArray());
+    assertFalse(item.containsKey(ATTRIBUTE_CHUNKS));
+  }
+
+  @Test
+  public void getAllShouldReassembleChunkedValues() {
+    byte[] large = randomBytes(500 * 1024);
+    byte[] small = randomBytes(16);
+    writer.put(CACHE_NAME, "batchLarge", large, TTL, null);
+    writer.put(CACHE_NAME, "batchSmall", small, TTL, null);
+
+    Map<String, byte[]> values = writer.getAll(CACHE_NAME, Arrays.asList("batchLarge", "batchSmall", "batchMissing"));
+
+    assertEquals(2, values.size());
+    assertArrayEquals(large, values.get("batchLarge"));
+    assertArrayEquals(small, values.get("batchSmall"));
+  }
+
+  @Test
+  public void chunksOfAnotherWriteShouldNotBeMixed() {
+    writer.put(CACHE_NAME, "mixed", randomBytes(500 * 1024), TTL, null);
+
+    // a concurrent write of the key has replaced the second chunk, but not yet the manifest
+    Map<String, AttributeValue> chunk = new HashMap<>();
+    chunk.put(ATTRIBUTE_KEY, AttributeValue.fromS("mixed~chunk1"));
+    chunk.put(ATTRIBUTE_VALUE, AttributeValue.fromB(SdkBytes.fromByteArray(randomBytes(1024))));
+    chunk.put(ATTRIBUTE_CHUNK_VERSION, AttributeValue.fromS("other"));
+    ddbClient.putItem(PutItemRequest.builder().tableName(CACHE_NAME).item(chunk).build());
+
+    assertFalse(writer.lookup(CACHE_NAME, "mixed").isPresent());
+    assertNull(writer.get(CACHE_NAME, "mixed"));
+    assertTrue(writer.getAll(CACHE_NAME, Collections.singletonList("mixed")).isEmpty());
+  }
+
+  @Test
+  public void putIfAbsentShouldReturnExistingChunkedValue() {
+    byte[] value = randomBytes(800 * 1024);
+
+    assertNull(writer.putIfAbsent(CACHE_NAME, "absent", value, TTL, null));
+    assertArrayEquals(value, writer.putIfAbsent(CACHE_NAME, "absent", randomBytes(800 * 1024), TTL, null));
+    assertArrayEquals(value, writer.get(CACHE_NAME, "absent"));
+  }
+
+  @Test
+  public void putIfAbsentShouldReplaceManifestWithMissingChunks() {
+    writer.put(CACHE_NAME, "orphan", randomBytes(800 * 1024), TTL, null);
+    // the writer of the manifest has failed before writing all chunks
+    ddbClient.deleteItem(DeleteItemRequest.builder()
+      .tableName(CACHE_NAME)
+      .key(Collections.singletonMap(ATTRIBUTE_KEY, AttributeValue.fromS("orphan~chunk0")))
+      .build());
+    byte[] value = randomBytes(800 * 1024);
+
+    assertNull(writer.putIfAbsent(CACHE_NAME, "orphan", value, TTL, null));
+    assertArrayEquals(value, writer.get(CACHE_NAME, "orphan"));
+  }
+
+  @Test
+  public void chunksShouldBeRemovedWithTheirEntry() {
+    for (DynamoCacheWriter chunkWriter : Arrays.asList(writer, DynamoCacheWriter.lockingDynamoCacheWriter(ddbClient))) {
+      chunkWriter.put(CACHE_NAME, "shrinking", randomBytes(1024 * 1024), TTL, null);
+      assertEquals(3, countChunks("shrinking"));
+
+      chunkWriter.put(CACHE_NAME, "shrinking", randomBytes(500 * 1024), TTL, null);
+      assertEquals(2, countChunks("shrinking"));
+
+      chunkWriter.put(CACHE_NAME, "shrinking", randomBytes(1024), TTL, null);
+      assertEquals(0, countChunks("shrinking"));
+
+      chunkWriter.put(CACHE_NAME, "shrinking", randomBytes(1024 * 1024), TTL, null);
+      chunkWriter.remove(CACHE_NAME, "shrinking");
+      assertEquals(0, countChunks("shrinking"));
+    }
+  }
+
+  private int countChunks(String key) {
+    int chunks = 0;
+    for (int index = 0; index < 3; index++) {
+      if (!getItem(key + "~chunk" + index).isEmpty()) {
+        chunks++;
+      }
+    }
+    return chunks;
+  }
+
+  private Map<String, AttributeValue> getItem(String key) {
+    return ddbClient.getItem(GetItemRequest.builder()
+      .tableName(CACHE_NAME)
+      .key(Collections.singletonMap(ATTRIBUTE_KEY, AttributeValue.fromS(key)))
+      .build()).item();
+  }
+
+  private static byte[] randomBytes(int size) {
+    byte[] bytes = new byte[size];
+    new Random().nextBytes(bytes);
+    return bytes;
+  }
+}
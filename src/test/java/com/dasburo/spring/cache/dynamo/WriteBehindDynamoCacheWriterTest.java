@@ -0,0 +1,194 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dasburo.spring.cache.dynamo;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.DeleteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.DeleteItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.PutItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.ScanRequest;
+import software.amazon.awssdk.services.dynamodb.model.ScanResponse;
+import software.amazon.awssdk.services.dynamodb.model.WriteRequest;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static com.dasburo.spring.cache.dynamo.DefaultDynamoCacheWriter.ATTRIBUTE_KEY;
+import static com.dasburo.spring.cache.dynamo.DefaultDynamoCacheWriter.ATTRIBUTE_VALUE;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link WriteBehindDynamoCacheWriter}.
+ */
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+public class WriteBehindDynamoCacheWriterTest {
+
+  private static final String CACHE_NAME = "cache";
+  private static final Duration TTL = Duration.ofSeconds(10);
+
+  @Mock
+  private DynamoDbClient dynamoTemplate;
+
+  private WriteBehindDynamoCacheWriter writer;
+
+  @BeforeEach
+  public void setup() {
+    when(dynamoTemplate.batchWriteItem(any(BatchWriteItemRequest.class)))
+      .thenReturn(BatchWriteItemResponse.builder().build());
+    when(dynamoTemplate.putItem(any(PutItemRequest.class))).thenReturn(PutItemResponse.builder().build());
+    when(dynamoTemplate.deleteItem(any(DeleteItemRequest.class))).thenReturn(DeleteItemResponse.builder().build());
+    writer = (WriteBehindDynamoCacheWriter) DynamoCacheWriterBuilder.newInstance(dynamoTemplate)
+      .withWriteBehind(1000, Duration.ofHours(1))
+      .build();
+  }
+
+  @AfterEach
+  public void tearDown() {
+    writer.destroy();
+  }
+
+  @Test
+  public void putShouldBeQueued() {
+    writer.put(CACHE_NAME, "key", "value".getBytes(), TTL, null);
+
+    assertEquals(1, writer.getQueueDepth());
+    verify(dynamoTemplate, never()).batchWriteItem(any(BatchWriteItemRequest.class));
+  }
+
+  @Test
+  public void getShouldReturnQueuedValue() {
+    writer.put(CACHE_NAME, "key", "value".getBytes(), TTL, null);
+
+    assertArrayEquals("value".getBytes(), writer.get(CACHE_NAME, "key"));
+    assertArrayEquals("value".getBytes(), writer.getAll(CACHE_NAME, Collections.singletonList("key")).get("key"));
+  }
+
+  @Test
+  public void largePutShouldBeWrittenThrough() {
+    writer.put(CACHE_NAME, "key", "queued".getBytes(), TTL, null);
+    writer.put(CACHE_NAME, "key", new byte[1024 * 1024], TTL, null);
+
+    assertEquals(0, writer.getQueueDepth());
+    verify(dynamoTemplate).putItem(any(PutItemRequest.class));
+    verify(dynamoTemplate).batchWriteItem(any(BatchWriteItemRequest.class));
+  }
+
+  @Test
+  public void clearShouldDropQueuedPutsWithoutBlockingFlushes() throws Exception {
+    CountDownLatch scanStarted = new CountDownLatch(1);
+    CountDownLatch scanReleased = new CountDownLatch(1);
+    when(dynamoTemplate.scan(any(ScanRequest.class))).thenAnswer(invocation -> {
+      scanStarted.countDown();
+      scanReleased.await();
+      return ScanResponse.builder().items(Collections.emptyList()).build();
+    });
+
+    writer.put(CACHE_NAME, "cleared", "value".getBytes(), TTL, null);
+    CompletableFuture<Void> clear = CompletableFuture.runAsync(() -> writer.clear(CACHE_NAME));
+    assertTrue(scanStarted.await(5, TimeUnit.SECONDS));
+
+    writer.put("other", "key", "value".getBytes(), TTL, null);
+    writer.flush();
+
+    ArgumentCaptor<BatchWriteItemRequest> captor = ArgumentCaptor.forClass(BatchWriteItemRequest.class);
+    verify(dynamoTemplate, times(1)).batchWriteItem(captor.capture());
+    assertEquals(Collections.singleton("other"), captor.getValue().requestItems().keySet());
+
+    scanReleased.countDown();
+    clear.get(5, TimeUnit.SECONDS);
+  }
+
+  @Test
+  public void repeatedPutsShouldBeCoalesced() {
+    writer.put(CACHE_NAME, "key", "value1".getBytes(), TTL, null);
+    writer.put(CACHE_NAME, "key", "value2".getBytes(), TTL, null);
+    writer.flush();
+
+    ArgumentCaptor<BatchWriteItemRequest> captor = ArgumentCaptor.forClass(BatchWriteItemRequest.class);
+    verify(dynamoTemplate, times(1)).batchWriteItem(captor.capture());
+
+    List<WriteRequest> writeRequests = captor.getValue().requestItems().get(CACHE_NAME);
+    assertEquals(1, writeRequests.size());
+    assertEquals("key", writeRequests.get(0).putRequest().item().get(ATTRIBUTE_KEY).s());
+    assertArrayEquals("value2".getBytes(), writeRequests.get(0).putRequest().item().get(ATTRIBUTE_VALUE).b().asByteArray());
+    assertEquals(1, writer.getCoalescedCount());
+  }
+
+  @Test
+  public void flushShouldWriteGroupsOfTwentyFive() {
+    for (int i = 0; i < 60; i++) {
+      writer.put(CACHE_NAME, "key" + i, ("value" + i).getBytes(), TTL, null);
+    }
+    writer.flush();
+
+    ArgumentCaptor<BatchWriteItemRequest> captor = ArgumentCaptor.forClass(BatchWriteItemRequest.class);
+    verify(dynamoTemplate, atLeastOnce()).batchWriteItem(captor.capture());
+
+    int written = captor.getAllValues().stream()
+      .mapToInt(request -> request.requestItems().get(CACHE_NAME).size())
+      .peek(size -> assertTrue(size <= BatchRequests.MAX_BATCH_WRITE_SIZE))
+      .sum();
+    assertEquals(60, written);
+    assertEquals(0, writer.getQueueDepth());
+    assertEquals(60, writer.getFlushedItemCount());
+    assertNotNull(writer.getLastFlushLatency());
+  }
+
+  @Test
+  public void removeShouldDropQueuedPut() {
+    writer.put(CACHE_NAME, "key", "value".getBytes(), TTL, null);
+    writer.remove(CACHE_NAME, "key");
+    writer.flush();
+
+    assertEquals(0, writer.getQueueDepth());
+    verify(dynamoTemplate, never()).batchWriteItem(any(BatchWriteItemRequest.class));
+    verify(dynamoTemplate, times(1)).deleteItem(any(DeleteItemRequest.class));
+  }
+
+  @Test
+  public void destroyShouldDrainQueue() {
+    writer.put(CACHE_NAME, "key", "value".getBytes(), TTL, null);
+    writer.destroy();
+
+    assertEquals(0, writer.getQueueDepth());
+    verify(dynamoTemplate, times(1)).batchWriteItem(any(BatchWriteItemRequest.class));
+  }
+}
@@ -47,6 +47,7 @@ public class DynamoCacheAutoConfigurationTest extends UnitTestBase {
   private static final Duration TTL = Duration.ofSeconds(30);
   private static final Long READ_CAPACITY_UNITS = 1L;
   private static final Long WRITE_CAPACITY_UNITS = 1L;
+  private static final int NEAR_CACHE_MAX_SIZE = 100;
   private static final List<RootAttributeConfig> ROOT_ATTRIBUTES = Collections.singletonList(new RootAttributeConfig("street", S));
 
   /**
@@ -61,6 +62,7 @@ public class DynamoCacheAutoConfigurationTest extends UnitTestBase {
       "spring.cache.dynamo.caches[0].flushOnBoot:" + FLUSH_ON_BOOT,
       "spring.cache.dynamo.caches[0].readCapacityUnits:" + READ_CAPACITY_UNITS,
       "spring.cache.dynamo.caches[0].writeCapacityUnits:" + WRITE_CAPACITY_UNITS,
+      "spring.cache.dynamo.caches[0].nearCacheMaxSize:" + NEAR_CACHE_MAX_SIZE,
       "spring.cache.dynamo.caches[0].rootAttributes[0].name:" + ROOT_ATTRIBUTES.get(0).getName(),
       "spring.cache.dynamo.caches[0].rootAttributes[0].type:" + ROOT_ATTRIBUTES.get(0).getType().name()
     );
@@ -94,6 +96,7 @@ public class DynamoCacheAutoConfigurationTest extends UnitTestBase {
     assertEquals(TTL, cache.getTtl());
     assertEquals(CACHE_NAME, cache.getName());
     assertEquals(FLUSH_ON_BOOT, cache.isFlushOnBoot());
+    assertEquals(NEAR_CACHE_MAX_SIZE, cache.getNearCacheMaxSize());
     assertEquals(ROOT_ATTRIBUTES.get(0).getName(), cache.getRootAttributes().get(0).getName());
     assertEquals(ROOT_ATTRIBUTES.get(0).getType(), cache.getRootAttributes().get(0).getType());
   }
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dasburo.spring.cache.dynamo.benchmark;
+
+import com.dasburo.spring.cache.dynamo.DynamoCache;
+import com.dasburo.spring.cache.dynamo.DynamoCacheLookup;
+import com.dasburo.spring.cache.dynamo.DynamoCacheWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.cache.Cache;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.GetItemResponse;
+
+import java.util.Collections;
+import java.util.NoSuchElementException;
+import java.util.concurrent.TimeUnit;
+
+import static com.dasburo.spring.cache.dynamo.DefaultDynamoCacheWriter.ATTRIBUTE_KEY;
+
+/**
+ * Cost of a cache miss on the client side. {@code exceptionMiss} reproduces the former miss path that signalled an
+ * absent key with a {@link NoSuchElementException}; compare its {@code gc.alloc.rate.norm} with {@code lookupMiss}.
+ * <p>
+ * Run with {@code mvn test-compile exec:java -Dexec.mainClass=com.dasburo.spring.cache.dynamo.benchmark.CacheMissBenchmark -Dexec.classpathScope=test}
+ * or from the IDE.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CacheMissBenchmark {
+
+  private static final String CACHE_NAME = "benchmark";
+  private static final String KEY = "missing";
+
+  private DynamoDbClient dynamoTemplate;
+  private DynamoCacheWriter writer;
+  private Cache cache;
+
+  @Setup
+  public void setup() {
+    dynamoTemplate = new StubDynamoDbClient();
+    writer = DynamoCacheWriter.nonLockingDynamoCacheWriter(dynamoTemplate);
+    cache = new DynamoCache(CACHE_NAME, writer);
+  }
+
+  @Benchmark
+  public Object exceptionMiss() {
+    GetItemResponse result = dynamoTemplate.getItem(GetItemRequest.builder()
+      .tableName(CACHE_NAME)
+      .key(Collections.singletonMap(ATTRIBUTE_KEY, AttributeValue.fromS(KEY)))
+      .build());
+    try {
+      if (!result.hasItem()) {
+        throw new NoSuchElementException(String.format("No entry found for '%s'.", KEY));
+      }
+      return result;
+    } catch (NoSuchElementException e) {
+      return null;
+    }
+  }
+
+  @Benchmark
+  public DynamoCacheLookup lookupMiss() {
+    return writer.lookup(CACHE_NAME, KEY);
+  }
+
+  @Benchmark
+  public Cache.ValueWrapper cacheGetMiss() {
+    return cache.get(KEY);
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder()
+      .include(CacheMissBenchmark.class.getSimpleName())
+      .addProfiler(GCProfiler.class)
+      .build()).run();
+  }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dasburo.spring.cache.dynamo.benchmark;
+
+import com.dasburo.spring.cache.dynamo.helper.Address;
+import com.dasburo.spring.cache.dynamo.helper.Company;
+import com.dasburo.spring.cache.dynamo.serializer.Jackson2JsonSerializer;
+import com.dasburo.spring.cache.dynamo.serializer.KryoSerializer;
+import com.dasburo.spring.cache.dynamo.serializer.SerializableSerializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time and allocation of the object serializers writing and reading a {@link Company} with its {@link Address}.
+ * <p>
+ * Run with {@code mvn test-compile exec:java -Dexec.mainClass=com.dasburo.spring.cache.dynamo.benchmark.ObjectSerializerBenchmark -Dexec.classpathScope=test}
+ * or from the IDE.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ObjectSerializerBenchmark {
+
+  private final Company company = new Company("company", "IT", 2019, new Address("street", 1));
+
+  private final SerializableSerializer serializableSerializer = new SerializableSerializer();
+  private final Jackson2JsonSerializer<Company> jsonSerializer = new Jackson2JsonSerializer<>(Company.class);
+  private final KryoSerializer<Company> kryoSerializer = new KryoSerializer<>(Company.class, Arrays.asList(Company.class, Address.class), false);
+  private final KryoSerializer<Company> compatibleKryoSerializer = new KryoSerializer<>(Company.class, Arrays.asList(Company.class, Address.class), true);
+
+  private byte[] serializable;
+  private byte[] json;
+  private byte[] kryo;
+  private byte[] compatibleKryo;
+
+  @Setup
+  public void setup() {
+    serializable = serializableSerializer.serialize(company);
+    json = jsonSerializer.serialize(company);
+    kryo = kryoSerializer.serialize(company);
+    compatibleKryo = compatibleKryoSerializer.serialize(company);
+  }
+
+  @Benchmark
+  public byte[] serializableSerialize() {
+    return serializableSerializer.serialize(company);
+  }
+
+  @Benchmark
+  public Object serializableDeserialize() {
+    return serializableSerializer.deserialize(serializable);
+  }
+
+  @Benchmark
+  public byte[] jsonSerialize() {
+    return jsonSerializer.serialize(company);
+  }
+
+  @Benchmark
+  public Company jsonDeserialize() {
+    return jsonSerializer.deserialize(json);
+  }
+
+  @Benchmark
+  public byte[] kryoSerialize() {
+    return kryoSerializer.serialize(company);
+  }
+
+  @Benchmark
+  public Company kryoDeserialize() {
+    return kryoSerializer.deserialize(kryo);
+  }
+
+  @Benchmark
+  public byte[] compatibleKryoSerialize() {
+    return compatibleKryoSerializer.serialize(company);
+  }
+
+  @Benchmark
+  public Company compatibleKryoDeserialize() {
+    return compatibleKryoSerializer.deserialize(compatibleKryo);
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder()
+      .include(ObjectSerializerBenchmark.class.getSimpleName())
+      .addProfiler(GCProfiler.class)
+      .build()).run();
+  }
+}
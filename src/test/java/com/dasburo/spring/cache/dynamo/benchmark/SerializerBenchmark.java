@@ -0,0 +1,140 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dasburo.spring.cache.dynamo.benchmark;
+
+import com.dasburo.spring.cache.dynamo.serializer.GZipSerializer;
+import com.dasburo.spring.cache.dynamo.serializer.SerializableSerializer;
+import com.dasburo.spring.cache.dynamo.serializer.StringSerializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Allocation of the serializers per operation. The {@code legacy*} benchmarks reproduce the former implementations
+ * that allocated new streams, zlib instances and scratch buffers on every call; compare their
+ * {@code gc.alloc.rate.norm} with the pooled ones.
+ * <p>
+ * Run with {@code mvn test-compile exec:java -Dexec.mainClass=com.dasburo.spring.cache.dynamo.benchmark.SerializerBenchmark -Dexec.classpathScope=test}
+ * or from the IDE.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializerBenchmark {
+
+  @Param({"1024", "65536"})
+  private int size;
+
+  private final GZipSerializer<String> gzipSerializer = new GZipSerializer<>(new StringSerializer());
+  private final SerializableSerializer serializableSerializer = new SerializableSerializer();
+
+  private String value;
+  private byte[] zipped;
+  private ArrayList<String> list;
+
+  @Setup
+  public void setup() {
+    Random random = new Random(42);
+    StringBuilder builder = new StringBuilder(size);
+    while (builder.length() < size) {
+      builder.append("{\"id\":").append(random.nextInt(1000)).append(",\"name\":\"value-").append(random.nextInt(100)).append("\"}");
+    }
+    value = builder.substring(0, size);
+    zipped = gzipSerializer.serialize(value);
+    list = new ArrayList<>();
+    for (int i = 0; i < size / 64; i++) {
+      list.add(value.substring(i * 64, i * 64 + 64));
+    }
+  }
+
+  @Benchmark
+  public byte[] gzipSerialize() {
+    return gzipSerializer.serialize(value);
+  }
+
+  @Benchmark
+  public String gzipDeserialize() {
+    return gzipSerializer.deserialize(zipped);
+  }
+
+  @Benchmark
+  public byte[] serializableSerialize() {
+    return serializableSerializer.serialize(list);
+  }
+
+  @Benchmark
+  public byte[] legacyGzipSerialize() throws IOException {
+    byte[] data = value.getBytes();
+    ByteArrayOutputStream out = new ByteArrayOutputStream(data.length);
+    try (GZIPOutputStream zipOut = new GZIPOutputStream(out)) {
+      zipOut.write(data);
+    }
+    return out.toByteArray();
+  }
+
+  @Benchmark
+  public String legacyGzipDeserialize() throws IOException {
+    ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    try (GZIPInputStream is = new GZIPInputStream(new ByteArrayInputStream(zipped))) {
+      byte[] buffer = new byte[1024];
+      int length;
+      while ((length = is.read(buffer, 0, buffer.length)) != -1) {
+        baos.write(buffer, 0, length);
+      }
+    }
+    return new String(baos.toByteArray());
+  }
+
+  @Benchmark
+  public byte[] legacySerializableSerialize() throws IOException {
+    try (ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+         ObjectOutputStream output = new ObjectOutputStream(buffer)) {
+      output.writeObject(list);
+      return buffer.toByteArray();
+    }
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder()
+      .include(SerializerBenchmark.class.getSimpleName())
+      .addProfiler(GCProfiler.class)
+      .build()).run();
+  }
+}
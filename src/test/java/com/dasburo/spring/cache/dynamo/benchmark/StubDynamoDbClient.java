@@ -0,0 +1,67 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dasburo.spring.cache.dynamo.benchmark;
+
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.DescribeTableRequest;
+import software.amazon.awssdk.services.dynamodb.model.DescribeTableResponse;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.GetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.PutItemResponse;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.dasburo.spring.cache.dynamo.DefaultDynamoCacheWriter.ATTRIBUTE_KEY;
+
+/**
+ * In-memory {@link DynamoDbClient} answering the requests issued on the hot paths of the cache, so benchmarks measure
+ * the client side only.
+ */
+class StubDynamoDbClient implements DynamoDbClient {
+
+  private static final GetItemResponse EMPTY = GetItemResponse.builder().build();
+
+  private final Map<String, Map<String, AttributeValue>> items = new ConcurrentHashMap<>();
+
+  @Override
+  public String serviceName() {
+    return SERVICE_NAME;
+  }
+
+  @Override
+  public void close() {
+    // nothing to close
+  }
+
+  @Override
+  public DescribeTableResponse describeTable(DescribeTableRequest describeTableRequest) {
+    return DescribeTableResponse.builder().build();
+  }
+
+  @Override
+  public GetItemResponse getItem(GetItemRequest getItemRequest) {
+    Map<String, AttributeValue> item = items.get(getItemRequest.key().get(ATTRIBUTE_KEY).s());
+    return item == null ? EMPTY : GetItemResponse.builder().item(item).build();
+  }
+
+  @Override
+  public PutItemResponse putItem(PutItemRequest putItemRequest) {
+    items.put(putItemRequest.item().get(ATTRIBUTE_KEY).s(), putItemRequest.item());
+    return PutItemResponse.builder().build();
+  }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dasburo.spring.cache.dynamo.serializer;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CompressingSerializerTest {
+
+  private static final String COMPRESSIBLE = String.join(",", Collections.nCopies(500, "compressible"));
+
+  private static final List<CompressionCodec> CODECS = Arrays.asList(CompressionCodec.none(), CompressionCodec.gzip(),
+    CompressionCodec.deflate(), CompressionCodec.lz4(), CompressionCodec.snappy(), CompressionCodec.zstd());
+
+  @Test
+  public void valuesShouldRoundTripWithEveryCodec() {
+    for (CompressionCodec codec : CODECS) {
+      CompressingSerializer<String> serializer = new CompressingSerializer<>(new StringSerializer(), codec);
+
+      byte[] bytes = serializer.serialize(COMPRESSIBLE);
+
+      assertEquals(codec.getId(), bytes[0]);
+      assertEquals(COMPRESSIBLE, serializer.deserialize(bytes));
+      assertNull(serializer.deserialize(serializer.serialize(null)));
+    }
+  }
+
+  @Test
+  public void valuesOfOtherCodecsShouldBeReadable() {
+    CompressingSerializer<String> reader = new CompressingSerializer<>(new StringSerializer(), CompressionCodec.zstd());
+
+    for (CompressionCodec codec : CODECS) {
+      byte[] bytes = new CompressingSerializer<>(new StringSerializer(), codec).serialize(COMPRESSIBLE);
+      assertEquals(COMPRESSIBLE, reader.deserialize(bytes));
+    }
+    assertEquals(COMPRESSIBLE, reader.deserialize(new GZipSerializer<>(new StringSerializer()).serialize(COMPRESSIBLE)));
+  }
+
+  @Test
+  public void smallValuesShouldNotBeCompressed() {
+    CompressingSerializer<String> serializer = new CompressingSerializer<>(new StringSerializer(), CompressionCodec.gzip());
+
+    byte[] bytes = serializer.serialize("small");
+
+    assertEquals(1 + "small".length(), bytes.length);
+    assertEquals(0, bytes[0]);
+    assertEquals("small", serializer.deserialize(bytes));
+  }
+
+  @Test
+  public void incompressibleValuesShouldNotBeCompressed() {
+    byte[] random = new byte[4096];
+    new Random().nextBytes(random);
+    String value = Arrays.toString(random);
+    CompressingSerializer<String> serializer = new CompressingSerializer<>(new StringSerializer(), CompressionCodec.lz4(), 0, 0.9);
+
+    byte[] bytes = serializer.serialize(value);
+
+    assertEquals(0, bytes[0]);
+    assertEquals(value, serializer.deserialize(bytes));
+
+    byte[] compressed = new CompressingSerializer<>(new StringSerializer(), CompressionCodec.lz4(), 0, 0).serialize(value);
+    assertEquals(CompressionCodec.lz4().getId(), compressed[0]);
+    assertTrue(compressed.length < bytes.length);
+  }
+
+  @Test
+  public void valuesShouldBeReadFromBufferViews() {
+    for (CompressionCodec codec : CODECS) {
+      CompressingSerializer<String> serializer = new CompressingSerializer<>(new StringSerializer(), codec);
+      byte[] bytes = serializer.serialize(COMPRESSIBLE);
+      byte[] padded = new byte[bytes.length + 2];
+      System.arraycopy(bytes, 0, padded, 1, bytes.length);
+
+      assertEquals(COMPRESSIBLE, serializer.deserializeFromBuffer(ByteBuffer.wrap(padded, 1, bytes.length)));
+      assertEquals(COMPRESSIBLE, serializer.deserializeFromBuffer(ByteBuffer.wrap(padded, 1, bytes.length).asReadOnlyBuffer()));
+      assertNull(serializer.deserializeFromBuffer(null));
+    }
+  }
+
+  @Test
+  public void unknownCodecShouldFail() {
+    CompressingSerializer<String> serializer = new CompressingSerializer<>(new StringSerializer(), CompressionCodec.gzip());
+
+    assertThrows(SerializationException.class, () -> serializer.deserialize(new byte[]{42, 1, 2, 3}));
+  }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dasburo.spring.cache.dynamo.serializer;
+
+import com.dasburo.spring.cache.dynamo.helper.Address;
+import com.dasburo.spring.cache.dynamo.helper.Company;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class EnvelopeSerializerTest {
+
+  private static final Company COMPANY = new Company("company", "IT", 2019, new Address("street", 1));
+  private static final String COMPRESSIBLE = String.join(",", Collections.nCopies(500, "compressible"));
+
+  private static final EnvelopeSerializer.Encoding<Object> JAVA = EnvelopeSerializer.Encoding.of(1, 0, new SerializableSerializer());
+  private static final EnvelopeSerializer.Encoding<Company> JSON_V1 = EnvelopeSerializer.Encoding.of(2, 1, new Jackson2JsonSerializer<>(Company.class));
+  private static final EnvelopeSerializer.Encoding<Company> KRYO_V2 = EnvelopeSerializer.Encoding.of(3, 2,
+    new KryoSerializer<>(Company.class, Arrays.asList(Company.class, Address.class), true));
+
+  @Test
+  public void valuesShouldRoundTrip() {
+    EnvelopeSerializer<Company> serializer = new EnvelopeSerializer<>(KRYO_V2, Collections.emptyList(), null);
+
+    byte[] bytes = serializer.serialize(COMPANY);
+
+    assertEquals((byte) 0xff, bytes[0]);
+    assertEquals(3, bytes[1]);
+    assertEquals(0, bytes[2]);
+    assertEquals(0, bytes[3]);
+    assertEquals(2, bytes[4]);
+    assertEquals(COMPANY, serializer.deserialize(bytes));
+    assertNull(serializer.serialize(null));
+    assertNull(serializer.deserialize(new byte[0]));
+    assertEquals(Company.class, serializer.getTargetType());
+  }
+
+  @Test
+  public void valuesOfPreviousEncodingsShouldBeReadable() {
+    byte[] unwrapped = new SerializableSerializer().serialize(COMPANY);
+    byte[] java = new EnvelopeSerializer<>(JAVA, Collections.emptyList(), null).serialize(COMPANY);
+    byte[] json = new EnvelopeSerializer<>(JSON_V1, Collections.emptyList(), null).serialize(COMPANY);
+
+    EnvelopeSerializer<Object> serializer = new EnvelopeSerializer<>(
+      EnvelopeSerializer.Encoding.of(3, 2, new KryoSerializer<>(Object.class, Arrays.asList(Company.class, Address.class), true)),
+      Arrays.asList(JAVA, JSON_V1), new SerializableSerializer());
+
+    assertEquals(COMPANY, serializer.deserialize(unwrapped));
+    assertEquals(COMPANY, serializer.deserialize(java));
+    assertEquals(COMPANY, serializer.deserialize(json));
+    assertEquals(3, serializer.serialize(serializer.deserialize(json))[1]);
+  }
+
+  @Test
+  public void otherSchemaVersionsShouldBeReadByTheAnyVersionEncoding() {
+    byte[] v1 = new EnvelopeSerializer<>(EnvelopeSerializer.Encoding.of(3, 1, KRYO_V2.getSerializer()), Collections.emptyList(), null)
+      .serialize(COMPANY);
+
+    EnvelopeSerializer<Company> exact = new EnvelopeSerializer<>(KRYO_V2, Collections.emptyList(), null);
+    EnvelopeSerializer<Company> any = new EnvelopeSerializer<>(KRYO_V2,
+      Collections.singletonList(EnvelopeSerializer.Encoding.of(3, EnvelopeSerializer.Encoding.ANY_SCHEMA_VERSION, KRYO_V2.getSerializer())), null);
+
+    assertThrows(SerializationException.class, () -> exact.deserialize(v1));
+    assertEquals(COMPANY, any.deserialize(v1));
+  }
+
+  @Test
+  public void valuesShouldBeCompressedWithTheConfiguredCodec() {
+    EnvelopeSerializer.Encoding<String> string = EnvelopeSerializer.Encoding.of(0, 0, new StringSerializer());
+    EnvelopeSerializer<String> gzip = new EnvelopeSerializer<>(string, Collections.emptyList(), null, CompressionCodec.gzip(),
+      CompressingSerializer.DEFAULT_THRESHOLD, CompressingSerializer.DEFAULT_MIN_SAVINGS);
+    EnvelopeSerializer<String> lz4 = new EnvelopeSerializer<>(string, Collections.emptyList(), null, CompressionCodec.lz4(),
+      CompressingSerializer.DEFAULT_THRESHOLD, CompressingSerializer.DEFAULT_MIN_SAVINGS);
+
+    byte[] bytes = gzip.serialize(COMPRESSIBLE);
+
+    assertEquals(CompressionCodec.gzip().getId(), bytes[2]);
+    assertEquals(COMPRESSIBLE, lz4.deserialize(bytes));
+    assertEquals(NoCompressionCodec.ID, gzip.serialize("small")[2]);
+  }
+
+  @Test
+  public void unknownEncodingsShouldFail() {
+    EnvelopeSerializer<Company> serializer = new EnvelopeSerializer<>(KRYO_V2, Collections.emptyList(), null);
+
+    assertThrows(SerializationException.class, () -> serializer.deserialize(new byte[]{(byte) 0xff, 9, 0, 0, 0, 1}));
+    assertThrows(SerializationException.class, () -> serializer.deserialize(new byte[]{(byte) 0xff, 3}));
+    assertThrows(SerializationException.class, () -> serializer.deserialize(new StringSerializer().serialize("unwrapped")));
+  }
+
+  @Test
+  public void duplicateEncodingsShouldBeRejected() {
+    assertThrows(IllegalArgumentException.class, () -> new EnvelopeSerializer<>(KRYO_V2,
+      Collections.singletonList(EnvelopeSerializer.Encoding.of(3, 2, new Jackson2JsonSerializer<>(Company.class))), null));
+  }
+}
@@ -16,9 +16,19 @@ package com.dasburo.spring.cache.dynamo.serializer;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.util.StreamUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 public class GZipSerializerTest {
 
@@ -38,4 +48,42 @@ public class GZipSerializerTest {
   public void testGZipSerializer_ShouldReturnNullWhenSerializingNull() {
     assertNull(serializer.deserialize(serializer.serialize(null)));
   }
+
+  @Test
+  public void testGZipSerializer_ShouldBeCompatibleWithGZipStreams() throws IOException {
+    String value = randomString(200000);
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (GZIPOutputStream zipOut = new GZIPOutputStream(out)) {
+      zipOut.write(value.getBytes(StandardCharsets.UTF_8));
+      zipOut.finish();
+      // a second member, only readable by GZIPInputStream
+      GZIPOutputStream secondMember = new GZIPOutputStream(out);
+      secondMember.write("second".getBytes(StandardCharsets.UTF_8));
+      secondMember.finish();
+    }
+    assertEquals(value + "second", serializer.deserialize(out.toByteArray()));
+
+    try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(serializer.serialize(value)))) {
+      assertEquals(value, new String(StreamUtils.copyToByteArray(in), StandardCharsets.UTF_8));
+    }
+  }
+
+  @Test
+  public void testGZipSerializer_ShouldFailOnCorruptData() {
+    byte[] bytes = serializer.serialize(randomString(1000));
+    bytes[bytes.length - 9] ^= 1;
+
+    assertThrows(SerializationException.class, () -> serializer.deserialize(bytes));
+    assertThrows(SerializationException.class, () -> serializer.deserialize(new byte[]{1, 2, 3}));
+  }
+
+  private static String randomString(int length) {
+    Random random = new Random();
+    StringBuilder builder = new StringBuilder(length);
+    for (int i = 0; i < length; i++) {
+      builder.append((char) ('a' + random.nextInt(8)));
+    }
+    return builder.toString();
+  }
 }
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dasburo.spring.cache.dynamo.serializer;
+
+import com.dasburo.spring.cache.dynamo.helper.Address;
+import com.dasburo.spring.cache.dynamo.helper.Company;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class JacksonSerializerTest {
+
+  private static final Company COMPANY = new Company("company", "IT", 2019, new Address("street", 1));
+
+  @Test
+  public void valuesShouldRoundTripInEveryFormat() {
+    for (JacksonSerializer.Format format : JacksonSerializer.Format.values()) {
+      for (boolean bytecodeGeneration : new boolean[]{false, true}) {
+        JacksonSerializer<Company> serializer = new JacksonSerializer<>(JacksonSerializer.objectMapper(format, bytecodeGeneration), Company.class);
+
+        assertEquals(COMPANY, serializer.deserialize(serializer.serialize(COMPANY)));
+        assertNull(serializer.serialize(null));
+        assertNull(serializer.deserialize(new byte[0]));
+        assertEquals(Company.class, serializer.getTargetType());
+      }
+    }
+  }
+
+  @Test
+  public void binaryFormatsShouldBeSmallerThanJson() {
+    int json = JacksonSerializer.json(Company.class).serialize(COMPANY).length;
+
+    assertTrue(JacksonSerializer.smile(Company.class).serialize(COMPANY).length < json);
+    assertTrue(JacksonSerializer.cbor(Company.class).serialize(COMPANY).length < json);
+  }
+
+  @Test
+  public void genericTypesShouldBeRead() {
+    ObjectMapper objectMapper = JacksonSerializer.objectMapper(JacksonSerializer.Format.SMILE, false);
+    JacksonSerializer<List<Company>> serializer = new JacksonSerializer<>(objectMapper,
+      objectMapper.getTypeFactory().constructCollectionType(List.class, Company.class));
+
+    List<Company> companies = Arrays.asList(COMPANY, new Company("other", "Retail", 1999));
+    assertEquals(companies, serializer.deserialize(serializer.serialize(companies)));
+  }
+
+  @Test
+  public void valuesShouldBeReadFromBufferViews() {
+    JacksonSerializer<Company> serializer = JacksonSerializer.smile(Company.class);
+    ByteBuffer buffer = ByteBuffer.wrap(serializer.serialize(COMPANY));
+
+    assertEquals(COMPANY, serializer.deserializeFromBuffer(buffer));
+    assertEquals(COMPANY, serializer.deserializeFromBuffer(buffer.asReadOnlyBuffer()));
+    assertEquals(0, buffer.position());
+    assertNull(serializer.deserializeFromBuffer(ByteBuffer.allocate(0)));
+  }
+
+  @Test
+  public void invalidDataShouldFail() {
+    JacksonSerializer<Company> serializer = JacksonSerializer.cbor(Company.class);
+
+    assertThrows(SerializationException.class, () -> serializer.deserialize(new byte[]{(byte) 0xff, 1, 2}));
+  }
+}
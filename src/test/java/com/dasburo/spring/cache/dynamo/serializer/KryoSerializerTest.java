@@ -0,0 +1,90 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dasburo.spring.cache.dynamo.serializer;
+
+import com.dasburo.spring.cache.dynamo.helper.Address;
+import com.dasburo.spring.cache.dynamo.helper.Company;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class KryoSerializerTest {
+
+  private static final Company COMPANY = new Company("company", "IT", 2019, new Address("street", 1));
+
+  @Test
+  public void valuesShouldRoundTrip() {
+    for (boolean compatible : new boolean[]{false, true}) {
+      KryoSerializer<Company> serializer = new KryoSerializer<>(Company.class, Arrays.asList(Company.class, Address.class), compatible);
+
+      assertEquals(COMPANY, serializer.deserialize(serializer.serialize(COMPANY)));
+      assertNull(serializer.serialize(null));
+      assertNull(serializer.deserialize(new byte[0]));
+      assertEquals(Company.class, serializer.getTargetType());
+    }
+  }
+
+  @Test
+  public void valuesShouldBeSmallerThanJavaSerialization() {
+    KryoSerializer<Company> serializer = new KryoSerializer<>(Company.class, Arrays.asList(Company.class, Address.class), false);
+    KryoSerializer<Company> compatibleSerializer = new KryoSerializer<>(Company.class, Arrays.asList(Company.class, Address.class), true);
+    int serializableLength = new SerializableSerializer().serialize(COMPANY).length;
+
+    assertTrue(serializer.serialize(COMPANY).length < serializableLength / 4);
+    assertTrue(compatibleSerializer.serialize(COMPANY).length < serializableLength / 2);
+  }
+
+  @Test
+  public void unregisteredClassesShouldFail() {
+    KryoSerializer<Company> writer = new KryoSerializer<>(Company.class);
+    KryoSerializer<Address> reader = new KryoSerializer<>(Address.class, Arrays.asList(Company.class, Address.class), false);
+
+    assertThrows(SerializationException.class, () -> writer.serialize(COMPANY));
+    byte[] bytes = writer.serialize(new Company("company", "IT", 2019));
+    assertThrows(SerializationException.class, () -> reader.deserialize(bytes));
+    assertThrows(SerializationException.class, () -> new KryoSerializer<>(Object.class, Collections.emptyList(), false).deserialize(bytes));
+  }
+
+  @Test
+  public void addedAndRemovedFieldsShouldBeCompatible() {
+    KryoSerializer<Company> companySerializer = new KryoSerializer<>(Company.class, Arrays.asList(Company.class, Address.class), true);
+    KryoSerializer<Branch> branchSerializer = new KryoSerializer<>(Branch.class, Collections.singletonList(Branch.class), true);
+
+    Branch branch = branchSerializer.deserialize(companySerializer.serialize(COMPANY));
+    assertEquals("company", branch.name);
+    assertEquals("IT", branch.industry);
+    assertNull(branch.manager);
+
+    branch.manager = "manager";
+    Company company = companySerializer.deserialize(branchSerializer.serialize(branch));
+    assertEquals("company", company.getName());
+    assertNull(company.getAddress());
+  }
+
+  /**
+   * {@link Company} without address and with an additional field, registered with the same id.
+   */
+  private static class Branch {
+    private String name;
+    private String industry;
+    private String manager;
+  }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dasburo.spring.cache.dynamo.serializer;
+
+import com.google.protobuf.ExtensionRegistryLite;
+import com.google.protobuf.ListValue;
+import com.google.protobuf.MessageLite;
+import com.google.protobuf.Struct;
+import com.google.protobuf.Timestamp;
+import com.google.protobuf.Value;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class ProtobufSerializerTest {
+
+  private static final Struct COMPANY = Struct.newBuilder()
+    .putFields("name", Value.newBuilder().setStringValue("company").build())
+    .putFields("industry", Value.newBuilder().setStringValue("IT").build())
+    .putFields("established", Value.newBuilder().setNumberValue(2019).build())
+    .putFields("locations", Value.newBuilder().setListValue(ListValue.newBuilder()
+      .addValues(Value.newBuilder().setStringValue("street 1"))).build())
+    .build();
+
+  @Test
+  public void messagesShouldRoundTrip() {
+    ProtobufSerializer<Struct> serializer = new ProtobufSerializer<>(Struct.class);
+
+    byte[] bytes = serializer.serialize(COMPANY);
+    assertEquals(COMPANY.getSerializedSize(), bytes.length);
+    assertEquals(COMPANY, serializer.deserialize(bytes));
+    assertNull(serializer.serialize(null));
+    assertNull(serializer.deserialize(null));
+    assertEquals(Struct.class, serializer.getTargetType());
+  }
+
+  @Test
+  public void emptyMessagesShouldRoundTrip() {
+    ProtobufSerializer<Timestamp> serializer = new ProtobufSerializer<>(Timestamp.getDefaultInstance(), ExtensionRegistryLite.getEmptyRegistry());
+
+    byte[] bytes = serializer.serialize(Timestamp.getDefaultInstance());
+    assertEquals(0, bytes.length);
+    assertEquals(Timestamp.getDefaultInstance(), serializer.deserialize(bytes));
+  }
+
+  @Test
+  public void invalidDataShouldFail() {
+    ProtobufSerializer<Struct> serializer = new ProtobufSerializer<>(Struct.class);
+
+    assertThrows(SerializationException.class, () -> serializer.deserialize(new byte[]{(byte) 0xff, (byte) 0xff, 1}));
+  }
+
+  @Test
+  public void nonGeneratedTypesShouldBeRejected() {
+    assertThrows(IllegalArgumentException.class, () -> new ProtobufSerializer<>(MessageLite.class));
+  }
+}
@@ -16,6 +16,11 @@ package com.dasburo.spring.cache.dynamo.serializer;
 
 import org.junit.jupiter.api.Test;
 
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class SerializationUtilsTest {
@@ -30,4 +35,19 @@ public class SerializationUtilsTest {
     assertTrue(SerializationUtils.isEmpty(new byte[0]));
   }
 
+  @Test
+  public void toByteArrayShouldNotCopyWholeArrays() {
+    byte[] bytes = {1, 2, 3, 4};
+
+    assertSame(bytes, SerializationUtils.toByteArray(ByteBuffer.wrap(bytes)));
+  }
+
+  @Test
+  public void toByteArrayShouldCopyRemainingBytesOfViews() {
+    ByteBuffer buffer = ByteBuffer.wrap(new byte[]{1, 2, 3, 4}, 1, 2).asReadOnlyBuffer();
+
+    assertArrayEquals(new byte[]{2, 3}, SerializationUtils.toByteArray(buffer));
+    assertEquals(1, buffer.position());
+  }
+
 }
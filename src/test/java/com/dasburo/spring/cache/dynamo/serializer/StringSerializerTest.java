@@ -17,6 +17,8 @@ package com.dasburo.spring.cache.dynamo.serializer;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.nio.ByteBuffer;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
 public class StringSerializerTest {
@@ -48,4 +50,12 @@ public class StringSerializerTest {
     assertEquals(expectedValue, actualValue);
   }
 
+  @Test
+  public void deserializeFromBuffer() {
+    ByteBuffer buffer = ByteBuffer.wrap("[test]".getBytes(), 1, 4);
+
+    assertEquals("test", serializer.deserializeFromBuffer(buffer));
+    assertEquals("test", serializer.deserializeFromBuffer(buffer.asReadOnlyBuffer()));
+    assertEquals(1, buffer.position());
+  }
 }
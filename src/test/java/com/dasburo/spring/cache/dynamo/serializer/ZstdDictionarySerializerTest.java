@@ -0,0 +1,172 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dasburo.spring.cache.dynamo.serializer;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ZstdDictionarySerializerTest {
+
+  private static final int SAMPLE_COUNT = 200;
+
+  private final Random random = new Random();
+  private InMemoryDictionaryStore store;
+
+  @BeforeEach
+  public void setup() {
+    store = new InMemoryDictionaryStore();
+  }
+
+  @Test
+  public void valuesShouldBeCompressedWithTrainedDictionary() throws InterruptedException {
+    ZstdDictionarySerializer<String> serializer = newSerializer(store);
+    String untrained = document();
+    byte[] fallback = serializer.serialize(untrained);
+    assertEquals(CompressionCodec.zstd().getId(), fallback[0]);
+
+    awaitDictionary(serializer);
+
+    String value = document();
+    byte[] bytes = serializer.serialize(value);
+    assertEquals(ZstdDictionarySerializer.ID, bytes[0]);
+    assertTrue(bytes.length * 2 < new CompressingSerializer<>(new StringSerializer(), CompressionCodec.zstd(), 0, 0).serialize(value).length);
+    assertEquals(value, serializer.deserialize(bytes));
+    assertEquals(untrained, serializer.deserialize(fallback));
+    assertNull(serializer.deserialize(serializer.serialize(null)));
+  }
+
+  @Test
+  public void otherNodesShouldUsePublishedDictionary() throws InterruptedException {
+    ZstdDictionarySerializer<String> writer = newSerializer(store);
+    awaitDictionary(writer);
+
+    ZstdDictionarySerializer<String> reader = newSerializer(store);
+    String value = document();
+    assertEquals(value, reader.deserialize(writer.serialize(value)));
+
+    awaitDictionary(reader);
+    byte[] bytes = reader.serialize(value);
+    assertEquals(ZstdDictionarySerializer.ID, bytes[0]);
+    assertEquals(writer.getDictionaryId(), reader.getDictionaryId());
+    assertEquals(value, writer.deserialize(bytes));
+  }
+
+  @Test
+  public void retrainShouldKeepPreviousValuesReadable() throws InterruptedException {
+    ZstdDictionarySerializer<String> serializer = newSerializer(store);
+    awaitDictionary(serializer);
+    Integer previousId = serializer.getDictionaryId();
+    String value = document();
+    byte[] bytes = serializer.serialize(value);
+
+    serializer.retrain();
+    for (int i = 0; i < 100 * SAMPLE_COUNT && previousId.equals(serializer.getDictionaryId()); i++) {
+      serializer.serialize(document());
+      Thread.sleep(i % SAMPLE_COUNT == 0 ? 10 : 0);
+    }
+
+    assertNotEquals(previousId, serializer.getDictionaryId());
+    assertEquals(2, store.current().getVersion());
+    assertEquals(value, newSerializer(store).deserialize(bytes));
+  }
+
+  @Test
+  public void unknownDictionaryShouldFail() throws InterruptedException {
+    ZstdDictionarySerializer<String> serializer = newSerializer(store);
+    awaitDictionary(serializer);
+    byte[] bytes = serializer.serialize(document());
+
+    ZstdDictionarySerializer<String> reader = newSerializer(new InMemoryDictionaryStore());
+    assertThrows(SerializationException.class, () -> reader.deserialize(bytes));
+  }
+
+  @Test
+  public void missingDictionaryShouldNotBeReadAgainWithinRefreshInterval() throws InterruptedException {
+    ZstdDictionarySerializer<String> serializer = newSerializer(store);
+    awaitDictionary(serializer);
+    byte[] bytes = serializer.serialize(document());
+
+    InMemoryDictionaryStore readerStore = new InMemoryDictionaryStore();
+    ZstdDictionarySerializer<String> reader = new ZstdDictionarySerializer<>(new StringSerializer(), readerStore, 0, 0,
+      CompressionCodec.ZSTD_DEFAULT_LEVEL, SAMPLE_COUNT, 4096, Duration.ofMinutes(1));
+    assertThrows(SerializationException.class, () -> reader.deserialize(bytes));
+    assertThrows(SerializationException.class, () -> reader.deserialize(bytes));
+    assertEquals(1, readerStore.gets.get());
+  }
+
+  private ZstdDictionarySerializer<String> newSerializer(DictionaryStore dictionaryStore) {
+    return new ZstdDictionarySerializer<>(new StringSerializer(), dictionaryStore, 0, 0, CompressionCodec.ZSTD_DEFAULT_LEVEL,
+      SAMPLE_COUNT, 4096, Duration.ZERO);
+  }
+
+  private void awaitDictionary(ZstdDictionarySerializer<String> serializer) throws InterruptedException {
+    for (int i = 0; i < 100 * SAMPLE_COUNT && serializer.getDictionaryId() == null; i++) {
+      serializer.serialize(document());
+      Thread.sleep(i % SAMPLE_COUNT == 0 ? 10 : 0);
+    }
+    assertNotNull(serializer.getDictionaryId());
+  }
+
+  private String document() {
+    return String.format("{\"id\":\"%s\",\"customer\":{\"name\":\"customer-%d\",\"email\":\"customer-%d@example.com\","
+        + "\"address\":{\"street\":\"Main Street %d\",\"city\":\"City %d\",\"zip\":\"%05d\",\"country\":\"DE\"}},"
+        + "\"status\":\"%s\",\"items\":[{\"sku\":\"SKU-%d\",\"quantity\":%d,\"price\":%d.%02d},"
+        + "{\"sku\":\"SKU-%d\",\"quantity\":%d,\"price\":%d.%02d}],\"createdAt\":\"2022-0%d-1%dT10:%02d:00Z\"}",
+      Long.toHexString(random.nextLong()), random.nextInt(100000), random.nextInt(100000), random.nextInt(200),
+      random.nextInt(50), random.nextInt(100000), random.nextBoolean() ? "SHIPPED" : "PENDING", random.nextInt(1000),
+      random.nextInt(10), random.nextInt(500), random.nextInt(100), random.nextInt(1000), random.nextInt(10),
+      random.nextInt(500), random.nextInt(100), 1 + random.nextInt(9), random.nextInt(10), random.nextInt(60));
+  }
+
+  private static class InMemoryDictionaryStore implements DictionaryStore {
+
+    private final Map<Integer, byte[]> dictionaries = new ConcurrentHashMap<>();
+    private final AtomicInteger gets = new AtomicInteger();
+    private volatile CurrentDictionary current;
+
+    @Override
+    public CurrentDictionary current() {
+      return current;
+    }
+
+    @Override
+    public byte[] get(int id) {
+      gets.incrementAndGet();
+      return dictionaries.get(id);
+    }
+
+    @Override
+    public synchronized CurrentDictionary publish(CurrentDictionary previous, int id, byte[] dictionary) {
+      dictionaries.put(id, dictionary);
+      if ((previous == null && current == null) || (previous != null && current != null && previous.getVersion() == current.getVersion())) {
+        current = new CurrentDictionary(previous != null ? previous.getVersion() + 1 : 1, id);
+      }
+      return current;
+    }
+  }
+}